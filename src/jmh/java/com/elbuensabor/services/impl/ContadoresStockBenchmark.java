@@ -0,0 +1,78 @@
+package com.elbuensabor.services.impl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserva y liberación de ContadoresStock con 8 hilos pidiendo los mismos insumos
+ * (pan, queso y medallón de los productos más vendidos). "insumosCalientes" es cuántos
+ * insumos distintos se reparten los pedidos: con 3 todos compiten por los mismos contadores.
+ *
+ * ./gradlew jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ContadoresStockBenchmark {
+
+    // Cada pedido usa 3 insumos de los calientes
+    private static final int INSUMOS_POR_PEDIDO = 3;
+
+    @Param({"3", "12", "48"})
+    int insumosCalientes;
+
+    private final ContadoresStock contadores = new ContadoresStock();
+    private Map<Long, Integer>[] pedidos;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void cargar() {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (long id = 1; id <= insumosCalientes; id++) {
+            stock.put(id, 1_000_000);
+        }
+        contadores.cargar(stock);
+
+        pedidos = new Map[insumosCalientes];
+        for (int i = 0; i < insumosCalientes; i++) {
+            Map<Long, Integer> consumo = new TreeMap<>();
+            for (int j = 0; j < INSUMOS_POR_PEDIDO; j++) {
+                consumo.put((long) ((i + j) % insumosCalientes) + 1, 2);
+            }
+            pedidos[i] = consumo;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Hilo {
+        int siguiente;
+    }
+
+    @Benchmark
+    public boolean reservarYLiberar(Hilo hilo) {
+        Map<Long, Integer> consumo = pedidos[hilo.siguiente++ % pedidos.length];
+        boolean reservado = contadores.reservar(consumo);
+        contadores.liberar(consumo);
+        return reservado;
+    }
+}
@@ -0,0 +1,86 @@
+package com.elbuensabor.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors de la aplicación, en los dos modos de hilos soportados.
+ *
+ * - spring.threads.virtual.enabled=false (por defecto): pools de hilos de plataforma.
+ * - spring.threads.virtual.enabled=true: Tomcat, @Async, canales STOMP y eventos de pedido
+ *   corren en hilos virtuales, así las llamadas bloqueantes (JDBC, MercadoPago, Auth0, SMTP)
+ *   no agotan un pool fijo de workers.
+ *
+ * Se declara applicationTaskExecutor explícitamente porque, al existir el executor de eventos,
+ * Spring Boot no crea el suyo; lo usan @Async, MVC asíncrono y los canales de WebSocket.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String EXECUTOR_EVENTOS_PEDIDO = "eventosPedidoExecutor";
+
+    // ==================== EXECUTOR GENERAL ====================
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor applicationTaskExecutorVirtual(SimpleAsyncTaskExecutorBuilder builder) {
+        // El builder de Boot ya viene con hilos virtuales en este modo
+        return builder.build();
+    }
+
+    // ==================== EVENTOS DE PEDIDO ====================
+
+    /**
+     * Executor acotado para los listeners de eventos de pedido (facturación y notificaciones).
+     * Si la cola se llena, la tarea corre en el hilo que publicó el evento (ya fuera de la
+     * transacción), así no se pierden facturas ni notificaciones bajo picos de carga.
+     */
+    @Bean(name = EXECUTOR_EVENTOS_PEDIDO)
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor eventosPedidoExecutor(
+            @Value("${eventos.pedido.pool-size:4}") int poolSize,
+            @Value("${eventos.pedido.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("eventos-pedido-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * En modo virtual cada evento tiene su hilo; el límite de concurrencia frena al publicador
+     * cuando hay demasiados en curso (mismo efecto que la cola acotada del modo plataforma).
+     */
+    @Bean(name = EXECUTOR_EVENTOS_PEDIDO)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor eventosPedidoExecutorVirtual(
+            @Value("${eventos.pedido.max-concurrencia-virtual:200}") int maxConcurrencia) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("eventos-pedido-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(maxConcurrencia);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
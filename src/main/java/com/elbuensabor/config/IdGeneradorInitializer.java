@@ -0,0 +1,66 @@
+package com.elbuensabor.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pedido, DetallePedido, Factura y Pago toman sus IDs de la tabla id_generador en bloques de
+ * BLOQUE_IDS (optimizador pooled de Hibernate), así los INSERT se pueden mandar en batch;
+ * con IDENTITY cada fila era un round trip.
+ *
+ * Antes de atender requests deja cada contador por encima del MAX(id) existente: las bases que
+ * venían de IDENTITY ya tienen filas, y con pooled el primer bloque es (valor - BLOQUE_IDS, valor].
+ */
+@Component
+public class IdGeneradorInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneradorInitializer.class);
+
+    public static final String TABLA = "id_generador";
+    public static final int BLOQUE_IDS = 50;
+
+    // entidad (pkColumnValue), tabla, columna id
+    private static final String[][] ENTIDADES = {
+            {"pedido", "pedido", "id_pedido"},
+            {"detalle_pedido", "detalle_pedido", "id_detalle_pedido"},
+            {"factura", "factura", "id_factura"},
+            {"pago", "pagos", "id_pago"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // El EntityManagerFactory asegura que Hibernate ya creó/actualizó las tablas
+    public IdGeneradorInitializer(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void sincronizarContadores() {
+        for (String[] entidad : ENTIDADES) {
+            long minimo = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(" + entidad[2] + "), 0) FROM " + entidad[1], Long.class) + BLOQUE_IDS;
+
+            int actualizadas = jdbcTemplate.update(
+                    "UPDATE " + TABLA + " SET siguiente_valor = ? WHERE entidad = ? AND siguiente_valor < ?",
+                    minimo, entidad[0], minimo);
+            if (actualizadas == 0 && !existe(entidad[0])) {
+                try {
+                    jdbcTemplate.update("INSERT INTO " + TABLA + " (entidad, siguiente_valor) VALUES (?, ?)", entidad[0], minimo);
+                } catch (DuplicateKeyException e) {
+                    // Otra instancia lo creó al mismo tiempo
+                }
+            }
+            logger.debug("🔢 Generador de IDs '{}' sincronizado (mínimo {})", entidad[0], minimo);
+        }
+    }
+
+    private boolean existe(String entidad) {
+        Integer filas = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLA + " WHERE entidad = ?", Integer.class, entidad);
+        return filas != null && filas > 0;
+    }
+}
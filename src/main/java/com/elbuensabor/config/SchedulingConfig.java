@@ -0,0 +1,12 @@
+package com.elbuensabor.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Tareas periódicas (@Scheduled), por ejemplo el recálculo de horas estimadas de EstimacionEntregaService.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -64,7 +64,8 @@ public class SecurityConfig {
                                     "/stomp/**",
                                     "/topic/**",
                                     "/queue/**",
-                                    "/app/**"
+                                    "/app/**",
+                                    "/actuator/health"
                             ).permitAll()
                             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
@@ -74,6 +75,7 @@ public class SecurityConfig {
                             .requestMatchers("/api/admin/**").hasRole("ADMIN")
                             .requestMatchers("/api/usuarios/**").hasRole("ADMIN")
                             .requestMatchers("/api/estadisticas/**").hasRole("ADMIN") // ← AGREGADA ESTA LÍNEA
+                            .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                             // Endpoints autenticados
                             .requestMatchers(
@@ -2,9 +2,13 @@ package com.elbuensabor.controllers;
 
 import com.elbuensabor.dto.request.ArticuloInsumoRequestDTO;
 import com.elbuensabor.dto.response.ArticuloInsumoResponseDTO;
+import com.elbuensabor.dto.response.CostoInsumoResponseDTO;
+import com.elbuensabor.dto.response.InventarioStockResponseDTO;
+import com.elbuensabor.dto.response.MovimientoStockResponseDTO;
 import com.elbuensabor.services.IArticuloInsumoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize; // <-- 1. IMPORTA LA ANOTACIÓN
@@ -13,6 +17,11 @@ import org.springframework.web.bind.annotation.*;
 import com.elbuensabor.entities.Imagen;
 import com.elbuensabor.services.IImagenService;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -149,6 +158,47 @@ public class ArticuloInsumoController {
         return ResponseEntity.ok(articuloActualizado);
     }
 
+    /**
+     * Conteo físico de inventario: CSV (idInsumo,stock) o JSON por línea, leído a medida que llega.
+     * Ej: curl -X POST -H "Content-Type: text/csv" --data-binary @conteo.csv /api/articulos-insumo/stock/inventario
+     */
+    @PostMapping(value = "/stock/inventario", consumes = {"text/csv", "text/plain", "application/x-ndjson", "application/jsonl"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<InventarioStockResponseDTO> importarInventario(
+            @RequestHeader("Content-Type") String contentType,
+            InputStream contenido) throws IOException {
+        boolean jsonPorLinea = contentType.contains("ndjson") || contentType.contains("jsonl");
+        return ResponseEntity.ok(articuloInsumoService.importarInventario(
+                new InputStreamReader(contenido, StandardCharsets.UTF_8), jsonPorLinea));
+    }
+
+    // Movimientos del libro de stock en [desde, hasta); por defecto los últimos 7 días
+    @GetMapping("/{id}/stock/movimientos")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COCINERO')")
+    public ResponseEntity<List<MovimientoStockResponseDTO>> getMovimientosStock(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(7);
+        return ResponseEntity.ok(articuloInsumoService.findMovimientosStock(id, inicio, fin));
+    }
+
+    @GetMapping("/{id}/stock/historico")
+    @PreAuthorize("hasAnyRole('ADMIN', 'COCINERO')")
+    public ResponseEntity<Integer> getStockEnFecha(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return ResponseEntity.ok(articuloInsumoService.calcularStockEn(id, fecha));
+    }
+
+    // Costo promedio ponderado y últimas compras, sin recorrer el historial de compras
+    @GetMapping("/{id}/costo")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CostoInsumoResponseDTO> getCosto(@PathVariable Long id) {
+        return ResponseEntity.ok(articuloInsumoService.getCosto(id));
+    }
+
     // ==================== ENDPOINTS DE VALIDACIÓN E INFORMACIÓN ====================
 
     @GetMapping("/exists")
@@ -2,12 +2,17 @@ package com.elbuensabor.controllers;
 
 import com.elbuensabor.dto.request.CompraInsumoRequestDTO;
 import com.elbuensabor.dto.response.CompraInsumoResponseDTO;
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO;
 import com.elbuensabor.services.CompraInsumoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import com.elbuensabor.entities.CompraInsumo;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +29,17 @@ public class CompraInsumoController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Remito de proveedor completo: arreglo JSON de compras o una compra JSON por línea, leído a medida que llega.
+     * Ej: curl -X POST -H "Content-Type: application/json" --data-binary @remito.json /api/compras-insumo/remito
+     */
+    @PostMapping(value = "/remito", consumes = {"application/json", "application/x-ndjson", "application/jsonl"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RemitoCompraResponseDTO> registrarRemito(InputStream contenido) {
+        return ResponseEntity.ok(compraInsumoService.registrarRemito(
+                new InputStreamReader(contenido, StandardCharsets.UTF_8)));
+    }
+
     @GetMapping
     public ResponseEntity<List<CompraInsumoResponseDTO>> getAllCompras() {
         List<CompraInsumo> compras = compraInsumoService.getAllCompras();
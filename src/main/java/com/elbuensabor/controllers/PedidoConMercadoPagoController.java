@@ -2,6 +2,7 @@ package com.elbuensabor.controllers;
 
 import com.elbuensabor.dto.request.PedidoConMercadoPagoRequestDTO;
 import com.elbuensabor.dto.response.PedidoConMercadoPagoResponseDTO;
+import com.elbuensabor.services.impl.IdempotenciaService;
 import com.elbuensabor.services.impl.PedidoConMercadoPagoService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -22,6 +23,9 @@ public class PedidoConMercadoPagoController {
     @Autowired
     private PedidoConMercadoPagoService pedidoConMercadoPagoService;
 
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
     // ==================== ENDPOINT PRINCIPAL ====================
 
     /**
@@ -32,11 +36,18 @@ public class PedidoConMercadoPagoController {
      * - Genera factura automáticamente
      * - Crea preferencia de MercadoPago
      * - Devuelve todo en una respuesta unificada
+     * - Con header Idempotency-Key, un reintento devuelve la respuesta original sin crear otro pedido
      */
     @PostMapping("/crear")
     public ResponseEntity<PedidoConMercadoPagoResponseDTO> crearPedidoConMercadoPago(
-            @Valid @RequestBody PedidoConMercadoPagoRequestDTO request) {
+            @Valid @RequestBody PedidoConMercadoPagoRequestDTO request,
+            @RequestHeader(value = IdempotenciaService.HEADER_CLAVE, required = false) String idempotencyKey) {
+
+        return idempotenciaService.ejecutar("pedidos-mercadopago", idempotencyKey, request,
+                () -> crearPedidoConMercadoPagoUnaVez(request));
+    }
 
+    private ResponseEntity<PedidoConMercadoPagoResponseDTO> crearPedidoConMercadoPagoUnaVez(PedidoConMercadoPagoRequestDTO request) {
         try {
             logger.info("=== NUEVO PEDIDO CON MERCADOPAGO ===");
             logger.info("Cliente: {}, Tipo: {}, Items: {}",
@@ -1,16 +1,27 @@
 package com.elbuensabor.controllers;
 
 import com.elbuensabor.dto.request.PedidoRequestDTO;
+import com.elbuensabor.dto.request.TransicionLoteRequestDTO;
 import com.elbuensabor.dto.response.HorarioStatusResponseDTO;
+import com.elbuensabor.dto.response.PaginaPedidosDTO;
 import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.dto.response.TableroPedidosDTO;
+import com.elbuensabor.dto.response.TransicionLoteResponseDTO;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
 import com.elbuensabor.services.IHorarioService;
 import com.elbuensabor.services.IPedidoService;
+import com.elbuensabor.services.impl.CotizacionPedido;
+import com.elbuensabor.services.impl.CotizacionTokenService;
 import com.elbuensabor.services.impl.HorarioServiceImpl;
+import com.elbuensabor.services.impl.IdempotenciaService;
+import com.elbuensabor.services.impl.TransicionPedido;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +30,7 @@ import com.elbuensabor.services.impl.PromocionPedidoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,18 +42,24 @@ public class PedidoController {
     private final IPedidoService pedidoService;
     private final IHorarioService horarioService;
     private final PromocionPedidoService promocionPedidoService;
+    private final IdempotenciaService idempotenciaService;
+    private final CotizacionTokenService cotizacionTokenService;
     private static final Logger logger = LoggerFactory.getLogger(PedidoController.class);
 
     @Autowired
-    public PedidoController(IPedidoService pedidoService, IHorarioService horarioService, PromocionPedidoService promocionPedidoService) {
+    public PedidoController(IPedidoService pedidoService, IHorarioService horarioService, PromocionPedidoService promocionPedidoService,
+                            IdempotenciaService idempotenciaService, CotizacionTokenService cotizacionTokenService) {
         this.pedidoService = pedidoService;
         this.horarioService = horarioService;
         this.promocionPedidoService = promocionPedidoService; // NUEVO
+        this.idempotenciaService = idempotenciaService;
+        this.cotizacionTokenService = cotizacionTokenService;
     }
 
     // ==================== CREAR PEDIDO ====================
     @PostMapping
-    public ResponseEntity<?> crearPedido(@Valid @RequestBody PedidoRequestDTO pedidoRequest) {
+    public ResponseEntity<?> crearPedido(@Valid @RequestBody PedidoRequestDTO pedidoRequest,
+                                         @RequestHeader(value = IdempotenciaService.HEADER_CLAVE, required = false) String idempotencyKey) {
 
         // ✅ NUEVO: Log para debugging promociones
         System.out.println("🔍 REQUEST RECIBIDO:");
@@ -61,6 +79,12 @@ public class PedidoController {
             System.out.println("ℹ️ Sin promoción agrupada");
         }
 
+        // Un reintento con la misma Idempotency-Key devuelve el pedido ya creado
+        return idempotenciaService.ejecutar("pedidos", idempotencyKey, pedidoRequest,
+                () -> crearPedidoEnHorario(pedidoRequest));
+    }
+
+    private ResponseEntity<Object> crearPedidoEnHorario(PedidoRequestDTO pedidoRequest) {
         // El controlador ahora recibe un objeto de estado completo
         HorarioStatusResponseDTO estadoHorario = horarioService.getEstadoHorario();
 
@@ -92,6 +116,34 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
+    /**
+     * Listado paginado por cursor, más nuevos primero. Para la página siguiente se pasa el
+     * siguienteCursor de la respuesta; tamanio por defecto 20, máximo 100.
+     * Ej: /api/pedidos/pagina?estado=ENTREGADO&fechaDesde=2025-06-01&fechaHasta=2025-06-30&tamanio=50
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaPedidosDTO> getPaginaPedidos(
+            @RequestParam(required = false) Estado estado,
+            @RequestParam(required = false) TipoEnvio tipoEnvio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanio) {
+        return ResponseEntity.ok(pedidoService.findPagina(null, estado, tipoEnvio, fechaDesde, fechaHasta, cursor, tamanio));
+    }
+
+    @GetMapping("/cliente/{idCliente}/pagina")
+    public ResponseEntity<PaginaPedidosDTO> getPaginaPedidosByCliente(
+            @PathVariable Long idCliente,
+            @RequestParam(required = false) Estado estado,
+            @RequestParam(required = false) TipoEnvio tipoEnvio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaDesde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaHasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanio) {
+        return ResponseEntity.ok(pedidoService.findPagina(idCliente, estado, tipoEnvio, fechaDesde, fechaHasta, cursor, tamanio));
+    }
+
     // ==================== OPERACIONES DE ESTADO ====================
     @PutMapping("/{id}/confirmar")
     public ResponseEntity<PedidoResponseDTO> confirmarPedido(@PathVariable Long id) {
@@ -123,6 +175,17 @@ public class PedidoController {
         return ResponseEntity.ok(pedido);
     }
 
+    /**
+     * La misma transición para varios pedidos en una transacción (cocina marcando varios listos, por ejemplo).
+     * transicion: confirmar, preparacion, listo, entregado o cancelar. Devuelve el resultado de cada pedido.
+     * Ej: PUT /api/pedidos/lote/listo  { "idsPedidos": [12, 15, 18] }
+     */
+    @PutMapping("/lote/{transicion}")
+    public ResponseEntity<TransicionLoteResponseDTO> transicionarLote(@PathVariable String transicion,
+                                                                      @Valid @RequestBody TransicionLoteRequestDTO request) {
+        return ResponseEntity.ok(pedidoService.transicionarLote(TransicionPedido.desdeRuta(transicion), request.getIdsPedidos()));
+    }
+
     // ==================== VALIDACIONES PREVIAS - PRIMERO ====================
     @PostMapping("/validar")
     public ResponseEntity<Boolean> validarPedido(@Valid @RequestBody PedidoRequestDTO pedidoRequest) {
@@ -205,6 +268,19 @@ public class PedidoController {
         return ResponseEntity.ok(pedidos);
     }
 
+    /**
+     * Tablero de pedidos activos (PENDIENTE, PREPARACION y LISTO), servido desde memoria.
+     * Sin desdeVersion devuelve el tablero completo; con la versión de la respuesta anterior
+     * devuelve solo los pedidos que cambiaron y los que salieron del filtro.
+     * Ej: /api/pedidos/tablero?estado=LISTO&tipoEnvio=DELIVERY&desdeVersion=1718000000123
+     */
+    @GetMapping("/tablero")
+    public ResponseEntity<TableroPedidosDTO> getTablero(@RequestParam(required = false) Long desdeVersion,
+                                                        @RequestParam(required = false) Estado estado,
+                                                        @RequestParam(required = false) TipoEnvio tipoEnvio) {
+        return ResponseEntity.ok(pedidoService.getTablero(desdeVersion, estado, tipoEnvio));
+    }
+
     /**
      * Obtiene todos los pedidos listos (para vista de cocina)
      */
@@ -307,6 +383,11 @@ public class PedidoController {
 
             preview.setDetalles(detallesPreview);
 
+            // Cotización firmada para reutilizar al confirmar el pedido (tokenCotizacion en el request)
+            CotizacionPedido cotizacion = pedidoService.cotizarPedido(pedidoRequest);
+            preview.setTokenCotizacion(cotizacionTokenService.emitir(pedidoRequest, cotizacion));
+            preview.setTotalCotizado(cotizacion.getTotal());
+
             return ResponseEntity.ok(preview);
 
         } catch (Exception e) {
@@ -330,6 +411,8 @@ public class PedidoController {
         private String tipoEnvio;             // DELIVERY o TAKE_AWAY
         private String resumenPromociones;    // Resumen de promociones aplicadas
         private List<DetallePreviewDTO> detalles; // Detalles con promociones
+        private String tokenCotizacion;       // Cotización firmada para enviar al crear el pedido
+        private Double totalCotizado;         // Total que cobra el pedido (con descuento TAKE_AWAY y agrupada)
 
         @Data
         @NoArgsConstructor
@@ -0,0 +1,36 @@
+package com.elbuensabor.dto.proyeccion;
+
+import com.elbuensabor.entities.TipoDescuento;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Línea de pedido para listados (IDetallePedidoRepository.SELECT_LINEAS_LISTADO): detalle,
+ * artículo, unidad de medida y promoción aplicada en una sola fila, sin cargar entidades.
+ */
+@Getter
+@AllArgsConstructor
+public class DetallePedidoListadoProyeccion {
+    private Long idPedido;
+    private Long idDetallePedido;
+
+    private Long idArticulo;
+    private String denominacionArticulo;
+    private Double precioVenta;
+    private String unidadMedida;
+    private Long idManufacturado;          // Null si el artículo es un insumo
+    private Integer tiempoEstimadoEnMinutos;
+
+    private Integer cantidad;
+    private Double subtotal;
+    private String observaciones;
+    private Double precioUnitarioOriginal;
+    private Double descuentoPromocion;
+
+    // Null si no tiene promoción aplicada
+    private Long idPromocion;
+    private String denominacionPromocion;
+    private String descripcionDescuento;
+    private TipoDescuento tipoDescuento;
+    private Double valorDescuento;
+}
@@ -0,0 +1,38 @@
+package com.elbuensabor.dto.proyeccion;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Cabecera de pedido para listados (IPedidoRepository.SELECT_LISTADO): pedido, cliente y domicilio
+ * en una sola fila, sin cargar entidades.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidoListadoProyeccion {
+    private Long idPedido;
+    private LocalDateTime fecha;
+    private LocalTime horaEstimadaFinalizacion;
+    private Double total;
+    private Estado estado;
+    private TipoEnvio tipoEnvio;
+    private String observaciones;
+
+    private Long idCliente;
+    private String nombreCliente;
+    private String apellidoCliente;
+    private String telefonoCliente;
+
+    // Null si es take away
+    private Long idDomicilio;
+    private String calle;
+    private Integer numero;
+    private Integer cp;
+    private String localidad;
+    private Boolean esPrincipal;
+}
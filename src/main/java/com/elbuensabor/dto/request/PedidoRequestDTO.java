@@ -35,4 +35,7 @@ public class PedidoRequestDTO {
     // ✅ NUEVO: Promoción agrupada aplicada
     @Valid
     private PromocionAgrupadaDTO promocionAgrupada;
+
+    // Token de cotización devuelto por /api/pedidos/preview-carrito (opcional)
+    private String tokenCotizacion;
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.elbuensabor.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TransicionLoteRequestDTO {
+    @NotEmpty(message = "Debe indicar al menos un pedido")
+    private List<Long> idsPedidos;
+}
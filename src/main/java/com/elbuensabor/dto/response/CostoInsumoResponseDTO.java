@@ -0,0 +1,29 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CostoInsumoResponseDTO {
+    private Long idInsumo;
+    private Double precioCompra;               // Precio de la última compra
+    private Double costoPromedio;              // Promedio ponderado del stock (el que usan los costos de pedido)
+    private Double promedioUltimasCompras;     // Promedio ponderado por cantidad de ultimasCompras (null si no hay)
+    private List<CompraDTO> ultimasCompras;    // Las más recientes primero
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CompraDTO {
+        private Long idCompra;
+        private LocalDate fechaCompra;
+        private Double cantidad;
+        private Double precioUnitario;
+    }
+}
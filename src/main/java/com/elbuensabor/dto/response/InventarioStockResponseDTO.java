@@ -0,0 +1,29 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventarioStockResponseDTO {
+    private int filas;                         // Filas de datos leídas (sin encabezado ni líneas vacías)
+    private int aplicadas;
+    private int fallidas;
+    private List<ResultadoFilaDTO> resultados; // Uno por fila, en el orden del archivo
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoFilaDTO {
+        private int linea;
+        private Long idInsumo;
+        private boolean exito;
+        private Integer stockAnterior;
+        private Integer stockNuevo;
+        private String error;                  // Motivo del rechazo (null si exito)
+    }
+}
@@ -0,0 +1,19 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoStockResponseDTO {
+    private Long idMovimiento;
+    private Long idInsumo;
+    private String tipo;
+    private Integer cantidad;
+    private Long idPedido;
+    private LocalDateTime fecha;
+}
@@ -0,0 +1,17 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaPedidosDTO {
+    private List<PedidoResponseDTO> pedidos;   // Más nuevos primero (fecha e idPedido descendentes)
+    private String siguienteCursor;            // Pasar como "cursor" para la página siguiente; null si no hay más
+    private boolean hayMas;
+    private int tamanio;                       // Tamaño de página aplicado (puede ser menor al pedido)
+}
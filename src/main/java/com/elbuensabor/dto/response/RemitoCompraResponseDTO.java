@@ -0,0 +1,29 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RemitoCompraResponseDTO {
+    private int items;                         // Ítems leídos del remito
+    private int registradas;                   // Compras insertadas
+    private int fallidas;
+    private int insumos;                       // Insumos distintos con stock y precio actualizados
+    private int productosRecalculados;         // Manufacturados con precio de venta recalculado
+    private List<ResultadoItemDTO> resultados; // Uno por ítem, en el orden del remito
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoItemDTO {
+        private int item;                      // Posición en el remito, desde 1
+        private Long idInsumo;
+        private boolean exito;
+        private String error;                  // Motivo del rechazo (null si exito)
+    }
+}
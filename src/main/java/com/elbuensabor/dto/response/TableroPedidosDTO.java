@@ -0,0 +1,17 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableroPedidosDTO {
+    private long version;                  // Enviar como desdeVersion en la próxima consulta
+    private boolean completo;              // true: "pedidos" es el tablero entero y reemplaza lo que tenga el cliente
+    private List<PedidoResponseDTO> pedidos;   // Pedidos nuevos o modificados (o todos, si completo)
+    private List<Long> eliminados;         // Pedidos que salieron del tablero (o del filtro) desde desdeVersion
+}
@@ -0,0 +1,27 @@
+package com.elbuensabor.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransicionLoteResponseDTO {
+    private String estadoDestino;
+    private int exitosos;                      // Cambiados o que ya estaban en el estado destino
+    private int fallidos;
+    private List<ResultadoPedidoDTO> resultados;   // Uno por pedido, en el orden pedido
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResultadoPedidoDTO {
+        private Long idPedido;
+        private boolean exito;
+        private String error;                  // Motivo del rechazo (null si exito)
+        private PedidoResponseDTO pedido;      // Pedido actualizado (null si falló)
+    }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 
 @Entity
 @Inheritance(strategy = InheritanceType.JOINED)
+@EntityListeners(CatalogoEntityListener.class)
 @Table(name = "articulo")
 @Data
 @NoArgsConstructor
@@ -17,6 +17,10 @@ public class ArticuloInsumo extends Articulo{
     @Column(name = "precio_compra", nullable = false)
     private Double precioCompra;
 
+    // Costo promedio ponderado del stock; null hasta la primera compra (vale precioCompra)
+    @Column(name = "costo_promedio")
+    private Double costoPromedio;
+
     @Column(name = "stock_actual", nullable = false)
     private Integer stockActual;
 
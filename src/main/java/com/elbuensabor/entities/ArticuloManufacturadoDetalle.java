@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name="manufacturado_detalle")
+@EntityListeners(CatalogoEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
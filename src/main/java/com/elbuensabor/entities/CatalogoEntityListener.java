@@ -0,0 +1,25 @@
+package com.elbuensabor.entities;
+
+import com.elbuensabor.services.impl.VersionCatalogoService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Invalida las cotizaciones firmadas cuando cambia algo que interviene en el precio de un pedido:
+ * artículos (precio de venta, costo, tiempo), recetas y promociones.
+ * Hibernate lo obtiene del contexto de Spring, por eso puede inyectar el servicio.
+ */
+public class CatalogoEntityListener {
+
+    @Autowired
+    private VersionCatalogoService versionCatalogoService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void catalogoModificado(Object entidad) {
+        versionCatalogoService.incrementar();
+    }
+}
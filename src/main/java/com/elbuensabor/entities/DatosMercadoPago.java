@@ -8,7 +8,9 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "datos_mercado_pago")
+@Table(name = "datos_mercado_pago", indexes = {
+        @Index(name = "idx_datos_mp_status_aprobacion", columnList = "status, date_approved")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
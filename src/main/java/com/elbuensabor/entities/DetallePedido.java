@@ -1,18 +1,23 @@
 package com.elbuensabor.entities;
 
+import com.elbuensabor.config.IdGeneradorInitializer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name="detalle_pedido")
+@Table(name="detalle_pedido", indexes = {
+        @Index(name = "idx_detalle_pedido_pedido", columnList = "id_pedido")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class DetallePedido {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "detalle_pedido_gen")
+    @TableGenerator(name = "detalle_pedido_gen", table = IdGeneradorInitializer.TABLA, pkColumnName = "entidad",
+            valueColumnName = "siguiente_valor", pkColumnValue = "detalle_pedido", allocationSize = IdGeneradorInitializer.BLOQUE_IDS)
     @Column(name = "id_detalle_pedido")
     private Long idDetallePedido;
 
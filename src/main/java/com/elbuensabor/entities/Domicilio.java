@@ -9,7 +9,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name="domicilio")
+@Table(name="domicilio", indexes = {
+        @Index(name = "idx_domicilio_cliente_principal", columnList = "id_cliente, es_principal")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
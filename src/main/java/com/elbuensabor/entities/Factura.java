@@ -1,6 +1,7 @@
 package com.elbuensabor.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.elbuensabor.config.IdGeneradorInitializer;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -12,14 +13,19 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "factura")
+@Table(name = "factura", indexes = {
+        @Index(name = "idx_factura_fecha", columnList = "fecha_factura"),
+        @Index(name = "idx_factura_pedido", columnList = "id_pedido")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Factura {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "factura_gen")
+    @TableGenerator(name = "factura_gen", table = IdGeneradorInitializer.TABLA, pkColumnName = "entidad",
+            valueColumnName = "siguiente_valor", pkColumnValue = "factura", allocationSize = IdGeneradorInitializer.BLOQUE_IDS)
     @Column(name = "id_factura")
     private Long idFactura;
 
@@ -0,0 +1,46 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Libro de movimientos de stock: una fila por variación de un insumo (MovimientoStockService).
+ * Cada movimiento se registra en la misma transacción que suma su cantidad en stock_actual.
+ */
+@Entity
+@Table(name = "movimiento_stock", indexes = {
+        @Index(name = "idx_movimiento_insumo_fecha", columnList = "id_insumo, fecha"),
+        @Index(name = "idx_movimiento_pedido", columnList = "id_pedido, tipo")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_movimiento")
+    private Long idMovimiento;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_insumo", nullable = false)
+    private ArticuloInsumo insumo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private TipoMovimientoStock tipo;
+
+    // Variación con signo (negativa en los consumos)
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "id_pedido")
+    private Long idPedido;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+}
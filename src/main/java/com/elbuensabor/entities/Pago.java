@@ -1,6 +1,7 @@
 package com.elbuensabor.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.elbuensabor.config.IdGeneradorInitializer;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,14 +11,20 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pagos")
+@Table(name = "pagos", indexes = {
+        @Index(name = "idx_pago_estado_fecha", columnList = "estado, fecha_creacion"),
+        @Index(name = "idx_pago_factura_estado", columnList = "id_factura, estado"),
+        @Index(name = "idx_pago_preference", columnList = "mercado_pago_preference_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Pago {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pago_gen")
+    @TableGenerator(name = "pago_gen", table = IdGeneradorInitializer.TABLA, pkColumnName = "entidad",
+            valueColumnName = "siguiente_valor", pkColumnValue = "pago", allocationSize = IdGeneradorInitializer.BLOQUE_IDS)
     @Column(name = "id_pago")
     private Long idPago;
 
@@ -1,6 +1,7 @@
 package com.elbuensabor.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.elbuensabor.config.IdGeneradorInitializer;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,14 +14,21 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "pedido")
+// Índices de las consultas de IPedidoRepository: tablero por estado, historial del cliente y rangos de fecha / keyset
+@Table(name = "pedido", indexes = {
+        @Index(name = "idx_pedido_estado_fecha", columnList = "estado, fecha"),
+        @Index(name = "idx_pedido_cliente_fecha", columnList = "id_cliente, fecha"),
+        @Index(name = "idx_pedido_fecha", columnList = "fecha, id_pedido")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Pedido {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "pedido_gen")
+    @TableGenerator(name = "pedido_gen", table = IdGeneradorInitializer.TABLA, pkColumnName = "entidad",
+            valueColumnName = "siguiente_valor", pkColumnValue = "pedido", allocationSize = IdGeneradorInitializer.BLOQUE_IDS)
     @Column(name = "id_pedido")
     private Long idPedido;
 
@@ -44,6 +52,11 @@ public class Pedido {
     @Column(name = "tipo_envio", nullable = false)
     private TipoEnvio tipoEnvio;
 
+    // Control de concurrencia optimista: cada cambio de estado verifica y aumenta la versión
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     // ✅ NUEVO CAMPO: Observaciones generales del pedido
     @Column(name = "observaciones", columnDefinition = "TEXT")
     private String observaciones;
@@ -12,7 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "promocion")
+@Table(name = "promocion", indexes = {
+        @Index(name = "idx_promocion_vigencia", columnList = "activo, fecha_desde, fecha_hasta")
+})
+@EntityListeners(CatalogoEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,37 @@
+package com.elbuensabor.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un insumo en un instante, calculado desde el libro de movimientos. El stock en
+ * cualquier fecha sale de la foto anterior más los movimientos posteriores a ella.
+ */
+@Entity
+@Table(name = "snapshot_stock", indexes = {
+        @Index(name = "idx_snapshot_insumo_fecha", columnList = "id_insumo, fecha")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnapshotStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_snapshot")
+    private Long idSnapshot;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "id_insumo", nullable = false)
+    private ArticuloInsumo insumo;
+
+    @Column(nullable = false)
+    private Integer stock;
+
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+}
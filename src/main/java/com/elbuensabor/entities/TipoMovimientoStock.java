@@ -0,0 +1,8 @@
+package com.elbuensabor.entities;
+
+public enum TipoMovimientoStock {
+    CONSUMO_PEDIDO,      // negativo: el pedido pasa a preparación
+    RESTAURACION_PEDIDO, // positivo: se cancela un pedido que ya había descontado
+    COMPRA,              // positivo: compra de insumos
+    AJUSTE_MANUAL        // alta del insumo y correcciones desde administración
+}
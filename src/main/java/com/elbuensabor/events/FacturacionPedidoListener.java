@@ -0,0 +1,40 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.config.AsyncConfig;
+import com.elbuensabor.services.IPedidoService;
+import com.elbuensabor.services.impl.MetricasPedidoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Genera la factura de cada pedido nuevo una vez confirmada la transacción del pedido.
+ */
+@Component
+public class FacturacionPedidoListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacturacionPedidoListener.class);
+
+    @Autowired
+    private IPedidoService pedidoService;
+
+    @Autowired
+    private MetricasPedidoService metricasPedidoService;
+
+    @Async(AsyncConfig.EXECUTOR_EVENTOS_PEDIDO)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPedidoCreado(PedidoCreadoEvent event) {
+        try {
+            metricasPedidoService.medir(MetricasPedidoService.PIPELINE_PEDIDO, "factura",
+                    () -> pedidoService.generarFacturaPedido(event.getIdPedido()));
+            logger.info("✅ Factura creada automáticamente para pedido ID: {}", event.getIdPedido());
+        } catch (Exception e) {
+            // La factura se puede crear después (GET /api/pedidos/{id}/factura la genera si falta)
+            logger.error("❌ Error creando factura para pedido ID: {}", event.getIdPedido(), e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.config.AsyncConfig;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.services.impl.MetricasPedidoService;
+import com.elbuensabor.services.impl.WebSocketNotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Reenvía los eventos de pedido y pago a los canales WebSocket (cocina, delivery, cliente),
+ * solo para cambios ya confirmados en la base.
+ */
+@Component
+public class NotificacionPedidoListener {
+
+    @Autowired
+    private WebSocketNotificationService webSocketNotificationService;
+
+    @Autowired
+    private MetricasPedidoService metricasPedidoService;
+
+    @Async(AsyncConfig.EXECUTOR_EVENTOS_PEDIDO)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPedidoCreado(PedidoCreadoEvent event) {
+        // Último paso del pipeline de creación: el aviso a cocina
+        metricasPedidoService.medir(MetricasPedidoService.PIPELINE_PEDIDO, "notificacion_cocina",
+                () -> webSocketNotificationService.notificarNuevoPedido(event.getIdPedido(), event.getClienteNombre()));
+    }
+
+    @Async(AsyncConfig.EXECUTOR_EVENTOS_PEDIDO)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEstadoCambiado(PedidoEstadoCambiadoEvent event) {
+        if (event.getEstado() == Estado.CANCELADO) {
+            webSocketNotificationService.notificarCancelacionPedido(
+                    event.getIdPedido(), event.getClienteNombre(), event.getClienteAuthId());
+            return;
+        }
+
+        // El frontend espera EN_PREPARACION para el estado PREPARACION
+        webSocketNotificationService.notificarCambioEstado(event.getIdPedido(),
+                WebSocketNotificationService.estadoParaFrontend(event.getEstado()), event.getClienteAuthId());
+
+        if (event.getEstado() == Estado.LISTO && event.getTipoEnvio() == TipoEnvio.DELIVERY) {
+            webSocketNotificationService.notificarPedidoListoParaDelivery(event.getIdPedido(), event.getClienteNombre());
+        }
+    }
+
+    @Async(AsyncConfig.EXECUTOR_EVENTOS_PEDIDO)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEstadoCambiadoLote(PedidosEstadoCambiadoLoteEvent event) {
+        webSocketNotificationService.notificarCambiosEstadoLote(event.getCambios());
+    }
+
+    @Async(AsyncConfig.EXECUTOR_EVENTOS_PEDIDO)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPagoConfirmado(PagoConfirmadoEvent event) {
+        webSocketNotificationService.notificarPagoConfirmado(event.getIdPedido(), event.getFormaPago());
+    }
+}
@@ -0,0 +1,15 @@
+package com.elbuensabor.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado por PagoServiceImpl cuando un pago pasa a APROBADO.
+ */
+@Getter
+@AllArgsConstructor
+public class PagoConfirmadoEvent {
+    private final Long idPedido;
+    private final Long idPago;
+    private final String formaPago;
+}
@@ -0,0 +1,15 @@
+package com.elbuensabor.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado por PedidoServiceImpl al crear un pedido. Los listeners lo reciben
+ * recién cuando la transacción confirmó, en el executor de eventos de pedido.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidoCreadoEvent {
+    private final Long idPedido;
+    private final String clienteNombre;
+}
@@ -0,0 +1,20 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Publicado por PedidoServiceImpl en cada transición de estado. Lleva los datos del
+ * cliente ya resueltos porque el listener corre fuera de la sesión de Hibernate.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidoEstadoCambiadoEvent {
+    private final Long idPedido;
+    private final Estado estado;
+    private final TipoEnvio tipoEnvio;
+    private final String clienteNombre;
+    private final String clienteAuthId;
+}
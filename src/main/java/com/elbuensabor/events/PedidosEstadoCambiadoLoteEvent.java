@@ -0,0 +1,16 @@
+package com.elbuensabor.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Publicado por PedidoServiceImpl en una transición por lote, en lugar de un
+ * PedidoEstadoCambiadoEvent por pedido, para avisar una sola vez por canal.
+ */
+@Getter
+@AllArgsConstructor
+public class PedidosEstadoCambiadoLoteEvent {
+    private final List<PedidoEstadoCambiadoEvent> cambios;
+}
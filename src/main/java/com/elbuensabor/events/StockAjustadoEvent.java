@@ -0,0 +1,20 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.services.impl.MovimientoStockService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Publicado por MovimientoStockService con los movimientos registrados, que ya están sumados en
+ * stock_actual. Se recibe al confirmar la transacción: DisponibilidadManufacturadoService
+ * recalcula los máximos preparables y ReservaStockMemoriaService lleva a sus contadores las compras y ajustes hechos en la base.
+ */
+@Getter
+@AllArgsConstructor
+public class StockAjustadoEvent {
+    private final TipoMovimientoStock tipo;
+    private final List<MovimientoStockService.Movimiento> movimientos;
+}
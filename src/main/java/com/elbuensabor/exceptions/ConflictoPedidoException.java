@@ -0,0 +1,7 @@
+package com.elbuensabor.exceptions;
+
+public class ConflictoPedidoException extends RuntimeException {
+    public ConflictoPedidoException(String message) {
+        super(message);
+    }
+}
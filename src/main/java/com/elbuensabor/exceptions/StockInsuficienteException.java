@@ -0,0 +1,7 @@
+package com.elbuensabor.exceptions;
+
+public class StockInsuficienteException extends RuntimeException {
+    public StockInsuficienteException(String message) {
+        super(message);
+    }
+}
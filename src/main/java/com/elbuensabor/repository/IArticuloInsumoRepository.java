@@ -1,7 +1,9 @@
 package com.elbuensabor.repository;
 
 import com.elbuensabor.entities.ArticuloInsumo;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -30,14 +32,6 @@ public interface IArticuloInsumoRepository extends JpaRepository<ArticuloInsumo,
     // Buscar por unidad de medida
     List<ArticuloInsumo> findByUnidadMedidaIdUnidadMedida(Long idUnidadMedida);
 
-    // Stock crítico (menos del 25% del stock máximo)
-    @Query("SELECT ai FROM ArticuloInsumo ai WHERE (ai.stockActual * 100.0 / ai.stockMaximo) < 25")
-    List<ArticuloInsumo> findStockCritico();
-
-    // Stock bajo (entre 25% y 50% del stock máximo)
-    @Query("SELECT ai FROM ArticuloInsumo ai WHERE (ai.stockActual * 100.0 / ai.stockMaximo) BETWEEN 25 AND 50")
-    List<ArticuloInsumo> findStockBajo();
-
     // Stock insuficiente para una cantidad específica
     @Query("SELECT ai FROM ArticuloInsumo ai WHERE ai.stockActual < :cantidadRequerida")
     List<ArticuloInsumo> findInsuficientStock(@Param("cantidadRequerida") Integer cantidadRequerida);
@@ -57,4 +51,9 @@ public interface IArticuloInsumoRepository extends JpaRepository<ArticuloInsumo,
     // Verificar disponibilidad de stock para una cantidad
     @Query("SELECT CASE WHEN ai.stockActual >= :cantidad THEN true ELSE false END FROM ArticuloInsumo ai WHERE ai.idArticulo = :idInsumo")
     Boolean hasStockAvailable(@Param("idInsumo") Long idInsumo, @Param("cantidad") Integer cantidad);
+
+    // Insumo con bloqueo de fila (cambios de stock que leen y reescriben stock_actual)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ai FROM ArticuloInsumo ai WHERE ai.idArticulo = :idInsumo")
+    Optional<ArticuloInsumo> findByIdParaActualizar(@Param("idInsumo") Long idInsumo);
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,22 +41,6 @@ public interface IArticuloManufacturadoRepository extends JpaRepository<Articulo
     @Query("SELECT am FROM ArticuloManufacturado am WHERE LOWER(am.denominacion) LIKE LOWER(CONCAT('%', :denominacion, '%'))")
     List<ArticuloManufacturado> findByDenominacionContainingIgnoreCase(@Param("denominacion") String denominacion);
 
-    // Buscar productos preparables (con stock suficiente)
-    @Query("""
-        SELECT am FROM ArticuloManufacturado am 
-        WHERE NOT EXISTS (
-            SELECT d FROM ArticuloManufacturadoDetalle d 
-            WHERE d.articuloManufacturado = am 
-            AND d.articuloInsumo.stockActual < d.cantidad
-        )
-    """)
-    List<ArticuloManufacturado> findPreparables();
-
-    // Calcular cantidad máxima preparable de un producto
-    @Query("""
-        SELECT MIN(FLOOR(d.articuloInsumo.stockActual / d.cantidad))
-        FROM ArticuloManufacturadoDetalle d 
-        WHERE d.articuloManufacturado.idArticulo = :idProducto
-    """)
-    Integer calcularMaximoPreparable(@Param("idProducto") Long idProducto);
+    // Todos menos los indicados (los no preparables, por ejemplo)
+    List<ArticuloManufacturado> findByIdArticuloNotIn(Collection<Long> ids);
 }
\ No newline at end of file
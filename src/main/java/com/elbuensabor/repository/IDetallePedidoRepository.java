@@ -1,7 +1,9 @@
 package com.elbuensabor.repository;
 
+import com.elbuensabor.dto.proyeccion.DetallePedidoListadoProyeccion;
 import com.elbuensabor.dto.response.RankingProductoDTO;
 import com.elbuensabor.entities.DetallePedido; // <-- IMPORT NECESARIO
+import com.elbuensabor.entities.Estado;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository; // <-- IMPORT NECESARIO
 import org.springframework.data.jpa.repository.Query;
@@ -9,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository; // <-- IMPORT NECESARIO
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository // <-- 1. ANOTACIÓN FALTANTE
@@ -16,9 +19,33 @@ public interface IDetallePedidoRepository extends JpaRepository<DetallePedido, L
 
     @Query("SELECT new com.elbuensabor.dto.response.RankingProductoDTO(d.articulo.denominacion, SUM(d.cantidad), SUM(d.subtotal)) " +
             "FROM DetallePedido d " +
-            "WHERE d.pedido.fecha BETWEEN :fechaDesde AND :fechaHasta AND d.pedido.estado <> 'CANCELADO' " +
+            "WHERE d.pedido.fecha >= :fechaDesde AND d.pedido.fecha < :fechaHasta AND d.pedido.estado <> 'CANCELADO' " +
             "GROUP BY d.articulo.idArticulo, d.articulo.denominacion " + // Agregué d.articulo.denominacion al GROUP BY
             "ORDER BY SUM(d.cantidad) DESC")
     List<RankingProductoDTO> findRankingProductos(@Param("fechaDesde") LocalDateTime fechaDesde, @Param("fechaHasta") LocalDateTime fechaHasta, Pageable pageable);
 
+    // ==================== LISTADOS DE PEDIDOS (PROYECCIONES) ====================
+    // Líneas de los pedidos que devuelven las consultas SELECT_LISTADO de IPedidoRepository
+
+    String SELECT_LINEAS_LISTADO = "SELECT new com.elbuensabor.dto.proyeccion.DetallePedidoListadoProyeccion(" +
+            "d.pedido.idPedido, d.idDetallePedido, " +
+            "a.idArticulo, a.denominacion, a.precioVenta, um.denominacion, am.idArticulo, am.tiempoEstimadoEnMinutos, " +
+            "d.cantidad, d.subtotal, d.observaciones, d.precioUnitarioOriginal, d.descuentoPromocion, " +
+            "pr.idPromocion, pr.denominacion, pr.descripcionDescuento, pr.tipoDescuento, pr.valorDescuento) " +
+            "FROM DetallePedido d JOIN d.articulo a LEFT JOIN a.unidadMedida um " +
+            "LEFT JOIN ArticuloManufacturado am ON am.idArticulo = a.idArticulo " +
+            "LEFT JOIN d.promocionAplicada pr ";
+
+    @Query(SELECT_LINEAS_LISTADO + "ORDER BY d.idDetallePedido ASC")
+    List<DetallePedidoListadoProyeccion> findLineasListado();
+
+    @Query(SELECT_LINEAS_LISTADO + "WHERE d.pedido.cliente.idCliente = :idCliente ORDER BY d.idDetallePedido ASC")
+    List<DetallePedidoListadoProyeccion> findLineasListadoByCliente(@Param("idCliente") Long idCliente);
+
+    @Query(SELECT_LINEAS_LISTADO + "WHERE d.pedido.estado IN :estados ORDER BY d.idDetallePedido ASC")
+    List<DetallePedidoListadoProyeccion> findLineasListadoByEstadoIn(@Param("estados") Collection<Estado> estados);
+
+    @Query(SELECT_LINEAS_LISTADO + "WHERE d.pedido.idPedido IN :idsPedido ORDER BY d.idDetallePedido ASC")
+    List<DetallePedidoListadoProyeccion> findLineasListadoByPedidoIdIn(@Param("idsPedido") Collection<Long> idsPedido);
+
 }
@@ -17,7 +17,9 @@ public interface IFacturaRepository extends JpaRepository<Factura, Long> {
     Optional<Factura> findByNroComprobante(String nroComprobante);
 
     // Buscar facturas por pedido
-    Optional<Factura> findByPedidoIdPedido(Long pedidoId);
+    // (sobre la FK de factura: el método derivado hacía un join con pedido y no usaba idx_factura_pedido)
+    @Query("SELECT f FROM Factura f WHERE f.pedido.idPedido = :pedidoId")
+    Optional<Factura> findByPedidoIdPedido(@Param("pedidoId") Long pedidoId);
 
     // Buscar facturas por rango de fechas
     List<Factura> findByFechaFacturaBetween(LocalDate fechaInicio, LocalDate fechaFin);
@@ -32,7 +34,8 @@ public interface IFacturaRepository extends JpaRepository<Factura, Long> {
     List<Factura> findFacturasPendientesPago();
 
     // Verificar si existe factura para un pedido
-    boolean existsByPedidoIdPedido(Long pedidoId);
+    @Query("SELECT COUNT(f) > 0 FROM Factura f WHERE f.pedido.idPedido = :pedidoId")
+    boolean existsByPedidoIdPedido(@Param("pedidoId") Long pedidoId);
 
     // Obtener total de ventas por período
     @Query("SELECT COALESCE(SUM(f.totalVenta), 0) FROM Factura f WHERE f.fechaFactura BETWEEN :fechaInicio AND :fechaFin")
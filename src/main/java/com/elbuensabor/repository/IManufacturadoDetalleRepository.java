@@ -17,5 +17,19 @@ public interface IManufacturadoDetalleRepository extends JpaRepository<ArticuloM
     void deleteByArticuloManufacturadoId(@Param("idArticulo") Long idArticulo);
     List<ArticuloManufacturadoDetalle> findByArticuloInsumo_IdArticulo(Long idArticuloInsumo);
 
+    // Recetas en forma plana [idManufacturado, idInsumo, cantidad] para el caché de recetas
+    @Query("""
+        SELECT d.articuloManufacturado.idArticulo, d.articuloInsumo.idArticulo, d.cantidad
+        FROM ArticuloManufacturadoDetalle d
+        ORDER BY d.articuloManufacturado.idArticulo, d.articuloInsumo.idArticulo
+    """)
+    List<Object[]> findRecetasPlanas();
 
+    @Query("""
+        SELECT d.articuloManufacturado.idArticulo, d.articuloInsumo.idArticulo, d.cantidad
+        FROM ArticuloManufacturadoDetalle d
+        WHERE d.articuloManufacturado.idArticulo = :idArticulo
+        ORDER BY d.articuloInsumo.idArticulo
+    """)
+    List<Object[]> findRecetaPlanaByManufacturadoId(@Param("idArticulo") Long idArticulo);
 }
@@ -1,19 +1,27 @@
 package com.elbuensabor.repository;
 
+import com.elbuensabor.dto.proyeccion.PedidoListadoProyeccion;
 import com.elbuensabor.entities.*;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
 
-    // Buscar por cliente
-    List<Pedido> findByClienteIdClienteOrderByFechaDesc(Long idCliente);
+    // Buscar por cliente (filtra por la FK de pedido, no por el join con cliente, para usar idx_pedido_cliente_fecha)
+    @Query("SELECT p FROM Pedido p WHERE p.cliente.idCliente = :idCliente ORDER BY p.fecha DESC")
+    List<Pedido> findByClienteIdClienteOrderByFechaDesc(@Param("idCliente") Long idCliente);
 
     // Buscar por estado
     List<Pedido> findByEstadoOrderByFechaAsc(Estado estado);
@@ -21,12 +29,64 @@ public interface IPedidoRepository extends JpaRepository<Pedido, Long> {
     // Buscar por estado y tipo de envío
     List<Pedido> findByEstadoAndTipoEnvioOrderByFechaAsc(Estado estado, TipoEnvio tipoEnvio);
 
-    // Buscar pedidos de hoy
-    @Query("SELECT p FROM Pedido p WHERE DATE(p.fecha) = CURRENT_DATE ORDER BY p.fecha ASC")
-    List<Pedido> findPedidosDeHoy();
+    // ==================== LISTADOS (PROYECCIONES) ====================
+    // Cabeceras sin cargar entidades; las líneas salen de IDetallePedidoRepository con el mismo filtro
+
+    String SELECT_LISTADO = "SELECT new com.elbuensabor.dto.proyeccion.PedidoListadoProyeccion(" +
+            "p.idPedido, p.fecha, p.horaEstimadaFinalizacion, p.total, p.estado, p.tipoEnvio, p.observaciones, " +
+            "c.idCliente, c.nombre, c.apellido, c.telefono, " +
+            "d.idDomicilio, d.calle, d.numero, d.cp, d.localidad, d.esPrincipal) " +
+            "FROM Pedido p JOIN p.cliente c LEFT JOIN p.domicilio d ";
+
+    @Query(SELECT_LISTADO + "ORDER BY p.idPedido ASC")
+    List<PedidoListadoProyeccion> findListado();
+
+    @Query(SELECT_LISTADO + "WHERE p.cliente.idCliente = :idCliente ORDER BY p.fecha DESC")
+    List<PedidoListadoProyeccion> findListadoByCliente(@Param("idCliente") Long idCliente);
+
+    @Query(SELECT_LISTADO + "WHERE p.idPedido IN :ids ORDER BY p.fecha ASC")
+    List<PedidoListadoProyeccion> findListadoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Pedidos activos (carga inicial del tablero de pedidos)
+    @Query(SELECT_LISTADO + "WHERE p.estado IN :estados ORDER BY p.fecha ASC")
+    List<PedidoListadoProyeccion> findListadoByEstadoIn(@Param("estados") Collection<Estado> estados);
+
+    // Página por keyset (fecha, idPedido) descendente; los filtros en null no aplican
+    @Query(SELECT_LISTADO +
+            "WHERE (:idCliente IS NULL OR c.idCliente = :idCliente) " +
+            "AND (:estado IS NULL OR p.estado = :estado) " +
+            "AND (:tipoEnvio IS NULL OR p.tipoEnvio = :tipoEnvio) " +
+            "AND (:fechaDesde IS NULL OR p.fecha >= :fechaDesde) " +
+            "AND (:fechaHasta IS NULL OR p.fecha < :fechaHasta) " +
+            "AND (:cursorFecha IS NULL OR p.fecha < :cursorFecha " +
+            "     OR (p.fecha = :cursorFecha AND p.idPedido < :cursorId)) " +
+            "ORDER BY p.fecha DESC, p.idPedido DESC")
+    List<PedidoListadoProyeccion> findListadoPagina(@Param("idCliente") Long idCliente,
+                                                   @Param("estado") Estado estado,
+                                                   @Param("tipoEnvio") TipoEnvio tipoEnvio,
+                                                   @Param("fechaDesde") LocalDateTime fechaDesde,
+                                                   @Param("fechaHasta") LocalDateTime fechaHasta,
+                                                   @Param("cursorFecha") LocalDateTime cursorFecha,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    // Buscar pedidos de hoy (rango sobre la columna, así usa idx_pedido_fecha en lugar de DATE(p.fecha))
+    default List<Pedido> findPedidosDeHoy() {
+        LocalDate hoy = LocalDate.now();
+        return findByFechaEnRango(hoy.atStartOfDay(), hoy.plusDays(1).atStartOfDay());
+    }
+
+    // Pedidos en [desde, hasta): el límite superior abierto evita redondeos de LocalTime.MAX en DATETIME
+    @Query("SELECT p FROM Pedido p WHERE p.fecha >= :desde AND p.fecha < :hasta ORDER BY p.fecha ASC")
+    List<Pedido> findByFechaEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 
     // Buscar pedidos por rango de fechas
     @Query("SELECT p FROM Pedido p WHERE p.fecha BETWEEN :fechaInicio AND :fechaFin ORDER BY p.fecha ASC")
     List<Pedido> findByFechaBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
                                     @Param("fechaFin") LocalDateTime fechaFin);
+
+    // Pedido con bloqueo de fila (generación de factura sin duplicados)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pedido p WHERE p.idPedido = :idPedido")
+    Optional<Pedido> findByIdParaActualizar(@Param("idPedido") Long idPedido);
 }
\ No newline at end of file
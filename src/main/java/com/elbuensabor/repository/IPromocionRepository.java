@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -94,4 +95,12 @@ public interface IPromocionRepository extends JpaRepository<Promocion, Long> {
 
     // ✅ BUSCAR POR DENOMINACIÓN (para admin)
     List<Promocion> findByDenominacionContainingIgnoreCaseOrderByDenominacion(String denominacion);
+
+    // ✅ CARGA EN LOTE PARA EL CONTEXTO DE PEDIDO (artículos y sucursales en consultas separadas
+    // para no combinar dos bags en un mismo fetch)
+    @Query("SELECT DISTINCT p FROM Promocion p LEFT JOIN FETCH p.articulos WHERE p.idPromocion IN :ids")
+    List<Promocion> findAllConArticulosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT p FROM Promocion p LEFT JOIN FETCH p.sucursales WHERE p.idPromocion IN :ids")
+    List<Promocion> findAllConSucursalesByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
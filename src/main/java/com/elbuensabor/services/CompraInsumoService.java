@@ -2,12 +2,15 @@ package com.elbuensabor.services;
 
 import com.elbuensabor.dto.request.CompraInsumoRequestDTO;
 import com.elbuensabor.dto.response.CompraInsumoResponseDTO;
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO;
 import com.elbuensabor.entities.CompraInsumo;
 
+import java.io.Reader;
 import java.util.List;
 
 public interface CompraInsumoService {
     void registrarCompra(CompraInsumoRequestDTO dto);
+    RemitoCompraResponseDTO registrarRemito(Reader contenido);
     List<CompraInsumo> getAllCompras();
     CompraInsumo getCompraById(Long id);
     List<CompraInsumo> getComprasByInsumoId(Long idInsumo);
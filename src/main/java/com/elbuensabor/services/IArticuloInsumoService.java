@@ -2,8 +2,14 @@ package com.elbuensabor.services;
 
 import com.elbuensabor.dto.request.ArticuloInsumoRequestDTO;
 import com.elbuensabor.dto.response.ArticuloInsumoResponseDTO;
+import com.elbuensabor.dto.response.CostoInsumoResponseDTO;
+import com.elbuensabor.dto.response.InventarioStockResponseDTO;
+import com.elbuensabor.dto.response.MovimientoStockResponseDTO;
 import com.elbuensabor.entities.ArticuloInsumo;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface IArticuloInsumoService extends IGenericService<ArticuloInsumo, Long, ArticuloInsumoResponseDTO> {
@@ -29,6 +35,14 @@ public interface IArticuloInsumoService extends IGenericService<ArticuloInsumo,
     ArticuloInsumoResponseDTO incrementarStock(Long id, Integer cantidad);
     ArticuloInsumoResponseDTO decrementarStock(Long id, Integer cantidad);
 
+    // Libro de movimientos de stock
+    List<MovimientoStockResponseDTO> findMovimientosStock(Long idInsumo, LocalDateTime desde, LocalDateTime hasta);
+    Integer calcularStockEn(Long idInsumo, LocalDateTime instante);
+    InventarioStockResponseDTO importarInventario(Reader contenido, boolean jsonPorLinea) throws IOException;
+
+    // Costo promedio y últimas compras
+    CostoInsumoResponseDTO getCosto(Long idInsumo);
+
     // Validaciones
     boolean existsByDenominacion(String denominacion);
     boolean hasStockAvailable(Long idInsumo, Integer cantidad);
@@ -3,6 +3,14 @@ package com.elbuensabor.services;
 import com.elbuensabor.dto.request.PedidoRequestDTO;
 import com.elbuensabor.dto.response.PedidoResponseDTO;
 import com.elbuensabor.dto.response.FacturaResponseDTO;
+import com.elbuensabor.dto.response.PaginaPedidosDTO;
+import com.elbuensabor.dto.response.TableroPedidosDTO;
+import com.elbuensabor.dto.response.TransicionLoteResponseDTO;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.services.impl.CotizacionPedido;
+import com.elbuensabor.services.impl.TransicionPedido;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface IPedidoService {
@@ -13,6 +21,10 @@ public interface IPedidoService {
     List<PedidoResponseDTO> findAll();
     List<PedidoResponseDTO> findByCliente(Long idCliente);
 
+    // Listado paginado por cursor (más nuevos primero); idCliente y los filtros en null no aplican
+    PaginaPedidosDTO findPagina(Long idCliente, Estado estado, TipoEnvio tipoEnvio,
+                                LocalDate fechaDesde, LocalDate fechaHasta, String cursor, Integer tamanio);
+
     // Cambios de estado
     PedidoResponseDTO confirmarPedido(Long id);
     PedidoResponseDTO marcarEnPreparacion(Long id);
@@ -20,11 +32,17 @@ public interface IPedidoService {
     PedidoResponseDTO marcarEntregado(Long id);
     PedidoResponseDTO cancelarPedido(Long id);
 
+    // La misma transición para varios pedidos en una transacción, con resultado por pedido
+    TransicionLoteResponseDTO transicionarLote(TransicionPedido transicion, List<Long> idsPedidos);
+
     // Validaciones y cálculos
     Boolean validarStockDisponible(PedidoRequestDTO pedidoRequest);
     Double calcularTotal(PedidoRequestDTO pedidoRequest);
     Integer calcularTiempoEstimado(PedidoRequestDTO pedidoRequest);
 
+    // Cotización completa (la misma que usa crearPedido), para emitir tokens de cotización
+    CotizacionPedido cotizarPedido(PedidoRequestDTO pedidoRequest);
+
     // Filtros por estado
     List<PedidoResponseDTO> findPedidosPendientes();
     List<PedidoResponseDTO> findPedidosEnPreparacion();
@@ -33,8 +51,14 @@ public interface IPedidoService {
     List<PedidoResponseDTO> findPedidosListos();
     List<PedidoResponseDTO> findPedidosListosParaRetiro();
 
+    // Tablero de pedidos activos: completo o solo los cambios desde una versión
+    TableroPedidosDTO getTablero(Long desdeVersion, Estado estado, TipoEnvio tipoEnvio);
+
 
     // Nuevo método para obtener factura del pedido
     FacturaResponseDTO getFacturaPedido(Long pedidoId);
 
+    // Genera la factura del pedido si todavía no existe (idempotente)
+    FacturaResponseDTO generarFacturaPedido(Long pedidoId);
+
 }
\ No newline at end of file
@@ -3,9 +3,13 @@ package com.elbuensabor.services.impl;
 import com.elbuensabor.dto.request.ArticuloInsumoRequestDTO;
 import com.elbuensabor.dto.request.ImagenDTO;
 import com.elbuensabor.dto.response.ArticuloInsumoResponseDTO;
+import com.elbuensabor.dto.response.CostoInsumoResponseDTO;
+import com.elbuensabor.dto.response.InventarioStockResponseDTO;
+import com.elbuensabor.dto.response.MovimientoStockResponseDTO;
 import com.elbuensabor.entities.ArticuloInsumo;
 import com.elbuensabor.entities.Categoria;
 import com.elbuensabor.entities.Imagen;
+import com.elbuensabor.entities.TipoMovimientoStock;
 import com.elbuensabor.entities.UnidadMedida;
 import com.elbuensabor.exceptions.DuplicateResourceException;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
@@ -18,6 +22,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -32,6 +39,18 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
     @Autowired
     private IUnidadMedidaRepository unidadMedidaRepository;
 
+    @Autowired
+    private MovimientoStockService movimientoStockService;
+
+    @Autowired
+    private NivelStockService nivelStockService;
+
+    @Autowired
+    private InventarioStockService inventarioStockService;
+
+    @Autowired
+    private CostoInsumoService costoInsumoService;
+
     @Autowired
     public ArticuloInsumoServiceImpl(IArticuloInsumoRepository repository, ArticuloInsumoMapper mapper) {
         super(repository, mapper, ArticuloInsumo.class, ArticuloInsumoResponseDTO.class);
@@ -91,13 +110,15 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
 
 
         ArticuloInsumo savedInsumo = repository.save(insumo);
+        // El stock inicial abre el libro de movimientos del insumo
+        registrarAjuste(savedInsumo.getIdArticulo(), savedInsumo.getStockActual());
         return mapearInsumoCompleto(savedInsumo);
     }
 
     @Override
     @Transactional
     public ArticuloInsumoResponseDTO updateInsumo(Long id, ArticuloInsumoRequestDTO insumoRequestDTO) {
-        ArticuloInsumo existingInsumo = repository.findById(id)
+        ArticuloInsumo existingInsumo = repository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Artículo insumo con ID " + id + " no encontrado"));
 
         // Validar nombre duplicado (excluyendo el actual)
@@ -112,7 +133,9 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
         }
 
         // Actualizar campos básicos
+        Integer stockAnterior = existingInsumo.getStockActual();
         mapper.updateEntityFromDTO(insumoRequestDTO, existingInsumo);
+        registrarAjuste(id, existingInsumo.getStockActual() - stockAnterior);
 
         // Actualizar relaciones
         asignarRelaciones(existingInsumo, insumoRequestDTO);
@@ -136,6 +159,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
         // ================================================================
 
         ArticuloInsumo updatedInsumo = repository.save(existingInsumo);
+        nivelStockService.actualizarInsumo(id, updatedInsumo.getDenominacion(), updatedInsumo.getStockMaximo());
         return mapearInsumoCompleto(updatedInsumo);
     }
 
@@ -185,7 +209,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
     @Override
     @Transactional(readOnly = true)
     public List<ArticuloInsumoResponseDTO> findStockCritico() {
-        List<ArticuloInsumo> insumos = repository.findStockCritico();
+        List<ArticuloInsumo> insumos = repository.findAllById(nivelStockService.getCriticos());
         return insumos.stream()
                 .map(this::mapearInsumoCompleto)
                 .collect(Collectors.toList());
@@ -194,7 +218,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
     @Override
     @Transactional(readOnly = true)
     public List<ArticuloInsumoResponseDTO> findStockBajo() {
-        List<ArticuloInsumo> insumos = repository.findStockBajo();
+        List<ArticuloInsumo> insumos = repository.findAllById(nivelStockService.getBajos());
         return insumos.stream()
                 .map(this::mapearInsumoCompleto)
                 .collect(Collectors.toList());
@@ -212,7 +236,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
     @Override
     @Transactional
     public ArticuloInsumoResponseDTO actualizarStock(Long id, Integer nuevoStock) {
-        ArticuloInsumo insumo = repository.findById(id)
+        ArticuloInsumo insumo = repository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Artículo insumo con ID " + id + " no encontrado"));
 
         if (nuevoStock < 0) {
@@ -223,6 +247,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
             throw new IllegalArgumentException("el stock no puede superar el stock máximo (" + insumo.getStockMaximo() + ")");
         }
 
+        registrarAjuste(id, nuevoStock - insumo.getStockActual());
         insumo.setStockActual(nuevoStock);
         ArticuloInsumo updatedInsumo = repository.save(insumo);
         return mapearInsumoCompleto(updatedInsumo);
@@ -231,7 +256,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
     @Override
     @Transactional
     public ArticuloInsumoResponseDTO incrementarStock(Long id, Integer cantidad) {
-        ArticuloInsumo insumo = repository.findById(id)
+        ArticuloInsumo insumo = repository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Artículo insumo con ID " + id + " no encontrado"));
 
         Integer nuevoStock = insumo.getStockActual() + cantidad;
@@ -239,6 +264,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
             throw new IllegalArgumentException("El incremento supera el stock máximo permitido");
         }
 
+        registrarAjuste(id, cantidad);
         insumo.setStockActual(nuevoStock);
         ArticuloInsumo updatedInsumo = repository.save(insumo);
         return mapearInsumoCompleto(updatedInsumo);
@@ -247,7 +273,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
     @Override
     @Transactional
     public ArticuloInsumoResponseDTO decrementarStock(Long id, Integer cantidad) {
-        ArticuloInsumo insumo = repository.findById(id)
+        ArticuloInsumo insumo = repository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Artículo insumo con ID " + id + " no encontrado"));
 
         Integer nuevoStock = insumo.getStockActual() - cantidad;
@@ -255,6 +281,7 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
             throw new IllegalArgumentException("No hay suficiente stock disponible");
         }
 
+        registrarAjuste(id, -cantidad);
         insumo.setStockActual(nuevoStock);
         ArticuloInsumo updatedInsumo = repository.save(insumo);
         return mapearInsumoCompleto(updatedInsumo);
@@ -300,8 +327,39 @@ public class ArticuloInsumoServiceImpl extends GenericServiceImpl<ArticuloInsumo
         return "ALTO";
     }
 
+    // ==================== HISTORIAL DE STOCK ====================
+
+    @Override
+    public List<MovimientoStockResponseDTO> findMovimientosStock(Long idInsumo, LocalDateTime desde, LocalDateTime hasta) {
+        return movimientoStockService.historial(idInsumo, desde, hasta);
+    }
+
+    @Override
+    public Integer calcularStockEn(Long idInsumo, LocalDateTime instante) {
+        return movimientoStockService.stockEn(idInsumo, instante);
+    }
+
+    // Cada lote de filas es su propia transacción (InventarioStockService)
+    @Override
+    public InventarioStockResponseDTO importarInventario(Reader contenido, boolean jsonPorLinea) throws IOException {
+        return inventarioStockService.importar(contenido, jsonPorLinea);
+    }
+
+    @Override
+    public CostoInsumoResponseDTO getCosto(Long idInsumo) {
+        return costoInsumoService.getCosto(idInsumo);
+    }
+
     // ==================== MÉTODOS AUXILIARES ====================
 
+    // Ajuste manual en el libro de movimientos; stock_actual lo escribe la entidad al guardarse
+    private void registrarAjuste(Long idInsumo, int cantidad) {
+        if (cantidad != 0) {
+            movimientoStockService.registrar(TipoMovimientoStock.AJUSTE_MANUAL,
+                    List.of(new MovimientoStockService.Movimiento(idInsumo, cantidad, null)));
+        }
+    }
+
     private ArticuloInsumoResponseDTO mapearInsumoCompleto(ArticuloInsumo insumo) {
         ArticuloInsumoResponseDTO dto = mapper.toDTO(insumo);
 
@@ -39,6 +39,12 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
     @Autowired
     private ManufacturadoDetalleMapper detalleMapper;
 
+    @Autowired
+    private RecetaCacheService recetaCacheService;
+
+    @Autowired
+    private DisponibilidadManufacturadoService disponibilidadService;
+
     @Autowired
     public ArticuloManufacturadoServiceImpl(IArticuloManufacturadoRepository repository, ArticuloManufacturadoMapper mapper) {
         super(repository, mapper, ArticuloManufacturado.class, ArticuloManufacturadoResponseDTO.class);
@@ -105,8 +111,16 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
         }
 
         ArticuloManufacturado savedManufacturado = repository.save(manufacturado);
+        recetaCacheService.actualizar(savedManufacturado);
         return mapearManufacturadoCompleto(savedManufacturado);
     }
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        super.delete(id);
+        recetaCacheService.invalidar(id);
+    }
+
     @Override
     public void bajaLogica(Long id) {
         ArticuloManufacturado producto = repository.findById(id)
@@ -176,6 +190,7 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
         }
 
         ArticuloManufacturado updatedManufacturado = repository.save(existingManufacturado);
+        recetaCacheService.actualizar(updatedManufacturado);
         return mapearManufacturadoCompleto(updatedManufacturado);
     }
 
@@ -240,7 +255,11 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
     @Override
     @Transactional(readOnly = true)
     public List<ArticuloManufacturadoResponseDTO> findPreparables() {
-        List<ArticuloManufacturado> preparables = repository.findPreparables();
+        // Se leen y mapean solo los preparables; los que no tienen receta también lo son
+        List<Long> noPreparables = disponibilidadService.findNoPreparables();
+        List<ArticuloManufacturado> preparables = noPreparables.isEmpty()
+                ? repository.findAll()
+                : repository.findByIdArticuloNotIn(noPreparables);
         return preparables.stream()
                 .map(this::mapearManufacturadoCompleto)
                 .collect(Collectors.toList());
@@ -249,14 +268,7 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
     @Override
     @Transactional(readOnly = true)
     public List<ArticuloManufacturadoResponseDTO> findNoPreparables() {
-        List<ArticuloManufacturado> todos = repository.findAll();
-        List<ArticuloManufacturado> preparables = repository.findPreparables();
-
-        List<ArticuloManufacturado> noPreparables = todos.stream()
-                .filter(m -> !preparables.contains(m))
-                .collect(Collectors.toList());
-
-        return noPreparables.stream()
+        return repository.findAllById(disponibilidadService.findNoPreparables()).stream()
                 .map(this::mapearManufacturadoCompleto)
                 .collect(Collectors.toList());
     }
@@ -264,8 +276,7 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
     @Override
     @Transactional(readOnly = true)
     public Integer calcularMaximoPreparable(Long idProducto) {
-        Integer maximo = repository.calcularMaximoPreparable(idProducto);
-        return maximo != null ? maximo : 0;
+        return disponibilidadService.maximoPreparable(idProducto);
     }
 
     @Override
@@ -332,6 +343,7 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
         manufacturado.getDetalles().add(detalle);
 
         ArticuloManufacturado savedManufacturado = repository.save(manufacturado);
+        recetaCacheService.actualizar(savedManufacturado);
         return mapearManufacturadoCompleto(savedManufacturado);
     }
 
@@ -349,6 +361,7 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
         detalle.setCantidad(nuevaCantidad);
 
         ArticuloManufacturado savedManufacturado = repository.save(manufacturado);
+        recetaCacheService.actualizar(savedManufacturado);
         return mapearManufacturadoCompleto(savedManufacturado);
     }
 
@@ -369,6 +382,7 @@ public class ArticuloManufacturadoServiceImpl extends GenericServiceImpl<Articul
         }
 
         ArticuloManufacturado savedManufacturado = repository.save(manufacturado);
+        recetaCacheService.actualizar(savedManufacturado);
         return mapearManufacturadoCompleto(savedManufacturado);
     }
 
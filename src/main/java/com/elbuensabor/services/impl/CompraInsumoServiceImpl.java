@@ -2,21 +2,21 @@ package com.elbuensabor.services.impl;
 
 import com.elbuensabor.dto.request.CompraInsumoRequestDTO;
 import com.elbuensabor.dto.response.CompraInsumoResponseDTO;
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO;
 import com.elbuensabor.entities.ArticuloInsumo;
 import com.elbuensabor.entities.CompraInsumo;
-import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
-import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.TipoMovimientoStock;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
 import com.elbuensabor.repository.IArticuloInsumoRepository;
 import com.elbuensabor.repository.ICompraInsumoRepository;
-import com.elbuensabor.repository.IManufacturadoDetalleRepository;
-import com.elbuensabor.repository.IArticuloManufacturadoRepository;
 import com.elbuensabor.services.CompraInsumoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Reader;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -24,13 +24,16 @@ public class CompraInsumoServiceImpl implements CompraInsumoService {
 
     private final ICompraInsumoRepository compraInsumoRepository;
     private final IArticuloInsumoRepository articuloInsumoRepository;
-    private final IManufacturadoDetalleRepository manufacturadoDetalleRepository;
-    private final IArticuloManufacturadoRepository articuloManufacturadoRepository;
+    private final PropagacionCostosService propagacionCostosService;
+    private final RemitoCompraService remitoCompraService;
+    private final MovimientoStockService movimientoStockService;
+    private final CostoInsumoService costoInsumoService;
 
     @Override
     @Transactional   // <<--- AGREGÁ ESTA ANOTACIÓN AQUÍ
     public void registrarCompra(CompraInsumoRequestDTO dto) {
-        ArticuloInsumo insumo = articuloInsumoRepository.findById(dto.getInsumoId())
+        // Bloquea el insumo: el costo promedio y el stock nuevo parten de los valores actuales
+        ArticuloInsumo insumo = articuloInsumoRepository.findByIdParaActualizar(dto.getInsumoId())
                 .orElseThrow(() -> new ResourceNotFoundException("Insumo no encontrado con ID: " + dto.getInsumoId()));
 
         CompraInsumo compra = new CompraInsumo();
@@ -39,26 +42,26 @@ public class CompraInsumoServiceImpl implements CompraInsumoService {
         compra.setPrecioUnitario(dto.getPrecioUnitario());
         compra.setFechaCompra(dto.getFechaCompra());
 
+        // Con el stock y el precio anteriores a la compra
+        insumo.setCostoPromedio(CostoInsumoService.promedio(insumo.getStockActual(), insumo.getCostoPromedio(),
+                insumo.getPrecioCompra(), dto.getCantidad(), dto.getCantidad() * dto.getPrecioUnitario()));
         insumo.setPrecioCompra(dto.getPrecioUnitario());
         insumo.setStockActual(insumo.getStockActual() + dto.getCantidad().intValue());
+        movimientoStockService.registrar(TipoMovimientoStock.COMPRA,
+                List.of(new MovimientoStockService.Movimiento(insumo.getIdArticulo(), dto.getCantidad().intValue(), null)));
 
         compraInsumoRepository.save(compra);
         articuloInsumoRepository.save(insumo);
+        costoInsumoService.registrarCompras(insumo.getIdArticulo(), List.of(new CostoInsumoService.Compra(
+                compra.getId(), compra.getFechaCompra(), compra.getCantidad(), compra.getPrecioUnitario())));
 
-        List<ArticuloManufacturadoDetalle> detalles = manufacturadoDetalleRepository.findByArticuloInsumo_IdArticulo(insumo.getIdArticulo());
-        for (ArticuloManufacturadoDetalle detalle : detalles) {
-            ArticuloManufacturado producto = detalle.getArticuloManufacturado();
-
-            double costoTotal = producto.getDetalles().stream()
-                    .mapToDouble(d -> d.getCantidad() * d.getArticuloInsumo().getPrecioCompra())
-                    .sum();
-
-            double margen = producto.getMargenGanancia() != null ? producto.getMargenGanancia() : 2.0;
-            double precioVenta = costoTotal * margen;
+        propagacionCostosService.propagar(Map.of(insumo.getIdArticulo(), insumo.getPrecioCompra()));
+    }
 
-            producto.setPrecioVenta(precioVenta);
-            articuloManufacturadoRepository.save(producto);
-        }
+    // El remito completo es una sola transacción (RemitoCompraService)
+    @Override
+    public RemitoCompraResponseDTO registrarRemito(Reader contenido) {
+        return remitoCompraService.registrar(contenido);
     }
 
     @Override
@@ -0,0 +1,262 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.DetallePedido;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.exceptions.StockInsuficienteException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de movimientos de stock de insumos para pedidos.
+ * Agrega el consumo de todas las líneas de un pedido por insumo y lo aplica con un único
+ * batch de UPDATE condicionales (solo descuenta si alcanza el stock), evitando el
+ * read-modify-write sobre la entidad. Si algún insumo no alcanza, se lanza
+ * StockInsuficienteException y la transacción completa hace rollback.
+ *
+ * Cada descuento y restauración queda en el libro de MovimientoStockService. Las
+ * restauraciones se suman al stock en el momento (un incremento no puede sobrevender), así
+ * la validación de pedidos y los cachés de stock ven la devolución apenas se confirma.
+ *
+ * Con stock.memoria.habilitada=true los pedidos reservan contra ReservaStockMemoriaService en
+ * lugar de la base, que recibe los movimientos en el volcado periódico.
+ */
+@Service
+@RequiredArgsConstructor
+public class ConsumoStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumoStockService.class);
+
+    private static final String SQL_DESCONTAR =
+            "UPDATE articulo_insumo SET stock_actual = stock_actual - ? WHERE id_articulo = ? AND stock_actual >= ?";
+
+    private static final String SQL_RESTAURAR =
+            "UPDATE articulo_insumo SET stock_actual = stock_actual + ? WHERE id_articulo = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RecetaCacheService recetaCacheService;
+    private final MovimientoStockService movimientoStockService;
+
+    // Solo existe con stock.memoria.habilitada=true
+    @Autowired(required = false)
+    private ReservaStockMemoriaService reservaStockMemoria;
+
+    // ==================== OPERACIONES POR PEDIDO ====================
+
+    @Transactional
+    public void descontarStock(Pedido pedido) {
+        Map<Long, Integer> consumo = calcularConsumo(pedido);
+        if (enMemoria()) {
+            if (!reservaStockMemoria.reservar(pedido.getIdPedido(), consumo)) {
+                throw new StockInsuficienteException("Stock insuficiente para el pedido #" + pedido.getIdPedido());
+            }
+            logger.info("📉 Stock reservado para pedido #{}", pedido.getIdPedido());
+            return;
+        }
+
+        descontarStock(consumo);
+        movimientoStockService.registrar(TipoMovimientoStock.CONSUMO_PEDIDO,
+                MovimientoStockService.movimientos(pedido.getIdPedido(), consumo, -1));
+        logger.info("📉 Stock descontado para pedido #{}", pedido.getIdPedido());
+    }
+
+    /**
+     * Devuelve al stock el consumo del pedido y lo registra en el libro como RESTAURACION_PEDIDO.
+     */
+    @Transactional
+    public void restaurarStock(Pedido pedido) {
+        if (enMemoria()) {
+            reservaStockMemoria.liberar(pedido.getIdPedido(), calcularConsumo(pedido));
+            logger.info("📈 Stock liberado para pedido #{}", pedido.getIdPedido());
+            return;
+        }
+
+        Map<Long, Integer> consumo = calcularConsumo(pedido);
+        restaurarStock(consumo);
+        movimientoStockService.registrar(TipoMovimientoStock.RESTAURACION_PEDIDO,
+                MovimientoStockService.movimientos(pedido.getIdPedido(), consumo, 1));
+        logger.info("📈 Stock restaurado para pedido #{}", pedido.getIdPedido());
+    }
+
+    /**
+     * Cantidad a consumir por insumo (ordenado por ID para que las transacciones
+     * concurrentes bloqueen las filas siempre en el mismo orden).
+     */
+    public Map<Long, Integer> calcularConsumo(Pedido pedido) {
+        Map<Long, Integer> consumo = new TreeMap<>();
+
+        for (DetallePedido detalle : pedido.getDetalles()) {
+            Articulo articulo = detalle.getArticulo();
+
+            if (articulo instanceof ArticuloManufacturado) {
+                RecetaCompilada receta = recetaCacheService.obtener(articulo.getIdArticulo());
+
+                for (int i = 0; i < receta.size(); i++) {
+                    int cantidad = (int) (receta.cantidad(i) * detalle.getCantidad());
+                    consumo.merge(receta.idInsumo(i), cantidad, Integer::sum);
+                }
+            } else if (articulo instanceof ArticuloInsumo) {
+                consumo.merge(articulo.getIdArticulo(), detalle.getCantidad(), Integer::sum);
+            }
+        }
+
+        return consumo;
+    }
+
+    // ==================== OPERACIONES POR LOTE DE PEDIDOS ====================
+
+    /**
+     * Descuenta el stock de varios pedidos con un único batch. Bloquea los insumos involucrados,
+     * reparte el stock disponible en el orden de la lista y devuelve los pedidos que no alcanzaron
+     * (a esos no se les descuenta nada); el resto se descuenta sumado por insumo.
+     */
+    @Transactional
+    public List<Pedido> descontarStockLote(List<Pedido> pedidos) {
+        if (enMemoria()) {
+            List<Pedido> sinStock = new ArrayList<>();
+            for (Pedido pedido : pedidos) {
+                if (!reservaStockMemoria.reservar(pedido.getIdPedido(), calcularConsumo(pedido))) {
+                    sinStock.add(pedido);
+                }
+            }
+            logger.info("📉 Stock reservado para {} pedidos en lote ({} sin stock suficiente)",
+                    pedidos.size() - sinStock.size(), sinStock.size());
+            return sinStock;
+        }
+
+        Map<Pedido, Map<Long, Integer>> consumos = new LinkedHashMap<>();
+        for (Pedido pedido : pedidos) {
+            consumos.put(pedido, calcularConsumo(pedido));
+        }
+
+        Set<Long> idsInsumos = consumos.values().stream()
+                .flatMap(consumo -> consumo.keySet().stream())
+                .collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, Integer> disponible = bloquearStock(idsInsumos);
+
+        Map<Long, Integer> total = new TreeMap<>();
+        List<Pedido> sinStock = new ArrayList<>();
+        List<MovimientoStockService.Movimiento> movimientos = new ArrayList<>();
+        consumos.forEach((pedido, consumo) -> {
+            boolean alcanza = consumo.entrySet().stream()
+                    .allMatch(e -> disponible.getOrDefault(e.getKey(), 0) >= e.getValue());
+            if (alcanza) {
+                consumo.forEach((idInsumo, cantidad) -> {
+                    disponible.merge(idInsumo, -cantidad, Integer::sum);
+                    total.merge(idInsumo, cantidad, Integer::sum);
+                });
+                movimientos.addAll(MovimientoStockService.movimientos(pedido.getIdPedido(), consumo, -1));
+            } else {
+                sinStock.add(pedido);
+            }
+        });
+
+        descontarStock(total);
+        movimientoStockService.registrar(TipoMovimientoStock.CONSUMO_PEDIDO, movimientos);
+        logger.info("📉 Stock descontado para {} pedidos en lote ({} sin stock suficiente)",
+                pedidos.size() - sinStock.size(), sinStock.size());
+        return sinStock;
+    }
+
+    @Transactional
+    public void restaurarStockLote(List<Pedido> pedidos) {
+        if (enMemoria()) {
+            pedidos.forEach(pedido -> reservaStockMemoria.liberar(pedido.getIdPedido(), calcularConsumo(pedido)));
+            logger.info("📈 Stock liberado para {} pedidos en lote", pedidos.size());
+            return;
+        }
+
+        Map<Long, Integer> total = new TreeMap<>();
+        List<MovimientoStockService.Movimiento> movimientos = new ArrayList<>();
+        for (Pedido pedido : pedidos) {
+            Map<Long, Integer> consumo = calcularConsumo(pedido);
+            consumo.forEach((idInsumo, cantidad) -> total.merge(idInsumo, cantidad, Integer::sum));
+            movimientos.addAll(MovimientoStockService.movimientos(pedido.getIdPedido(), consumo, 1));
+        }
+
+        restaurarStock(total);
+        movimientoStockService.registrar(TipoMovimientoStock.RESTAURACION_PEDIDO, movimientos);
+        logger.info("📈 Stock restaurado para {} pedidos en lote", pedidos.size());
+    }
+
+    private boolean enMemoria() {
+        return reservaStockMemoria != null && reservaStockMemoria.isActiva();
+    }
+
+    // Stock actual de los insumos, bloqueando las filas en orden de ID hasta el fin de la transacción
+    private Map<Long, Integer> bloquearStock(Set<Long> idsInsumos) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (idsInsumos.isEmpty()) {
+            return stock;
+        }
+
+        String marcadores = String.join(", ", Collections.nCopies(idsInsumos.size(), "?"));
+        jdbcTemplate.query("SELECT id_articulo, stock_actual FROM articulo_insumo WHERE id_articulo IN (" + marcadores +
+                        ") ORDER BY id_articulo FOR UPDATE",
+                rs -> {
+                    stock.put(rs.getLong("id_articulo"), rs.getInt("stock_actual"));
+                },
+                idsInsumos.toArray());
+        return stock;
+    }
+
+    // ==================== APLICACIÓN EN LOTE ====================
+
+    // Un UPDATE por insumo, en orden de ID como los descuentos
+    private void restaurarStock(Map<Long, Integer> consumo) {
+        List<Object[]> parametros = new ArrayList<>();
+        new TreeMap<>(consumo).forEach((idInsumo, cantidad) -> {
+            if (cantidad > 0) {
+                parametros.add(new Object[]{cantidad, idInsumo});
+            }
+        });
+        if (!parametros.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_RESTAURAR, parametros);
+        }
+    }
+
+    @Transactional
+    public void descontarStock(Map<Long, Integer> consumo) {
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> parametros = new ArrayList<>();
+        new TreeMap<>(consumo).forEach((idInsumo, cantidad) -> {
+            if (cantidad > 0) {
+                ids.add(idInsumo);
+                parametros.add(new Object[]{cantidad, idInsumo, cantidad});
+            }
+        });
+
+        if (parametros.isEmpty()) {
+            return;
+        }
+
+        int[] filas = jdbcTemplate.batchUpdate(SQL_DESCONTAR, parametros);
+
+        for (int i = 0; i < filas.length; i++) {
+            if (filas[i] == 0) {
+                // La excepción revierte también los descuentos ya aplicados en este batch
+                throw new StockInsuficienteException("Stock insuficiente del insumo ID " + ids.get(i) +
+                        " (requerido: " + consumo.get(ids.get(i)) + ")");
+            }
+        }
+    }
+}
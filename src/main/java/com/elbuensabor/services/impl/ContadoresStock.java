@@ -0,0 +1,101 @@
+package com.elbuensabor.services.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * Stock disponible por insumo en memoria: un AtomicInteger por insumo, así dos pedidos solo
+ * compiten si usan el mismo insumo y la competencia es un compareAndSet, sin bloqueos.
+ *
+ * Una reserva es de todo o nada: descuenta insumo por insumo y, si alguno no alcanza, devuelve
+ * lo ya descontado. Durante ese instante otro pedido puede ver menos stock del real y ser
+ * rechazado, pero nunca se descuenta más de lo disponible.
+ */
+public final class ContadoresStock {
+
+    private final ConcurrentHashMap<Long, AtomicInteger> contadores = new ConcurrentHashMap<>();
+
+    /**
+     * Reemplaza todos los contadores por el stock indicado.
+     */
+    public void cargar(Map<Long, Integer> stock) {
+        contadores.clear();
+        stock.forEach((idInsumo, cantidad) -> contadores.put(idInsumo, new AtomicInteger(cantidad)));
+    }
+
+    /**
+     * Agrega el contador de un insumo que todavía no se conoce (por ejemplo, dado de alta después
+     * de la carga), leyendo su stock solo si hace falta.
+     */
+    public void agregarSiFalta(Long idInsumo, LongFunction<Integer> stock) {
+        contadores.computeIfAbsent(idInsumo, id -> new AtomicInteger(stock.apply(id)));
+    }
+
+    public boolean contiene(Long idInsumo) {
+        return contadores.containsKey(idInsumo);
+    }
+
+    /**
+     * Descuenta el consumo completo o nada; devuelve false si algún insumo no alcanza o no se conoce.
+     */
+    public boolean reservar(Map<Long, Integer> consumo) {
+        int tomados = 0;
+        for (Map.Entry<Long, Integer> entrada : consumo.entrySet()) {
+            AtomicInteger contador = contadores.get(entrada.getKey());
+            if (contador == null || !tomar(contador, entrada.getValue())) {
+                devolver(consumo, tomados);
+                return false;
+            }
+            tomados++;
+        }
+        return true;
+    }
+
+    public void liberar(Map<Long, Integer> consumo) {
+        consumo.forEach(this::ajustar);
+    }
+
+    /**
+     * Suma la variación al insumo (negativa para descontar, sin controlar que alcance).
+     */
+    public void ajustar(Long idInsumo, int variacion) {
+        AtomicInteger contador = contadores.get(idInsumo);
+        if (contador != null) {
+            contador.addAndGet(variacion);
+        }
+    }
+
+    public Integer disponible(Long idInsumo) {
+        AtomicInteger contador = contadores.get(idInsumo);
+        return contador != null ? contador.get() : null;
+    }
+
+    public int size() {
+        return contadores.size();
+    }
+
+    private static boolean tomar(AtomicInteger contador, int cantidad) {
+        while (true) {
+            int actual = contador.get();
+            if (actual < cantidad) {
+                return false;
+            }
+            if (contador.compareAndSet(actual, actual - cantidad)) {
+                return true;
+            }
+        }
+    }
+
+    // Devuelve las primeras "cantidad" entradas del consumo (las que ya se habían tomado)
+    private void devolver(Map<Long, Integer> consumo, int cantidad) {
+        int i = 0;
+        for (Map.Entry<Long, Integer> entrada : consumo.entrySet()) {
+            if (i++ == cantidad) {
+                return;
+            }
+            contadores.get(entrada.getKey()).addAndGet(entrada.getValue());
+        }
+    }
+}
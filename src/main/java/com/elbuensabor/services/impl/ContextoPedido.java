@@ -0,0 +1,55 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.exceptions.ResourceNotFoundException;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Datos de un pedido en curso (artículos, recetas compiladas, insumos que consumen y promociones
+ * seleccionadas), cargados una sola vez por ContextoPedidoService. Validación de stock, totales,
+ * tiempos y promociones leen de acá en lugar de volver a consultar la base por cada línea.
+ */
+public class ContextoPedido {
+
+    private final Map<Long, Articulo> articulos;
+    private final Map<Long, RecetaCompilada> recetas;
+    private final Map<Long, ArticuloInsumo> insumos;
+    private final Map<Long, Promocion> promociones;
+
+    ContextoPedido(Map<Long, Articulo> articulos, Map<Long, RecetaCompilada> recetas,
+                   Map<Long, ArticuloInsumo> insumos, Map<Long, Promocion> promociones) {
+        this.articulos = Collections.unmodifiableMap(articulos);
+        this.recetas = Collections.unmodifiableMap(recetas);
+        this.insumos = Collections.unmodifiableMap(insumos);
+        this.promociones = Collections.unmodifiableMap(promociones);
+    }
+
+    public Articulo getArticulo(Long idArticulo) {
+        Articulo articulo = articulos.get(idArticulo);
+        if (articulo == null) {
+            throw new ResourceNotFoundException("Artículo con ID " + idArticulo + " no encontrado");
+        }
+        return articulo;
+    }
+
+    public RecetaCompilada getReceta(Long idManufacturado) {
+        return recetas.getOrDefault(idManufacturado, RecetaCompilada.VACIA);
+    }
+
+    public ArticuloInsumo getInsumo(Long idInsumo) {
+        ArticuloInsumo insumo = insumos.get(idInsumo);
+        if (insumo == null) {
+            throw new ResourceNotFoundException("Insumo con ID " + idInsumo + " no encontrado");
+        }
+        return insumo;
+    }
+
+    public Optional<Promocion> getPromocion(Long idPromocion) {
+        return Optional.ofNullable(promociones.get(idPromocion));
+    }
+}
@@ -0,0 +1,100 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.DetallePedidoRequestDTO;
+import com.elbuensabor.dto.request.PedidoRequestDTO;
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.Promocion;
+import com.elbuensabor.repository.IArticuloInsumoRepository;
+import com.elbuensabor.repository.IArticuloRepository;
+import com.elbuensabor.repository.IPromocionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class ContextoPedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContextoPedidoService.class);
+
+    @Autowired
+    private IArticuloRepository articuloRepository;
+
+    @Autowired
+    private IArticuloInsumoRepository articuloInsumoRepository;
+
+    @Autowired
+    private RecetaCacheService recetaCacheService;
+
+    @Autowired
+    private IPromocionRepository promocionRepository;
+
+    /**
+     * Carga en lote todo lo que referencia el pedido:
+     * 1. Artículos de las líneas (manufacturados e insumos vendidos directamente)
+     * 2. Recetas desde el caché y los insumos que consumen, en una sola consulta
+     * 3. Promociones seleccionadas y agrupada, con artículos y sucursales
+     */
+    @Transactional(readOnly = true)
+    public ContextoPedido cargarContexto(PedidoRequestDTO pedidoRequest) {
+        Set<Long> idsArticulos = new HashSet<>();
+        Set<Long> idsPromociones = new HashSet<>();
+
+        for (DetallePedidoRequestDTO detalle : pedidoRequest.getDetalles()) {
+            idsArticulos.add(detalle.getIdArticulo());
+            if (detalle.getIdPromocionSeleccionada() != null) {
+                idsPromociones.add(detalle.getIdPromocionSeleccionada());
+            }
+        }
+        if (pedidoRequest.getPromocionAgrupada() != null && pedidoRequest.getPromocionAgrupada().getIdPromocion() != null) {
+            idsPromociones.add(pedidoRequest.getPromocionAgrupada().getIdPromocion());
+        }
+
+        Map<Long, Articulo> articulos = new HashMap<>();
+        for (Articulo articulo : articuloRepository.findAllById(idsArticulos)) {
+            articulos.put(articulo.getIdArticulo(), articulo);
+        }
+
+        Map<Long, RecetaCompilada> recetas = new HashMap<>();
+        Set<Long> idsInsumos = new HashSet<>();
+        for (Articulo articulo : articulos.values()) {
+            if (articulo instanceof ArticuloManufacturado) {
+                RecetaCompilada receta = recetaCacheService.obtener(articulo.getIdArticulo());
+                recetas.put(articulo.getIdArticulo(), receta);
+                for (int i = 0; i < receta.size(); i++) {
+                    idsInsumos.add(receta.idInsumo(i));
+                }
+            } else if (articulo instanceof ArticuloInsumo) {
+                idsInsumos.add(articulo.getIdArticulo());
+            }
+        }
+
+        Map<Long, ArticuloInsumo> insumos = new HashMap<>();
+        if (!idsInsumos.isEmpty()) {
+            for (ArticuloInsumo insumo : articuloInsumoRepository.findAllById(idsInsumos)) {
+                insumos.put(insumo.getIdArticulo(), insumo);
+            }
+        }
+
+        Map<Long, Promocion> promociones = new HashMap<>();
+        if (!idsPromociones.isEmpty()) {
+            for (Promocion promocion : promocionRepository.findAllConArticulosByIdIn(idsPromociones)) {
+                promociones.put(promocion.getIdPromocion(), promocion);
+            }
+            // Inicializa las sucursales de las mismas instancias
+            promocionRepository.findAllConSucursalesByIdIn(idsPromociones);
+        }
+
+        logger.debug("Contexto de pedido cargado: {} artículos, {} insumos, {} promociones",
+                articulos.size(), insumos.size(), promociones.size());
+        return new ContextoPedido(articulos, recetas, insumos, promociones);
+    }
+}
@@ -0,0 +1,137 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.CostoInsumoResponseDTO;
+import com.elbuensabor.dto.response.CostoInsumoResponseDTO.CompraDTO;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.exceptions.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Costo de los insumos a partir de sus compras, sin recorrer compra_insumo.
+ *
+ * El costo promedio ponderado vive en articulo_insumo.costo_promedio y cada compra lo corrige
+ * en el mismo UPDATE que suma el stock: (stock * promedio + cantidad * precio) / (stock + cantidad).
+ * Las últimas ULTIMAS_COMPRAS compras de cada insumo se guardan en memoria: se leen de la base
+ * la primera vez que se consultan (las más recientes por ID) y después cada compra confirmada
+ * se agrega adelante.
+ */
+@Service
+public class CostoInsumoService {
+
+    static final int ULTIMAS_COMPRAS = 10;
+
+    public record Compra(Long idCompra, LocalDate fechaCompra, double cantidad, double precioUnitario) {
+    }
+
+    private final Map<Long, Deque<Compra>> ultimas = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ==================== COSTO PROMEDIO ====================
+
+    /**
+     * Costo unitario con el que se calcula el costo de un pedido.
+     */
+    public static double costoUnitario(ArticuloInsumo insumo) {
+        return insumo.getCostoPromedio() != null ? insumo.getCostoPromedio() : insumo.getPrecioCompra();
+    }
+
+    /**
+     * Promedio después de comprar cantidad unidades por costoTotal. Sin promedio previo el stock
+     * existente vale precioCompra; sin stock el promedio es el de la compra. Varias compras juntas
+     * se pueden pasar sumadas: el resultado es el mismo que aplicarlas de a una.
+     */
+    public static double promedio(int stockAnterior, Double promedioAnterior, double precioCompra,
+                                  double cantidad, double costoTotal) {
+        double base = promedioAnterior != null ? promedioAnterior : precioCompra;
+        if (cantidad <= 0) {
+            return base;
+        }
+        if (stockAnterior <= 0) {
+            return costoTotal / cantidad;
+        }
+        return (stockAnterior * base + costoTotal) / (stockAnterior + cantidad);
+    }
+
+    // ==================== ÚLTIMAS COMPRAS ====================
+
+    /**
+     * Compras nuevas del insumo; se agregan al confirmarse la transacción.
+     */
+    public void registrarCompras(Long idInsumo, Collection<Compra> compras) {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (this) {
+                Deque<Compra> recientes = ultimas.get(idInsumo);
+                if (recientes == null) {
+                    // Nadie las consultó todavía: la primera lectura ya las trae de la base
+                    return;
+                }
+                for (Compra compra : compras) {
+                    // La lectura pudo ocurrir entre el commit y este aviso
+                    if (recientes.stream().noneMatch(c -> c.idCompra().equals(compra.idCompra()))) {
+                        recientes.addFirst(compra);
+                    }
+                }
+                while (recientes.size() > ULTIMAS_COMPRAS) {
+                    recientes.removeLast();
+                }
+            }
+        });
+    }
+
+    public synchronized List<Compra> ultimasCompras(Long idInsumo) {
+        return List.copyOf(ultimas.computeIfAbsent(idInsumo, id -> new ArrayDeque<>(jdbcTemplate.query(
+                "SELECT id, fecha_compra, cantidad, precio_unitario FROM compra_insumo WHERE id_articulo_insumo = ? " +
+                        "ORDER BY id DESC LIMIT " + ULTIMAS_COMPRAS,
+                (rs, fila) -> new Compra(rs.getLong("id"), rs.getObject("fecha_compra", LocalDate.class),
+                        rs.getDouble("cantidad"), rs.getDouble("precio_unitario")),
+                id))));
+    }
+
+    // ==================== CONSULTA ====================
+
+    public CostoInsumoResponseDTO getCosto(Long idInsumo) {
+        List<CostoInsumoResponseDTO> leidos = jdbcTemplate.query(
+                "SELECT precio_compra, costo_promedio FROM articulo_insumo WHERE id_articulo = ?",
+                (rs, fila) -> {
+                    CostoInsumoResponseDTO costo = new CostoInsumoResponseDTO();
+                    costo.setIdInsumo(idInsumo);
+                    costo.setPrecioCompra(rs.getDouble("precio_compra"));
+                    costo.setCostoPromedio(rs.getObject("costo_promedio", Double.class));
+                    return costo;
+                },
+                idInsumo);
+        if (leidos.isEmpty()) {
+            throw new ResourceNotFoundException("Artículo insumo con ID " + idInsumo + " no encontrado");
+        }
+
+        CostoInsumoResponseDTO costo = leidos.get(0);
+        if (costo.getCostoPromedio() == null) {
+            costo.setCostoPromedio(costo.getPrecioCompra());
+        }
+
+        List<Compra> compras = ultimasCompras(idInsumo);
+        double cantidad = 0;
+        double total = 0;
+        for (Compra compra : compras) {
+            cantidad += compra.cantidad();
+            total += compra.cantidad() * compra.precioUnitario();
+        }
+        costo.setPromedioUltimasCompras(cantidad > 0 ? total / cantidad : null);
+        costo.setUltimasCompras(compras.stream()
+                .map(c -> new CompraDTO(c.idCompra(), c.fechaCompra(), c.cantidad(), c.precioUnitario()))
+                .toList());
+        return costo;
+    }
+}
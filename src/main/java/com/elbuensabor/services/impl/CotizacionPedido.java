@@ -0,0 +1,92 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.Promocion;
+
+import java.util.List;
+
+/**
+ * Cotización de un PedidoRequestDTO: líneas con precios y descuentos, totales, costo, tiempo estimado
+ * y stock, calculados una sola vez sobre el ContextoPedido. crearPedido y el armado de la respuesta
+ * leen de acá en lugar de volver a validar stock, aplicar promociones o estimar tiempos.
+ */
+public final class CotizacionPedido {
+
+    private final List<Linea> lineas;
+    private final double subtotalOriginal;
+    private final double descuentoPromociones;
+    private final double total;
+    private final double totalCosto;
+    private final int tiempoEstimadoMinutos;
+    private final boolean stockSuficiente;
+    private final String resumenPromociones;
+    private final String versionCatalogo;
+
+    CotizacionPedido(List<Linea> lineas, double subtotalOriginal, double descuentoPromociones, double total,
+                     double totalCosto, int tiempoEstimadoMinutos, boolean stockSuficiente,
+                     String resumenPromociones, String versionCatalogo) {
+        this.lineas = List.copyOf(lineas);
+        this.subtotalOriginal = subtotalOriginal;
+        this.descuentoPromociones = descuentoPromociones;
+        this.total = total;
+        this.totalCosto = totalCosto;
+        this.tiempoEstimadoMinutos = tiempoEstimadoMinutos;
+        this.stockSuficiente = stockSuficiente;
+        this.resumenPromociones = resumenPromociones;
+        this.versionCatalogo = versionCatalogo;
+    }
+
+    public List<Linea> getLineas() { return lineas; }
+    public double getSubtotalOriginal() { return subtotalOriginal; }
+    public double getDescuentoPromociones() { return descuentoPromociones; }
+    public double getTotal() { return total; }
+    public double getTotalCosto() { return totalCosto; }
+    public int getTiempoEstimadoMinutos() { return tiempoEstimadoMinutos; }
+    public boolean isStockSuficiente() { return stockSuficiente; }
+    public String getResumenPromociones() { return resumenPromociones; }
+    public String getVersionCatalogo() { return versionCatalogo; }
+
+    public long getCantidadLineasConPromocion() {
+        return lineas.stream().filter(Linea::tienePromocion).count();
+    }
+
+    /**
+     * Una línea del pedido ya cotizada (precio final con promociones individuales y agrupada).
+     */
+    public static final class Linea {
+
+        private final Articulo articulo;
+        private final int cantidad;
+        private final double precioUnitarioOriginal;
+        private final double descuento;
+        private final double subtotalFinal;
+        private final boolean tienePromocion;
+        private final Promocion promocion;
+        private final String observaciones;
+
+        Linea(Articulo articulo, int cantidad, double precioUnitarioOriginal, double descuento,
+              double subtotalFinal, boolean tienePromocion, Promocion promocion, String observaciones) {
+            this.articulo = articulo;
+            this.cantidad = cantidad;
+            this.precioUnitarioOriginal = precioUnitarioOriginal;
+            this.descuento = descuento;
+            this.subtotalFinal = subtotalFinal;
+            this.tienePromocion = tienePromocion;
+            this.promocion = promocion;
+            this.observaciones = observaciones;
+        }
+
+        public Articulo getArticulo() { return articulo; }
+        public Long getIdArticulo() { return articulo.getIdArticulo(); }
+        public int getCantidad() { return cantidad; }
+        public double getPrecioUnitarioOriginal() { return precioUnitarioOriginal; }
+        public double getDescuento() { return descuento; }
+        public double getSubtotalFinal() { return subtotalFinal; }
+        public Promocion getPromocion() { return promocion; }
+        public String getObservaciones() { return observaciones; }
+
+        public boolean tienePromocion() {
+            return tienePromocion;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.DetallePedidoRequestDTO;
+import com.elbuensabor.dto.request.PedidoRequestDTO;
+import com.elbuensabor.dto.request.PromocionAgrupadaDTO;
+import com.elbuensabor.entities.Promocion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cotizaciones firmadas (HMAC-SHA256) que devuelve /api/pedidos/preview-carrito.
+ * Al crear el pedido con el token, si la firma es válida, no venció, el carrito es el mismo que se
+ * cotizó y el catálogo no cambió desde entonces (VersionCatalogoService), se reutilizan las líneas,
+ * promociones, totales, costo y tiempo en lugar de volver a calcularlos. El stock se valida siempre.
+ *
+ * Formato: base64url(json) + "." + base64url(firma). Cualquier problema con el token hace que el
+ * pedido se cotice de nuevo; nunca rechaza el pedido.
+ */
+@Service
+public class CotizacionTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CotizacionTokenService.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+    private final MetricasPedidoService metricasPedidoService;
+    private final VersionCatalogoService versionCatalogoService;
+    private final SecretKeySpec clave;
+    private final long ttlMillis;
+
+    public CotizacionTokenService(ObjectMapper objectMapper,
+                                  MetricasPedidoService metricasPedidoService,
+                                  VersionCatalogoService versionCatalogoService,
+                                  @Value("${cotizacion.token.secreto:}") String secreto,
+                                  @Value("${cotizacion.token.ttl-minutos:10}") long ttlMinutos) {
+        this.objectMapper = objectMapper;
+        this.metricasPedidoService = metricasPedidoService;
+        this.versionCatalogoService = versionCatalogoService;
+        this.clave = new SecretKeySpec(secreto.isBlank() ? claveAleatoria() : secreto.getBytes(StandardCharsets.UTF_8), ALGORITMO);
+        this.ttlMillis = Duration.ofMinutes(ttlMinutos).toMillis();
+    }
+
+    // ==================== EMISIÓN ====================
+
+    public String emitir(PedidoRequestDTO pedidoRequest, CotizacionPedido cotizacion) {
+        List<LineaCotizada> lineas = new ArrayList<>();
+        for (CotizacionPedido.Linea linea : cotizacion.getLineas()) {
+            lineas.add(new LineaCotizada(
+                    linea.getIdArticulo(),
+                    linea.getCantidad(),
+                    linea.getPrecioUnitarioOriginal(),
+                    linea.getDescuento(),
+                    linea.getSubtotalFinal(),
+                    linea.tienePromocion(),
+                    linea.getPromocion() != null ? linea.getPromocion().getIdPromocion() : null));
+        }
+
+        Contenido contenido = new Contenido(
+                huella(pedidoRequest),
+                cotizacion.getVersionCatalogo(),
+                System.currentTimeMillis() + ttlMillis,
+                cotizacion.getSubtotalOriginal(),
+                cotizacion.getDescuentoPromociones(),
+                cotizacion.getTotal(),
+                cotizacion.getTotalCosto(),
+                cotizacion.getTiempoEstimadoMinutos(),
+                cotizacion.getResumenPromociones(),
+                lineas);
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(contenido);
+            return BASE64.encodeToString(json) + "." + BASE64.encodeToString(firmar(json));
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo emitir el token de cotización", e);
+        }
+    }
+
+    // ==================== LECTURA ====================
+
+    /**
+     * Cotización del token del pedido, armada sobre el contexto ya cargado, o vacío si el pedido
+     * no trae token o el token no se puede reutilizar.
+     */
+    public Optional<CotizacionPedido> leer(PedidoRequestDTO pedidoRequest, ContextoPedido contexto, boolean stockSuficiente) {
+        String token = pedidoRequest.getTokenCotizacion();
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        Contenido contenido = verificar(token);
+        String motivo = motivoRechazo(contenido, pedidoRequest, contexto);
+        metricasPedidoService.registrarTokenCotizacion(motivo == null ? "valido" : motivo);
+        if (motivo != null) {
+            logger.info("🧾 Token de cotización descartado ({}), se vuelve a cotizar", motivo);
+            return Optional.empty();
+        }
+
+        List<CotizacionPedido.Linea> lineas = new ArrayList<>();
+        for (int i = 0; i < contenido.getLineas().size(); i++) {
+            LineaCotizada linea = contenido.getLineas().get(i);
+            Promocion promocion = linea.getIdPromocion() != null
+                    ? contexto.getPromocion(linea.getIdPromocion()).orElse(null)
+                    : null;
+            lineas.add(new CotizacionPedido.Linea(
+                    contexto.getArticulo(linea.getIdArticulo()),
+                    linea.getCantidad(),
+                    linea.getPrecioUnitarioOriginal(),
+                    linea.getDescuento(),
+                    linea.getSubtotalFinal(),
+                    linea.isTienePromocion(),
+                    promocion,
+                    pedidoRequest.getDetalles().get(i).getObservaciones()));
+        }
+
+        return Optional.of(new CotizacionPedido(lineas, contenido.getSubtotalOriginal(), contenido.getDescuentoPromociones(),
+                contenido.getTotal(), contenido.getTotalCosto(), contenido.getTiempoEstimadoMinutos(), stockSuficiente,
+                contenido.getResumenPromociones(), contenido.getVersion()));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private Contenido verificar(String token) {
+        int punto = token.indexOf('.');
+        if (punto < 0) {
+            return null;
+        }
+        try {
+            byte[] json = BASE64_DECODER.decode(token.substring(0, punto));
+            byte[] firma = BASE64_DECODER.decode(token.substring(punto + 1));
+            if (!MessageDigest.isEqual(firmar(json), firma)) {
+                return null;
+            }
+            return objectMapper.readValue(json, Contenido.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String motivoRechazo(Contenido contenido, PedidoRequestDTO pedidoRequest, ContextoPedido contexto) {
+        if (contenido == null) {
+            return "firma_invalida";
+        }
+        if (System.currentTimeMillis() > contenido.getExpira()) {
+            return "vencido";
+        }
+        if (!versionCatalogoService.actual().equals(contenido.getVersion())) {
+            return "catalogo_modificado";
+        }
+        if (!huella(pedidoRequest).equals(contenido.getHuella())
+                || contenido.getLineas().size() != pedidoRequest.getDetalles().size()) {
+            return "carrito_distinto";
+        }
+        for (LineaCotizada linea : contenido.getLineas()) {
+            if (linea.getIdPromocion() != null
+                    && contexto.getPromocion(linea.getIdPromocion()).map(p -> !p.estaVigente()).orElse(true)) {
+                return "promocion_no_vigente";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * SHA-256 de lo que determina el precio del carrito (sucursal, envío, líneas y promoción agrupada).
+     */
+    private String huella(PedidoRequestDTO pedidoRequest) {
+        StringBuilder canonico = new StringBuilder()
+                .append(pedidoRequest.getIdSucursal()).append('|')
+                .append(pedidoRequest.getTipoEnvio());
+        for (DetallePedidoRequestDTO detalle : pedidoRequest.getDetalles()) {
+            canonico.append('|').append(detalle.getIdArticulo())
+                    .append('x').append(detalle.getCantidad())
+                    .append('p').append(detalle.getIdPromocionSeleccionada());
+        }
+        PromocionAgrupadaDTO agrupada = pedidoRequest.getPromocionAgrupada();
+        if (agrupada != null) {
+            canonico.append("|agrupada:").append(agrupada.getIdPromocion())
+                    .append(',').append(agrupada.getTipoDescuento())
+                    .append(',').append(agrupada.getValorDescuento())
+                    .append(',').append(agrupada.getDescuentoAplicado());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonico.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] firmar(byte[] datos) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITMO);
+        mac.init(clave);
+        return mac.doFinal(datos);
+    }
+
+    private static byte[] claveAleatoria() {
+        // Sin secreto configurado los tokens solo valen en esta instancia (igual que la versión del catálogo)
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Contenido {
+        private String huella;
+        private String version;
+        private long expira;
+        private double subtotalOriginal;
+        private double descuentoPromociones;
+        private double total;
+        private double totalCosto;
+        private int tiempoEstimadoMinutos;
+        private String resumenPromociones;
+        private List<LineaCotizada> lineas;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class LineaCotizada {
+        private Long idArticulo;
+        private int cantidad;
+        private double precioUnitarioOriginal;
+        private double descuento;
+        private double subtotalFinal;
+        private boolean tienePromocion;
+        private Long idPromocion;
+    }
+}
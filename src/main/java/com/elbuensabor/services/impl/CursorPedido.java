@@ -0,0 +1,38 @@
+package com.elbuensabor.services.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en un listado de pedidos ordenado por (fecha, idPedido) descendente: el último
+ * pedido de la página anterior. Viaja al frontend como texto opaco base64url de
+ * "fechaISO|idPedido"; el formato no cambia aunque cambien los filtros.
+ */
+public record CursorPedido(LocalDateTime fecha, Long idPedido) {
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    public String codificar() {
+        return BASE64.encodeToString((fecha + "|" + idPedido).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Cursor recibido del frontend; null o vacío es la primera página.
+     */
+    public static CursorPedido decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String texto = new String(BASE64_DECODER.decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('|');
+            return new CursorPedido(LocalDateTime.parse(texto.substring(0, separador)),
+                    Long.valueOf(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+}
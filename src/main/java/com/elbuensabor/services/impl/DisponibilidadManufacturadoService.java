@@ -0,0 +1,165 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.events.StockAjustadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Máximo preparable de cada artículo manufacturado, mantenido en memoria.
+ *
+ * Guarda el stock de cada insumo y un índice inverso insumo -> manufacturados que lo usan.
+ * Cuando MovimientoStockService confirma movimientos (StockAjustadoEvent) se suma la variación
+ * al insumo y se recalcula solo el máximo de los productos del índice, así el menú y las
+ * consultas de preparables leen un valor ya calculado en lugar de consultar el stock.
+ *
+ * El máximo de un producto se calcula la primera vez que se pide y recuerda la receta con la
+ * que se calculó: si RecetaCacheService publicó otra (cambió la receta) se recalcula y se
+ * reindexa al consultarlo.
+ *
+ * Un producto sin receta tiene máximo 0 pero es preparable: no le falta ningún ingrediente.
+ */
+@Service
+public class DisponibilidadManufacturadoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibilidadManufacturadoService.class);
+
+    private record Maximo(RecetaCompilada receta, int maximo) {
+    }
+
+    private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> manufacturadosPorInsumo = new ConcurrentHashMap<>();
+    private final Map<Long, Maximo> maximos = new ConcurrentHashMap<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RecetaCacheService recetaCacheService;
+
+    // ==================== CARGA ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarStock() {
+        jdbcTemplate.query("SELECT id_articulo, stock_actual FROM articulo_insumo",
+                rs -> {
+                    // Si un movimiento ya trajo el insumo, su valor es igual o más nuevo
+                    stock.putIfAbsent(rs.getLong("id_articulo"), rs.getInt("stock_actual"));
+                });
+        logger.info("📋 Disponibilidad de manufacturados: stock de {} insumos cargado", stock.size());
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Unidades del producto que alcanzan con el stock actual: el mínimo de FLOOR(stock / cantidad)
+     * entre sus ingredientes, 0 si no tiene receta.
+     */
+    public int maximoPreparable(Long idManufacturado) {
+        RecetaCompilada receta = recetaCacheService.obtener(idManufacturado);
+        Maximo maximo = maximos.get(idManufacturado);
+        if (maximo != null && maximo.receta() == receta) {
+            return maximo.maximo();
+        }
+        return indexar(idManufacturado, receta);
+    }
+
+    public boolean esPreparable(Long idManufacturado) {
+        return recetaCacheService.obtener(idManufacturado).isEmpty() || maximoPreparable(idManufacturado) > 0;
+    }
+
+    /**
+     * IDs de los productos con receta a los que hoy les falta algún ingrediente para una unidad.
+     * Recorre las recetas en caché; el máximo de cada una ya está calculado salvo que haya cambiado.
+     */
+    public List<Long> findNoPreparables() {
+        List<Long> ids = new ArrayList<>();
+        for (Long idManufacturado : recetaCacheService.findManufacturadosConReceta()) {
+            if (!recetaCacheService.obtener(idManufacturado).isEmpty() && maximoPreparable(idManufacturado) == 0) {
+                ids.add(idManufacturado);
+            }
+        }
+        return ids;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Suma los movimientos confirmados al stock de cada insumo y recalcula los productos que lo usan.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockAjustado(StockAjustadoEvent event) {
+        Set<Long> afectados = new HashSet<>();
+        for (MovimientoStockService.Movimiento movimiento : event.getMovimientos()) {
+            Long idInsumo = movimiento.idInsumo();
+            if (stock.containsKey(idInsumo)) {
+                stock.merge(idInsumo, movimiento.cantidad(), Integer::sum);
+            } else {
+                // Insumo que no se conocía: la base ya tiene el movimiento confirmado
+                stockDe(idInsumo);
+            }
+            afectados.addAll(manufacturadosPorInsumo.getOrDefault(idInsumo, Set.of()));
+        }
+
+        for (Long idManufacturado : afectados) {
+            Maximo maximo = maximos.get(idManufacturado);
+            if (maximo != null) {
+                maximos.put(idManufacturado, new Maximo(maximo.receta(), calcular(maximo.receta())));
+            }
+        }
+    }
+
+    // Calcula el máximo con la receta vigente y mueve el producto en el índice inverso
+    private synchronized int indexar(Long idManufacturado, RecetaCompilada receta) {
+        Maximo anterior = maximos.get(idManufacturado);
+        if (anterior != null) {
+            if (anterior.receta() == receta) {
+                return anterior.maximo();
+            }
+            for (int i = 0; i < anterior.receta().size(); i++) {
+                Set<Long> productos = manufacturadosPorInsumo.get(anterior.receta().idInsumo(i));
+                if (productos != null) {
+                    productos.remove(idManufacturado);
+                }
+            }
+        }
+
+        for (int i = 0; i < receta.size(); i++) {
+            manufacturadosPorInsumo.computeIfAbsent(receta.idInsumo(i), id -> ConcurrentHashMap.newKeySet())
+                    .add(idManufacturado);
+        }
+        int maximo = calcular(receta);
+        maximos.put(idManufacturado, new Maximo(receta, maximo));
+        return maximo;
+    }
+
+    private int calcular(RecetaCompilada receta) {
+        if (receta.isEmpty()) {
+            return 0;
+        }
+
+        int maximo = Integer.MAX_VALUE;
+        for (int i = 0; i < receta.size(); i++) {
+            maximo = Math.min(maximo, (int) Math.floor(stockDe(receta.idInsumo(i)) / receta.cantidad(i)));
+        }
+        return Math.max(maximo, 0);
+    }
+
+    private int stockDe(Long idInsumo) {
+        return stock.computeIfAbsent(idInsumo, id -> jdbcTemplate.queryForList(
+                        "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, id)
+                .stream().findFirst().orElse(0));
+    }
+}
@@ -13,7 +13,6 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.List;
 
 @Service
@@ -31,7 +30,7 @@ public class EstadisticasServiceImpl implements IEstadisticasService {
     @Override
     public MovimientosMonetariosDTO findMovimientosMonetarios(LocalDate fechaDesde, LocalDate fechaHasta) {
         LocalDateTime inicio = fechaDesde.atStartOfDay();
-        LocalDateTime fin = fechaHasta.atTime(LocalTime.MAX);
+        LocalDateTime fin = fechaHasta.plusDays(1).atStartOfDay();
 
         // Los ingresos se calculan desde las facturas
         Double ingresos = facturaRepository.getTotalVentasByPeriodo(fechaDesde, fechaHasta);
@@ -40,7 +39,7 @@ public class EstadisticasServiceImpl implements IEstadisticasService {
         }
 
         // Los costos vienen del campo 'totalCosto' de los pedidos no cancelados
-        List<com.elbuensabor.entities.Pedido> pedidosEnRango = pedidoRepository.findByFechaBetween(inicio, fin);
+        List<com.elbuensabor.entities.Pedido> pedidosEnRango = pedidoRepository.findByFechaEnRango(inicio, fin);
         Double costos = pedidosEnRango.stream()
                 .filter(pedido -> pedido.getEstado() != com.elbuensabor.entities.Estado.CANCELADO)
                 .mapToDouble(com.elbuensabor.entities.Pedido::getTotalCosto)
@@ -53,8 +52,9 @@ public class EstadisticasServiceImpl implements IEstadisticasService {
 
     @Override
     public List<RankingProductoDTO> findRankingProductos(LocalDate fechaDesde, LocalDate fechaHasta, Integer limit) {
+        // Rango [desde, hasta + 1 día): el ranking compara con < sobre p.fecha
         LocalDateTime inicio = fechaDesde.atStartOfDay();
-        LocalDateTime fin = fechaHasta.atTime(LocalTime.MAX);
+        LocalDateTime fin = fechaHasta.plusDays(1).atStartOfDay();
 
         // Creamos un objeto Pageable para limitar los resultados de la consulta
         Pageable pageable = PageRequest.of(0, limit);
@@ -0,0 +1,302 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Hora estimada de entrega según la carga de la cocina.
+ *
+ * Mantiene en memoria los pedidos PENDIENTE y PREPARACION con sus minutos de preparación
+ * (el mayor tiempoEstimadoEnMinutos de sus manufacturados) y un plan de la cocina: cuándo
+ * queda libre cada uno de los cocineros configurados si atienden los pedidos en orden de
+ * llegada, primero los que ya están en preparación. Un pedido nuevo empieza cuando se libera
+ * el primer cocinero, así que estimarlo es mirar el tope de la cola del plan.
+ *
+ * Los pedidos que salen de la cocina (listos, cancelados) o que se atrasan mueven el plan:
+ * recalcular() lo rearma cada minuto y, a los pedidos cuya hora quedó al menos
+ * umbral-aviso-minutos más tarde que la informada, les guarda la nueva hora (en la base y en el
+ * tablero de pedidos) y la avisa con notificarTiempoExtendido. Las horas que se adelantan no se avisan.
+ *
+ * PedidoServiceImpl lo carga al iniciar y lo actualiza en cada alta y cambio de estado
+ * (igual que el tablero de pedidos). El modelo es de esta instancia.
+ */
+@Service
+public class EstimacionEntregaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstimacionEntregaService.class);
+
+    public static final int MINUTOS_DELIVERY = 15;
+
+    private static final Set<Estado> ESTADOS_COCINA = EnumSet.of(Estado.PENDIENTE, Estado.PREPARACION);
+
+    private static final String SQL_ACTUALIZAR_HORA =
+            "UPDATE pedido SET hora_estimada_finalizacion = ?, version = version + 1 WHERE id_pedido = ?";
+
+    // Los que ya están en preparación ocupan cocinero primero; después, orden de llegada
+    private static final Comparator<OrdenCocina> ORDEN_ATENCION = Comparator
+            .comparing((OrdenCocina orden) -> !orden.enPreparacion)
+            .thenComparing(orden -> orden.enPreparacion ? orden.inicioPreparacion : orden.fecha)
+            .thenComparing(orden -> orden.idPedido);
+
+    private static final class OrdenCocina {
+        private final Long idPedido;
+        private final LocalDateTime fecha;
+        private final int minutosPreparacion;
+        private final boolean delivery;
+        private boolean enPreparacion;
+        private LocalDateTime inicioPreparacion;
+        private LocalDateTime horaInformada;
+        private LocalDateTime horaCalculada;
+
+        private OrdenCocina(Long idPedido, LocalDateTime fecha, int minutosPreparacion, boolean delivery) {
+            this.idPedido = idPedido;
+            this.fecha = fecha;
+            this.minutosPreparacion = minutosPreparacion;
+            this.delivery = delivery;
+        }
+    }
+
+    private record Extension(Long idPedido, LocalTime hora, int minutosExtra) {
+    }
+
+    private final WebSocketNotificationService webSocketNotificationService;
+    private final TableroPedidosService tableroPedidosService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int cocineros;
+    private final int umbralAvisoMinutos;
+    private final Clock reloj;
+
+    private final Map<Long, OrdenCocina> ordenes = new HashMap<>();
+
+    // Instante en que queda libre cada cocinero según el plan; se rearma cuando un pedido sale
+    private final PriorityQueue<LocalDateTime> cocinerosLibres = new PriorityQueue<>();
+    private boolean planVigente;
+
+    @Autowired
+    public EstimacionEntregaService(WebSocketNotificationService webSocketNotificationService,
+                                    TableroPedidosService tableroPedidosService, JdbcTemplate jdbcTemplate,
+                                    @Value("${cocina.cocineros:3}") int cocineros,
+                                    @Value("${cocina.eta.umbral-aviso-minutos:5}") int umbralAvisoMinutos) {
+        this(webSocketNotificationService, tableroPedidosService, jdbcTemplate, cocineros, umbralAvisoMinutos,
+                Clock.systemDefaultZone());
+    }
+
+    EstimacionEntregaService(WebSocketNotificationService webSocketNotificationService,
+                             TableroPedidosService tableroPedidosService, JdbcTemplate jdbcTemplate,
+                             int cocineros, int umbralAvisoMinutos, Clock reloj) {
+        this.webSocketNotificationService = webSocketNotificationService;
+        this.tableroPedidosService = tableroPedidosService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cocineros = Math.max(1, cocineros);
+        this.umbralAvisoMinutos = umbralAvisoMinutos;
+        this.reloj = reloj;
+    }
+
+    // ==================== CARGA Y ACTUALIZACIÓN ====================
+
+    public synchronized void cargar(Collection<PedidoResponseDTO> pedidos) {
+        ordenes.clear();
+        for (PedidoResponseDTO pedido : pedidos) {
+            if (ESTADOS_COCINA.contains(Estado.valueOf(pedido.getEstado()))) {
+                // Sin el instante real, los que ya estaban en preparación se toman desde su llegada
+                OrdenCocina orden = nuevaOrden(pedido);
+                orden.enPreparacion = Estado.valueOf(pedido.getEstado()) == Estado.PREPARACION;
+                orden.inicioPreparacion = orden.fecha;
+                ordenes.put(orden.idPedido, orden);
+            }
+        }
+        replanificar();
+        logger.info("⏱️ Plan de cocina cargado: {} pedidos en cocina, {} cocineros", ordenes.size(), cocineros);
+    }
+
+    /**
+     * Registra el estado actual del pedido en el modelo de la cocina.
+     * Si hay una transacción activa se aplica recién al confirmarse.
+     */
+    public void actualizar(PedidoResponseDTO pedido) {
+        Transacciones.despuesDelCommit(() -> aplicar(pedido));
+    }
+
+    private synchronized void aplicar(PedidoResponseDTO pedido) {
+        Estado estado = Estado.valueOf(pedido.getEstado());
+
+        if (!ESTADOS_COCINA.contains(estado)) {
+            if (ordenes.remove(pedido.getIdPedido()) != null) {
+                planVigente = false;
+            }
+            return;
+        }
+
+        OrdenCocina orden = ordenes.get(pedido.getIdPedido());
+        if (orden == null) {
+            orden = nuevaOrden(pedido);
+            ordenes.put(orden.idPedido, orden);
+            if (planVigente && estado == Estado.PENDIENTE) {
+                // Un pedido nuevo va al final: alcanza con tomar el próximo cocinero libre
+                orden.horaCalculada = planificar(orden, ahora());
+            } else {
+                planVigente = false;
+            }
+        }
+
+        if (estado == Estado.PREPARACION && !orden.enPreparacion) {
+            orden.enPreparacion = true;
+            orden.inicioPreparacion = ahora();
+            planVigente = false;
+        }
+    }
+
+    // ==================== ESTIMACIÓN ====================
+
+    /**
+     * Minutos desde ahora hasta la entrega de un pedido nuevo con esa preparación: la espera
+     * hasta que se libere un cocinero, la preparación y, si es delivery, el envío.
+     */
+    public synchronized int minutosHastaEntrega(int minutosPreparacion, TipoEnvio tipoEnvio) {
+        int minutos = minutosPreparacion;
+
+        // Lo que no lleva preparación (bebidas, por ejemplo) no espera cocinero
+        if (minutosPreparacion > 0) {
+            LocalDateTime ahora = ahora();
+            if (!planVigente) {
+                replanificar();
+            }
+            LocalDateTime libre = cocinerosLibres.peek();
+            if (libre != null && libre.isAfter(ahora)) {
+                minutos += minutosEntre(ahora, libre);
+            }
+        }
+
+        return tipoEnvio == TipoEnvio.DELIVERY ? minutos + MINUTOS_DELIVERY : minutos;
+    }
+
+    // ==================== RECÁLCULO PERIÓDICO ====================
+
+    /**
+     * Rearma el plan y guarda y avisa las horas que se atrasaron.
+     */
+    @Scheduled(fixedDelayString = "${cocina.eta.intervalo-ms:60000}", initialDelayString = "${cocina.eta.intervalo-ms:60000}")
+    public void recalcular() {
+        List<Extension> extensiones = new ArrayList<>();
+
+        synchronized (this) {
+            replanificar();
+            for (OrdenCocina orden : ordenes.values()) {
+                if (orden.horaCalculada == null) {
+                    continue;
+                }
+                if (orden.horaInformada == null) {
+                    orden.horaInformada = orden.horaCalculada;
+                    continue;
+                }
+                int minutosExtra = minutosEntre(orden.horaInformada, orden.horaCalculada);
+                if (minutosExtra >= umbralAvisoMinutos) {
+                    orden.horaInformada = orden.horaCalculada;
+                    extensiones.add(new Extension(orden.idPedido, orden.horaCalculada.toLocalTime(), minutosExtra));
+                }
+            }
+        }
+
+        if (extensiones.isEmpty()) {
+            return;
+        }
+
+        // La versión sube para que una transición que leyó el pedido antes no pise la hora nueva
+        jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_HORA, extensiones.stream()
+                .map(extension -> new Object[]{extension.hora(), extension.idPedido()})
+                .toList());
+        tableroPedidosService.actualizarHoras(extensiones.stream()
+                .collect(Collectors.toMap(Extension::idPedido, Extension::hora)));
+        for (Extension extension : extensiones) {
+            webSocketNotificationService.notificarTiempoExtendido(extension.idPedido(), extension.minutosExtra());
+        }
+        logger.info("⏱️ Horas estimadas extendidas para {} pedidos", extensiones.size());
+    }
+
+    // ==================== PLAN DE LA COCINA ====================
+
+    private void replanificar() {
+        LocalDateTime ahora = ahora();
+        cocinerosLibres.clear();
+        for (int i = 0; i < cocineros; i++) {
+            cocinerosLibres.add(ahora);
+        }
+
+        List<OrdenCocina> enOrden = new ArrayList<>(ordenes.values());
+        enOrden.sort(ORDEN_ATENCION);
+        for (OrdenCocina orden : enOrden) {
+            orden.horaCalculada = planificar(orden, ahora);
+        }
+        planVigente = true;
+    }
+
+    // Asigna el pedido al próximo cocinero libre y devuelve su hora de entrega
+    private LocalDateTime planificar(OrdenCocina orden, LocalDateTime ahora) {
+        LocalDateTime fin;
+        if (orden.minutosPreparacion == 0) {
+            fin = ahora;
+        } else if (orden.enPreparacion) {
+            // Ya tiene cocinero; si se atrasó se asume que termina ahora y empuja a los que siguen
+            cocinerosLibres.poll();
+            fin = max(orden.inicioPreparacion.plusMinutes(orden.minutosPreparacion), ahora);
+            cocinerosLibres.add(fin);
+        } else {
+            fin = max(cocinerosLibres.poll(), ahora).plusMinutes(orden.minutosPreparacion);
+            cocinerosLibres.add(fin);
+        }
+        return orden.delivery ? fin.plusMinutes(MINUTOS_DELIVERY) : fin;
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private OrdenCocina nuevaOrden(PedidoResponseDTO pedido) {
+        LocalDateTime fecha = pedido.getFecha() != null ? pedido.getFecha() : ahora();
+        OrdenCocina orden = new OrdenCocina(pedido.getIdPedido(), fecha,
+                pedido.getTiempoEstimadoTotal() != null ? pedido.getTiempoEstimadoTotal() : 0,
+                TipoEnvio.DELIVERY.name().equals(pedido.getTipoEnvio()));
+
+        if (pedido.getHoraEstimadaFinalizacion() != null) {
+            // La hora se guarda sin fecha: si quedó antes que la llegada, es del día siguiente
+            LocalDateTime hora = fecha.toLocalDate().atTime(pedido.getHoraEstimadaFinalizacion());
+            orden.horaInformada = hora.isBefore(fecha) ? hora.plusDays(1) : hora;
+        }
+        return orden;
+    }
+
+    private LocalDateTime ahora() {
+        return LocalDateTime.now(reloj);
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    // Minutos enteros redondeando hacia arriba (negativo si "hasta" es anterior)
+    private static int minutosEntre(LocalDateTime desde, LocalDateTime hasta) {
+        long segundos = Duration.between(desde, hasta).toSeconds();
+        return (int) Math.ceilDiv(segundos, 60);
+    }
+}
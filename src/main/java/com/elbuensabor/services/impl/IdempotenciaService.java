@@ -0,0 +1,160 @@
+package com.elbuensabor.services.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Soporte del header Idempotency-Key para endpoints de creación (pedidos, pedidos con MercadoPago).
+ * Guarda en memoria las respuestas exitosas de las claves recientes: un reintento con la misma
+ * clave devuelve la respuesta original sin volver a ejecutar el pipeline (ni facturar ni notificar
+ * de nuevo). El almacén está acotado en cantidad de claves y las claves vencidas se descartan solas.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    public static final String HEADER_CLAVE = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 30;
+
+    private final int maxClaves;
+    private final long ttlNanos;
+
+    // Orden de inserción = orden de vencimiento (el TTL es fijo)
+    private final LinkedHashMap<String, Entrada> entradas = new LinkedHashMap<>();
+
+    public IdempotenciaService(@Value("${idempotencia.max-claves:10000}") int maxClaves,
+                               @Value("${idempotencia.ttl-minutos:60}") long ttlMinutos) {
+        this.maxClaves = maxClaves;
+        this.ttlNanos = Duration.ofMinutes(ttlMinutos).toNanos();
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por (ámbito, clave).
+     * - Sin clave: se ejecuta siempre, como antes.
+     * - Clave conocida con la misma solicitud: devuelve la respuesta guardada (o espera a la que está en curso).
+     * - Clave conocida con otra solicitud: IllegalArgumentException.
+     * Solo se guardan respuestas 2xx; si la operación falla, la clave queda libre para reintentar.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> ejecutar(String ambito, String clave, Object solicitud,
+                                          Supplier<ResponseEntity<T>> operacion) {
+        if (clave == null || clave.isBlank()) {
+            return operacion.get();
+        }
+
+        String id = ambito + ":" + clave;
+        // Huella tomada antes de ejecutar: el pipeline puede modificar el DTO
+        Entrada nueva = new Entrada(Objects.hashCode(solicitud), System.nanoTime());
+        Entrada existente;
+
+        synchronized (entradas) {
+            purgarVencidas(nueva.creada);
+            existente = entradas.get(id);
+            if (existente == null) {
+                entradas.put(id, nueva);
+                while (entradas.size() > maxClaves) {
+                    Iterator<Entrada> masAntigua = entradas.values().iterator();
+                    masAntigua.next();
+                    masAntigua.remove();
+                }
+            }
+        }
+
+        if (existente != null) {
+            if (existente.huella != nueva.huella) {
+                throw new IllegalArgumentException("La Idempotency-Key '" + clave + "' ya fue usada con una solicitud distinta");
+            }
+            logger.info("🔁 Solicitud repetida con Idempotency-Key {} ({}), devolviendo respuesta original", clave, ambito);
+            return marcarRepetida((ResponseEntity<T>) esperar(existente));
+        }
+
+        try {
+            ResponseEntity<T> respuesta = operacion.get();
+            nueva.respuesta.complete(respuesta);
+            if (!respuesta.getStatusCode().is2xxSuccessful()) {
+                liberar(id, nueva);
+            }
+            return respuesta;
+        } catch (RuntimeException e) {
+            nueva.respuesta.completeExceptionally(e);
+            liberar(id, nueva);
+            throw e;
+        }
+    }
+
+    public int size() {
+        synchronized (entradas) {
+            purgarVencidas(System.nanoTime());
+            return entradas.size();
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void purgarVencidas(long ahora) {
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            Entrada entrada = it.next();
+            if (ahora - entrada.creada < ttlNanos) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    private void liberar(String id, Entrada entrada) {
+        synchronized (entradas) {
+            entradas.remove(id, entrada);
+        }
+    }
+
+    private ResponseEntity<?> esperar(Entrada entrada) {
+        try {
+            return entrada.respuesta.get(ESPERA_MAXIMA_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Error en la solicitud original", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("La solicitud original con la misma Idempotency-Key sigue en curso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrumpida", e);
+        }
+    }
+
+    private <T> ResponseEntity<T> marcarRepetida(ResponseEntity<T> original) {
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(HEADER_REPETIDA, "true")
+                .body(original.getBody());
+    }
+
+    private static final class Entrada {
+        private final int huella;
+        private final long creada;
+        private final CompletableFuture<ResponseEntity<?>> respuesta = new CompletableFuture<>();
+
+        private Entrada(int huella, long creada) {
+            this.huella = huella;
+            this.creada = creada;
+        }
+    }
+}
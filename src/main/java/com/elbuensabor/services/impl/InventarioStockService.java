@@ -0,0 +1,214 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.InventarioStockResponseDTO;
+import com.elbuensabor.dto.response.InventarioStockResponseDTO.ResultadoFilaDTO;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Importación del conteo físico de inventario: una fila por insumo con el stock contado,
+ * en CSV (idInsumo,stock, con encabezado opcional) o JSON por línea ({"idInsumo": 1, "stock": 40}).
+ *
+ * El archivo se lee línea por línea y se aplica en lotes de TAMANIO_LOTE filas, cada lote en
+ * su propia transacción: se lee el stock de sus insumos bloqueando las filas en orden de ID
+ * (el mismo que usa ConsumoStockService), se valida cada fila contra el insumo, se escribe el stock con un
+ * batch de UPDATE y la diferencia queda en el libro como AJUSTE_MANUAL. Una fila inválida no
+ * frena al resto; el resultado informa cada fila con su línea.
+ */
+@Service
+public class InventarioStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventarioStockService.class);
+
+    static final int TAMANIO_LOTE = 500;
+
+    private static final String SQL_ACTUALIZAR_STOCK =
+            "UPDATE articulo_insumo SET stock_actual = ? WHERE id_articulo = ?";
+
+    private record Fila(int linea, Long idInsumo, Integer stock, String error) {
+    }
+
+    private record Stock(int actual, int maximo) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MovimientoStockService movimientoStockService;
+    private final ObjectMapper objectMapper;
+
+    public InventarioStockService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MovimientoStockService movimientoStockService,
+                                  ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.movimientoStockService = movimientoStockService;
+        this.objectMapper = objectMapper;
+    }
+
+    public InventarioStockResponseDTO importar(Reader contenido, boolean jsonPorLinea) throws IOException {
+        List<ResultadoFilaDTO> resultados = new ArrayList<>();
+        List<Fila> lote = new ArrayList<>(TAMANIO_LOTE);
+        BufferedReader lector = new BufferedReader(contenido);
+
+        String linea;
+        int numero = 0;
+        boolean primera = true;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            Fila fila = jsonPorLinea ? leerJson(numero, linea) : leerCsv(numero, linea, primera);
+            primera = false;
+            if (fila == null) {
+                continue;
+            }
+
+            lote.add(fila);
+            if (lote.size() == TAMANIO_LOTE) {
+                resultados.addAll(aplicar(lote));
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            resultados.addAll(aplicar(lote));
+        }
+
+        int aplicadas = (int) resultados.stream().filter(ResultadoFilaDTO::isExito).count();
+        logger.info("📦 Inventario importado: {} filas, {} aplicadas, {} con error",
+                resultados.size(), aplicadas, resultados.size() - aplicadas);
+        return new InventarioStockResponseDTO(resultados.size(), aplicadas, resultados.size() - aplicadas, resultados);
+    }
+
+    // ==================== LECTURA ====================
+
+    // null para el encabezado
+    private Fila leerCsv(int linea, String texto, boolean primera) {
+        String[] campos = texto.split("[,;]");
+        if (campos.length < 2) {
+            return new Fila(linea, null, null, "Se esperaban las columnas idInsumo y stock");
+        }
+
+        Long idInsumo;
+        try {
+            idInsumo = Long.valueOf(campos[0].trim());
+        } catch (NumberFormatException e) {
+            return primera ? null : new Fila(linea, null, null, "ID de insumo inválido: " + campos[0].trim());
+        }
+        try {
+            return new Fila(linea, idInsumo, Integer.valueOf(campos[1].trim()), null);
+        } catch (NumberFormatException e) {
+            return new Fila(linea, idInsumo, null, "Stock inválido: " + campos[1].trim());
+        }
+    }
+
+    private Fila leerJson(int linea, String texto) {
+        try {
+            JsonNode nodo = objectMapper.readTree(texto);
+            JsonNode id = nodo.get("idInsumo");
+            JsonNode stock = nodo.get("stock");
+            if (id == null || !id.canConvertToLong()) {
+                return new Fila(linea, null, null, "Falta idInsumo numérico");
+            }
+            if (stock == null || !stock.canConvertToInt()) {
+                return new Fila(linea, id.asLong(), null, "Falta stock numérico");
+            }
+            return new Fila(linea, id.asLong(), stock.asInt(), null);
+        } catch (JsonProcessingException e) {
+            return new Fila(linea, null, null, "JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    // ==================== APLICACIÓN POR LOTE ====================
+
+    private List<ResultadoFilaDTO> aplicar(List<Fila> lote) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (Fila fila : lote) {
+            if (fila.error() == null) {
+                ids.add(fila.idInsumo());
+            }
+        }
+
+        return transactionTemplate.execute(status -> {
+            // El stock contado reemplaza al actual: nadie lo cambia hasta escribirlo
+            Map<Long, Stock> stock = leerStock(ids);
+
+            List<ResultadoFilaDTO> resultados = new ArrayList<>(lote.size());
+            Map<Long, Integer> nuevos = new TreeMap<>();
+            List<MovimientoStockService.Movimiento> ajustes = new ArrayList<>();
+            for (Fila fila : lote) {
+                Stock actual = fila.error() == null ? stock.get(fila.idInsumo()) : null;
+                String error = fila.error() != null ? fila.error() : validar(fila, actual);
+                if (error != null) {
+                    resultados.add(new ResultadoFilaDTO(fila.linea(), fila.idInsumo(), false,
+                            actual != null ? actual.actual() : null, null, error));
+                    continue;
+                }
+
+                // Si el insumo se repite en el archivo, gana el último conteo
+                stock.put(fila.idInsumo(), new Stock(fila.stock(), actual.maximo()));
+                nuevos.put(fila.idInsumo(), fila.stock());
+                if (fila.stock() != actual.actual()) {
+                    ajustes.add(new MovimientoStockService.Movimiento(fila.idInsumo(), fila.stock() - actual.actual(), null));
+                }
+                resultados.add(new ResultadoFilaDTO(fila.linea(), fila.idInsumo(), true, actual.actual(), fila.stock(), null));
+            }
+
+            List<Object[]> parametros = new ArrayList<>(nuevos.size());
+            nuevos.forEach((idInsumo, cantidad) -> parametros.add(new Object[]{cantidad, idInsumo}));
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_STOCK, parametros);
+            movimientoStockService.registrar(TipoMovimientoStock.AJUSTE_MANUAL, ajustes);
+            return resultados;
+        });
+    }
+
+    // Mismas reglas que ArticuloInsumoServiceImpl.actualizarStock
+    private String validar(Fila fila, Stock actual) {
+        if (actual == null) {
+            return "Artículo insumo con ID " + fila.idInsumo() + " no encontrado";
+        }
+        if (fila.stock() < 0) {
+            return "El stock no puede ser negativo";
+        }
+        if (fila.stock() > actual.maximo()) {
+            return "El stock no puede superar el stock máximo (" + actual.maximo() + ")";
+        }
+        return null;
+    }
+
+    private Map<Long, Stock> leerStock(TreeSet<Long> ids) {
+        Map<Long, Stock> stock = new HashMap<>();
+        if (ids.isEmpty()) {
+            return stock;
+        }
+
+        String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query("SELECT id_articulo, stock_actual, stock_maximo FROM articulo_insumo WHERE id_articulo IN (" +
+                        marcadores + ") ORDER BY id_articulo FOR UPDATE",
+                rs -> {
+                    stock.put(rs.getLong("id_articulo"), new Stock(rs.getInt("stock_actual"), rs.getInt("stock_maximo")));
+                },
+                ids.toArray());
+        return stock;
+    }
+}
@@ -0,0 +1,219 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.proyeccion.DetallePedidoListadoProyeccion;
+import com.elbuensabor.dto.proyeccion.PedidoListadoProyeccion;
+import com.elbuensabor.dto.response.DetallePedidoResponseDTO;
+import com.elbuensabor.dto.response.DomicilioResponseDTO;
+import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoDescuento;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.repository.IDetallePedidoRepository;
+import com.elbuensabor.repository.IPedidoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listados de pedidos armados desde proyecciones: una consulta de cabeceras (pedido, cliente,
+ * domicilio) y otra de líneas (detalle, artículo, promoción), sin cargar entidades ni pasar por
+ * PedidoMapper. Devuelve el mismo PedidoResponseDTO que el mapeo completo, así el frontend no
+ * cambia; las vistas de un solo pedido siguen usando el mapeo de entidades.
+ */
+@Service
+public class ListadoPedidosService {
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private IDetallePedidoRepository detallePedidoRepository;
+
+    @Transactional(readOnly = true)
+    public List<PedidoResponseDTO> listarTodos() {
+        return armar(pedidoRepository.findListado(), detallePedidoRepository.findLineasListado());
+    }
+
+    @Transactional(readOnly = true)
+    public List<PedidoResponseDTO> listarPorCliente(Long idCliente) {
+        return armar(pedidoRepository.findListadoByCliente(idCliente),
+                detallePedidoRepository.findLineasListadoByCliente(idCliente));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PedidoResponseDTO> listarPorEstados(Collection<Estado> estados) {
+        return armar(pedidoRepository.findListadoByEstadoIn(estados),
+                detallePedidoRepository.findLineasListadoByEstadoIn(estados));
+    }
+
+    @Transactional(readOnly = true)
+    public List<PedidoResponseDTO> listarPorIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return armar(pedidoRepository.findListadoByIdIn(ids), detallePedidoRepository.findLineasListadoByPedidoIdIn(ids));
+    }
+
+    /**
+     * Hasta "cantidad" pedidos desde la posición del cursor (ver IPedidoRepository.findListadoPagina).
+     */
+    @Transactional(readOnly = true)
+    public List<PedidoResponseDTO> listarPagina(Long idCliente, Estado estado, TipoEnvio tipoEnvio,
+                                                LocalDateTime fechaDesde, LocalDateTime fechaHasta,
+                                                CursorPedido cursor, int cantidad) {
+        List<PedidoListadoProyeccion> cabeceras = pedidoRepository.findListadoPagina(
+                idCliente, estado, tipoEnvio, fechaDesde, fechaHasta,
+                cursor != null ? cursor.fecha() : null,
+                cursor != null ? cursor.idPedido() : null,
+                PageRequest.ofSize(cantidad));
+        if (cabeceras.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = cabeceras.stream().map(PedidoListadoProyeccion::getIdPedido).toList();
+        return armar(cabeceras, detallePedidoRepository.findLineasListadoByPedidoIdIn(ids));
+    }
+
+    // ==================== ARMADO ====================
+
+    private List<PedidoResponseDTO> armar(List<PedidoListadoProyeccion> cabeceras, List<DetallePedidoListadoProyeccion> lineas) {
+        Map<Long, List<DetallePedidoListadoProyeccion>> lineasPorPedido = new HashMap<>();
+        for (DetallePedidoListadoProyeccion linea : lineas) {
+            lineasPorPedido.computeIfAbsent(linea.getIdPedido(), id -> new ArrayList<>()).add(linea);
+        }
+
+        List<PedidoResponseDTO> pedidos = new ArrayList<>(cabeceras.size());
+        for (PedidoListadoProyeccion cabecera : cabeceras) {
+            pedidos.add(armarPedido(cabecera, lineasPorPedido.getOrDefault(cabecera.getIdPedido(), List.of())));
+        }
+        return pedidos;
+    }
+
+    private PedidoResponseDTO armarPedido(PedidoListadoProyeccion cabecera, List<DetallePedidoListadoProyeccion> lineas) {
+        PedidoResponseDTO pedido = new PedidoResponseDTO();
+        pedido.setIdPedido(cabecera.getIdPedido());
+        pedido.setFecha(cabecera.getFecha());
+        pedido.setHoraEstimadaFinalizacion(cabecera.getHoraEstimadaFinalizacion());
+        pedido.setTotal(cabecera.getTotal());
+        pedido.setEstado(cabecera.getEstado() != null ? cabecera.getEstado().name() : null);
+        pedido.setTipoEnvio(cabecera.getTipoEnvio() != null ? cabecera.getTipoEnvio().name() : null);
+        pedido.setObservaciones(cabecera.getObservaciones());
+        pedido.setIdCliente(cabecera.getIdCliente());
+        pedido.setNombreCliente(cabecera.getNombreCliente());
+        pedido.setApellidoCliente(cabecera.getApellidoCliente());
+        pedido.setTelefonoCliente(cabecera.getTelefonoCliente());
+        pedido.setDomicilio(armarDomicilio(cabecera));
+
+        List<DetallePedidoResponseDTO> detalles = new ArrayList<>(lineas.size());
+        int tiempoMaximo = 0;
+        for (DetallePedidoListadoProyeccion linea : lineas) {
+            detalles.add(armarDetalle(linea));
+            if (linea.getIdManufacturado() != null && linea.getTiempoEstimadoEnMinutos() != null) {
+                tiempoMaximo = Math.max(tiempoMaximo, linea.getTiempoEstimadoEnMinutos());
+            }
+        }
+        pedido.setDetalles(detalles);
+
+        // Mismos campos calculados que PedidoServiceImpl.enrichPedidoResponseConPromociones
+        pedido.setStockSuficiente(true);
+        pedido.setTiempoEstimadoTotal(tiempoMaximo > 0 ? tiempoMaximo : null);
+        pedido.setResumenPromociones(armarResumenPromociones(lineas));
+        return pedido;
+    }
+
+    private DomicilioResponseDTO armarDomicilio(PedidoListadoProyeccion cabecera) {
+        if (cabecera.getIdDomicilio() == null) {
+            return null;
+        }
+        return new DomicilioResponseDTO(
+                cabecera.getIdDomicilio(),
+                cabecera.getCalle(),
+                cabecera.getNumero(),
+                cabecera.getCp(),
+                cabecera.getLocalidad(),
+                cabecera.getEsPrincipal(),
+                String.format("%s %d, %s (CP: %d)",
+                        cabecera.getCalle(), cabecera.getNumero(), cabecera.getLocalidad(), cabecera.getCp()));
+    }
+
+    // Equivalente a DetallePedidoMapper.toDTO
+    private DetallePedidoResponseDTO armarDetalle(DetallePedidoListadoProyeccion linea) {
+        DetallePedidoResponseDTO detalle = new DetallePedidoResponseDTO();
+        detalle.setIdDetallePedido(linea.getIdDetallePedido());
+        detalle.setIdArticulo(linea.getIdArticulo());
+        detalle.setDenominacionArticulo(linea.getDenominacionArticulo());
+        detalle.setCantidad(linea.getCantidad());
+        detalle.setPrecioUnitario(linea.getPrecioVenta());
+        detalle.setSubtotal(linea.getSubtotal());
+        detalle.setUnidadMedida(linea.getUnidadMedida());
+        detalle.setTiempoPreparacion(linea.getIdManufacturado() != null ? linea.getTiempoEstimadoEnMinutos() : Integer.valueOf(0));
+        detalle.setObservaciones(linea.getObservaciones());
+        detalle.setPrecioUnitarioOriginal(linea.getPrecioUnitarioOriginal());
+        detalle.setDescuentoPromocion(linea.getDescuentoPromocion());
+
+        if (linea.getPrecioUnitarioOriginal() == null || linea.getCantidad() == null || linea.getCantidad() == 0) {
+            detalle.setPrecioUnitarioFinal(linea.getPrecioVenta() != null ? linea.getPrecioVenta() : 0.0);
+        } else {
+            double descuento = linea.getDescuentoPromocion() != null ? linea.getDescuentoPromocion() : 0.0;
+            detalle.setPrecioUnitarioFinal(linea.getPrecioUnitarioOriginal() - (descuento / linea.getCantidad()));
+        }
+
+        detalle.setTienePromocion(tieneDescuento(linea) && linea.getIdPromocion() != null);
+        if (linea.getIdPromocion() != null) {
+            String resumen = linea.getTipoDescuento() == TipoDescuento.PORCENTUAL
+                    ? String.format("%s - %.1f%% de descuento", linea.getDenominacionPromocion(), linea.getValorDescuento())
+                    : String.format("%s - $%.2f de descuento", linea.getDenominacionPromocion(), linea.getValorDescuento());
+            detalle.setPromocionAplicada(new DetallePedidoResponseDTO.PromocionAplicadaDTO(
+                    linea.getIdPromocion(),
+                    linea.getDenominacionPromocion(),
+                    linea.getDescripcionDescuento(),
+                    linea.getTipoDescuento() != null ? linea.getTipoDescuento().toString() : null,
+                    linea.getValorDescuento(),
+                    resumen));
+        }
+        return detalle;
+    }
+
+    private PedidoResponseDTO.ResumenPromocionesDTO armarResumenPromociones(List<DetallePedidoListadoProyeccion> lineas) {
+        double subtotalOriginal = 0.0;
+        double totalDescuentos = 0.0;
+        int cantidadPromociones = 0;
+        List<String> nombresPromociones = new ArrayList<>();
+
+        for (DetallePedidoListadoProyeccion linea : lineas) {
+            subtotalOriginal += linea.getPrecioUnitarioOriginal() * linea.getCantidad();
+
+            if (tieneDescuento(linea)) {
+                totalDescuentos += linea.getDescuentoPromocion();
+                cantidadPromociones++;
+
+                if (linea.getIdPromocion() != null && !nombresPromociones.contains(linea.getDenominacionPromocion())) {
+                    nombresPromociones.add(linea.getDenominacionPromocion());
+                }
+            }
+        }
+
+        PedidoResponseDTO.ResumenPromocionesDTO resumen = new PedidoResponseDTO.ResumenPromocionesDTO();
+        resumen.setSubtotalOriginal(subtotalOriginal);
+        resumen.setTotalDescuentos(totalDescuentos);
+        resumen.setSubtotalConDescuentos(subtotalOriginal - totalDescuentos);
+        resumen.setCantidadPromociones(cantidadPromociones);
+        resumen.setNombresPromociones(nombresPromociones);
+        resumen.setResumenTexto(cantidadPromociones > 0
+                ? String.format("%d promoción(es) aplicada(s) - Ahorro: $%.2f", cantidadPromociones, totalDescuentos)
+                : "Sin promociones aplicadas");
+        return resumen;
+    }
+
+    private boolean tieneDescuento(DetallePedidoListadoProyeccion linea) {
+        return linea.getDescuentoPromocion() != null && linea.getDescuentoPromocion() > 0;
+    }
+}
@@ -0,0 +1,155 @@
+package com.elbuensabor.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas de la creación de pedidos (Micrometer, expuestas en /actuator/metrics).
+ *
+ * - pedido.creacion: duración total del pipeline, por pipeline y resultado.
+ * - pedido.creacion.etapa: duración de cada etapa numerada del pipeline, por pipeline, etapa y resultado.
+ * - pedido.stock.rechazos: pedidos rechazados por stock insuficiente.
+ * - pedido.promociones.aplicadas: promociones aplicadas a detalles de pedidos creados.
+ * - pedido.cotizacion.token: tokens de cotización recibidos al crear pedidos, por resultado.
+ *
+ * Los timers publican histograma de percentiles y p50/p95/p99 para ver dónde se va el tiempo en los picos.
+ */
+@Service
+public class MetricasPedidoService {
+
+    public static final String PIPELINE_PEDIDO = "pedido";
+    public static final String PIPELINE_MERCADOPAGO = "mercadopago";
+    public static final String PIPELINE_PREVIEW = "preview";
+
+    private static final String TIMER_TOTAL = "pedido.creacion";
+    private static final String TIMER_ETAPA = "pedido.creacion.etapa";
+    private static final String CONTADOR_RECHAZOS_STOCK = "pedido.stock.rechazos";
+    private static final String CONTADOR_PROMOCIONES = "pedido.promociones.aplicadas";
+    private static final String CONTADOR_TOKEN_COTIZACION = "pedido.cotizacion.token";
+
+    private static final String RESULTADO_OK = "ok";
+    private static final String RESULTADO_ERROR = "error";
+
+    private final MeterRegistry registry;
+
+    public MetricasPedidoService(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Inicia la medición de un pipeline. El cronómetro es de un solo pedido (no es thread-safe).
+     */
+    public Cronometro iniciar(String pipeline) {
+        return new Cronometro(pipeline);
+    }
+
+    /**
+     * Mide una etapa que corre fuera del pipeline principal (p. ej. en los listeners después del commit).
+     */
+    public void medir(String pipeline, String etapa, Runnable operacion) {
+        long inicio = System.nanoTime();
+        String resultado = RESULTADO_ERROR;
+        try {
+            operacion.run();
+            resultado = RESULTADO_OK;
+        } finally {
+            timer(TIMER_ETAPA, pipeline, etapa, resultado).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void registrarRechazoPorStock(String pipeline) {
+        Counter.builder(CONTADOR_RECHAZOS_STOCK)
+                .description("Pedidos rechazados por stock insuficiente")
+                .tag("pipeline", pipeline)
+                .register(registry)
+                .increment();
+    }
+
+    public void registrarPromocionesAplicadas(String pipeline, String tipo, long cantidad) {
+        if (cantidad <= 0) {
+            return;
+        }
+        Counter.builder(CONTADOR_PROMOCIONES)
+                .description("Promociones aplicadas en pedidos creados")
+                .tag("pipeline", pipeline)
+                .tag("tipo", tipo)
+                .register(registry)
+                .increment(cantidad);
+    }
+
+    public void registrarTokenCotizacion(String resultado) {
+        Counter.builder(CONTADOR_TOKEN_COTIZACION)
+                .description("Tokens de cotización recibidos al crear pedidos")
+                .tag("resultado", resultado)
+                .register(registry)
+                .increment();
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private Timer timer(String nombre, String pipeline, String etapa, String resultado) {
+        Timer.Builder builder = Timer.builder(nombre)
+                .tag("pipeline", pipeline)
+                .tag("resultado", resultado)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram();
+        if (etapa != null) {
+            builder.tag("etapa", etapa);
+        }
+        return builder.register(registry);
+    }
+
+    /**
+     * Cronómetro por etapas: cada llamada a etapa() cierra la anterior y abre la siguiente,
+     * así el pipeline solo marca el comienzo de cada paso numerado.
+     */
+    public final class Cronometro {
+
+        private final String pipeline;
+        private final long inicio;
+        private String etapaActual;
+        private long inicioEtapa;
+
+        private Cronometro(String pipeline) {
+            this.pipeline = pipeline;
+            this.inicio = System.nanoTime();
+            this.inicioEtapa = inicio;
+        }
+
+        public void etapa(String nombre) {
+            cerrarEtapa(RESULTADO_OK);
+            etapaActual = nombre;
+        }
+
+        public void finalizar() {
+            cerrar(RESULTADO_OK);
+        }
+
+        /**
+         * La etapa en curso queda registrada con resultado=error.
+         */
+        public void fallo() {
+            cerrar(RESULTADO_ERROR);
+        }
+
+        private void cerrar(String resultado) {
+            cerrarEtapa(resultado);
+            etapaActual = null;
+            timer(TIMER_TOTAL, pipeline, null, resultado)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+
+        private void cerrarEtapa(String resultado) {
+            long ahora = System.nanoTime();
+            if (etapaActual != null) {
+                timer(TIMER_ETAPA, pipeline, etapaActual, resultado)
+                        .record(ahora - inicioEtapa, TimeUnit.NANOSECONDS);
+            }
+            inicioEtapa = ahora;
+        }
+    }
+}
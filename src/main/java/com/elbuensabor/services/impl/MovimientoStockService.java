@@ -0,0 +1,186 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.MovimientoStockResponseDTO;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.events.StockAjustadoEvent;
+import com.elbuensabor.exceptions.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Libro de movimientos de stock de insumos (tabla movimiento_stock).
+ *
+ * Cada variación de stock_actual deja un movimiento con su tipo, cantidad con signo, pedido y
+ * fecha, insertados en batch en la misma transacción que el cambio. Quien registra ya sumó la
+ * cantidad en stock_actual (consumos y restauraciones de pedidos, compras y ajustes), así el
+ * stock de la tabla es siempre el del libro; el descuento condicional de ConsumoStockService
+ * es el que evita sobrevender.
+ *
+ * consolidar() guarda cada tanto una foto (snapshot_stock) de los insumos con movimientos
+ * nuevos, así stockEn() parte de la foto anterior al instante pedido y suma solo los
+ * movimientos posteriores a ella.
+ */
+@Service
+public class MovimientoStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MovimientoStockService.class);
+
+    // Las fotos se toman con este atraso para no dejar afuera transacciones que todavía no confirmaron
+    static final Duration MARGEN_FOTO = Duration.ofMinutes(1);
+
+    private static final LocalDateTime SIN_FOTO = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO movimiento_stock (id_insumo, tipo, cantidad, id_pedido, fecha) VALUES (?, ?, ?, ?, ?)";
+
+    // Stock del libro al corte: stock_actual - movimientos posteriores al corte
+    private static final String SQL_TOMAR_FOTOS =
+            "INSERT INTO snapshot_stock (id_insumo, stock, fecha) " +
+            "SELECT ai.id_articulo, ai.stock_actual - COALESCE((SELECT SUM(m.cantidad) FROM movimiento_stock m WHERE m.id_insumo = ai.id_articulo AND m.fecha > ?), 0), ? " +
+            "FROM articulo_insumo ai " +
+            "WHERE EXISTS (SELECT 1 FROM movimiento_stock m WHERE m.id_insumo = ai.id_articulo AND m.fecha <= ? " +
+            "AND m.fecha > COALESCE((SELECT MAX(s.fecha) FROM snapshot_stock s WHERE s.id_insumo = ai.id_articulo), ?))";
+
+    /**
+     * Un movimiento a registrar: cantidad con signo del insumo, con el pedido que lo originó si lo hay.
+     */
+    public record Movimiento(Long idInsumo, int cantidad, Long idPedido) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock reloj;
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public MovimientoStockService(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, Clock.systemDefaultZone());
+    }
+
+    MovimientoStockService(JdbcTemplate jdbcTemplate, Clock reloj) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reloj = reloj;
+    }
+
+    // ==================== REGISTRO ====================
+
+    /**
+     * Movimientos ya sumados en stock_actual por quien llama (en la misma transacción).
+     */
+    @Transactional
+    public void registrar(TipoMovimientoStock tipo, Collection<Movimiento> movimientos) {
+        if (movimientos.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        List<Object[]> parametros = new ArrayList<>(movimientos.size());
+        for (Movimiento movimiento : movimientos) {
+            parametros.add(new Object[]{movimiento.idInsumo(), tipo.name(), movimiento.cantidad(),
+                    movimiento.idPedido(), ahora});
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, parametros);
+        publicar(tipo, movimientos);
+    }
+
+    /**
+     * Movimientos de un pedido a partir del consumo por insumo (ConsumoStockService.calcularConsumo):
+     * signo -1 para descontar, 1 para restaurar.
+     */
+    public static List<Movimiento> movimientos(Long idPedido, Map<Long, Integer> cantidades, int signo) {
+        List<Movimiento> movimientos = new ArrayList<>(cantidades.size());
+        cantidades.forEach((idInsumo, cantidad) -> {
+            if (cantidad != 0) {
+                movimientos.add(new Movimiento(idInsumo, signo * cantidad, idPedido));
+            }
+        });
+        return movimientos;
+    }
+
+    // ==================== CONSOLIDACIÓN ====================
+
+    /**
+     * Saca fotos del stock de los insumos que tuvieron movimientos desde su última foto.
+     */
+    @Scheduled(fixedDelayString = "${stock.consolidacion.intervalo-ms:30000}",
+            initialDelayString = "${stock.consolidacion.intervalo-ms:30000}")
+    @Transactional
+    public void consolidar() {
+        LocalDateTime corte = LocalDateTime.now(reloj).minus(MARGEN_FOTO);
+        int fotos = jdbcTemplate.update(SQL_TOMAR_FOTOS, corte, corte, corte, SIN_FOTO);
+
+        if (fotos > 0) {
+            logger.info("📦 Stock consolidado: {} fotos al {}", fotos, corte);
+        }
+    }
+
+    // Avisa los movimientos que ya están sumados en stock_actual (llega al confirmar la transacción)
+    private void publicar(TipoMovimientoStock tipo, Collection<Movimiento> movimientos) {
+        if (eventPublisher != null && !movimientos.isEmpty()) {
+            eventPublisher.publishEvent(new StockAjustadoEvent(tipo, List.copyOf(movimientos)));
+        }
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Stock del insumo en un instante según el libro: la última foto hasta ese instante más los
+     * movimientos posteriores a ella; sin foto previa, se descuenta hacia atrás desde el stock actual.
+     */
+    @Transactional(readOnly = true)
+    public int stockEn(Long idInsumo, LocalDateTime instante) {
+        List<Map<String, Object>> foto = jdbcTemplate.queryForList(
+                "SELECT stock, fecha FROM snapshot_stock WHERE id_insumo = ? AND fecha <= ? ORDER BY fecha DESC LIMIT 1",
+                idInsumo, instante);
+
+        if (!foto.isEmpty()) {
+            int stock = ((Number) foto.get(0).get("stock")).intValue();
+            Integer posteriores = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(SUM(cantidad), 0) FROM movimiento_stock WHERE id_insumo = ? AND fecha > ? AND fecha <= ?",
+                    Integer.class, idInsumo, foto.get(0).get("fecha"), instante);
+            return stock + posteriores;
+        }
+
+        List<Integer> stock = jdbcTemplate.queryForList(
+                "SELECT ai.stock_actual - COALESCE((SELECT SUM(m.cantidad) FROM movimiento_stock m WHERE m.id_insumo = ai.id_articulo AND m.fecha > ?), 0) " +
+                        "FROM articulo_insumo ai WHERE ai.id_articulo = ?",
+                Integer.class, instante, idInsumo);
+        if (stock.isEmpty()) {
+            throw new ResourceNotFoundException("Artículo insumo con ID " + idInsumo + " no encontrado");
+        }
+        return stock.get(0);
+    }
+
+    /**
+     * Movimientos del insumo en [desde, hasta), del más reciente al más viejo.
+     */
+    @Transactional(readOnly = true)
+    public List<MovimientoStockResponseDTO> historial(Long idInsumo, LocalDateTime desde, LocalDateTime hasta) {
+        return jdbcTemplate.query(
+                "SELECT id_movimiento, id_insumo, tipo, cantidad, id_pedido, fecha FROM movimiento_stock " +
+                        "WHERE id_insumo = ? AND fecha >= ? AND fecha < ? ORDER BY fecha DESC, id_movimiento DESC",
+                (rs, fila) -> new MovimientoStockResponseDTO(
+                        rs.getLong("id_movimiento"),
+                        rs.getLong("id_insumo"),
+                        rs.getString("tipo"),
+                        rs.getInt("cantidad"),
+                        rs.getObject("id_pedido", Long.class),
+                        rs.getObject("fecha", LocalDateTime.class)),
+                idInsumo, desde, hasta);
+    }
+}
@@ -0,0 +1,168 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.events.StockAjustadoEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nivel de stock de cada insumo respecto de su stock máximo, mantenido en memoria:
+ * CRITICO por debajo del 25%, BAJO entre el 25% y el 50% y NORMAL por encima
+ * (los mismos cortes que tenían las consultas de stock crítico y bajo).
+ *
+ * Cada movimiento confirmado (StockAjustadoEvent) actualiza el stock del insumo; solo cuando
+ * cambia de nivel se avisa por WebSocket al tópico de administración (STOCK_CRITICO,
+ * STOCK_BAJO o STOCK_NORMAL al recuperarse). Los listados de stock crítico y bajo leen los
+ * conjuntos de IDs de acá en lugar de recorrer articulo_insumo.
+ */
+@Service
+public class NivelStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NivelStockService.class);
+
+    private static final String SQL_INSUMOS =
+            "SELECT ai.id_articulo, a.denominacion, ai.stock_actual, ai.stock_maximo " +
+            "FROM articulo_insumo ai JOIN articulo a ON a.id_articulo = ai.id_articulo";
+
+    public enum Nivel {
+        CRITICO, BAJO, NORMAL
+    }
+
+    private record Insumo(String denominacion, int stock, int stockMaximo, Nivel nivel) {
+    }
+
+    private final Map<Long, Insumo> insumos = new ConcurrentHashMap<>();
+    private final Set<Long> criticos = ConcurrentHashMap.newKeySet();
+    private final Set<Long> bajos = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WebSocketNotificationService notificationService;
+
+    // ==================== CARGA ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void cargar() {
+        jdbcTemplate.query(SQL_INSUMOS, rs -> {
+            Long idInsumo = rs.getLong("id_articulo");
+            if (!insumos.containsKey(idInsumo)) {
+                guardar(idInsumo, insumo(rs.getString("denominacion"), rs.getInt("stock_actual"), rs.getInt("stock_maximo")));
+            }
+        });
+        logger.info("📦 Niveles de stock cargados: {} críticos, {} bajos de {} insumos",
+                criticos.size(), bajos.size(), insumos.size());
+    }
+
+    // ==================== CONSULTA ====================
+
+    public Set<Long> getCriticos() {
+        return Set.copyOf(criticos);
+    }
+
+    public Set<Long> getBajos() {
+        return Set.copyOf(bajos);
+    }
+
+    /**
+     * CRITICO por debajo del 25% del máximo, BAJO hasta el 50% inclusive; sin máximo, NORMAL.
+     */
+    public static Nivel nivel(int stock, int stockMaximo) {
+        if (stockMaximo <= 0) {
+            return Nivel.NORMAL;
+        }
+        double porcentaje = stock * 100.0 / stockMaximo;
+        if (porcentaje < 25) {
+            return Nivel.CRITICO;
+        }
+        return porcentaje <= 50 ? Nivel.BAJO : Nivel.NORMAL;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockAjustado(StockAjustadoEvent event) {
+        Map<Long, Integer> porInsumo = new LinkedHashMap<>();
+        for (MovimientoStockService.Movimiento movimiento : event.getMovimientos()) {
+            porInsumo.merge(movimiento.idInsumo(), movimiento.cantidad(), Integer::sum);
+        }
+
+        porInsumo.forEach((idInsumo, variacion) -> {
+            Insumo anterior = insumos.get(idInsumo);
+            if (anterior == null) {
+                // Insumo que no se conocía (alta): la base ya tiene el movimiento confirmado
+                leer(idInsumo);
+            } else if (variacion != 0) {
+                cambiar(idInsumo, anterior,
+                        insumo(anterior.denominacion(), anterior.stock() + variacion, anterior.stockMaximo()));
+            }
+        });
+    }
+
+    /**
+     * Nombre o stock máximo modificados; se aplica al confirmar la transacción.
+     */
+    public void actualizarInsumo(Long idInsumo, String denominacion, int stockMaximo) {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (this) {
+                Insumo anterior = insumos.get(idInsumo);
+                if (anterior == null) {
+                    leer(idInsumo);
+                } else {
+                    cambiar(idInsumo, anterior, insumo(denominacion, anterior.stock(), stockMaximo));
+                }
+            }
+        });
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void leer(Long idInsumo) {
+        List<Insumo> leidos = jdbcTemplate.query(SQL_INSUMOS + " WHERE ai.id_articulo = ?",
+                (rs, fila) -> insumo(rs.getString("denominacion"), rs.getInt("stock_actual"), rs.getInt("stock_maximo")),
+                idInsumo);
+        if (!leidos.isEmpty()) {
+            cambiar(idInsumo, insumo(null, 0, 0), leidos.get(0));
+        }
+    }
+
+    private void cambiar(Long idInsumo, Insumo anterior, Insumo nuevo) {
+        guardar(idInsumo, nuevo);
+        if (anterior.nivel() != nuevo.nivel()) {
+            logger.info("📦 Insumo {} pasó de stock {} a {} ({} de {})", idInsumo, anterior.nivel(), nuevo.nivel(),
+                    nuevo.stock(), nuevo.stockMaximo());
+            notificationService.notificarNivelStock(idInsumo, nuevo.denominacion(), "STOCK_" + nuevo.nivel().name(),
+                    nuevo.stock(), nuevo.stockMaximo());
+        }
+    }
+
+    private void guardar(Long idInsumo, Insumo insumo) {
+        insumos.put(idInsumo, insumo);
+        if (insumo.nivel() == Nivel.CRITICO) {
+            criticos.add(idInsumo);
+        } else {
+            criticos.remove(idInsumo);
+        }
+        if (insumo.nivel() == Nivel.BAJO) {
+            bajos.add(idInsumo);
+        } else {
+            bajos.remove(idInsumo);
+        }
+    }
+
+    private static Insumo insumo(String denominacion, int stock, int stockMaximo) {
+        return new Insumo(denominacion, stock, stockMaximo, nivel(stock, stockMaximo));
+    }
+}
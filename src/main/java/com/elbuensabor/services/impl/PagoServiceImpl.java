@@ -3,12 +3,14 @@ package com.elbuensabor.services.impl;
 import com.elbuensabor.dto.request.PagoRequestDTO;
 import com.elbuensabor.dto.response.PagoResponseDTO;
 import com.elbuensabor.entities.*;
+import com.elbuensabor.events.PagoConfirmadoEvent;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
 import com.elbuensabor.repository.IPagoRepository;
 import com.elbuensabor.repository.IFacturaRepository;
 import com.elbuensabor.services.IPagoService;
 import com.elbuensabor.services.mapper.PagoMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +25,9 @@ public class PagoServiceImpl extends GenericServiceImpl<Pago, Long, PagoResponse
     @Autowired
     private IFacturaRepository facturaRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public PagoServiceImpl(IPagoRepository repository, PagoMapper mapper) {
         super(repository, mapper, Pago.class, PagoResponseDTO.class);
     }
@@ -60,10 +65,12 @@ public class PagoServiceImpl extends GenericServiceImpl<Pago, Long, PagoResponse
         Pago pago = repository.findById(pagoId)
                 .orElseThrow(() -> new ResourceNotFoundException("Pago no encontrado con ID: " + pagoId));
 
+        EstadoPago estadoAnterior = pago.getEstado();
         pago.setEstado(nuevoEstado);
         pago.setFechaActualizacion(LocalDateTime.now());
 
         Pago pagoActualizado = repository.save(pago);
+        publicarSiFueAprobado(pagoActualizado, estadoAnterior);
         return mapper.toDTO(pagoActualizado);
     }
 
@@ -105,6 +112,7 @@ public class PagoServiceImpl extends GenericServiceImpl<Pago, Long, PagoResponse
 
         // Mapear estado de MP a estado interno
         EstadoPago estadoPago = mapMercadoPagoStatusToEstadoPago(status);
+        EstadoPago estadoAnterior = pago.getEstado();
         pago.setEstado(estadoPago);
         pago.setFechaActualizacion(LocalDateTime.now());
 
@@ -113,6 +121,7 @@ public class PagoServiceImpl extends GenericServiceImpl<Pago, Long, PagoResponse
         }
 
         Pago pagoActualizado = repository.save(pago);
+        publicarSiFueAprobado(pagoActualizado, estadoAnterior);
         return mapper.toDTO(pagoActualizado);
     }
 
@@ -175,6 +184,17 @@ public class PagoServiceImpl extends GenericServiceImpl<Pago, Long, PagoResponse
         return actualizarEstadoPago(pagoId, EstadoPago.REEMBOLSADO);
     }
 
+    // Solo la primera aprobación: los webhooks de MercadoPago pueden repetirse
+    private void publicarSiFueAprobado(Pago pago, EstadoPago estadoAnterior) {
+        if (pago.getEstado() == EstadoPago.APROBADO && estadoAnterior != EstadoPago.APROBADO) {
+            eventPublisher.publishEvent(new PagoConfirmadoEvent(
+                    pago.getFactura().getPedido().getIdPedido(),
+                    pago.getIdPago(),
+                    pago.getFormaPago().name()
+            ));
+        }
+    }
+
     private EstadoPago mapMercadoPagoStatusToEstadoPago(String mpStatus) {
         return switch (mpStatus.toLowerCase()) {
             case "approved" -> EstadoPago.APROBADO;
@@ -51,9 +51,13 @@ public class PedidoConMercadoPagoService {
     @Autowired
     private IDatosMercadoPagoService datosMpService;
 
+    @Autowired
+    private MetricasPedidoService metricasPedidoService;
+
     @Transactional
     public PedidoConMercadoPagoResponseDTO crearPedidoConMercadoPago(PedidoConMercadoPagoRequestDTO request) {
         long inicioTiempo = System.currentTimeMillis();
+        MetricasPedidoService.Cronometro cronometro = metricasPedidoService.iniciar(MetricasPedidoService.PIPELINE_MERCADOPAGO);
 
         try {
             logger.info("=== INICIANDO CREACIÓN DE PEDIDO CON MERCADOPAGO ===");
@@ -61,6 +65,7 @@ public class PedidoConMercadoPagoService {
                     request.getIdCliente(), request.getTipoEnvio(), request.getEmailComprador());
 
             // ==================== PASO 1: CALCULAR TOTALES CON DESCUENTOS ====================
+            cronometro.etapa("calculo_totales");
             PedidoConMercadoPagoResponseDTO.CalculoTotalesDTO calculoTotales = calcularTotalesConDescuentos(request);
             logger.info("Totales calculados: Subtotal: ${}, Descuento: ${}, Total final: ${}",
                     calculoTotales.getSubtotalProductos(),
@@ -68,6 +73,7 @@ public class PedidoConMercadoPagoService {
                     calculoTotales.getTotalFinal());
 
             // ==================== PASO 2: CREAR PEDIDO USANDO TU LÓGICA EXISTENTE ====================
+            cronometro.etapa("creacion_pedido");
             PedidoRequestDTO pedidoRequest = convertirAPedidoRequest(request, calculoTotales);
 
             logger.info("Creando pedido con tu PedidoService existente...");
@@ -75,6 +81,7 @@ public class PedidoConMercadoPagoService {
             logger.info("✅ Pedido creado exitosamente: ID {}", pedidoCreado.getIdPedido());
 
             // ==================== PASO 3: OBTENER FACTURA (YA CREADA AUTOMÁTICAMENTE) ====================
+            cronometro.etapa("factura");
             logger.info("Obteniendo factura automática del pedido...");
             FacturaResponseDTO factura = pedidoService.getFacturaPedido(pedidoCreado.getIdPedido());
             logger.info("✅ Factura obtenida: ID {}, Total: ${}", factura.getIdFactura(), factura.getTotalVenta());
@@ -83,12 +90,14 @@ public class PedidoConMercadoPagoService {
             PedidoConMercadoPagoResponseDTO.MercadoPagoInfoDTO mercadoPagoInfo = null;
 
             if (request.getCrearPreferenciaMercadoPago()) {
+                cronometro.etapa("preferencia_mercadopago");
                 logger.info("Creando preferencia de MercadoPago...");
                 mercadoPagoInfo = crearPreferenciaMercadoPago(request, pedidoCreado, calculoTotales);
                 logger.info("✅ Estado MercadoPago: {}", mercadoPagoInfo.getPreferenciaCreada() ? "EXITOSO" : "FALLÓ");
 
                 // ==================== 🆕 PASO 5: PERSISTIR PAGO EN BASE DE DATOS 🆕 ====================
                 if (mercadoPagoInfo.getPreferenciaCreada()) {
+                    cronometro.etapa("persistencia_pago");
                     logger.info("💾 Paso 5: Persistiendo pago en base de datos...");
 
                     try {
@@ -123,6 +132,7 @@ public class PedidoConMercadoPagoService {
             }
 
             // ==================== PASO 6: RESPUESTA UNIFICADA ====================
+            cronometro.finalizar();
             long tiempoProcesamiento = System.currentTimeMillis() - inicioTiempo;
 
             logger.info("🎉 ¡PROCESO COMPLETADO EXITOSAMENTE EN {}ms!", tiempoProcesamiento);
@@ -136,6 +146,7 @@ public class PedidoConMercadoPagoService {
             );
 
         } catch (Exception e) {
+            cronometro.fallo();
             long tiempoProcesamiento = System.currentTimeMillis() - inicioTiempo;
             logger.error("❌ Error en el proceso: {}", e.getMessage(), e);
 
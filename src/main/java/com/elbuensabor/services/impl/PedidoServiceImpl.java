@@ -3,23 +3,36 @@ package com.elbuensabor.services.impl;
 import com.elbuensabor.dto.request.PedidoRequestDTO;
 import com.elbuensabor.dto.request.PromocionAgrupadaDTO;
 import com.elbuensabor.dto.response.FacturaResponseDTO;
+import com.elbuensabor.dto.response.PaginaPedidosDTO;
 import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.dto.response.TableroPedidosDTO;
+import com.elbuensabor.dto.response.TransicionLoteResponseDTO;
 import com.elbuensabor.entities.*;
+import com.elbuensabor.events.PedidoCreadoEvent;
+import com.elbuensabor.events.PedidoEstadoCambiadoEvent;
+import com.elbuensabor.events.PedidosEstadoCambiadoLoteEvent;
 import com.elbuensabor.exceptions.ResourceNotFoundException;
 import com.elbuensabor.repository.*;
 import com.elbuensabor.services.IPedidoService;
 import com.elbuensabor.services.mapper.PedidoMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.elbuensabor.services.IFacturaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -27,6 +40,10 @@ import java.util.stream.Collectors;
 public class PedidoServiceImpl implements IPedidoService {
     private static final Logger logger = LoggerFactory.getLogger(PedidoServiceImpl.class);
 
+    private static final int TAMANIO_PAGINA_DEFECTO = 20;
+    private static final int TAMANIO_PAGINA_MAXIMO = 100;
+    private static final int MAX_PEDIDOS_LOTE = 100;
+
     @Autowired
     private IFacturaService facturaService;
 
@@ -40,25 +57,40 @@ public class PedidoServiceImpl implements IPedidoService {
     private IDomicilioRepository domicilioRepository;
 
     @Autowired
-    private IArticuloRepository articuloRepository;
+    private PedidoMapper pedidoMapper;
 
     @Autowired
-    private IArticuloInsumoRepository articuloInsumoRepository;
+    private ISucursalEmpresaRepository sucursalRepository;
 
     @Autowired
-    private PedidoMapper pedidoMapper;
+    private PromocionPedidoService promocionPedidoService;
 
     @Autowired
-    private ISucursalEmpresaRepository sucursalRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    private IPromocionRepository promocionRepository;
+    private ContextoPedidoService contextoPedidoService;
 
     @Autowired
-    private PromocionPedidoService promocionPedidoService;
+    private MetricasPedidoService metricasPedidoService;
+
+    @Autowired
+    private CotizacionTokenService cotizacionTokenService;
+
+    @Autowired
+    private VersionCatalogoService versionCatalogoService;
+
+    @Autowired
+    private TableroPedidosService tableroPedidosService;
+
+    @Autowired
+    private ListadoPedidosService listadoPedidosService;
 
     @Autowired
-    private WebSocketNotificationService webSocketNotificationService;
+    private TransicionPedidoService transicionPedidoService;
+
+    @Autowired
+    private EstimacionEntregaService estimacionEntregaService;
 
     private PedidoResponseDTO enrichPedidoResponse(Pedido pedido) {
         PedidoResponseDTO response = pedidoMapper.toDTO(pedido);
@@ -71,22 +103,6 @@ public class PedidoServiceImpl implements IPedidoService {
 
         return response;
     }
-    // ==================== MÉTODO AUXILIAR PARA BUSCAR ARTÍCULOS ====================
-    private Articulo buscarArticuloPorId(Long idArticulo) {
-        // Primero intentar buscar en manufacturados
-        Optional<Articulo> manufacturado = articuloRepository.findById(idArticulo);
-        if (manufacturado.isPresent()) {
-            return manufacturado.get();
-        }
-
-        // Si no se encuentra, buscar en insumos
-        Optional<ArticuloInsumo> insumo = articuloInsumoRepository.findById(idArticulo);
-        if (insumo.isPresent()) {
-            return insumo.get();
-        }
-
-        throw new ResourceNotFoundException("Artículo con ID " + idArticulo + " no encontrado");
-    }
 
     private Integer calcularTiempoEstimadoDesdeDetalles(List<DetallePedido> detalles) {
         int tiempoMaximo = 0;
@@ -106,7 +122,20 @@ public class PedidoServiceImpl implements IPedidoService {
     @Override
     @Transactional
     public PedidoResponseDTO crearPedido(PedidoRequestDTO pedidoRequest) {
+        MetricasPedidoService.Cronometro cronometro = metricasPedidoService.iniciar(MetricasPedidoService.PIPELINE_PEDIDO);
+        try {
+            PedidoResponseDTO response = crearPedido(pedidoRequest, cronometro);
+            cronometro.finalizar();
+            return response;
+        } catch (RuntimeException e) {
+            cronometro.fallo();
+            throw e;
+        }
+    }
+
+    private PedidoResponseDTO crearPedido(PedidoRequestDTO pedidoRequest, MetricasPedidoService.Cronometro cronometro) {
         // 1. Validar cliente
+        cronometro.etapa("validacion_cliente");
         System.out.println("🚀 RECIBIENDO PEDIDO REQUEST:");
         System.out.println("📝 Observaciones recibidas: '" + pedidoRequest.getObservaciones() + "'");
         Cliente cliente = clienteRepository.findById(pedidoRequest.getIdCliente())
@@ -114,12 +143,26 @@ public class PedidoServiceImpl implements IPedidoService {
         SucursalEmpresa sucursal = sucursalRepository.findById(pedidoRequest.getIdSucursal())
                 .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
 
-        // 2. Validar stock disponible
-        if (!validarStockDisponible(pedidoRequest)) {
+        // 2. Cargar artículos, recetas y promociones del pedido en lote
+        cronometro.etapa("carga_contexto");
+        String versionCatalogo = versionCatalogoService.actual();
+        ContextoPedido contexto = contextoPedidoService.cargarContexto(pedidoRequest);
+
+        // Cotizar una sola vez: stock, promociones, totales, costo y tiempo.
+        // El stock se valida siempre; con un token de preview-carrito vigente es lo único que se recalcula.
+        cronometro.etapa("validacion_stock");
+        boolean stockSuficiente = validarStockDisponible(pedidoRequest, contexto);
+        Optional<CotizacionPedido> cotizacionToken = cotizarConToken(pedidoRequest, contexto, stockSuficiente, cronometro);
+        CotizacionPedido cotizacion = cotizacionToken
+                .orElseGet(() -> cotizarPedido(pedidoRequest, contexto, stockSuficiente, versionCatalogo, cronometro));
+
+        if (!cotizacion.isStockSuficiente()) {
+            metricasPedidoService.registrarRechazoPorStock(MetricasPedidoService.PIPELINE_PEDIDO);
             throw new IllegalArgumentException("Stock insuficiente para algunos productos");
         }
 
         // 3. Crear entidad Pedido
+        cronometro.etapa("armado_pedido");
         Pedido pedido = new Pedido();
         pedido.setCliente(cliente);
         pedido.setSucursal(sucursal);
@@ -133,6 +176,7 @@ public class PedidoServiceImpl implements IPedidoService {
         pedido.setObservaciones(pedidoRequest.getObservaciones());
 
         // 4. Asignar domicilio según tipo de envío
+        cronometro.etapa("domicilio");
 
         if (pedidoRequest.getTipoEnvio().equals("DELIVERY")) {
             // ✅ DELIVERY: Dirección del cliente
@@ -179,75 +223,47 @@ public class PedidoServiceImpl implements IPedidoService {
             }
         }
 
-        // 5. Calcular totales
-        Double total;
-        // ✅ NUEVO: Verificar si aplicar descuento TAKE_AWAY
-        if ("TAKE_AWAY".equals(pedidoRequest.getTipoEnvio())) {
-            System.out.println("🏪 TAKE_AWAY detectado - Aplicando descuento...");
-            total = calcularTotalConDescuentoTakeAway(pedidoRequest);
-        } else {
-            System.out.println("🚚 DELIVERY detectado - Sin descuento TAKE_AWAY...");
-            total = calcularTotalConPromocionAgrupada(pedidoRequest);
-        }
-
-        System.out.println("💰 Total final calculado para pedido: $" + total);
-
-        Double totalCosto = calcularTotalCosto(pedidoRequest);
-        pedido.setTotal(total);
-        pedido.setTotalCosto(totalCosto);
+        // 5. Totales de la cotización
+        pedido.setTotal(cotizacion.getTotal());
+        pedido.setTotalCosto(cotizacion.getTotalCosto());
 
-        // 6. Calcular tiempo estimado
-        Integer tiempoEstimado = calcularTiempoEstimado(pedidoRequest);
-        LocalTime horaEstimada = LocalTime.now().plusMinutes(tiempoEstimado);
+        // 6. Tiempo estimado con la carga actual de la cocina: el de un token de preview puede estar viejo,
+        // el de una cotización recién calculada ya la usó
+        int minutosEntrega = cotizacionToken.isPresent()
+                ? calcularTiempoEstimado(pedidoRequest, contexto)
+                : cotizacion.getTiempoEstimadoMinutos();
+        LocalTime horaEstimada = LocalTime.now().plusMinutes(minutosEntrega);
         pedido.setHoraEstimadaFinalizacion(horaEstimada);
 
         // 7. Guardar pedido
+        cronometro.etapa("guardado_pedido");
         Pedido pedidoGuardado = pedidoRepository.save(pedido);
         System.out.println("💾 Observaciones asignadas a entidad: '" + pedido.getObservaciones() + "'");
 
 
-        // 8. Aplicar promociones antes de crear detalles del pedido
-        System.out.println("🎯 Aplicando promociones al pedido...");
-        PromocionPedidoService.PromocionesAplicadasDTO promocionesAplicadas =
-                promocionPedidoService.aplicarPromocionesAPedidoConAgrupada(pedidoRequest);
-
-        System.out.println("💰 Promociones procesadas: " + promocionesAplicadas.getResumenPromociones());
-
-// 9. Crear detalles del pedido CON PROMOCIONES
-        List<DetallePedido> detalles = promocionesAplicadas.getDetallesConPromociones().stream()
-                .map(detalleConPromocion -> {
-                    Articulo articulo = buscarArticuloPorId(detalleConPromocion.getIdArticulo());
+        // 8. Promociones ya aplicadas en la cotización
+        registrarPromocionesAplicadas(pedidoRequest, cotizacion);
 
+        // 9. Crear detalles del pedido CON PROMOCIONES
+        cronometro.etapa("detalles");
+        List<DetallePedido> detalles = cotizacion.getLineas().stream()
+                .map(linea -> {
                     DetallePedido detalle = new DetallePedido();
                     detalle.setPedido(pedidoGuardado);
-                    detalle.setArticulo(articulo);
-                    detalle.setCantidad(detalleConPromocion.getCantidad());
+                    detalle.setArticulo(linea.getArticulo());
+                    detalle.setCantidad(linea.getCantidad());
 
                     // ✅ NUEVO: Campos de promoción
-                    detalle.setPrecioUnitarioOriginal(detalleConPromocion.getPrecioUnitarioOriginal());
-                    detalle.setDescuentoPromocion(detalleConPromocion.getDescuentoAplicado());
-                    detalle.setSubtotal(detalleConPromocion.getSubtotalFinal()); // Precio con descuento
-                    detalle.setObservaciones(detalleConPromocion.getObservaciones());
-
-                    // Asignar promoción si existe
-                    if (detalleConPromocion.getTienePromocion() &&
-                            detalleConPromocion.getPromocionAplicada() != null) {
-
-                        try {
-                            Promocion promocion = promocionRepository.findById(
-                                    detalleConPromocion.getPromocionAplicada().getIdPromocion()
-                            ).orElse(null);
-                            detalle.setPromocionAplicada(promocion);
-                        } catch (Exception e) {
-                            logger.warn("⚠️ Error asignando promoción: {}", e.getMessage());
-                        }
-                    }
-
-                    System.out.println("📦 Detalle creado: " + articulo.getDenominacion() +
-                            " x " + detalleConPromocion.getCantidad() +
+                    detalle.setPrecioUnitarioOriginal(linea.getPrecioUnitarioOriginal());
+                    detalle.setDescuentoPromocion(linea.getDescuento());
+                    detalle.setSubtotal(linea.getSubtotalFinal()); // Precio con descuento
+                    detalle.setObservaciones(linea.getObservaciones());
+                    detalle.setPromocionAplicada(linea.getPromocion());
+
+                    System.out.println("📦 Detalle creado: " + linea.getArticulo().getDenominacion() +
+                            " x " + linea.getCantidad() +
                             " = $" + detalle.getSubtotal() +
-                            (detalleConPromocion.getTienePromocion() ?
-                                    " (con promoción: -$" + detalleConPromocion.getDescuentoAplicado() + ")" : ""));
+                            (linea.tienePromocion() ? " (con promoción: -$" + linea.getDescuento() + ")" : ""));
 
                     return detalle;
                 })
@@ -256,44 +272,54 @@ public class PedidoServiceImpl implements IPedidoService {
         pedidoGuardado.setDetalles(detalles);
 
         // 9. Actualizar stock de ingredientes - NO ACTUALIZAR HASTA CONFIRMAR
-        // actualizarStockIngredientes(pedidoRequest);
+        // (lo descuenta ConsumoStockService en confirmarPedido / marcarEnPreparacion)
 
         // 10. Guardar con detalles
+        cronometro.etapa("guardado_detalles");
         Pedido pedidoFinal = pedidoRepository.save(pedidoGuardado);
 
-        // 🆕 11. CREAR FACTURA AUTOMÁTICAMENTE
-        try {
-            facturaService.crearFacturaFromPedido(pedidoFinal);
-            logger.info("✅ Factura creada automáticamente para pedido ID: {}", pedidoFinal.getIdPedido());
-        } catch (Exception e) {
-            logger.error("❌ Error creando factura para pedido ID: {}", pedidoFinal.getIdPedido(), e);
-            // La factura se puede crear después manualmente, no falla el pedido
-        }
+        // 11. Factura y notificación a cocina: las hacen los listeners de PedidoCreadoEvent
+        // después del commit, fuera de esta transacción
+        cronometro.etapa("publicacion_eventos");
+        eventPublisher.publishEvent(new PedidoCreadoEvent(
+                pedidoFinal.getIdPedido(),
+                pedidoFinal.getCliente().getNombre() + " " + pedidoFinal.getCliente().getApellido()
+        ));
+
+        registrarEnVistas(enrichPedidoResponseConPromociones(pedidoFinal));
 
         // 12. Mapear a DTO (código existente)
+        cronometro.etapa("respuesta");
         PedidoResponseDTO response = pedidoMapper.toDTO(pedidoFinal);
         System.out.println("📤 Observaciones en response: '" + response.getObservaciones() + "'");
 
-        // 13. Calcular campos faltantes (código existente)
-        response.setStockSuficiente(validarStockDisponible(pedidoRequest));
-        response.setTiempoEstimadoTotal(calcularTiempoEstimado(pedidoRequest));
-
-        // Notificar creación de pedido via WebSocket
-        webSocketNotificationService.notificarNuevoPedido(
-                pedidoFinal.getIdPedido(),
-                pedidoFinal.getCliente().getNombre() + " " + pedidoFinal.getCliente().getApellido()
-        );
+        // 13. Campos calculados: stock de la cotización, tiempo del paso 6
+        response.setStockSuficiente(cotizacion.isStockSuficiente());
+        response.setTiempoEstimadoTotal(minutosEntrega);
 
         return response;
     }
 
-    @Transactional(readOnly = true)
+    @Override
+    @Transactional
     public FacturaResponseDTO getFacturaPedido(Long pedidoId) {
-        // Verificar que el pedido existe
-        Pedido pedido = pedidoRepository.findById(pedidoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
+        // Si el listener de facturación todavía no la generó (o falló), se genera acá
+        return generarFacturaPedido(pedidoId);
+    }
+
+    @Override
+    @Transactional
+    public FacturaResponseDTO generarFacturaPedido(Long pedidoId) {
+        if (!facturaService.existeFacturaParaPedido(pedidoId)) {
+            // Bloquear el pedido para que listener y consultas concurrentes no generen dos facturas
+            Pedido pedido = pedidoRepository.findByIdParaActualizar(pedidoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
+
+            if (!facturaService.existeFacturaParaPedido(pedidoId)) {
+                return facturaService.crearFacturaFromPedido(pedido);
+            }
+        }
 
-        // Buscar factura del pedido
         return facturaService.findByPedidoId(pedidoId);
     }
 
@@ -305,200 +331,236 @@ public class PedidoServiceImpl implements IPedidoService {
         return enrichPedidoResponseConPromociones(pedido);
     }
 
+    // Listados: proyecciones (ListadoPedidosService), sin cargar entidades por pedido
+
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findAll() {
-        return pedidoRepository.findAll().stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return listadoPedidosService.listarTodos();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findByCliente(Long idCliente) {
-        return pedidoRepository.findByClienteIdClienteOrderByFechaDesc(idCliente).stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return listadoPedidosService.listarPorCliente(idCliente);
     }
 
     @Override
-    @Transactional
-    public PedidoResponseDTO confirmarPedido(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
-
-        if (pedido.getEstado() != Estado.PENDIENTE) {
-            throw new IllegalStateException("Solo se pueden confirmar pedidos pendientes");
-        }
+    public PaginaPedidosDTO findPagina(Long idCliente, Estado estado, TipoEnvio tipoEnvio,
+                                       LocalDate fechaDesde, LocalDate fechaHasta, String cursor, Integer tamanio) {
+        int tamanioPagina = tamanio == null ? TAMANIO_PAGINA_DEFECTO : Math.max(1, Math.min(tamanio, TAMANIO_PAGINA_MAXIMO));
+
+        // Uno de más para saber si hay página siguiente
+        List<PedidoResponseDTO> pedidos = listadoPedidosService.listarPagina(
+                idCliente, estado, tipoEnvio,
+                fechaDesde != null ? fechaDesde.atStartOfDay() : null,
+                fechaHasta != null ? fechaHasta.plusDays(1).atStartOfDay() : null,
+                CursorPedido.decodificar(cursor),
+                tamanioPagina + 1);
+
+        boolean hayMas = pedidos.size() > tamanioPagina;
+        String siguienteCursor = null;
+        if (hayMas) {
+            pedidos = pedidos.subList(0, tamanioPagina);
+            PedidoResponseDTO ultimo = pedidos.get(pedidos.size() - 1);
+            siguienteCursor = new CursorPedido(ultimo.getFecha(), ultimo.getIdPedido()).codificar();
+        }
+
+        return new PaginaPedidosDTO(pedidos, siguienteCursor, hayMas, tamanioPagina);
+    }
 
-        // Al confirmar, cambiar a PREPARACION y actualizar stock
-        pedido.setEstado(Estado.PREPARACION);
-        actualizarStockDesdePedido(pedido);
+    // Cambios de estado: TransicionPedidoService (control de versión, reintentos y 409 ante conflictos)
 
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
-        return enrichPedidoResponseConPromociones(pedidoActualizado);
+    @Override
+    public PedidoResponseDTO confirmarPedido(Long id) {
+        return transicionPedidoService.ejecutar(id, TransicionPedido.CONFIRMAR, this::responderTransicion);
     }
 
     @Override
-    @Transactional
     public PedidoResponseDTO marcarEnPreparacion(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
-
-        if (pedido.getEstado() != Estado.PENDIENTE) {
-            throw new IllegalStateException("Solo se pueden pasar a preparación pedidos pendientes");
-        }
-
-        pedido.setEstado(Estado.PREPARACION);
-        actualizarStockDesdePedido(pedido);
-
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
+        return transicionPedidoService.ejecutar(id, TransicionPedido.PREPARAR, this::responderTransicion);
+    }
 
-        // Notificar cambio de estado vía WebSocket
-        webSocketNotificationService.notificarCambioEstado(
-                id,
-                "EN_PREPARACION",
-                pedidoActualizado.getCliente().getUsuario().getAuth0Id()
-        );
+    @Override
+    public PedidoResponseDTO marcarListo(Long id) {
+        return transicionPedidoService.ejecutar(id, TransicionPedido.MARCAR_LISTO, this::responderTransicion);
+    }
 
-        return enrichPedidoResponseConPromociones(pedidoActualizado);
+    @Override
+    public PedidoResponseDTO marcarEntregado(Long id) {
+        return transicionPedidoService.ejecutar(id, TransicionPedido.ENTREGAR, this::responderTransicion);
     }
 
     @Override
-    @Transactional
-    public PedidoResponseDTO marcarListo(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
+    public PedidoResponseDTO cancelarPedido(Long id) {
+        return transicionPedidoService.ejecutar(id, TransicionPedido.CANCELAR, this::responderTransicion);
+    }
 
-        if (pedido.getEstado() != Estado.PREPARACION) {
-            throw new IllegalStateException("El pedido debe estar en preparación para marcarlo como listo");
+    @Override
+    public TransicionLoteResponseDTO transicionarLote(TransicionPedido transicion, List<Long> idsPedidos) {
+        if (idsPedidos == null || idsPedidos.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un pedido");
+        }
+        if (idsPedidos.size() > MAX_PEDIDOS_LOTE) {
+            throw new IllegalArgumentException("Se pueden cambiar hasta " + MAX_PEDIDOS_LOTE + " pedidos por lote");
         }
 
-        pedido.setEstado(Estado.LISTO);
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
-
-        // Obtener datos del cliente
-        String clienteAuthId = null;
-        String clienteNombre = "Cliente";
+        return transicionPedidoService.ejecutarLote(idsPedidos, transicion,
+                resultado -> responderTransicionLote(transicion, idsPedidos, resultado));
+    }
 
-        try {
-            if (pedidoActualizado.getCliente() != null) {
-                clienteNombre = pedidoActualizado.getCliente().getNombre() + " " +
-                        pedidoActualizado.getCliente().getApellido();
+    // Dentro de la transacción del lote: un solo evento para todos los cambios y los DTO desde proyecciones
+    private TransicionLoteResponseDTO responderTransicionLote(TransicionPedido transicion, List<Long> idsPedidos,
+                                                              TransicionPedidoService.ResultadoLote resultado) {
+        List<Long> idsExitosos = new ArrayList<>();
+        resultado.aplicados().forEach(pedido -> idsExitosos.add(pedido.getIdPedido()));
+        resultado.sinCambios().forEach(pedido -> idsExitosos.add(pedido.getIdPedido()));
 
-                if (pedidoActualizado.getCliente().getUsuario() != null) {
-                    clienteAuthId = pedidoActualizado.getCliente().getUsuario().getAuth0Id();
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("⚠️ Error obteniendo datos del cliente para notificación: {}", e.getMessage());
+        Map<Long, PedidoResponseDTO> pedidos = new HashMap<>();
+        for (PedidoResponseDTO pedido : listadoPedidosService.listarPorIds(idsExitosos)) {
+            pedidos.put(pedido.getIdPedido(), pedido);
         }
 
-        // Notificar cambio de estado general
-        webSocketNotificationService.notificarCambioEstado(
-                id,
-                "LISTO",
-                clienteAuthId
-        );
+        if (!resultado.aplicados().isEmpty()) {
+            eventPublisher.publishEvent(new PedidosEstadoCambiadoLoteEvent(
+                    resultado.aplicados().stream().map(this::eventoCambioEstado).toList()));
+            resultado.aplicados().forEach(pedido -> registrarEnVistas(pedidos.get(pedido.getIdPedido())));
+        }
 
-        // ✅ NUEVO: Si es delivery, notificar específicamente a delivery
-        if (pedidoActualizado.getTipoEnvio() == TipoEnvio.DELIVERY) {
-            webSocketNotificationService.notificarPedidoListoParaDelivery(
-                    id,
-                    clienteNombre
-            );
+        List<TransicionLoteResponseDTO.ResultadoPedidoDTO> resultados = new ArrayList<>();
+        for (Long idPedido : new LinkedHashSet<>(idsPedidos)) {
+            PedidoResponseDTO pedido = pedidos.get(idPedido);
+            resultados.add(pedido != null
+                    ? new TransicionLoteResponseDTO.ResultadoPedidoDTO(idPedido, true, null, pedido)
+                    : new TransicionLoteResponseDTO.ResultadoPedidoDTO(idPedido, false, resultado.rechazados().get(idPedido), null));
         }
 
-        return enrichPedidoResponseConPromociones(pedidoActualizado);
+        int exitosos = (int) resultados.stream().filter(TransicionLoteResponseDTO.ResultadoPedidoDTO::isExito).count();
+        return new TransicionLoteResponseDTO(transicion.getDestino().name(), exitosos, resultados.size() - exitosos, resultados);
     }
 
-    @Override
-    @Transactional
-    public PedidoResponseDTO marcarEntregado(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
-
-        // Verificar que esté listo o en preparación (para take away)
-        if (pedido.getEstado() != Estado.LISTO &&
-                !(pedido.getEstado() == Estado.PREPARACION && pedido.getTipoEnvio() == TipoEnvio.TAKE_AWAY)) {
-            throw new IllegalStateException("El pedido debe estar listo para ser entregado");
+    // Dentro de la transacción del cambio; si el pedido ya estaba en ese estado no se vuelve a notificar
+    private PedidoResponseDTO responderTransicion(Pedido pedido, boolean aplicada) {
+        if (aplicada) {
+            publicarCambioEstado(pedido);
         }
 
-        pedido.setEstado(Estado.ENTREGADO);
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
-
-        // Notificar cambio de estado vía WebSocket
-        webSocketNotificationService.notificarCambioEstado(
-                id,
-                "ENTREGADO",
-                pedidoActualizado.getCliente().getUsuario().getAuth0Id()
-        );
-
-        return enrichPedidoResponseConPromociones(pedidoActualizado);
+        PedidoResponseDTO response = enrichPedidoResponseConPromociones(pedido);
+        if (aplicada) {
+            registrarEnVistas(response);
+        }
+        return response;
     }
 
     @Override
-    @Transactional
-    public PedidoResponseDTO cancelarPedido(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
-
-        if (pedido.getEstado() == Estado.ENTREGADO) {
-            throw new IllegalStateException("No se puede cancelar un pedido entregado");
+    @Transactional(readOnly = true)
+    public CotizacionPedido cotizarPedido(PedidoRequestDTO pedidoRequest) {
+        MetricasPedidoService.Cronometro cronometro = metricasPedidoService.iniciar(MetricasPedidoService.PIPELINE_PREVIEW);
+        try {
+            // La versión se toma antes de leer: si el catálogo cambia mientras tanto, el token nace vencido
+            String versionCatalogo = versionCatalogoService.actual();
+            cronometro.etapa("carga_contexto");
+            ContextoPedido contexto = contextoPedidoService.cargarContexto(pedidoRequest);
+            cronometro.etapa("validacion_stock");
+            boolean stockSuficiente = validarStockDisponible(pedidoRequest, contexto);
+            CotizacionPedido cotizacion = cotizarPedido(pedidoRequest, contexto, stockSuficiente, versionCatalogo, cronometro);
+            cronometro.finalizar();
+            return cotizacion;
+        } catch (RuntimeException e) {
+            cronometro.fallo();
+            throw e;
         }
+    }
 
-        // Restaurar stock solo si el pedido estaba en preparación o listo
-        if (pedido.getEstado() == Estado.PREPARACION || pedido.getEstado() == Estado.LISTO) {
-            restaurarStockIngredientes(pedido);
+    private Optional<CotizacionPedido> cotizarConToken(PedidoRequestDTO pedidoRequest, ContextoPedido contexto,
+                                                       boolean stockSuficiente,
+                                                       MetricasPedidoService.Cronometro cronometro) {
+        if (pedidoRequest.getTokenCotizacion() == null || pedidoRequest.getTokenCotizacion().isBlank()) {
+            return Optional.empty();
         }
+        cronometro.etapa("token_cotizacion");
+        return cotizacionTokenService.leer(pedidoRequest, contexto, stockSuficiente);
+    }
 
-        pedido.setEstado(Estado.CANCELADO);
-        Pedido pedidoActualizado = pedidoRepository.save(pedido);
-
-        // ✅ NUEVO: Usar notificación específica de cancelación
-        String clienteAuthId = null;
-        String clienteNombre = "Cliente";
+    /**
+     * Calcula la cotización del pedido sobre el contexto ya cargado, con el stock ya validado por
+     * quien llama. Las promociones individuales se aplican una sola vez: el total DELIVERY usa su
+     * descuento y la agrupada se aplica encima para las líneas y el total TAKE_AWAY.
+     */
+    private CotizacionPedido cotizarPedido(PedidoRequestDTO pedidoRequest, ContextoPedido contexto, boolean stockSuficiente,
+                                           String versionCatalogo, MetricasPedidoService.Cronometro cronometro) {
+        cronometro.etapa("promociones");
+        PromocionPedidoService.PromocionesAplicadasDTO promociones =
+                promocionPedidoService.aplicarPromocionesAPedido(pedidoRequest, contexto);
+        double descuentoIndividual = promociones.getDescuentoTotal();
+        promocionPedidoService.aplicarPromocionAgrupada(pedidoRequest, promociones, contexto);
+
+        cronometro.etapa("calculo_totales");
+        double total;
+        // ✅ NUEVO: Verificar si aplicar descuento TAKE_AWAY
+        if ("TAKE_AWAY".equals(pedidoRequest.getTipoEnvio())) {
+            System.out.println("🏪 TAKE_AWAY detectado - Aplicando descuento...");
+            total = calcularTotalConDescuentoTakeAway(pedidoRequest.getTipoEnvio(), promociones);
+        } else {
+            System.out.println("🚚 DELIVERY detectado - Sin descuento TAKE_AWAY...");
+            total = calcularTotalConPromocionAgrupada(pedidoRequest, promociones.getSubtotalOriginal(), descuentoIndividual);
+        }
+        System.out.println("💰 Total final calculado para pedido: $" + total);
+        double totalCosto = calcularTotalCosto(pedidoRequest, contexto);
 
-        try {
-            if (pedidoActualizado.getCliente() != null) {
-                clienteNombre = pedidoActualizado.getCliente().getNombre() + " " +
-                        pedidoActualizado.getCliente().getApellido();
+        cronometro.etapa("tiempo_estimado");
+        int tiempoEstimado = calcularTiempoEstimado(pedidoRequest, contexto);
 
-                if (pedidoActualizado.getCliente().getUsuario() != null) {
-                    clienteAuthId = pedidoActualizado.getCliente().getUsuario().getAuth0Id();
-                }
+        List<CotizacionPedido.Linea> lineas = new ArrayList<>();
+        for (PromocionPedidoService.DetalleConPromocionDTO detalle : promociones.getDetallesConPromociones()) {
+            Promocion promocion = null;
+            if (detalle.getTienePromocion() && detalle.getPromocionAplicada() != null) {
+                promocion = contexto.getPromocion(detalle.getPromocionAplicada().getIdPromocion()).orElse(null);
             }
-        } catch (Exception e) {
-            logger.warn("⚠️ Error obteniendo datos del cliente para notificación: {}", e.getMessage());
-        }
-
-        // Notificar cancelación específicamente
-        webSocketNotificationService.notificarCancelacionPedido(
-                id,
-                clienteNombre,
-                clienteAuthId
-        );
+            lineas.add(new CotizacionPedido.Linea(
+                    contexto.getArticulo(detalle.getIdArticulo()),
+                    detalle.getCantidad(),
+                    detalle.getPrecioUnitarioOriginal(),
+                    detalle.getDescuentoAplicado(),
+                    detalle.getSubtotalFinal(),
+                    detalle.getTienePromocion(),
+                    promocion,
+                    detalle.getObservaciones()));
+        }
+
+        return new CotizacionPedido(lineas, promociones.getSubtotalOriginal(), promociones.getDescuentoTotal(),
+                total, totalCosto, tiempoEstimado, stockSuficiente, promociones.getResumenPromociones(),
+                versionCatalogo);
+    }
 
-        return enrichPedidoResponseConPromociones(pedidoActualizado);
+    private void registrarPromocionesAplicadas(PedidoRequestDTO pedidoRequest, CotizacionPedido cotizacion) {
+        metricasPedidoService.registrarPromocionesAplicadas(MetricasPedidoService.PIPELINE_PEDIDO, "individual",
+                cotizacion.getCantidadLineasConPromocion());
+        if (pedidoRequest.getPromocionAgrupada() != null) {
+            metricasPedidoService.registrarPromocionesAplicadas(MetricasPedidoService.PIPELINE_PEDIDO, "agrupada", 1);
+        }
     }
 
     @Override
     @Transactional(readOnly = true)
     public Boolean validarStockDisponible(PedidoRequestDTO pedidoRequest) {
+        return validarStockDisponible(pedidoRequest, contextoPedidoService.cargarContexto(pedidoRequest));
+    }
+
+    private Boolean validarStockDisponible(PedidoRequestDTO pedidoRequest, ContextoPedido contexto) {
         for (var detalle : pedidoRequest.getDetalles()) {
-            Articulo articulo = buscarArticuloPorId(detalle.getIdArticulo());
+            Articulo articulo = contexto.getArticulo(detalle.getIdArticulo());
 
             if (articulo instanceof ArticuloManufacturado) {
-                ArticuloManufacturado manufacturado = (ArticuloManufacturado) articulo;
+                RecetaCompilada receta = contexto.getReceta(articulo.getIdArticulo());
 
                 // Verificar stock de cada ingrediente
-                for (var ingrediente : manufacturado.getDetalles()) {
-                    double cantidadNecesaria = ingrediente.getCantidad() * detalle.getCantidad();
-                    if (ingrediente.getArticuloInsumo().getStockActual() < cantidadNecesaria) {
+                for (int i = 0; i < receta.size(); i++) {
+                    ArticuloInsumo ingrediente = contexto.getInsumo(receta.idInsumo(i));
+                    double cantidadNecesaria = receta.cantidad(i) * detalle.getCantidad();
+                    if (ingrediente.getStockActual() < cantidadNecesaria) {
                         System.out.println("❌ Stock insuficiente - Ingrediente: " +
-                                ingrediente.getArticuloInsumo().getDenominacion() +
+                                ingrediente.getDenominacion() +
                                 ", Necesario: " + cantidadNecesaria +
-                                ", Disponible: " + ingrediente.getArticuloInsumo().getStockActual());
+                                ", Disponible: " + ingrediente.getStockActual());
                         return false;
                     }
                 }
@@ -545,166 +607,134 @@ public class PedidoServiceImpl implements IPedidoService {
     @Override
     @Transactional(readOnly = true)
     public Integer calcularTiempoEstimado(PedidoRequestDTO pedidoRequest) {
+        return calcularTiempoEstimado(pedidoRequest, contextoPedidoService.cargarContexto(pedidoRequest));
+    }
+
+    private Integer calcularTiempoEstimado(PedidoRequestDTO pedidoRequest, ContextoPedido contexto) {
         int tiempoMaximo = 0;
 
         for (var detalle : pedidoRequest.getDetalles()) {
-            Articulo articulo = buscarArticuloPorId(detalle.getIdArticulo());
+            Articulo articulo = contexto.getArticulo(detalle.getIdArticulo());
 
             if (articulo instanceof ArticuloManufacturado) {
                 ArticuloManufacturado manufacturado = (ArticuloManufacturado) articulo;
                 if (manufacturado.getTiempoEstimadoEnMinutos() != null) {
                     tiempoMaximo = Math.max(tiempoMaximo, manufacturado.getTiempoEstimadoEnMinutos());
-                    System.out.println("⏱️ Producto manufacturado: " + manufacturado.getDenominacion() +
-                            " - Tiempo: " + manufacturado.getTiempoEstimadoEnMinutos() + " min");
                 }
             }
             // Los insumos no tienen tiempo de preparación, se entregan inmediatamente
         }
 
-        // Agregar tiempo de delivery si corresponde
-        if ("DELIVERY".equals(pedidoRequest.getTipoEnvio())) {
-            tiempoMaximo += 15; // Tiempo estimado de entrega
-            System.out.println("🚚 Tiempo delivery agregado: +15 min");
-        }
-
-        System.out.println("⏱️ Tiempo total estimado: " + tiempoMaximo + " min");
-        return tiempoMaximo;
+        // Espera por la carga de la cocina, preparación y, si es delivery, el envío
+        TipoEnvio tipoEnvio = "DELIVERY".equals(pedidoRequest.getTipoEnvio()) ? TipoEnvio.DELIVERY : TipoEnvio.TAKE_AWAY;
+        int tiempoTotal = estimacionEntregaService.minutosHastaEntrega(tiempoMaximo, tipoEnvio);
+        logger.debug("⏱️ Tiempo estimado: {} min de preparación, {} min hasta la entrega", tiempoMaximo, tiempoTotal);
+        return tiempoTotal;
     }
 
+    // Filtros por estado: se sirven del tablero en memoria (TableroPedidosService), sin ir a la base
+
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findPedidosPendientes() {
-        return pedidoRepository.findByEstadoOrderByFechaAsc(Estado.PENDIENTE).stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return tableroPedidosService.listar(Estado.PENDIENTE, null);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findPedidosEnPreparacion() {
-        return pedidoRepository.findByEstadoOrderByFechaAsc(Estado.PREPARACION).stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return tableroPedidosService.listar(Estado.PREPARACION, null);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findPedidosListos() {
-        return pedidoRepository.findByEstadoOrderByFechaAsc(Estado.LISTO).stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return tableroPedidosService.listar(Estado.LISTO, null);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findPedidosListosParaEntrega() {
         // Pedidos listos para delivery
-        return pedidoRepository.findByEstadoAndTipoEnvioOrderByFechaAsc(Estado.LISTO, TipoEnvio.DELIVERY).stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return tableroPedidosService.listar(Estado.LISTO, TipoEnvio.DELIVERY);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<PedidoResponseDTO> findPedidosListosParaRetiro() {
         // Pedidos listos para take away
-        return pedidoRepository.findByEstadoAndTipoEnvioOrderByFechaAsc(Estado.LISTO, TipoEnvio.TAKE_AWAY).stream()
-                .map(this::enrichPedidoResponseConPromociones)
-                .collect(Collectors.toList());
+        return tableroPedidosService.listar(Estado.LISTO, TipoEnvio.TAKE_AWAY);
     }
 
-    // Métodos auxiliares privados
-    private Double calcularTotalCosto(PedidoRequestDTO pedidoRequest) {
-        double totalCosto = 0;
-
-        for (var detalle : pedidoRequest.getDetalles()) {
-            Articulo articulo = buscarArticuloPorId(detalle.getIdArticulo()); // ← Cambiar esta línea
-
-            if (articulo instanceof ArticuloManufacturado) {
-                ArticuloManufacturado manufacturado = (ArticuloManufacturado) articulo;
-                double costoUnitario = manufacturado.getDetalles().stream()
-                        .mapToDouble(ing -> ing.getCantidad() * ing.getArticuloInsumo().getPrecioCompra())
-                        .sum();
-                totalCosto += costoUnitario * detalle.getCantidad();
-            } else if (articulo instanceof ArticuloInsumo) {
-                ArticuloInsumo insumo = (ArticuloInsumo) articulo;
-                totalCosto += insumo.getPrecioCompra() * detalle.getCantidad();
-            }
-        }
-
-        return totalCosto;
+    @Override
+    public TableroPedidosDTO getTablero(Long desdeVersion, Estado estado, TipoEnvio tipoEnvio) {
+        return tableroPedidosService.cambiosDesde(desdeVersion, estado, tipoEnvio);
     }
-    private void actualizarStockIngredientes(PedidoRequestDTO pedidoRequest) {
-        for (var detalle : pedidoRequest.getDetalles()) {
-            Articulo articulo = buscarArticuloPorId(detalle.getIdArticulo()); // ← Cambiar esta línea
 
-            if (articulo instanceof ArticuloManufacturado) {
-                ArticuloManufacturado manufacturado = (ArticuloManufacturado) articulo;
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarTablero() {
+        List<PedidoResponseDTO> activos = listadoPedidosService.listarPorEstados(TableroPedidosService.ESTADOS_ACTIVOS);
+        tableroPedidosService.cargar(activos);
+        estimacionEntregaService.cargar(activos);
+    }
 
-                for (var ingrediente : manufacturado.getDetalles()) {
-                    ArticuloInsumo insumo = ingrediente.getArticuloInsumo();
-                    int cantidadARestar = (int) (ingrediente.getCantidad() * detalle.getCantidad());
-                    int stockAnterior = insumo.getStockActual();
-                    insumo.setStockActual(insumo.getStockActual() - cantidadARestar);
-                    articuloInsumoRepository.save(insumo);
+    // Tablero de pedidos y plan de cocina (ambos se aplican después del commit)
+    private void registrarEnVistas(PedidoResponseDTO pedido) {
+        tableroPedidosService.actualizar(pedido);
+        estimacionEntregaService.actualizar(pedido);
+    }
 
-                    System.out.println("📉 Stock actualizado - " + insumo.getDenominacion() +
-                            ": " + stockAnterior + " -> " + insumo.getStockActual() + " (-" + cantidadARestar + ")");
-                }
-            } else if (articulo instanceof ArticuloInsumo) {
-                ArticuloInsumo insumo = (ArticuloInsumo) articulo;
-                int stockAnterior = insumo.getStockActual();
-                insumo.setStockActual(insumo.getStockActual() - detalle.getCantidad());
-                articuloInsumoRepository.save(insumo);
+    // Métodos auxiliares privados
 
-                System.out.println("📉 Stock actualizado - " + insumo.getDenominacion() +
-                        ": " + stockAnterior + " -> " + insumo.getStockActual() + " (-" + detalle.getCantidad() + ")");
-            }
-        }
+    /**
+     * Publica el cambio de estado; las notificaciones WebSocket salen recién después del commit.
+     */
+    private void publicarCambioEstado(Pedido pedido) {
+        eventPublisher.publishEvent(eventoCambioEstado(pedido));
     }
-    private void actualizarStockDesdePedido(Pedido pedido) {
-        for (var detalle : pedido.getDetalles()) {
-            Articulo articulo = detalle.getArticulo();
 
-            if (articulo instanceof ArticuloManufacturado) {
-                ArticuloManufacturado manufacturado = (ArticuloManufacturado) articulo;
+    private PedidoEstadoCambiadoEvent eventoCambioEstado(Pedido pedido) {
+        String clienteAuthId = null;
+        String clienteNombre = "Cliente";
+
+        try {
+            if (pedido.getCliente() != null) {
+                clienteNombre = pedido.getCliente().getNombre() + " " +
+                        pedido.getCliente().getApellido();
 
-                for (var ingrediente : manufacturado.getDetalles()) {
-                    ArticuloInsumo insumo = ingrediente.getArticuloInsumo();
-                    int cantidadARestar = (int) (ingrediente.getCantidad() * detalle.getCantidad());
-                    insumo.setStockActual(insumo.getStockActual() - cantidadARestar);
-                    articuloInsumoRepository.save(insumo);
+                if (pedido.getCliente().getUsuario() != null) {
+                    clienteAuthId = pedido.getCliente().getUsuario().getAuth0Id();
                 }
-            } else if (articulo instanceof ArticuloInsumo) {
-                ArticuloInsumo insumo = (ArticuloInsumo) articulo;
-                insumo.setStockActual(insumo.getStockActual() - detalle.getCantidad());
-                articuloInsumoRepository.save(insumo);
             }
+        } catch (Exception e) {
+            logger.warn("⚠️ Error obteniendo datos del cliente para notificación: {}", e.getMessage());
         }
+
+        return new PedidoEstadoCambiadoEvent(
+                pedido.getIdPedido(),
+                pedido.getEstado(),
+                pedido.getTipoEnvio(),
+                clienteNombre,
+                clienteAuthId
+        );
     }
+    // Al costo promedio ponderado de cada insumo (CostoInsumoService), no al de la última compra
+    private Double calcularTotalCosto(PedidoRequestDTO pedidoRequest, ContextoPedido contexto) {
+        double totalCosto = 0;
 
-    private void restaurarStockIngredientes(Pedido pedido) {
-        for (var detalle : pedido.getDetalles()) {
-            Articulo articulo = detalle.getArticulo();
+        for (var detalle : pedidoRequest.getDetalles()) {
+            Articulo articulo = contexto.getArticulo(detalle.getIdArticulo());
 
             if (articulo instanceof ArticuloManufacturado) {
-                ArticuloManufacturado manufacturado = (ArticuloManufacturado) articulo;
-
-                for (var ingrediente : manufacturado.getDetalles()) {
-                    ArticuloInsumo insumo = ingrediente.getArticuloInsumo();
-                    int cantidadARestaurar = (int) (ingrediente.getCantidad() * detalle.getCantidad());
-                    insumo.setStockActual(insumo.getStockActual() + cantidadARestaurar);
-                    articuloInsumoRepository.save(insumo);
+                RecetaCompilada receta = contexto.getReceta(articulo.getIdArticulo());
+                double costoUnitario = 0;
+                for (int i = 0; i < receta.size(); i++) {
+                    costoUnitario += receta.cantidad(i) * CostoInsumoService.costoUnitario(contexto.getInsumo(receta.idInsumo(i)));
                 }
+                totalCosto += costoUnitario * detalle.getCantidad();
             } else if (articulo instanceof ArticuloInsumo) {
                 ArticuloInsumo insumo = (ArticuloInsumo) articulo;
-                insumo.setStockActual(insumo.getStockActual() + detalle.getCantidad());
-                articuloInsumoRepository.save(insumo);
+                totalCosto += CostoInsumoService.costoUnitario(insumo) * detalle.getCantidad();
             }
         }
 
+        return totalCosto;
     }
-
     private PedidoResponseDTO enrichPedidoResponseConPromociones(Pedido pedido) {
         PedidoResponseDTO response = pedidoMapper.toDTO(pedido);
 
@@ -761,16 +791,9 @@ public class PedidoServiceImpl implements IPedidoService {
         return resumen;
     }
 
-    private Double calcularTotalConPromocionAgrupada(PedidoRequestDTO pedidoRequest) {
+    private double calcularTotalConPromocionAgrupada(PedidoRequestDTO pedidoRequest, double subtotalOriginal,
+                                                     double descuentoIndividual) {
         System.out.println("💰 Calculando total CON promoción agrupada...");
-
-        // Calcular subtotal original
-        double subtotalOriginal = 0.0;
-        for (var detalle : pedidoRequest.getDetalles()) {
-            Articulo articulo = buscarArticuloPorId(detalle.getIdArticulo());
-            subtotalOriginal += articulo.getPrecioVenta() * detalle.getCantidad();
-        }
-
         System.out.println("💰 Subtotal original: $" + subtotalOriginal);
 
         // Aplicar descuento de promoción agrupada si existe
@@ -788,11 +811,7 @@ public class PedidoServiceImpl implements IPedidoService {
             System.out.println("🎁 Descuento: $" + descuentoPromocionAgrupada);
         }
 
-        // Aplicar otras promociones individuales (usar servicio existente)
-        PromocionPedidoService.PromocionesAplicadasDTO promocionesIndividuales =
-                promocionPedidoService.aplicarPromocionesAPedido(pedidoRequest);
-
-        double descuentoIndividual = promocionesIndividuales.getDescuentoTotal();
+        // Promociones individuales (ya aplicadas en la cotización)
         System.out.println("🎯 Descuento promociones individuales: $" + descuentoIndividual);
 
         // Total con todos los descuentos
@@ -813,20 +832,20 @@ public class PedidoServiceImpl implements IPedidoService {
      */
     @Transactional(readOnly = true)
     public Double calcularTotalConDescuentoTakeAway(PedidoRequestDTO pedidoRequest) {
+        ContextoPedido contexto = contextoPedidoService.cargarContexto(pedidoRequest);
+        return calcularTotalConDescuentoTakeAway(pedidoRequest.getTipoEnvio(),
+                promocionPedidoService.aplicarPromocionesAPedidoConAgrupada(pedidoRequest, contexto));
+    }
+
+    private double calcularTotalConDescuentoTakeAway(String tipoEnvio,
+                                                     PromocionPedidoService.PromocionesAplicadasDTO promocionesAplicadas) {
         System.out.println("🏪 === CALCULANDO TOTAL CON DESCUENTO TAKE_AWAY (LÓGICA CORREGIDA) ===");
 
-        // 1. Calcular subtotal original SIN descuentos
-        double subtotalOriginal = 0.0;
-        for (var detalle : pedidoRequest.getDetalles()) {
-            Articulo articulo = buscarArticuloPorId(detalle.getIdArticulo());
-            subtotalOriginal += articulo.getPrecioVenta() * detalle.getCantidad();
-        }
+        // 1. Subtotal original SIN descuentos (mismos precios del contexto que usó el servicio de promociones)
+        double subtotalOriginal = promocionesAplicadas.getSubtotalOriginal();
         System.out.println("💰 Subtotal original: $" + subtotalOriginal);
 
-        // 2. Usar el servicio de promociones para obtener cálculo COMPLETO
-        PromocionPedidoService.PromocionesAplicadasDTO promocionesAplicadas =
-                promocionPedidoService.aplicarPromocionesAPedidoConAgrupada(pedidoRequest);
-
+        // 2. Promociones ya aplicadas (individuales + agrupada)
         double descuentoPromociones = promocionesAplicadas.getDescuentoTotal();
         System.out.println("🎯 Descuento promociones (completo): $" + descuentoPromociones);
 
@@ -834,23 +853,16 @@ public class PedidoServiceImpl implements IPedidoService {
         double subtotalConPromociones = promocionesAplicadas.getSubtotalFinal();
         System.out.println("💰 Subtotal con promociones (del servicio): $" + subtotalConPromociones);
 
-        // 4. Verificar que coincida con nuestro cálculo manual
-        double verificacion = subtotalOriginal - descuentoPromociones;
-        if (Math.abs(subtotalConPromociones - verificacion) > 0.01) {
-            System.out.println("⚠️ ADVERTENCIA: Diferencia en cálculo - Servicio: $" + subtotalConPromociones + " vs Manual: $" + verificacion);
-        }
-        System.out.println("💰 Subtotal CON promociones: $" + subtotalConPromociones);
-
-        // 5. ✅ CORREGIDO: Aplicar descuento TAKE_AWAY sobre subtotal CON promociones
+        // 4. ✅ CORREGIDO: Aplicar descuento TAKE_AWAY sobre subtotal CON promociones
         double porcentajeDescuento = 10.0;
         double descuentoTakeAway = subtotalConPromociones * (porcentajeDescuento / 100);
         System.out.println("🏪 Descuento TAKE_AWAY (" + porcentajeDescuento + "% de $" + subtotalConPromociones + "): $" + descuentoTakeAway);
 
-        // 6. Calcular total final
+        // 5. Calcular total final
         double totalFinal = subtotalConPromociones - descuentoTakeAway;
 
-        // 7. Agregar gastos de envío si es DELIVERY (normalmente no aplica para TAKE_AWAY)
-        if ("DELIVERY".equals(pedidoRequest.getTipoEnvio())) {
+        // 6. Agregar gastos de envío si es DELIVERY (normalmente no aplica para TAKE_AWAY)
+        if ("DELIVERY".equals(tipoEnvio)) {
             totalFinal += 200;
             System.out.println("🚚 Gastos envío DELIVERY: $200");
         }
@@ -7,9 +7,6 @@ import com.elbuensabor.dto.response.PedidoResponseDTO;
 import com.elbuensabor.entities.Articulo;
 import com.elbuensabor.entities.DetallePedido;
 import com.elbuensabor.entities.Promocion;
-import com.elbuensabor.exceptions.ResourceNotFoundException;
-import com.elbuensabor.repository.IArticuloRepository;
-import com.elbuensabor.repository.IPromocionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,14 +22,15 @@ public class PromocionPedidoService {
     private static final Logger logger = LoggerFactory.getLogger(PromocionPedidoService.class);
 
     @Autowired
-    private IPromocionRepository promocionRepository;
-
-    @Autowired
-    private IArticuloRepository articuloRepository;
+    private ContextoPedidoService contextoPedidoService;
 
     // ==================== MÉTODO PRINCIPAL: APLICAR PROMOCIONES A PEDIDO ====================
 
     public PromocionesAplicadasDTO aplicarPromocionesAPedido(PedidoRequestDTO pedidoRequest) {
+        return aplicarPromocionesAPedido(pedidoRequest, contextoPedidoService.cargarContexto(pedidoRequest));
+    }
+
+    public PromocionesAplicadasDTO aplicarPromocionesAPedido(PedidoRequestDTO pedidoRequest, ContextoPedido contexto) {
         logger.info("🎯 Aplicando promociones a pedido con {} detalles", pedidoRequest.getDetalles().size());
 
         PromocionesAplicadasDTO resultado = new PromocionesAplicadasDTO();
@@ -43,7 +41,8 @@ public class PromocionPedidoService {
         for (DetallePedidoRequestDTO detalleRequest : pedidoRequest.getDetalles()) {
             DetalleConPromocionDTO detalleConPromocion = procesarDetalleConPromocion(
                     detalleRequest,
-                    pedidoRequest.getIdSucursal()
+                    pedidoRequest.getIdSucursal(),
+                    contexto
             );
 
             resultado.getDetallesConPromociones().add(detalleConPromocion);
@@ -62,12 +61,12 @@ public class PromocionPedidoService {
 
     // ==================== PROCESAR DETALLE INDIVIDUAL ====================
 
-    private DetalleConPromocionDTO procesarDetalleConPromocion(DetallePedidoRequestDTO detalleRequest, Long idSucursal) {
+    private DetalleConPromocionDTO procesarDetalleConPromocion(DetallePedidoRequestDTO detalleRequest, Long idSucursal,
+                                                               ContextoPedido contexto) {
         DetalleConPromocionDTO detalle = new DetalleConPromocionDTO();
 
         // Obtener artículo
-        Articulo articulo = articuloRepository.findById(detalleRequest.getIdArticulo())
-                .orElseThrow(() -> new ResourceNotFoundException("Artículo no encontrado: " + detalleRequest.getIdArticulo()));
+        Articulo articulo = contexto.getArticulo(detalleRequest.getIdArticulo());
 
         // Datos básicos
         detalle.setIdArticulo(articulo.getIdArticulo());
@@ -79,7 +78,7 @@ public class PromocionPedidoService {
 
         // Aplicar promoción si fue seleccionada
         if (detalleRequest.getIdPromocionSeleccionada() != null) {
-            aplicarPromocionADetalle(detalle, detalleRequest.getIdPromocionSeleccionada(), idSucursal);
+            aplicarPromocionADetalle(detalle, detalleRequest.getIdPromocionSeleccionada(), idSucursal, contexto);
         } else {
             // Sin promoción
             detalle.setDescuentoAplicado(0.0);
@@ -93,9 +92,10 @@ public class PromocionPedidoService {
 
     // ==================== APLICAR PROMOCIÓN A DETALLE ====================
 
-    private void aplicarPromocionADetalle(DetalleConPromocionDTO detalle, Long idPromocion, Long idSucursal) {
+    private void aplicarPromocionADetalle(DetalleConPromocionDTO detalle, Long idPromocion, Long idSucursal,
+                                          ContextoPedido contexto) {
         try {
-            Optional<Promocion> promocionOpt = promocionRepository.findById(idPromocion);
+            Optional<Promocion> promocionOpt = contexto.getPromocion(idPromocion);
 
             if (promocionOpt.isEmpty()) {
                 logger.warn("⚠️ Promoción {} no encontrada, se omite", idPromocion);
@@ -269,39 +269,51 @@ public class PromocionPedidoService {
     }
 
     public PromocionesAplicadasDTO aplicarPromocionesAPedidoConAgrupada(PedidoRequestDTO pedidoRequest) {
+        return aplicarPromocionesAPedidoConAgrupada(pedidoRequest, contextoPedidoService.cargarContexto(pedidoRequest));
+    }
+
+    public PromocionesAplicadasDTO aplicarPromocionesAPedidoConAgrupada(PedidoRequestDTO pedidoRequest, ContextoPedido contexto) {
         System.out.println("🎁 === APLICANDO PROMOCIONES CON PROMOCIÓN AGRUPADA ===");
 
         // 1. Aplicar promociones individuales normalmente
-        PromocionesAplicadasDTO promocionesIndividuales = aplicarPromocionesAPedido(pedidoRequest);
+        PromocionesAplicadasDTO promocionesIndividuales = aplicarPromocionesAPedido(pedidoRequest, contexto);
         System.out.println("🎯 Promociones individuales procesadas. Descuento: $" + promocionesIndividuales.getDescuentoTotal());
 
         // 2. Si hay promoción agrupada, aplicarla a los detalles
+        aplicarPromocionAgrupada(pedidoRequest, promocionesIndividuales, contexto);
+        return promocionesIndividuales;
+    }
+
+    /**
+     * Aplica la promoción agrupada del pedido (si tiene) sobre promociones individuales ya calculadas,
+     * para no volver a procesar los detalles cuando se necesitan los dos resultados.
+     */
+    public void aplicarPromocionAgrupada(PedidoRequestDTO pedidoRequest, PromocionesAplicadasDTO promocionesIndividuales,
+                                         ContextoPedido contexto) {
         if (pedidoRequest.getPromocionAgrupada() != null) {
             PromocionAgrupadaDTO promocionAgrupada = pedidoRequest.getPromocionAgrupada();
             System.out.println("🎁 Aplicando promoción agrupada: " + promocionAgrupada.getDenominacion());
 
             // ✅ NUEVO: Aplicar promoción agrupada a cada detalle
-            aplicarPromocionAgrupadaADetalles(promocionesIndividuales, promocionAgrupada, pedidoRequest);
+            aplicarPromocionAgrupadaADetalles(promocionesIndividuales, promocionAgrupada, contexto);
         }
 
         System.out.println("💰 === RESUMEN FINAL ===");
         System.out.println("💰 Subtotal original: $" + promocionesIndividuales.getSubtotalOriginal());
         System.out.println("🎯 Descuento total: $" + promocionesIndividuales.getDescuentoTotal());
         System.out.println("💰 Subtotal final: $" + promocionesIndividuales.getSubtotalFinal());
-
-        return promocionesIndividuales;
     }
 
     // ✅ CORREGIDO: Método para aplicar promoción agrupada SOLO a productos incluidos
     private void aplicarPromocionAgrupadaADetalles(
             PromocionesAplicadasDTO promocionesAplicadas,
             PromocionAgrupadaDTO promocionAgrupada,
-            PedidoRequestDTO pedidoRequest) {
+            ContextoPedido contexto) {
 
         System.out.println("🔄 Aplicando promoción agrupada a detalles individuales...");
 
-        // Obtener la promoción desde la base de datos
-        Optional<Promocion> promocionEntityOpt = promocionRepository.findById(promocionAgrupada.getIdPromocion());
+        // Obtener la promoción desde el contexto del pedido
+        Optional<Promocion> promocionEntityOpt = contexto.getPromocion(promocionAgrupada.getIdPromocion());
 
         if (promocionEntityOpt.isEmpty()) {
             System.out.println("⚠️ Promoción agrupada no encontrada en BD, se omite aplicación a detalles");
@@ -0,0 +1,114 @@
+package com.elbuensabor.services.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Propaga cambios de precio de compra de insumos al precio de venta de los manufacturados.
+ *
+ * Recibe todos los precios nuevos juntos (una compra o un lote de compras), obtiene una sola vez
+ * el conjunto de productos afectados con el índice inverso de RecetaCacheService, lee en una
+ * consulta los precios del resto de sus ingredientes y los márgenes, calcula cada producto una
+ * vez y escribe todos los precios con un único batch de UPDATE.
+ *
+ * Como escribe por JDBC, el listener del catálogo no se entera: la versión se incrementa acá.
+ * Quien llama no debe tener esos manufacturados cargados y modificados en la misma sesión JPA.
+ */
+@Service
+public class PropagacionCostosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropagacionCostosService.class);
+
+    static final double MARGEN_POR_DEFECTO = 2.0;
+    private static final int TAMANIO_CONSULTA = 500;
+
+    private static final String SQL_ACTUALIZAR_PRECIO =
+            "UPDATE articulo SET precio_venta = ? WHERE id_articulo = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RecetaCacheService recetaCacheService;
+    private final VersionCatalogoService versionCatalogoService;
+
+    public PropagacionCostosService(JdbcTemplate jdbcTemplate,
+                                    RecetaCacheService recetaCacheService,
+                                    VersionCatalogoService versionCatalogoService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.recetaCacheService = recetaCacheService;
+        this.versionCatalogoService = versionCatalogoService;
+    }
+
+    /**
+     * Recalcula los productos que usan alguno de los insumos. Los precios recibidos tienen prioridad
+     * sobre los de la base (el insumo puede estar modificado en la sesión JPA sin flush todavía).
+     *
+     * @return cantidad de productos actualizados
+     */
+    public int propagar(Map<Long, Double> preciosCompra) {
+        Set<Long> afectados = recetaCacheService.findManufacturadosConInsumos(preciosCompra.keySet());
+        if (afectados.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, RecetaCompilada> recetas = new HashMap<>();
+        Set<Long> faltantes = new HashSet<>();
+        for (Long idProducto : afectados) {
+            RecetaCompilada receta = recetaCacheService.obtener(idProducto);
+            recetas.put(idProducto, receta);
+            for (int i = 0; i < receta.size(); i++) {
+                if (!preciosCompra.containsKey(receta.idInsumo(i))) {
+                    faltantes.add(receta.idInsumo(i));
+                }
+            }
+        }
+
+        Map<Long, Double> precios = new HashMap<>(preciosCompra);
+        leer("SELECT id_articulo, precio_compra FROM articulo_insumo", "precio_compra", faltantes, precios);
+        Map<Long, Double> margenes = new HashMap<>();
+        leer("SELECT id_articulo, margen_ganancia FROM articulo_manufacturado", "margen_ganancia", afectados, margenes);
+
+        List<Object[]> parametros = new ArrayList<>(afectados.size());
+        recetas.forEach((idProducto, receta) -> {
+            double costoTotal = 0;
+            for (int i = 0; i < receta.size(); i++) {
+                Double precio = precios.get(receta.idInsumo(i));
+                costoTotal += receta.cantidad(i) * (precio != null ? precio : 0.0);
+            }
+            Double margen = margenes.get(idProducto);
+            parametros.add(new Object[]{costoTotal * (margen != null ? margen : MARGEN_POR_DEFECTO), idProducto});
+        });
+
+        jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_PRECIO, parametros);
+        versionCatalogoService.incrementar();
+        logger.info("💲 Costos propagados: {} insumos con precio nuevo, {} productos recalculados",
+                preciosCompra.size(), parametros.size());
+        return parametros.size();
+    }
+
+    // Columna por ID, en consultas de hasta TAMANIO_CONSULTA IDs; los nulos no se cargan
+    private void leer(String select, String columna, Collection<Long> ids, Map<Long, Double> destino) {
+        List<Long> pendientes = new ArrayList<>(ids);
+        for (int desde = 0; desde < pendientes.size(); desde += TAMANIO_CONSULTA) {
+            List<Long> parte = pendientes.subList(desde, Math.min(desde + TAMANIO_CONSULTA, pendientes.size()));
+            String marcadores = String.join(", ", Collections.nCopies(parte.size(), "?"));
+            jdbcTemplate.query(select + " WHERE id_articulo IN (" + marcadores + ")",
+                    rs -> {
+                        double valor = rs.getDouble(columna);
+                        if (!rs.wasNull()) {
+                            destino.put(rs.getLong("id_articulo"), valor);
+                        }
+                    },
+                    parte.toArray());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
+import com.elbuensabor.repository.IManufacturadoDetalleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché en memoria de recetas (bill of materials) de los artículos manufacturados.
+ * Se construye completa al iniciar la aplicación y se reemplaza por producto cuando
+ * ArticuloManufacturadoServiceImpl modifica una receta. Validación de stock, costos,
+ * descuento de stock y máximo preparable leen de acá en lugar de recorrer
+ * ArticuloManufacturado.detalles -> ArticuloManufacturadoDetalle -> ArticuloInsumo.
+ *
+ * Junto con las recetas mantiene el índice inverso insumo -> manufacturados que lo usan,
+ * que la propagación de costos consulta sin recorrer todas las recetas.
+ */
+@Service
+public class RecetaCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecetaCacheService.class);
+
+    private final Map<Long, RecetaCompilada> recetas = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> manufacturadosPorInsumo = new ConcurrentHashMap<>();
+
+    @Autowired
+    private IManufacturadoDetalleRepository detalleRepository;
+
+    // ==================== CARGA ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarRecetas() {
+        Map<Long, RecetaCompilada> compiladas = compilar(detalleRepository.findRecetasPlanas());
+        synchronized (this) {
+            recetas.clear();
+            manufacturadosPorInsumo.clear();
+            compiladas.forEach(this::publicar);
+        }
+        logger.info("📋 Caché de recetas cargado: {} productos manufacturados", compiladas.size());
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Receta del manufacturado; si no está en caché (producto creado por otra instancia,
+     * por ejemplo) se compila desde la base y se guarda. Devuelve una receta vacía si el
+     * producto no tiene ingredientes.
+     */
+    public RecetaCompilada obtener(Long idManufacturado) {
+        RecetaCompilada receta = recetas.get(idManufacturado);
+        if (receta != null) {
+            return receta;
+        }
+
+        receta = compilar(detalleRepository.findRecetaPlanaByManufacturadoId(idManufacturado))
+                .getOrDefault(idManufacturado, RecetaCompilada.VACIA);
+        if (!receta.isEmpty()) {
+            // Si una actualización se publicó mientras tanto, gana la actualización
+            synchronized (this) {
+                RecetaCompilada previa = recetas.get(idManufacturado);
+                if (previa != null) {
+                    return previa;
+                }
+                publicar(idManufacturado, receta);
+            }
+        }
+        return receta;
+    }
+
+    /**
+     * IDs de los manufacturados con receta en caché.
+     */
+    public Set<Long> findManufacturadosConReceta() {
+        return Set.copyOf(recetas.keySet());
+    }
+
+    /**
+     * IDs de los manufacturados cuya receta usa el insumo.
+     */
+    public List<Long> findManufacturadosConInsumo(Long idInsumo) {
+        return new ArrayList<>(manufacturadosPorInsumo.getOrDefault(idInsumo, Set.of()));
+    }
+
+    /**
+     * IDs de los manufacturados cuya receta usa alguno de los insumos, cada uno una sola vez.
+     */
+    public Set<Long> findManufacturadosConInsumos(Collection<Long> idsInsumo) {
+        Set<Long> ids = new HashSet<>();
+        for (Long idInsumo : idsInsumo) {
+            ids.addAll(manufacturadosPorInsumo.getOrDefault(idInsumo, Set.of()));
+        }
+        return ids;
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Recompila la receta desde la entidad. Si hay una transacción activa, el reemplazo
+     * se publica recién al confirmarse, para no exponer recetas de un cambio revertido.
+     */
+    public void actualizar(ArticuloManufacturado manufacturado) {
+        Long idManufacturado = manufacturado.getIdArticulo();
+        RecetaCompilada receta = compilar(manufacturado);
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (this) {
+                publicar(idManufacturado, receta);
+            }
+            logger.debug("📋 Receta actualizada en caché para producto {}: {}", idManufacturado, receta);
+        });
+    }
+
+    public void invalidar(Long idManufacturado) {
+        Transacciones.despuesDelCommit(() -> {
+            synchronized (this) {
+                publicar(idManufacturado, null);
+            }
+        });
+    }
+
+    // ==================== AUXILIARES ====================
+
+    // Reemplaza (o quita, con null) la receta y mueve el producto en el índice inverso
+    private void publicar(Long idManufacturado, RecetaCompilada receta) {
+        RecetaCompilada anterior = receta != null ? recetas.put(idManufacturado, receta) : recetas.remove(idManufacturado);
+        if (anterior != null) {
+            for (int i = 0; i < anterior.size(); i++) {
+                Set<Long> productos = manufacturadosPorInsumo.get(anterior.idInsumo(i));
+                if (productos != null) {
+                    productos.remove(idManufacturado);
+                }
+            }
+        }
+        if (receta != null) {
+            for (int i = 0; i < receta.size(); i++) {
+                manufacturadosPorInsumo.computeIfAbsent(receta.idInsumo(i), id -> ConcurrentHashMap.newKeySet())
+                        .add(idManufacturado);
+            }
+        }
+    }
+
+    private RecetaCompilada compilar(ArticuloManufacturado manufacturado) {
+        List<ArticuloManufacturadoDetalle> detalles = manufacturado.getDetalles();
+        long[] idsInsumo = new long[detalles.size()];
+        double[] cantidades = new double[detalles.size()];
+
+        for (int i = 0; i < detalles.size(); i++) {
+            idsInsumo[i] = detalles.get(i).getArticuloInsumo().getIdArticulo();
+            cantidades[i] = detalles.get(i).getCantidad();
+        }
+
+        return new RecetaCompilada(idsInsumo, cantidades);
+    }
+
+    private Map<Long, RecetaCompilada> compilar(List<Object[]> filas) {
+        Map<Long, List<Object[]>> porManufacturado = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            porManufacturado.computeIfAbsent((Long) fila[0], id -> new ArrayList<>()).add(fila);
+        }
+
+        Map<Long, RecetaCompilada> compiladas = new LinkedHashMap<>();
+        porManufacturado.forEach((idManufacturado, ingredientes) -> {
+            long[] idsInsumo = new long[ingredientes.size()];
+            double[] cantidades = new double[ingredientes.size()];
+
+            for (int i = 0; i < ingredientes.size(); i++) {
+                idsInsumo[i] = (Long) ingredientes.get(i)[1];
+                cantidades[i] = (Double) ingredientes.get(i)[2];
+            }
+
+            compiladas.put(idManufacturado, new RecetaCompilada(idsInsumo, cantidades));
+        });
+        return compiladas;
+    }
+}
@@ -0,0 +1,54 @@
+package com.elbuensabor.services.impl;
+
+import java.util.Arrays;
+
+/**
+ * Receta de un artículo manufacturado aplanada en arreglos primitivos paralelos
+ * (ID de insumo y cantidad por unidad). Es inmutable: cualquier cambio de receta
+ * se publica como una instancia nueva en RecetaCacheService.
+ */
+public final class RecetaCompilada {
+
+    static final RecetaCompilada VACIA = new RecetaCompilada(new long[0], new double[0]);
+
+    private final long[] idsInsumo;
+    private final double[] cantidades;
+
+    RecetaCompilada(long[] idsInsumo, double[] cantidades) {
+        if (idsInsumo.length != cantidades.length) {
+            throw new IllegalArgumentException("Insumos y cantidades deben tener el mismo largo");
+        }
+        this.idsInsumo = idsInsumo.clone();
+        this.cantidades = cantidades.clone();
+    }
+
+    public int size() {
+        return idsInsumo.length;
+    }
+
+    public boolean isEmpty() {
+        return idsInsumo.length == 0;
+    }
+
+    public long idInsumo(int i) {
+        return idsInsumo[i];
+    }
+
+    public double cantidad(int i) {
+        return cantidades[i];
+    }
+
+    public boolean usaInsumo(long idInsumo) {
+        for (long id : idsInsumo) {
+            if (id == idInsumo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RecetaCompilada{insumos=" + Arrays.toString(idsInsumo) + ", cantidades=" + Arrays.toString(cantidades) + "}";
+    }
+}
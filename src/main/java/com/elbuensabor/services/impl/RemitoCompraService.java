@@ -0,0 +1,250 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.CompraInsumoRequestDTO;
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO;
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO.ResultadoItemDTO;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Registro de un remito de proveedor completo: una lista de compras (insumoId, cantidad,
+ * precioUnitario y fechaCompra opcional) como arreglo JSON o JSON por línea.
+ *
+ * Todo el remito es una transacción. Los ítems se leen de a uno y se validan en lotes de
+ * TAMANIO_LOTE (existencia del insumo en una consulta por lote); las compras válidas se
+ * insertan con un batch por lote y se acumula cantidad y último precio por insumo. Al final
+ * se suma el stock y se corrige el costo promedio con un solo UPDATE por insumo (en orden de
+ * ID, el mismo en que ConsumoStockService bloquea las filas), el libro recibe un movimiento COMPRA por insumo y PropagacionCostosService
+ * recalcula una sola vez los productos afectados por todos los precios nuevos.
+ *
+ * Un ítem con datos inválidos se informa y no frena al resto; un JSON mal formado cancela el remito.
+ */
+@Service
+public class RemitoCompraService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemitoCompraService.class);
+
+    static final int TAMANIO_LOTE = 500;
+
+    private static final String SQL_INSERTAR_COMPRA =
+            "INSERT INTO compra_insumo (id_articulo_insumo, cantidad, precio_unitario, fecha_compra) VALUES (?, ?, ?, ?)";
+
+    // costo_promedio va primero: MySQL evalúa las asignaciones en orden y tiene que ver el stock anterior.
+    // Misma fórmula que CostoInsumoService.promedio con las compras del insumo sumadas
+    private static final String SQL_SUMAR_COMPRA =
+            "UPDATE articulo_insumo SET costo_promedio = CASE WHEN stock_actual > 0 " +
+                    "THEN (stock_actual * COALESCE(costo_promedio, precio_compra) + ?) / (stock_actual + ?) ELSE ? END, " +
+                    "stock_actual = stock_actual + ?, precio_compra = ? WHERE id_articulo = ?";
+
+    private record Item(int posicion, CompraInsumoRequestDTO compra) {
+    }
+
+    // Cantidad sumada, costo y último precio de cada insumo del remito
+    private static final class Total {
+        private int cantidad;
+        private double unidades;
+        private double costo;
+        private double precio;
+        private final List<CostoInsumoService.Compra> compras = new ArrayList<>();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MovimientoStockService movimientoStockService;
+    private final PropagacionCostosService propagacionCostosService;
+    private final VersionCatalogoService versionCatalogoService;
+    private final CostoInsumoService costoInsumoService;
+    private final ObjectMapper objectMapper;
+
+    public RemitoCompraService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MovimientoStockService movimientoStockService,
+                               PropagacionCostosService propagacionCostosService,
+                               VersionCatalogoService versionCatalogoService,
+                               CostoInsumoService costoInsumoService,
+                               ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.movimientoStockService = movimientoStockService;
+        this.propagacionCostosService = propagacionCostosService;
+        this.versionCatalogoService = versionCatalogoService;
+        this.costoInsumoService = costoInsumoService;
+        this.objectMapper = objectMapper;
+    }
+
+    public RemitoCompraResponseDTO registrar(Reader contenido) {
+        return transactionTemplate.execute(status -> {
+            List<ResultadoItemDTO> resultados = new ArrayList<>();
+            Map<Long, Total> totales = new TreeMap<>();
+            List<Item> lote = new ArrayList<>(TAMANIO_LOTE);
+
+            int posicion = 0;
+            try (MappingIterator<CompraInsumoRequestDTO> items =
+                         objectMapper.readerFor(CompraInsumoRequestDTO.class).readValues(contenido)) {
+                while (items.hasNextValue()) {
+                    CompraInsumoRequestDTO compra = items.nextValue();
+                    lote.add(new Item(++posicion, compra));
+                    if (lote.size() == TAMANIO_LOTE) {
+                        insertar(lote, totales, resultados);
+                        lote.clear();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Remito inválido en el ítem " + (posicion + 1) + ": " + e.getOriginalMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (!lote.isEmpty()) {
+                insertar(lote, totales, resultados);
+            }
+
+            int productos = totales.isEmpty() ? 0 : sumarStockYPrecios(totales);
+            int registradas = (int) resultados.stream().filter(ResultadoItemDTO::isExito).count();
+            logger.info("🚚 Remito registrado: {} ítems, {} compras, {} insumos, {} productos recalculados",
+                    resultados.size(), registradas, totales.size(), productos);
+            return new RemitoCompraResponseDTO(resultados.size(), registradas, resultados.size() - registradas,
+                    totales.size(), productos, resultados);
+        });
+    }
+
+    // ==================== VALIDACIÓN E INSERCIÓN POR LOTE ====================
+
+    private void insertar(List<Item> lote, Map<Long, Total> totales, List<ResultadoItemDTO> resultados) {
+        Set<Long> existentes = existentes(lote);
+        LocalDate hoy = LocalDate.now();
+
+        List<CompraInsumoRequestDTO> validas = new ArrayList<>(lote.size());
+        List<Object[]> parametros = new ArrayList<>(lote.size());
+        for (Item item : lote) {
+            CompraInsumoRequestDTO compra = item.compra();
+            String error = validar(compra, existentes);
+            resultados.add(new ResultadoItemDTO(item.posicion(), compra.getInsumoId(), error == null, error));
+            if (error != null) {
+                continue;
+            }
+
+            if (compra.getFechaCompra() == null) {
+                compra.setFechaCompra(hoy);
+            }
+            validas.add(compra);
+            parametros.add(new Object[]{compra.getInsumoId(), compra.getCantidad(), compra.getPrecioUnitario(),
+                    compra.getFechaCompra()});
+        }
+        if (validas.isEmpty()) {
+            return;
+        }
+
+        GeneratedKeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(SQL_INSERTAR_COMPRA, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] valores = parametros.get(i);
+                        for (int j = 0; j < valores.length; j++) {
+                            ps.setObject(j + 1, valores[j]);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return parametros.size();
+                    }
+                },
+                claves);
+
+        for (int i = 0; i < validas.size(); i++) {
+            CompraInsumoRequestDTO compra = validas.get(i);
+            Long idCompra = ((Number) claves.getKeyList().get(i).values().iterator().next()).longValue();
+
+            // Igual que registrarCompra: el stock suma la parte entera y el último precio queda como precio de compra
+            Total total = totales.computeIfAbsent(compra.getInsumoId(), id -> new Total());
+            total.cantidad += compra.getCantidad().intValue();
+            total.unidades += compra.getCantidad();
+            total.costo += compra.getCantidad() * compra.getPrecioUnitario();
+            total.precio = compra.getPrecioUnitario();
+            total.compras.add(new CostoInsumoService.Compra(idCompra, compra.getFechaCompra(),
+                    compra.getCantidad(), compra.getPrecioUnitario()));
+        }
+    }
+
+    private String validar(CompraInsumoRequestDTO compra, Set<Long> existentes) {
+        if (compra.getInsumoId() == null) {
+            return "Falta insumoId";
+        }
+        if (!existentes.contains(compra.getInsumoId())) {
+            return "Insumo no encontrado con ID: " + compra.getInsumoId();
+        }
+        if (compra.getCantidad() == null || compra.getCantidad() <= 0) {
+            return "La cantidad debe ser mayor a 0";
+        }
+        if (compra.getPrecioUnitario() == null || compra.getPrecioUnitario() <= 0) {
+            return "El precio unitario debe ser mayor a 0";
+        }
+        return null;
+    }
+
+    private Set<Long> existentes(List<Item> lote) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (Item item : lote) {
+            if (item.compra().getInsumoId() != null) {
+                ids.add(item.compra().getInsumoId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+
+        String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id_articulo FROM articulo_insumo WHERE id_articulo IN (" + marcadores + ")",
+                Long.class, ids.toArray()));
+    }
+
+    // ==================== STOCK, LIBRO Y COSTOS ====================
+
+    private int sumarStockYPrecios(Map<Long, Total> totales) {
+        List<Object[]> parametros = new ArrayList<>(totales.size());
+        List<MovimientoStockService.Movimiento> compras = new ArrayList<>(totales.size());
+        Map<Long, Double> precios = new TreeMap<>();
+        totales.forEach((idInsumo, total) -> {
+            parametros.add(new Object[]{total.costo, total.unidades, total.costo / total.unidades,
+                    total.cantidad, total.precio, idInsumo});
+            if (total.cantidad != 0) {
+                compras.add(new MovimientoStockService.Movimiento(idInsumo, total.cantidad, null));
+            }
+            precios.put(idInsumo, total.precio);
+        });
+        jdbcTemplate.batchUpdate(SQL_SUMAR_COMPRA, parametros);
+        movimientoStockService.registrar(TipoMovimientoStock.COMPRA, compras);
+        totales.forEach((idInsumo, total) -> costoInsumoService.registrarCompras(idInsumo, total.compras));
+
+        // El precio de compra se escribió por JDBC: el listener del catálogo no lo vio
+        versionCatalogoService.incrementar();
+        return propagacionCostosService.propagar(precios);
+    }
+}
@@ -0,0 +1,298 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.events.StockAjustadoEvent;
+import com.elbuensabor.repository.IPedidoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reservas de stock en memoria para los pedidos (opcional: stock.memoria.habilitada=true).
+ *
+ * Con la capa activa ConsumoStockService no bloquea filas de articulo_insumo: acepta o rechaza
+ * el consumo de un pedido contra ContadoresStock y deja el movimiento en una cola. Cada
+ * stock.memoria.volcado-ms la cola se escribe en la base en una sola transacción (un UPDATE
+ * por insumo con la suma de las variaciones y los movimientos del libro en batch), y otra vez
+ * al apagar la aplicación.
+ *
+ * - Una reserva descuenta el contador enseguida; si la transacción del pedido hace rollback se
+ *   devuelve, y si confirma recién entonces se encola para el volcado.
+ * - Las restauraciones suman al contador al confirmar.
+ * - Compras y ajustes siguen escribiendo la base; llegan a los contadores con StockAjustadoEvent.
+ *
+ * Al arrancar se reconcilia con el libro de movimientos: se registran los consumos y
+ * restauraciones de pedidos recientes que quedaron sin movimiento (cola sin volcar en una
+ * caída) y recién después se cargan los contadores. Hasta
+ * entonces ConsumoStockService usa el descuento en la base.
+ *
+ * Los contadores son de esta instancia: la capa supone una sola instancia de la aplicación.
+ */
+@Service
+@ConditionalOnProperty(name = "stock.memoria.habilitada", havingValue = "true")
+public class ReservaStockMemoriaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservaStockMemoriaService.class);
+
+    // Pedidos revisados al reconciliar: más atrás ya no puede haber una cola sin volcar
+    static final Duration VENTANA_RECONCILIACION = Duration.ofDays(2);
+
+    private static final String SQL_SUMAR_STOCK =
+            "UPDATE articulo_insumo SET stock_actual = stock_actual + ? WHERE id_articulo = ?";
+
+    private static final String SQL_CONSUMIDOS_SIN_MOVIMIENTO =
+            "SELECT p.id_pedido FROM pedido p WHERE p.estado IN ('PREPARACION', 'LISTO', 'ENTREGADO') AND p.fecha >= ? " +
+            "AND NOT EXISTS (SELECT 1 FROM movimiento_stock m WHERE m.id_pedido = p.id_pedido AND m.tipo = 'CONSUMO_PEDIDO')";
+
+    private static final String SQL_CANCELADOS_SIN_RESTAURACION =
+            "SELECT p.id_pedido FROM pedido p WHERE p.estado = 'CANCELADO' AND p.fecha >= ? " +
+            "AND EXISTS (SELECT 1 FROM movimiento_stock m WHERE m.id_pedido = p.id_pedido AND m.tipo = 'CONSUMO_PEDIDO') " +
+            "AND NOT EXISTS (SELECT 1 FROM movimiento_stock m WHERE m.id_pedido = p.id_pedido AND m.tipo = 'RESTAURACION_PEDIDO')";
+
+    private record Pendiente(TipoMovimientoStock tipo, List<MovimientoStockService.Movimiento> movimientos) {
+    }
+
+    private final ContadoresStock contadores = new ContadoresStock();
+    private final ConcurrentLinkedQueue<Pendiente> cola = new ConcurrentLinkedQueue<>();
+    private volatile boolean activa;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MovimientoStockService movimientoStockService;
+    private final IPedidoRepository pedidoRepository;
+    private final ConsumoStockService consumoStockService;
+
+    public ReservaStockMemoriaService(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      MovimientoStockService movimientoStockService,
+                                      IPedidoRepository pedidoRepository,
+                                      @Lazy ConsumoStockService consumoStockService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.movimientoStockService = movimientoStockService;
+        this.pedidoRepository = pedidoRepository;
+        this.consumoStockService = consumoStockService;
+    }
+
+    // ==================== ARRANQUE ====================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        int reconciliados = transactionTemplate.execute(
+                status -> reconciliarPedidos(LocalDateTime.now().minus(VENTANA_RECONCILIACION)));
+        cargar();
+        logger.info("📦 Reservas de stock en memoria activas: {} insumos, {} pedidos reconciliados con el libro",
+                contadores.size(), reconciliados);
+    }
+
+    /**
+     * Carga los contadores con el stock de la base; se llama sin volcados ni reservas en curso.
+     */
+    void cargar() {
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT id_articulo, stock_actual FROM articulo_insumo",
+                rs -> {
+                    stock.put(rs.getLong("id_articulo"), rs.getInt("stock_actual"));
+                });
+        contadores.cargar(stock);
+        activa = true;
+    }
+
+    // Consumos y restauraciones de pedidos que cambiaron de estado pero no llegaron al libro. Solo
+    // desde el primer consumo registrado: los pedidos anteriores al libro no tienen movimientos.
+    // Un pedido sin consumo (productos sin receta) nunca deja movimiento: no hay nada que reconciliar
+    int reconciliarPedidos(LocalDateTime desde) {
+        LocalDateTime inicioLibro = jdbcTemplate.queryForObject(
+                "SELECT MIN(fecha) FROM movimiento_stock WHERE tipo = 'CONSUMO_PEDIDO'", LocalDateTime.class);
+        if (inicioLibro == null) {
+            return 0;
+        }
+        if (inicioLibro.isAfter(desde)) {
+            desde = inicioLibro;
+        }
+
+        List<Long> consumidos = jdbcTemplate.queryForList(SQL_CONSUMIDOS_SIN_MOVIMIENTO, Long.class, desde);
+        List<Long> cancelados = jdbcTemplate.queryForList(SQL_CANCELADOS_SIN_RESTAURACION, Long.class, desde);
+
+        List<Pendiente> faltantes = new ArrayList<>();
+        agregarFaltantes(faltantes, TipoMovimientoStock.CONSUMO_PEDIDO, consumidos, -1);
+        int consumos = faltantes.size();
+        agregarFaltantes(faltantes, TipoMovimientoStock.RESTAURACION_PEDIDO, cancelados, 1);
+
+        escribir(faltantes);
+        if (!faltantes.isEmpty()) {
+            logger.warn("⚠️ Reconciliación de stock: {} consumos y {} restauraciones de pedidos sin movimiento en el libro",
+                    consumos, faltantes.size() - consumos);
+        }
+        return faltantes.size();
+    }
+
+    private void agregarFaltantes(List<Pendiente> faltantes, TipoMovimientoStock tipo, List<Long> idsPedido, int signo) {
+        if (idsPedido.isEmpty()) {
+            return;
+        }
+        for (Pedido pedido : pedidoRepository.findAllById(idsPedido)) {
+            List<MovimientoStockService.Movimiento> movimientos = MovimientoStockService.movimientos(
+                    pedido.getIdPedido(), consumoStockService.calcularConsumo(pedido), signo);
+            if (!movimientos.isEmpty()) {
+                faltantes.add(new Pendiente(tipo, movimientos));
+            }
+        }
+    }
+
+    public boolean isActiva() {
+        return activa;
+    }
+
+    // ==================== RESERVAS ====================
+
+    /**
+     * Reserva el consumo del pedido (por insumo, como ConsumoStockService.calcularConsumo);
+     * devuelve false sin descontar nada si algún insumo no alcanza.
+     */
+    public boolean reservar(Long idPedido, Map<Long, Integer> consumo) {
+        consumo.keySet().forEach(this::conocer);
+        if (!contadores.reservar(consumo)) {
+            return false;
+        }
+
+        List<MovimientoStockService.Movimiento> movimientos = MovimientoStockService.movimientos(idPedido, consumo, -1);
+        alCompletar(() -> encolar(TipoMovimientoStock.CONSUMO_PEDIDO, movimientos), () -> contadores.liberar(consumo));
+        return true;
+    }
+
+    public void liberar(Long idPedido, Map<Long, Integer> consumo) {
+        List<MovimientoStockService.Movimiento> movimientos = MovimientoStockService.movimientos(idPedido, consumo, 1);
+        alCompletar(() -> {
+            contadores.liberar(consumo);
+            encolar(TipoMovimientoStock.RESTAURACION_PEDIDO, movimientos);
+        }, () -> {
+        });
+    }
+
+    public Integer disponible(Long idInsumo) {
+        return contadores.disponible(idInsumo);
+    }
+
+    /**
+     * Compras y ajustes ya escritos en la base; los movimientos de pedidos salen de esta misma
+     * capa y ya están en los contadores.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockAjustado(StockAjustadoEvent event) {
+        if (!activa || event.getTipo() == TipoMovimientoStock.CONSUMO_PEDIDO
+                || event.getTipo() == TipoMovimientoStock.RESTAURACION_PEDIDO) {
+            return;
+        }
+
+        for (MovimientoStockService.Movimiento movimiento : event.getMovimientos()) {
+            if (contadores.contiene(movimiento.idInsumo())) {
+                contadores.ajustar(movimiento.idInsumo(), movimiento.cantidad());
+            } else {
+                // Insumo nuevo: la base ya tiene el ajuste confirmado
+                conocer(movimiento.idInsumo());
+            }
+        }
+    }
+
+    private void conocer(Long idInsumo) {
+        contadores.agregarSiFalta(idInsumo, id -> jdbcTemplate.queryForList(
+                        "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, id)
+                .stream().findFirst().orElse(0));
+    }
+
+    private void encolar(TipoMovimientoStock tipo, List<MovimientoStockService.Movimiento> movimientos) {
+        if (!movimientos.isEmpty()) {
+            cola.add(new Pendiente(tipo, movimientos));
+        }
+    }
+
+    private void alCompletar(Runnable alConfirmar, Runnable alRevertir) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        alConfirmar.run();
+                    } else {
+                        alRevertir.run();
+                    }
+                }
+            });
+        } else {
+            alConfirmar.run();
+        }
+    }
+
+    // ==================== VOLCADO ====================
+
+    /**
+     * Escribe en la base los movimientos confirmados desde el último volcado. Si falla, vuelven
+     * a la cola para el próximo intento.
+     */
+    @Scheduled(fixedDelayString = "${stock.memoria.volcado-ms:200}")
+    @PreDestroy
+    public synchronized void volcar() {
+        List<Pendiente> lote = new ArrayList<>();
+        Pendiente pendiente;
+        while ((pendiente = cola.poll()) != null) {
+            lote.add(pendiente);
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> escribir(lote));
+            logger.debug("📦 Volcados {} movimientos de stock en memoria", lote.size());
+        } catch (RuntimeException e) {
+            cola.addAll(lote);
+            logger.error("❌ No se pudo volcar el stock en memoria ({} movimientos), se reintenta: {}",
+                    lote.size(), e.getMessage());
+        }
+    }
+
+    // Un UPDATE por insumo con la variación total y los movimientos del libro por tipo
+    private void escribir(List<Pendiente> pendientes) {
+        Map<Long, Integer> porInsumo = new TreeMap<>();
+        Map<TipoMovimientoStock, List<MovimientoStockService.Movimiento>> porTipo = new EnumMap<>(TipoMovimientoStock.class);
+        for (Pendiente pendiente : pendientes) {
+            for (MovimientoStockService.Movimiento movimiento : pendiente.movimientos()) {
+                porInsumo.merge(movimiento.idInsumo(), movimiento.cantidad(), Integer::sum);
+            }
+            porTipo.computeIfAbsent(pendiente.tipo(), tipo -> new ArrayList<>()).addAll(pendiente.movimientos());
+        }
+
+        List<Object[]> sumas = new ArrayList<>(porInsumo.size());
+        porInsumo.forEach((idInsumo, cantidad) -> {
+            if (cantidad != 0) {
+                sumas.add(new Object[]{cantidad, idInsumo});
+            }
+        });
+        jdbcTemplate.batchUpdate(SQL_SUMAR_STOCK, sumas);
+        porTipo.forEach(movimientoStockService::registrar);
+    }
+}
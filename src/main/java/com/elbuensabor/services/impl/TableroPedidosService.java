@@ -0,0 +1,197 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.dto.response.TableroPedidosDTO;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tablero en memoria de los pedidos activos (PENDIENTE, PREPARACION y LISTO) que consultan
+ * las pantallas de cocina, caja y delivery. PedidoServiceImpl lo carga al iniciar y lo
+ * actualiza en cada alta y cambio de estado, así esas consultas no van a la base.
+ *
+ * Cada cambio incrementa la versión del tablero; con desdeVersion el cliente recibe solo
+ * los pedidos que cambiaron y los que salieron. La versión arranca en el instante de carga,
+ * así una versión de antes de un reinicio nunca se confunde con una actual.
+ * El tablero es de esta instancia (igual que el caché de recetas).
+ */
+@Service
+public class TableroPedidosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableroPedidosService.class);
+
+    public static final Set<Estado> ESTADOS_ACTIVOS = EnumSet.of(Estado.PENDIENTE, Estado.PREPARACION, Estado.LISTO);
+
+    // Bajas recordadas para responder cambios; una versión más vieja que la última baja olvidada recibe el tablero completo
+    private static final int MAX_BAJAS = 2000;
+
+    private static final Comparator<PedidoResponseDTO> POR_FECHA = Comparator
+            .comparing(PedidoResponseDTO::getFecha, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(PedidoResponseDTO::getIdPedido);
+
+    private record Entrada(PedidoResponseDTO pedido, Estado estado, TipoEnvio tipoEnvio, long version) {
+    }
+
+    private final Map<Long, Entrada> activos = new ConcurrentHashMap<>();
+    private final Map<Long, Long> bajas = new ConcurrentHashMap<>();
+
+    // Las escrituras se serializan con el lock del servicio; version se publica después de cada cambio
+    private volatile long version = System.currentTimeMillis();
+    private volatile long versionCarga = version;
+    private volatile long versionMinimaCambios = version;
+
+    // ==================== CARGA ====================
+
+    public synchronized void cargar(Collection<PedidoResponseDTO> pedidos) {
+        long nueva = Math.max(version + 1, System.currentTimeMillis());
+        activos.clear();
+        bajas.clear();
+        for (PedidoResponseDTO pedido : pedidos) {
+            Estado estado = Estado.valueOf(pedido.getEstado());
+            if (ESTADOS_ACTIVOS.contains(estado)) {
+                activos.put(pedido.getIdPedido(), new Entrada(pedido, estado, TipoEnvio.valueOf(pedido.getTipoEnvio()), nueva));
+            }
+        }
+        versionCarga = nueva;
+        versionMinimaCambios = nueva;
+        version = nueva;
+        logger.info("📋 Tablero de pedidos cargado: {} pedidos activos (versión {})", activos.size(), nueva);
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    /**
+     * Registra el estado actual del pedido (lo agrega, lo reemplaza o lo saca si ya no está activo).
+     * Si hay una transacción activa se aplica recién al confirmarse.
+     */
+    public void actualizar(PedidoResponseDTO pedido) {
+        Transacciones.despuesDelCommit(() -> aplicar(pedido));
+    }
+
+    private synchronized void aplicar(PedidoResponseDTO pedido) {
+        long nueva = version + 1;
+        Estado estado = Estado.valueOf(pedido.getEstado());
+
+        if (ESTADOS_ACTIVOS.contains(estado)) {
+            activos.put(pedido.getIdPedido(), new Entrada(pedido, estado, TipoEnvio.valueOf(pedido.getTipoEnvio()), nueva));
+            bajas.remove(pedido.getIdPedido());
+        } else if (activos.remove(pedido.getIdPedido()) != null) {
+            bajas.put(pedido.getIdPedido(), nueva);
+            if (bajas.size() > MAX_BAJAS) {
+                olvidarBajasViejas();
+            }
+        } else {
+            return;
+        }
+        version = nueva;
+    }
+
+    /**
+     * Horas estimadas que EstimacionEntregaService recalculó y guardó por JDBC, sin pasar por un
+     * cambio de estado. Los pedidos que ya no están en el tablero se ignoran.
+     */
+    public synchronized void actualizarHoras(Map<Long, LocalTime> horas) {
+        long nueva = version + 1;
+        boolean cambio = false;
+        for (Map.Entry<Long, LocalTime> hora : horas.entrySet()) {
+            Entrada entrada = activos.get(hora.getKey());
+            if (entrada == null) {
+                continue;
+            }
+            // Copia: el DTO anterior puede estar en una respuesta que se está armando
+            PedidoResponseDTO pedido = new PedidoResponseDTO();
+            BeanUtils.copyProperties(entrada.pedido(), pedido);
+            pedido.setHoraEstimadaFinalizacion(hora.getValue());
+            activos.put(hora.getKey(), new Entrada(pedido, entrada.estado(), entrada.tipoEnvio(), nueva));
+            cambio = true;
+        }
+        if (cambio) {
+            version = nueva;
+        }
+    }
+
+    private void olvidarBajasViejas() {
+        List<Map.Entry<Long, Long>> ordenadas = new ArrayList<>(bajas.entrySet());
+        ordenadas.sort(Map.Entry.comparingByValue());
+        long ultimaOlvidada = versionMinimaCambios;
+        for (Map.Entry<Long, Long> baja : ordenadas.subList(0, ordenadas.size() - MAX_BAJAS / 2)) {
+            bajas.remove(baja.getKey());
+            ultimaOlvidada = Math.max(ultimaOlvidada, baja.getValue());
+        }
+        versionMinimaCambios = ultimaOlvidada;
+    }
+
+    // ==================== CONSULTA ====================
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Pedidos del tablero ordenados por fecha; estado y tipoEnvio en null no filtran.
+     */
+    public List<PedidoResponseDTO> listar(Estado estado, TipoEnvio tipoEnvio) {
+        List<PedidoResponseDTO> pedidos = new ArrayList<>();
+        for (Entrada entrada : activos.values()) {
+            if (coincide(entrada, estado, tipoEnvio)) {
+                pedidos.add(entrada.pedido());
+            }
+        }
+        pedidos.sort(POR_FECHA);
+        return pedidos;
+    }
+
+    /**
+     * Cambios desde desdeVersion para el filtro dado. Un pedido que cambió y ya no coincide con el
+     * filtro (pasó de PENDIENTE a PREPARACION, por ejemplo) se informa como eliminado. Sin
+     * desdeVersion, o si es de otra carga o más vieja que lo que se recuerda, devuelve el tablero completo.
+     */
+    public TableroPedidosDTO cambiosDesde(Long desdeVersion, Estado estado, TipoEnvio tipoEnvio) {
+        // La versión se lee antes de recorrer: lo que se aplique durante el recorrido vuelve en la próxima consulta
+        long actual = version;
+
+        if (desdeVersion == null || desdeVersion < versionCarga || desdeVersion < versionMinimaCambios || desdeVersion > actual) {
+            return new TableroPedidosDTO(actual, true, listar(estado, tipoEnvio), List.of());
+        }
+
+        List<PedidoResponseDTO> cambiados = new ArrayList<>();
+        List<Long> eliminados = new ArrayList<>();
+        for (Entrada entrada : activos.values()) {
+            if (entrada.version() > desdeVersion) {
+                if (coincide(entrada, estado, tipoEnvio)) {
+                    cambiados.add(entrada.pedido());
+                } else {
+                    eliminados.add(entrada.pedido().getIdPedido());
+                }
+            }
+        }
+        bajas.forEach((idPedido, versionBaja) -> {
+            if (versionBaja > desdeVersion) {
+                eliminados.add(idPedido);
+            }
+        });
+        cambiados.sort(POR_FECHA);
+        return new TableroPedidosDTO(actual, false, cambiados, eliminados);
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private boolean coincide(Entrada entrada, Estado estado, TipoEnvio tipoEnvio) {
+        return (estado == null || entrada.estado() == estado)
+                && (tipoEnvio == null || entrada.tipoEnvio() == tipoEnvio);
+    }
+}
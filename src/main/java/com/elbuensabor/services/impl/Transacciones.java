@@ -0,0 +1,31 @@
+package com.elbuensabor.services.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Auxiliares para los estados en memoria (tablero, recetas, plan de cocina, niveles y costos)
+ * que reflejan cambios de la base: solo se tocan cuando la transacción que los causó se confirma.
+ */
+public final class Transacciones {
+
+    private Transacciones() {
+    }
+
+    /**
+     * Ejecuta la acción al confirmarse la transacción actual, o ya mismo si no hay ninguna.
+     * Si la transacción se revierte la acción no corre.
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
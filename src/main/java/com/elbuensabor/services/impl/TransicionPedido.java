@@ -0,0 +1,62 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.TipoEnvio;
+
+/**
+ * Cambios de estado de un pedido: estado destino y desde qué estados se permiten.
+ * Un pedido que ya está en el estado destino no se vuelve a modificar (ver TransicionPedidoService).
+ */
+public enum TransicionPedido {
+
+    CONFIRMAR("confirmar", Estado.PREPARACION, "Solo se pueden confirmar pedidos pendientes"),
+    PREPARAR("preparacion", Estado.PREPARACION, "Solo se pueden pasar a preparación pedidos pendientes"),
+    MARCAR_LISTO("listo", Estado.LISTO, "El pedido debe estar en preparación para marcarlo como listo"),
+    ENTREGAR("entregado", Estado.ENTREGADO, "El pedido debe estar listo para ser entregado"),
+    CANCELAR("cancelar", Estado.CANCELADO, "No se puede cancelar un pedido entregado");
+
+    // Mismo segmento que el endpoint individual (PUT /api/pedidos/{id}/listo, por ejemplo)
+    private final String ruta;
+    private final Estado destino;
+    private final String mensajeRechazo;
+
+    TransicionPedido(String ruta, Estado destino, String mensajeRechazo) {
+        this.ruta = ruta;
+        this.destino = destino;
+        this.mensajeRechazo = mensajeRechazo;
+    }
+
+    public static TransicionPedido desdeRuta(String ruta) {
+        for (TransicionPedido transicion : values()) {
+            if (transicion.ruta.equalsIgnoreCase(ruta)) {
+                return transicion;
+            }
+        }
+        throw new IllegalArgumentException("Transición de pedido desconocida: " + ruta);
+    }
+
+    public String getRuta() {
+        return ruta;
+    }
+
+    public Estado getDestino() {
+        return destino;
+    }
+
+    public String getMensajeRechazo() {
+        return mensajeRechazo;
+    }
+
+    public boolean permitidaDesde(Pedido pedido) {
+        Estado estado = pedido.getEstado();
+        return switch (this) {
+            case CONFIRMAR, PREPARAR -> estado == Estado.PENDIENTE;
+            case MARCAR_LISTO -> estado == Estado.PREPARACION;
+            // Take away puede entregarse directo desde preparación
+            case ENTREGAR -> estado == Estado.LISTO
+                    || (estado == Estado.PREPARACION && pedido.getTipoEnvio() == TipoEnvio.TAKE_AWAY);
+            case CANCELAR -> estado != Estado.ENTREGADO;
+        };
+    }
+}
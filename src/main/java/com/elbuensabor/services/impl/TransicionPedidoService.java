@@ -0,0 +1,182 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.exceptions.ConflictoPedidoException;
+import com.elbuensabor.exceptions.ResourceNotFoundException;
+import com.elbuensabor.repository.IPedidoRepository;
+import jakarta.persistence.OptimisticLockException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Aplica los cambios de estado de los pedidos con control de concurrencia optimista (Pedido.version).
+ *
+ * El UPDATE del pedido se hace antes de tocar el stock: si otra operación cambió el pedido
+ * desde que se leyó, falla ahí y la transacción se revierte sin descontar ni restaurar nada.
+ * En ese caso se vuelve a leer el pedido y se reintenta hasta MAX_INTENTOS veces: si ya quedó
+ * en el estado destino se devuelve tal cual (el cambio es idempotente), si la transición sigue
+ * permitida se aplica, y si no se rechaza con ConflictoPedidoException (409).
+ *
+ * ejecutarLote hace lo mismo para varios pedidos en una sola transacción (cocina marcando
+ * varios pedidos listos seguidos, por ejemplo).
+ *
+ * Cada intento es una transacción propia, por eso se llama fuera de una transacción.
+ */
+@Service
+public class TransicionPedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransicionPedidoService.class);
+
+    public static final int MAX_INTENTOS = 3;
+
+    @Autowired
+    private IPedidoRepository pedidoRepository;
+
+    @Autowired
+    private ConsumoStockService consumoStockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Resultado de una transición por lote: pedidos cambiados, pedidos que ya estaban en el estado
+     * destino y pedidos rechazados con el motivo (no encontrado, estado no permitido o sin stock).
+     */
+    public record ResultadoLote(List<Pedido> aplicados, List<Pedido> sinCambios, Map<Long, String> rechazados) {
+    }
+
+    /**
+     * Aplica la transición y devuelve lo que arme "resultado" dentro de la misma transacción;
+     * recibe el pedido y si la transición se aplicó (false si el pedido ya estaba en el estado destino).
+     */
+    public <T> T ejecutar(Long idPedido, TransicionPedido transicion, BiFunction<Pedido, Boolean, T> resultado) {
+        return conReintentos(() -> aplicar(idPedido, transicion, resultado),
+                "Pedido #" + idPedido, transicion,
+                "El pedido #" + idPedido + " está siendo modificado por otra operación, intente nuevamente");
+    }
+
+    /**
+     * Aplica la transición a varios pedidos en una sola transacción. Un pedido que no puede pasar
+     * no frena al resto: queda en ResultadoLote.rechazados. El stock se descuenta o restaura sumado
+     * por insumo para todo el lote, y "resultado" se arma dentro de la misma transacción.
+     */
+    public <T> T ejecutarLote(Collection<Long> idsPedidos, TransicionPedido transicion, Function<ResultadoLote, T> resultado) {
+        // Orden por ID: las filas se bloquean siempre en el mismo orden y el stock se reparte primero a los más viejos
+        List<Long> ids = new ArrayList<>(new TreeSet<>(idsPedidos));
+        return conReintentos(() -> aplicarLote(ids, transicion, resultado),
+                "Lote de " + ids.size() + " pedidos", transicion,
+                "Algunos pedidos del lote están siendo modificados por otra operación, intente nuevamente");
+    }
+
+    private <T> T conReintentos(Supplier<T> accion, String descripcion, TransicionPedido transicion, String mensajeConflicto) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (int intento = 1; ; intento++) {
+            try {
+                return transactionTemplate.execute(status -> accion.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (intento >= MAX_INTENTOS) {
+                    logger.warn("⚠️ {}: conflicto de concurrencia en {} después de {} intentos",
+                            descripcion, transicion, intento);
+                    throw new ConflictoPedidoException(mensajeConflicto);
+                }
+                logger.info("🔁 {} modificado por otra operación, reintentando {} ({}/{})",
+                        descripcion, transicion, intento + 1, MAX_INTENTOS);
+            }
+        }
+    }
+
+    private <T> T aplicar(Long idPedido, TransicionPedido transicion, BiFunction<Pedido, Boolean, T> resultado) {
+        Pedido pedido = pedidoRepository.findById(idPedido)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
+
+        if (pedido.getEstado() == transicion.getDestino()) {
+            return resultado.apply(pedido, false);
+        }
+
+        Estado anterior = pedido.getEstado();
+        if (!transicion.permitidaDesde(pedido)) {
+            throw new ConflictoPedidoException(transicion.getMensajeRechazo() + " (estado actual: " + anterior + ")");
+        }
+
+        pedido.setEstado(transicion.getDestino());
+        Pedido actualizado = pedidoRepository.saveAndFlush(pedido);
+
+        if (transicion.getDestino() == Estado.PREPARACION) {
+            consumoStockService.descontarStock(actualizado);
+        } else if (transicion == TransicionPedido.CANCELAR && stockDescontado(anterior)) {
+            // Solo se restaura si el stock ya se había descontado
+            consumoStockService.restaurarStock(actualizado);
+        }
+
+        return resultado.apply(actualizado, true);
+    }
+
+    private <T> T aplicarLote(List<Long> ids, TransicionPedido transicion, Function<ResultadoLote, T> resultado) {
+        Map<Long, Pedido> encontrados = new HashMap<>();
+        pedidoRepository.findAllById(ids).forEach(pedido -> encontrados.put(pedido.getIdPedido(), pedido));
+
+        List<Pedido> aplicados = new ArrayList<>();
+        List<Pedido> sinCambios = new ArrayList<>();
+        Map<Long, String> rechazados = new LinkedHashMap<>();
+        Map<Long, Estado> anteriores = new HashMap<>();
+
+        for (Long id : ids) {
+            Pedido pedido = encontrados.get(id);
+            if (pedido == null) {
+                rechazados.put(id, "Pedido no encontrado");
+            } else if (pedido.getEstado() == transicion.getDestino()) {
+                sinCambios.add(pedido);
+            } else if (!transicion.permitidaDesde(pedido)) {
+                rechazados.put(id, transicion.getMensajeRechazo() + " (estado actual: " + pedido.getEstado() + ")");
+            } else {
+                anteriores.put(id, pedido.getEstado());
+                pedido.setEstado(transicion.getDestino());
+                aplicados.add(pedido);
+            }
+        }
+
+        if (!aplicados.isEmpty()) {
+            // Igual que en la transición individual: primero los pedidos (control de versión), después el stock
+            pedidoRepository.saveAllAndFlush(aplicados);
+        }
+
+        if (transicion.getDestino() == Estado.PREPARACION) {
+            for (Pedido pedido : consumoStockService.descontarStockLote(aplicados)) {
+                // Vuelve a su estado; se guarda al confirmar la transacción
+                pedido.setEstado(anteriores.get(pedido.getIdPedido()));
+                aplicados.remove(pedido);
+                rechazados.put(pedido.getIdPedido(), "Stock insuficiente para preparar el pedido");
+            }
+        } else if (transicion == TransicionPedido.CANCELAR) {
+            consumoStockService.restaurarStockLote(aplicados.stream()
+                    .filter(pedido -> stockDescontado(anteriores.get(pedido.getIdPedido())))
+                    .toList());
+        }
+
+        logger.info("📦 {} en lote: {} aplicados, {} sin cambios, {} rechazados",
+                transicion, aplicados.size(), sinCambios.size(), rechazados.size());
+        return resultado.apply(new ResultadoLote(aplicados, sinCambios, rechazados));
+    }
+
+    private boolean stockDescontado(Estado estado) {
+        return estado == Estado.PREPARACION || estado == Estado.LISTO;
+    }
+}
@@ -0,0 +1,42 @@
+package com.elbuensabor.services.impl;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión del catálogo de precios (artículos, recetas y promociones) de esta instancia.
+ * CatalogoEntityListener la incrementa en cada alta, modificación o baja; las cotizaciones
+ * firmadas guardan la versión con la que se calcularon y dejan de valer cuando cambia.
+ *
+ * El prefijo aleatorio evita que dos instancias (o un reinicio) compartan números de versión.
+ */
+@Service
+public class VersionCatalogoService {
+
+    private final String instancia = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong version = new AtomicLong();
+
+    public String actual() {
+        return instancia + "-" + version.get();
+    }
+
+    /**
+     * Incrementa ya (al hacer flush) y otra vez al terminar la transacción: una cotización calculada
+     * entre el flush y el commit leyó los precios viejos y no debe sobrevivir al cambio.
+     */
+    public void incrementar() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.elbuensabor.services.impl;
 
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.events.PedidoEstadoCambiadoEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -77,6 +82,83 @@ public class WebSocketNotificationService {
         }
     }
 
+    /**
+     * Notifica los cambios de un lote de pedidos con un solo mensaje por canal
+     * (cada cliente sigue recibiendo el cambio de su pedido en su cola)
+     */
+    public void notificarCambiosEstadoLote(List<PedidoEstadoCambiadoEvent> cambios) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+
+        List<Map<String, Object>> pedidos = new ArrayList<>();
+        List<Long> cancelados = new ArrayList<>();
+        List<Long> listosDelivery = new ArrayList<>();
+
+        for (PedidoEstadoCambiadoEvent cambio : cambios) {
+            String estado = estadoParaFrontend(cambio.getEstado());
+            pedidos.add(Map.of("pedidoId", cambio.getIdPedido(), "estado", estado));
+
+            if (cambio.getEstado() == Estado.CANCELADO) {
+                cancelados.add(cambio.getIdPedido());
+            } else if (cambio.getEstado() == Estado.LISTO && cambio.getTipoEnvio() == TipoEnvio.DELIVERY) {
+                listosDelivery.add(cambio.getIdPedido());
+            }
+        }
+
+        try {
+            for (PedidoEstadoCambiadoEvent cambio : cambios) {
+                if (cambio.getClienteAuthId() != null && !cambio.getClienteAuthId().isEmpty()) {
+                    String estado = estadoParaFrontend(cambio.getEstado());
+                    messagingTemplate.convertAndSendToUser(
+                            cambio.getClienteAuthId(),
+                            "/queue/pedido/estado",
+                            Map.of(
+                                    "tipo", "CAMBIO_ESTADO",
+                                    "pedidoId", cambio.getIdPedido(),
+                                    "estado", estado,
+                                    "timestamp", LocalDateTime.now(),
+                                    "mensaje", generarMensajeEstado(estado)
+                            )
+                    );
+                }
+            }
+
+            // Broadcast a todos los roles
+            messagingTemplate.convertAndSend("/topic/pedidos/estados", Map.of(
+                    "tipo", "CAMBIO_ESTADO_LOTE",
+                    "pedidos", pedidos,
+                    "timestamp", LocalDateTime.now(),
+                    "mensaje", pedidos.size() + " pedidos actualizados"
+            ));
+
+            if (!cancelados.isEmpty()) {
+                Map<String, Object> notificacion = Map.of(
+                        "tipo", "PEDIDOS_CANCELADOS",
+                        "pedidoIds", cancelados,
+                        "timestamp", LocalDateTime.now(),
+                        "mensaje", "Pedidos cancelados - detener preparación"
+                );
+                messagingTemplate.convertAndSend("/topic/cocina/cancelaciones", notificacion);
+                messagingTemplate.convertAndSend("/topic/cajero/pedidos", notificacion);
+            }
+
+            if (!listosDelivery.isEmpty()) {
+                messagingTemplate.convertAndSend("/topic/delivery/disponibles", Map.of(
+                        "tipo", "PEDIDOS_LISTOS_DELIVERY",
+                        "pedidoIds", listosDelivery,
+                        "timestamp", LocalDateTime.now(),
+                        "mensaje", listosDelivery.size() + " pedidos listos para delivery"
+                ));
+            }
+
+            logger.info("✅ Cambios de estado notificados en lote: {} pedidos", cambios.size());
+
+        } catch (Exception e) {
+            logger.error("❌ Error notificando cambios de estado en lote: {}", e.getMessage());
+        }
+    }
+
     /**
      * Notifica específicamente cancelaciones a cocina
      */
@@ -178,6 +260,42 @@ public class WebSocketNotificationService {
         }
     }
 
+    /**
+     * Notifica a administración que un insumo cambió de nivel de stock
+     * (STOCK_CRITICO, STOCK_BAJO o STOCK_NORMAL)
+     */
+    public void notificarNivelStock(Long idInsumo, String denominacion, String tipo, Integer stockActual, Integer stockMaximo) {
+        Map<String, Object> notificacion = Map.of(
+                "tipo", tipo,
+                "insumoId", idInsumo,
+                "denominacion", denominacion != null ? denominacion : "",
+                "stockActual", stockActual,
+                "stockMaximo", stockMaximo,
+                "timestamp", LocalDateTime.now(),
+                "mensaje", switch (tipo) {
+                    case "STOCK_CRITICO" -> "Stock crítico";
+                    case "STOCK_BAJO" -> "Stock bajo";
+                    default -> "Stock normalizado";
+                } + (denominacion != null ? ": " + denominacion : "")
+        );
+
+        try {
+            messagingTemplate.convertAndSend("/topic/admin/stock", notificacion);
+
+            logger.info("✅ Nivel de stock notificado - Insumo #{}: {}", idInsumo, tipo);
+
+        } catch (Exception e) {
+            logger.error("❌ Error notificando nivel de stock del insumo #{}: {}", idInsumo, e.getMessage());
+        }
+    }
+
+    /**
+     * Nombre del estado que espera el frontend (EN_PREPARACION para PREPARACION)
+     */
+    public static String estadoParaFrontend(Estado estado) {
+        return estado == Estado.PREPARACION ? "EN_PREPARACION" : estado.name();
+    }
+
     /**
      * Genera mensaje amigable según el estado
      */
@@ -38,6 +38,7 @@ public interface ArticuloInsumoMapper extends BaseMapper<ArticuloInsumo, Articul
     @Mapping(target = "detallesPedido", ignore = true)
     @Mapping(target = "promociones", ignore = true)
     @Mapping(target = "detallesManufacturados", ignore = true)
+    @Mapping(target = "costoPromedio", ignore = true)   // Lo mantienen las compras
     ArticuloInsumo toEntity(ArticuloInsumoRequestDTO dto);
 
     // ==================== RESPONSE DTO → ENTITY (GENERIC) ====================
@@ -49,6 +50,7 @@ public interface ArticuloInsumoMapper extends BaseMapper<ArticuloInsumo, Articul
     @Mapping(target = "detallesPedido", ignore = true)
     @Mapping(target = "promociones", ignore = true)
     @Mapping(target = "detallesManufacturados", ignore = true)
+    @Mapping(target = "costoPromedio", ignore = true)   // Lo mantienen las compras
     ArticuloInsumo toEntity(ArticuloInsumoResponseDTO dto);
 
     // ==================== UPDATE FROM REQUEST DTO ====================
@@ -60,6 +62,7 @@ public interface ArticuloInsumoMapper extends BaseMapper<ArticuloInsumo, Articul
     @Mapping(target = "detallesPedido", ignore = true)
     @Mapping(target = "promociones", ignore = true)
     @Mapping(target = "detallesManufacturados", ignore = true)
+    @Mapping(target = "costoPromedio", ignore = true)   // Lo mantienen las compras
     void updateEntityFromDTO(ArticuloInsumoRequestDTO dto, @MappingTarget ArticuloInsumo entity);
 
     // ==================== UPDATE FROM RESPONSE DTO (GENERIC) ====================
@@ -72,5 +75,6 @@ public interface ArticuloInsumoMapper extends BaseMapper<ArticuloInsumo, Articul
     @Mapping(target = "detallesPedido", ignore = true)
     @Mapping(target = "promociones", ignore = true)
     @Mapping(target = "detallesManufacturados", ignore = true)
+    @Mapping(target = "costoPromedio", ignore = true)   // Lo mantienen las compras
     void updateEntityFromDTO(ArticuloInsumoResponseDTO dto, @MappingTarget ArticuloInsumo entity);
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.elbuensabor.carga;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga del modo de hilos: el mismo endpoint bloqueante (simula la espera de
+ * MercadoPago al crear la preferencia) atendido por el pool de plataforma de Tomcat y por
+ * hilos virtuales, con el mismo límite de workers. Se ejecuta con ./gradlew cargaTest.
+ */
+@Tag("carga")
+class HilosVirtualesCargaTest {
+
+    private static final int WORKERS_TOMCAT = 20;
+    private static final int SOLICITUDES = 400;
+    private static final int LATENCIA_MERCADOPAGO_MS = 300;
+
+    @Test
+    void hilosVirtualesSuperanAlPoolDePlataformaConLlamadasBloqueantes() throws Exception {
+        double plataforma = medirSolicitudesPorSegundo(false);
+        double virtuales = medirSolicitudesPorSegundo(true);
+
+        System.out.printf("🧵 Plataforma (%d workers): %.0f req/s%n", WORKERS_TOMCAT, plataforma);
+        System.out.printf("🧵 Hilos virtuales:          %.0f req/s (x%.1f)%n", virtuales, virtuales / plataforma);
+
+        // El pool de plataforma queda topeado en WORKERS_TOMCAT / latencia (~66 req/s)
+        assertTrue(virtuales > plataforma * 2,
+                "Se esperaba al menos el doble de throughput con hilos virtuales: " + virtuales + " vs " + plataforma);
+    }
+
+    private double medirSolicitudesPorSegundo(boolean hilosVirtuales) throws Exception {
+        // Como argumentos de línea de comandos para que pisen a application.properties
+        try (var contexto = (ServletWebServerApplicationContext) new SpringApplicationBuilder(AppCarga.class).run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + WORKERS_TOMCAT,
+                "--spring.threads.virtual.enabled=" + hilosVirtuales,
+                "--spring.main.banner-mode=off")) {
+
+            URI uri = URI.create("http://localhost:" + contexto.getWebServer().getPort() + "/carga/preferencia");
+            HttpClient cliente = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            // Calentamiento
+            enviar(cliente, uri, 50);
+
+            long inicio = System.nanoTime();
+            enviar(cliente, uri, SOLICITUDES);
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            return SOLICITUDES / segundos;
+        }
+    }
+
+    private void enviar(HttpClient cliente, URI uri, int cantidad) throws Exception {
+        HttpRequest solicitud = HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .timeout(Duration.ofSeconds(60))
+                .build();
+
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<HttpResponse<String>>> respuestas = new ArrayList<>();
+            for (int i = 0; i < cantidad; i++) {
+                respuestas.add(clientes.submit(() -> cliente.send(solicitud, HttpResponse.BodyHandlers.ofString())));
+            }
+            for (Future<HttpResponse<String>> respuesta : respuestas) {
+                assertEquals(200, respuesta.get().statusCode());
+            }
+        }
+    }
+
+    // ==================== APLICACIÓN MÍNIMA ====================
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({
+            ServletWebServerFactoryAutoConfiguration.class,
+            EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class,
+            HttpMessageConvertersAutoConfiguration.class,
+            JacksonAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class
+    })
+    @Import(PreferenciaBloqueanteController.class)
+    static class AppCarga {
+    }
+
+    @RestController
+    static class PreferenciaBloqueanteController {
+
+        @PostMapping("/carga/preferencia")
+        public Map<String, Object> crearPreferencia() throws InterruptedException {
+            // Misma forma que MercadoPagoServiceImpl: el hilo queda bloqueado esperando la API externa
+            Thread.sleep(LATENCIA_MERCADOPAGO_MS);
+            return Map.of("preferenciaCreada", true, "hilo", Thread.currentThread().toString());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.elbuensabor.carga;
+
+import com.elbuensabor.config.IdGeneradorInitializer;
+import com.elbuensabor.entities.*;
+import com.elbuensabor.services.impl.VersionCatalogoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sentencias JDBC por pedido (pedido + detalles + factura + pago) con IDs IDENTITY y sin batch
+ * (como estaba) contra IDs por bloques de id_generador y batch de INSERT. Las dos fases usan la
+ * misma base, así también se comprueba que IdGeneradorInitializer no pisa los IDs existentes.
+ * Se ejecuta con ./gradlew cargaTest.
+ */
+@Tag("carga")
+class InsercionPedidosBatchCargaTest {
+
+    private static final int PEDIDOS = 200;
+    private static final int DETALLES_POR_PEDIDO = 10;
+
+    private final AtomicLong sentencias = new AtomicLong();
+    private final DataSource dataSource = contarSentencias(new DriverManagerDataSource(
+            "jdbc:h2:mem:batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @Test
+    void idsPorBloquesYBatchReducenLasSentenciasPorPedido() {
+        double antes;
+        Datos datos;
+        EntityManagerFactory identity = entityManagerFactory("create", false);
+        try {
+            datos = crearDatos(identity);
+            antes = medirSentenciasPorPedido(identity, datos);
+        } finally {
+            identity.close();
+        }
+
+        EntityManagerFactory batch = entityManagerFactory("update", true);
+        try {
+            new IdGeneradorInitializer(new JdbcTemplate(dataSource), batch).sincronizarContadores();
+            double despues = medirSentenciasPorPedido(batch, datos);
+
+            System.out.printf("📦 IDENTITY sin batch:      %.1f sentencias por pedido%n", antes);
+            System.out.printf("📦 IDs por bloques + batch: %.1f sentencias por pedido (x%.1f menos)%n", despues, antes / despues);
+
+            assertEquals(2L * PEDIDOS, contar("SELECT COUNT(*) FROM pedido"));
+            assertEquals(2L * PEDIDOS * DETALLES_POR_PEDIDO, contar("SELECT COUNT(*) FROM detalle_pedido"));
+            assertTrue(despues < antes / 2,
+                    "Se esperaba menos de la mitad de sentencias con batch: " + despues + " vs " + antes);
+        } finally {
+            batch.close();
+        }
+    }
+
+    private double medirSentenciasPorPedido(EntityManagerFactory emf, Datos datos) {
+        long inicio = sentencias.get();
+        for (int i = 0; i < PEDIDOS; i++) {
+            EntityManager em = emf.createEntityManager();
+            try {
+                em.getTransaction().begin();
+                em.persist(pedido(em, datos));
+                em.getTransaction().commit();
+            } finally {
+                em.close();
+            }
+        }
+        return (sentencias.get() - inicio) / (double) PEDIDOS;
+    }
+
+    // ==================== DATOS ====================
+
+    private record Datos(Long idCliente, Long idSucursal, Long idArticulo) {
+    }
+
+    private Datos crearDatos(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Empresa empresa = new Empresa();
+            empresa.setNombre("El Buen Sabor");
+            empresa.setRazonSocial("El Buen Sabor SRL");
+            empresa.setCuil(30123456);
+            em.persist(empresa);
+
+            SucursalEmpresa sucursal = new SucursalEmpresa();
+            sucursal.setNombre("Centro");
+            sucursal.setHorarioApertura(LocalTime.of(10, 0));
+            sucursal.setHorarioCierre(LocalTime.of(23, 0));
+            sucursal.setEmpresa(empresa);
+            em.persist(sucursal);
+
+            Cliente cliente = new Cliente();
+            cliente.setNombre("Ana");
+            cliente.setApellido("Pérez");
+            cliente.setTelefono("2610000000");
+            cliente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+            em.persist(cliente);
+
+            ArticuloInsumo gaseosa = new ArticuloInsumo();
+            gaseosa.setDenominacion("Gaseosa");
+            gaseosa.setPrecioVenta(1000.0);
+            gaseosa.setPrecioCompra(400.0);
+            gaseosa.setStockActual(100);
+            gaseosa.setStockMaximo(200);
+            em.persist(gaseosa);
+
+            em.getTransaction().commit();
+            return new Datos(cliente.getIdCliente(), sucursal.getIdSucursalEmpresa(), gaseosa.getIdArticulo());
+        } finally {
+            em.close();
+        }
+    }
+
+    private Pedido pedido(EntityManager em, Datos datos) {
+        Pedido pedido = new Pedido();
+        pedido.setFecha(LocalDateTime.now());
+        pedido.setEstado(Estado.PENDIENTE);
+        pedido.setTipoEnvio(TipoEnvio.TAKE_AWAY);
+        pedido.setTotal(DETALLES_POR_PEDIDO * 1000.0);
+        pedido.setTotalCosto(DETALLES_POR_PEDIDO * 400.0);
+        pedido.setCliente(em.getReference(Cliente.class, datos.idCliente()));
+        pedido.setSucursal(em.getReference(SucursalEmpresa.class, datos.idSucursal()));
+
+        for (int i = 0; i < DETALLES_POR_PEDIDO; i++) {
+            DetallePedido detalle = new DetallePedido();
+            detalle.setCantidad(1);
+            detalle.setPrecioUnitarioOriginal(1000.0);
+            detalle.setSubtotal(1000.0);
+            detalle.setArticulo(em.getReference(Articulo.class, datos.idArticulo()));
+            detalle.setPedido(pedido);
+            pedido.getDetalles().add(detalle);
+        }
+
+        Factura factura = new Factura();
+        factura.setFechaFactura(LocalDate.now());
+        factura.setNroComprobante("FAC-" + System.nanoTime());
+        factura.setSubTotal(pedido.getTotal());
+        factura.setDescuento(0.0);
+        factura.setGastosEnvio(0.0);
+        factura.setTotalVenta(pedido.getTotal());
+        factura.setPedido(pedido);
+        pedido.setFactura(factura);
+
+        Pago pago = new Pago();
+        pago.setFactura(factura);
+        pago.setFormaPago(FormaPago.EFECTIVO);
+        pago.setEstado(EstadoPago.PENDIENTE);
+        pago.setFechaCreacion(LocalDateTime.now());
+        pago.setMonto(pedido.getTotal());
+        pago.setMoneda("ARS");
+        factura.getPagos().add(pago);
+        return pedido;
+    }
+
+    // ==================== INFRAESTRUCTURA ====================
+
+    private EntityManagerFactory entityManagerFactory(String ddl, boolean batch) {
+        // El bean factory resuelve el @Autowired de CatalogoEntityListener
+        var contexto = new AnnotationConfigApplicationContext(VersionCatalogoService.class);
+
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("hibernate.hbm2ddl.auto", ddl);
+        propiedades.put("hibernate.resource.beans.container", new SpringBeanContainer(contexto.getBeanFactory()));
+        if (batch) {
+            propiedades.put("hibernate.jdbc.batch_size", 50);
+            propiedades.put("hibernate.order_inserts", true);
+            propiedades.put("hibernate.order_updates", true);
+        }
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.elbuensabor.entities");
+        if (!batch) {
+            factoryBean.setMappingResources("META-INF/orm-identity.xml");
+        }
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(propiedades);
+        factoryBean.afterPropertiesSet();
+        return factoryBean.getObject();
+    }
+
+    private long contar(String sql) {
+        return new JdbcTemplate(dataSource).queryForObject(sql, Long.class);
+    }
+
+    /**
+     * Cuenta cada execute/executeUpdate/executeQuery/executeBatch (un round trip a la base;
+     * con rewriteBatchedStatements MySQL también manda cada batch en una sola sentencia).
+     */
+    private DataSource contarSentencias(DataSource destino) {
+        return new DelegatingDataSource(destino) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection conexion = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, metodo, args) -> {
+                            Object resultado = invocar(conexion, metodo, args);
+                            return resultado instanceof Statement sentencia
+                                    ? contar(sentencia, metodo.getReturnType())
+                                    : resultado;
+                        });
+            }
+        };
+    }
+
+    private Object contar(Statement sentencia, Class<?> tipo) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{tipo},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().startsWith("execute")) {
+                        sentencias.incrementAndGet();
+                    }
+                    return invocar(sentencia, metodo, args);
+                });
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
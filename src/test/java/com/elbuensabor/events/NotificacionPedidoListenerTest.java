@@ -0,0 +1,117 @@
+package com.elbuensabor.events;
+
+import com.elbuensabor.config.AsyncConfig;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import com.elbuensabor.services.impl.MetricasPedidoService;
+import com.elbuensabor.services.impl.WebSocketNotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringJUnitConfig(classes = {AsyncConfig.class, NotificacionPedidoListener.class, MetricasPedidoService.class,
+        NotificacionPedidoListenerTest.Config.class})
+class NotificacionPedidoListenerTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+        @Bean
+        ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder() {
+            return new ThreadPoolTaskExecutorBuilder();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new DataSourceTransactionManager(
+                    new DriverManagerDataSource("jdbc:h2:mem:eventos_pedido;DB_CLOSE_DELAY=-1", "sa", ""));
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate(PlatformTransactionManager transactionManager) {
+            return new TransactionTemplate(transactionManager);
+        }
+    }
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private WebSocketNotificationService webSocketNotificationService;
+
+    @Test
+    void notificaRecienDespuesDelCommitYFueraDelHiloDelPedido() {
+        AtomicReference<String> hiloNotificacion = new AtomicReference<>();
+        doAnswer(invocation -> {
+            hiloNotificacion.set(Thread.currentThread().getName());
+            return null;
+        }).when(webSocketNotificationService).notificarNuevoPedido(anyLong(), anyString());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new PedidoCreadoEvent(1L, "Ana Pérez"));
+            verify(webSocketNotificationService, after(200).never()).notificarNuevoPedido(anyLong(), anyString());
+        });
+
+        verify(webSocketNotificationService, timeout(2000)).notificarNuevoPedido(1L, "Ana Pérez");
+        assertNotEquals(Thread.currentThread().getName(), hiloNotificacion.get());
+    }
+
+    @Test
+    void noNotificaSiLaTransaccionHaceRollback() {
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(new PedidoEstadoCambiadoEvent(2L, Estado.CANCELADO, TipoEnvio.DELIVERY, "Ana Pérez", "auth0|1"));
+            status.setRollbackOnly();
+        });
+
+        verify(webSocketNotificationService, after(300).never()).notificarCancelacionPedido(anyLong(), anyString(), anyString());
+    }
+
+    @Test
+    void pedidoListoParaDeliveryNotificaCambioYDelivery() {
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new PedidoEstadoCambiadoEvent(3L, Estado.LISTO, TipoEnvio.DELIVERY, "Ana Pérez", "auth0|1")));
+
+        verify(webSocketNotificationService, timeout(2000)).notificarCambioEstado(3L, "LISTO", "auth0|1");
+        verify(webSocketNotificationService, timeout(2000)).notificarPedidoListoParaDelivery(3L, "Ana Pérez");
+    }
+
+    @Test
+    void preparacionSeNotificaComoEnPreparacion() {
+        transactionTemplate.executeWithoutResult(status ->
+                eventPublisher.publishEvent(new PedidoEstadoCambiadoEvent(4L, Estado.PREPARACION, TipoEnvio.TAKE_AWAY, "Ana Pérez", "auth0|1")));
+
+        verify(webSocketNotificationService, timeout(2000)).notificarCambioEstado(4L, "EN_PREPARACION", "auth0|1");
+        verify(webSocketNotificationService, after(200).never()).notificarPedidoListoParaDelivery(anyLong(), anyString());
+    }
+}
@@ -0,0 +1,163 @@
+package com.elbuensabor.repository;
+
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.EstadoPago;
+import com.elbuensabor.services.impl.VersionCatalogoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cada consulta frecuente del paquete repository tiene que resolverse con uno de los índices
+ * declarados en las entidades: se ejecuta el método del repositorio, se captura el SQL que
+ * genera Hibernate y se pide su plan con EXPLAIN a una base H2 local creada desde las entidades.
+ */
+class IndicesConsultasTest {
+
+    private final List<String> sentencias = new ArrayList<>();
+
+    private AnnotationConfigApplicationContext contexto;
+    private DriverManagerDataSource dataSource;
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private JpaRepositoryFactory repositorios;
+
+    @BeforeEach
+    void setUp() {
+        contexto = new AnnotationConfigApplicationContext(VersionCatalogoService.class);
+
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:indices_consultas;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.elbuensabor.entities");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.resource.beans.container", new SpringBeanContainer(contexto.getBeanFactory()),
+                // Mismos nombres de columna que genera Spring Boot en producción (fechaFactura -> fecha_factura)
+                "hibernate.physical_naming_strategy", new CamelCaseToUnderscoresNamingStrategy(),
+                "hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+                    sentencias.add(sql);
+                    return sql;
+                }));
+        factoryBean.afterPropertiesSet();
+        emf = factoryBean.getObject();
+        em = emf.createEntityManager();
+        repositorios = new JpaRepositoryFactory(em);
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.close();
+        emf.close();
+        contexto.close();
+    }
+
+    @Test
+    void consultasDePedidosUsanIndices() throws Exception {
+        IPedidoRepository pedidos = repositorios.getRepository(IPedidoRepository.class);
+        IDetallePedidoRepository detalles = repositorios.getRepository(IDetallePedidoRepository.class);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        assertUsaIndice("IDX_PEDIDO_ESTADO_FECHA", () -> pedidos.findByEstadoOrderByFechaAsc(Estado.PENDIENTE));
+        assertUsaIndice("IDX_PEDIDO_ESTADO_FECHA", () -> pedidos.findListadoByEstadoIn(List.of(Estado.PENDIENTE, Estado.LISTO)));
+        assertSinRecorrido("PEDIDO", () -> pedidos.findByClienteIdClienteOrderByFechaDesc(1L));
+        assertSinRecorrido("PEDIDO", () -> pedidos.findListadoByCliente(1L));
+        assertUsaIndice("IDX_PEDIDO_FECHA", pedidos::findPedidosDeHoy);
+        assertUsaIndice("IDX_PEDIDO_FECHA", () -> pedidos.findByFechaBetween(ahora.minusDays(7), ahora));
+        assertUsaIndice("IDX_DETALLE_PEDIDO_PEDIDO", () -> detalles.findLineasListadoByPedidoIdIn(List.of(1L, 2L)));
+        assertUsaIndice("IDX_PEDIDO_FECHA", () -> detalles.findRankingProductos(ahora.minusDays(30), ahora, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void consultasDePagosYFacturasUsanIndices() throws Exception {
+        IPagoRepository pagos = repositorios.getRepository(IPagoRepository.class);
+        IFacturaRepository facturas = repositorios.getRepository(IFacturaRepository.class);
+        IDatosMercadoPagoRepository datosMercadoPago = repositorios.getRepository(IDatosMercadoPagoRepository.class);
+        LocalDate hoy = LocalDate.now();
+
+        assertUsaIndice("IDX_PAGO_ESTADO_FECHA", () -> pagos.findByEstado(EstadoPago.PENDIENTE));
+        assertUsaIndice("IDX_PAGO_ESTADO_FECHA", () -> pagos.findPagosPendientesAntiguos(LocalDateTime.now()));
+        assertUsaIndice("IDX_PAGO_FACTURA_ESTADO", () -> pagos.getTotalPagadoByFactura(1L));
+        assertUsaIndice("IDX_PAGO_PREFERENCE", () -> pagos.findByMercadoPagoPreferenceId("pref-1"));
+        assertUsaIndice("IDX_FACTURA_FECHA", () -> facturas.findByFechaFacturaBetween(hoy.minusDays(30), hoy));
+        assertUsaIndice("IDX_FACTURA_FECHA", () -> facturas.getTotalVentasByPeriodo(hoy.minusDays(30), hoy));
+        assertSinRecorrido("FACTURA", () -> facturas.findByPedidoIdPedido(1L));
+        assertSinRecorrido("FACTURA", () -> facturas.existsByPedidoIdPedido(1L));
+        assertUsaIndice("IDX_DATOS_MP_STATUS_APROBACION",
+                () -> datosMercadoPago.findPagosAprobadosEnPeriodo(LocalDateTime.now().minusDays(1), LocalDateTime.now()));
+    }
+
+    @Test
+    void consultasDePromocionesYDomiciliosUsanIndices() throws Exception {
+        IPromocionRepository promociones = repositorios.getRepository(IPromocionRepository.class);
+        IDomicilioRepository domicilios = repositorios.getRepository(IDomicilioRepository.class);
+
+        assertUsaIndice("IDX_PROMOCION_VIGENCIA", () -> promociones.findPromocionesVigentes(LocalDateTime.now(), LocalTime.now()));
+        assertUsaIndice("IDX_DOMICILIO_CLIENTE_PRINCIPAL", () -> domicilios.findPrincipalByClienteId(1L));
+    }
+
+    // ==================== EXPLAIN ====================
+
+    private void assertUsaIndice(String indice, Runnable consulta) throws Exception {
+        String sql = sqlDe(consulta);
+        String plan = explain(sql);
+        assertTrue(plan.contains("PUBLIC." + indice), () -> "Se esperaba " + indice + " en el plan de:\n" + sql + "\n" + plan);
+    }
+
+    // Búsquedas por una FK: H2 les crea su propio índice de una columna y no reutiliza el compuesto
+    // (MySQL sí), así que alcanza con que la tabla no se recorra entera
+    private void assertSinRecorrido(String tabla, Runnable consulta) throws Exception {
+        String sql = sqlDe(consulta);
+        String plan = explain(sql);
+        assertFalse(plan.contains("PUBLIC." + tabla + ".TABLESCAN"), () -> "Recorrido de " + tabla + " en el plan de:\n" + sql + "\n" + plan);
+    }
+
+    private String sqlDe(Runnable consulta) {
+        sentencias.clear();
+        consulta.run();
+        assertFalse(sentencias.isEmpty(), "La consulta no generó SQL");
+        return sentencias.get(sentencias.size() - 1);
+    }
+
+    // H2 elige el índice al preparar la sentencia, así que los parámetros pueden ir en null
+    private String explain(String sql) throws Exception {
+        try (Connection conexion = dataSource.getConnection();
+             PreparedStatement sentencia = conexion.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i <= sentencia.getParameterMetaData().getParameterCount(); i++) {
+                sentencia.setObject(i, null);
+            }
+            try (ResultSet plan = sentencia.executeQuery()) {
+                StringBuilder texto = new StringBuilder();
+                while (plan.next()) {
+                    texto.append(plan.getString(1)).append('\n');
+                }
+                return texto.toString().toUpperCase();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.Articulo;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
+import com.elbuensabor.entities.DetallePedido;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.exceptions.StockInsuficienteException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConsumoStockServiceTest {
+
+    private static final long PAN = 1L;
+    private static final long QUESO = 2L;
+    private static final long GASEOSA = 3L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private MovimientoStockService movimientoStockService;
+    private ConsumoStockService consumoStockService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:consumo_stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        RecetaCacheService recetaCacheService = new RecetaCacheService();
+        recetaCacheService.actualizar(hamburguesa());
+        movimientoStockService = new MovimientoStockService(jdbcTemplate);
+        consumoStockService = new ConsumoStockService(jdbcTemplate, recetaCacheService, movimientoStockService);
+
+        EsquemaStock.crear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", PAN, 1000);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", QUESO, 50);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", GASEOSA, 500);
+    }
+
+    @Test
+    void calcularConsumoAgregaInsumosDeTodasLasLineas() {
+        Pedido pedido = pedidoDeHamburguesas(3);
+        pedido.getDetalles().add(detalle(insumo(GASEOSA), 2));
+        pedido.getDetalles().add(detalle(hamburguesa(), 1));
+
+        var consumo = consumoStockService.calcularConsumo(pedido);
+
+        assertEquals(8, consumo.get(PAN));
+        assertEquals(4, consumo.get(QUESO));
+        assertEquals(2, consumo.get(GASEOSA));
+    }
+
+    @Test
+    void descuentoInsuficienteNoModificaNingunInsumo() {
+        Pedido pedido = pedidoDeHamburguesas(51);
+
+        assertThrows(StockInsuficienteException.class,
+                () -> transactionTemplate.executeWithoutResult(status -> consumoStockService.descontarStock(pedido)));
+
+        assertEquals(1000, stock(PAN));
+        assertEquals(50, stock(QUESO));
+    }
+
+    @Test
+    void transicionesConcurrentesNoSobrevendenNiPierdenDescuentos() throws Exception {
+        int intentos = 200;
+        AtomicInteger exitosos = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+
+        ejecutarEnParalelo(intentos, () -> {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        consumoStockService.descontarStock(pedidoDeHamburguesas(1)));
+                exitosos.incrementAndGet();
+            } catch (StockInsuficienteException e) {
+                rechazados.incrementAndGet();
+            }
+        });
+
+        // Queso limita a 50 hamburguesas: cada una consume 2 panes y 1 queso
+        assertEquals(50, exitosos.get());
+        assertEquals(intentos - 50, rechazados.get());
+        assertEquals(0, stock(QUESO));
+        assertEquals(1000 - 2 * 50, stock(PAN));
+    }
+
+    @Test
+    void descuentosYRestauracionesConcurrentesDejanElStockOriginal() throws Exception {
+        ejecutarEnParalelo(40, () -> transactionTemplate.executeWithoutResult(status -> {
+            Pedido pedido = pedidoDeHamburguesas(1);
+            consumoStockService.descontarStock(pedido);
+            consumoStockService.restaurarStock(pedido);
+        }));
+
+        assertEquals(1000, stock(PAN));
+        assertEquals(50, stock(QUESO));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(cantidad), 0) FROM movimiento_stock WHERE id_insumo = ?", Integer.class, PAN));
+    }
+
+    @Test
+    void unaRestauracionQuedaDisponibleParaElSiguienteDescuento() {
+        Pedido primero = pedidoDeHamburguesas(50);
+        transactionTemplate.executeWithoutResult(status -> consumoStockService.descontarStock(primero));
+        transactionTemplate.executeWithoutResult(status -> consumoStockService.restaurarStock(primero));
+
+        // Sin esperar la consolidación: el stock ya tiene la devolución y el libro la registra
+        assertEquals(50, stock(QUESO));
+        assertEquals(50, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimiento_stock WHERE tipo = 'RESTAURACION_PEDIDO' AND id_insumo = ?",
+                Integer.class, QUESO));
+
+        transactionTemplate.executeWithoutResult(status -> consumoStockService.descontarStock(pedidoDeHamburguesas(50)));
+        assertEquals(0, stock(QUESO));
+        assertEquals(1000 - 2 * 50, stock(PAN));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void ejecutarEnParalelo(int tareas, Runnable tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < tareas; i++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                tarea.run();
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private int stock(long idInsumo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, idInsumo);
+    }
+
+    private Pedido pedidoDeHamburguesas(int cantidad) {
+        Pedido pedido = new Pedido();
+        pedido.getDetalles().add(detalle(hamburguesa(), cantidad));
+        return pedido;
+    }
+
+    private ArticuloManufacturado hamburguesa() {
+        ArticuloManufacturado hamburguesa = new ArticuloManufacturado();
+        hamburguesa.setIdArticulo(10L);
+        hamburguesa.getDetalles().add(ingrediente(hamburguesa, insumo(PAN), 2.0));
+        hamburguesa.getDetalles().add(ingrediente(hamburguesa, insumo(QUESO), 1.0));
+        return hamburguesa;
+    }
+
+    private ArticuloInsumo insumo(long id) {
+        ArticuloInsumo insumo = new ArticuloInsumo();
+        insumo.setIdArticulo(id);
+        return insumo;
+    }
+
+    private ArticuloManufacturadoDetalle ingrediente(ArticuloManufacturado manufacturado, ArticuloInsumo insumo, double cantidad) {
+        ArticuloManufacturadoDetalle detalle = new ArticuloManufacturadoDetalle();
+        detalle.setArticuloManufacturado(manufacturado);
+        detalle.setArticuloInsumo(insumo);
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+
+    private DetallePedido detalle(Articulo articulo, int cantidad) {
+        DetallePedido detalle = new DetallePedido();
+        detalle.setArticulo(articulo);
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+}
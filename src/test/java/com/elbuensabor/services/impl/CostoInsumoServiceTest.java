@@ -0,0 +1,71 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.CostoInsumoResponseDTO;
+import com.elbuensabor.exceptions.ResourceNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CostoInsumoServiceTest {
+
+    private static final long HARINA = 1L;
+
+    private JdbcTemplate jdbcTemplate;
+    private CostoInsumoService costoInsumoService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:costo_insumo;DB_CLOSE_DELAY=-1", "sa", ""));
+        EsquemaStock.crear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, precio_compra, costo_promedio) VALUES (?, ?, ?)", HARINA, 120.0, null);
+        for (int i = 1; i <= 12; i++) {
+            jdbcTemplate.update("INSERT INTO compra_insumo (id_articulo_insumo, cantidad, precio_unitario, fecha_compra) " +
+                    "VALUES (?, ?, ?, ?)", HARINA, 10.0, 100.0 + i, LocalDate.of(2026, 1, i));
+        }
+
+        costoInsumoService = new CostoInsumoService();
+        ReflectionTestUtils.setField(costoInsumoService, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void elPromedioCombinaElStockAnteriorConLaCompra() {
+        assertEquals(104.0, CostoInsumoService.promedio(40, 100.0, 90.0, 10, 10 * 120.0), 0.001);
+        // Sin promedio previo el stock vale el precio de compra; sin stock manda la compra
+        assertEquals(96.0, CostoInsumoService.promedio(40, null, 90.0, 10, 10 * 120.0), 0.001);
+        assertEquals(120.0, CostoInsumoService.promedio(0, 100.0, 90.0, 10, 10 * 120.0), 0.001);
+        // Dos compras sumadas dan lo mismo que de a una
+        double deAUna = CostoInsumoService.promedio(50, CostoInsumoService.promedio(40, 100.0, 90.0, 10, 1200.0), 120.0, 30, 30 * 80.0);
+        assertEquals(deAUna, CostoInsumoService.promedio(40, 100.0, 90.0, 40, 1200.0 + 2400.0), 0.001);
+    }
+
+    @Test
+    void lasUltimasComprasSeLeenUnaVezYDespuesSeCompletanEnMemoria() {
+        CostoInsumoResponseDTO costo = costoInsumoService.getCosto(HARINA);
+        assertEquals(120.0, costo.getCostoPromedio());
+        assertEquals(CostoInsumoService.ULTIMAS_COMPRAS, costo.getUltimasCompras().size());
+        assertEquals(12L, costo.getUltimasCompras().get(0).getIdCompra());
+        assertEquals(107.5, costo.getPromedioUltimasCompras(), 0.001);
+
+        // Una compra nueva entra adelante (una repetida no) y la más vieja sale, sin volver a leer la base
+        jdbcTemplate.execute("DELETE FROM compra_insumo");
+        costoInsumoService.registrarCompras(HARINA, List.of(
+                new CostoInsumoService.Compra(12L, LocalDate.of(2026, 1, 12), 10.0, 112.0),
+                new CostoInsumoService.Compra(13L, LocalDate.of(2026, 1, 13), 30.0, 90.0)));
+
+        List<CostoInsumoService.Compra> ultimas = costoInsumoService.ultimasCompras(HARINA);
+        assertEquals(CostoInsumoService.ULTIMAS_COMPRAS, ultimas.size());
+        assertEquals(List.of(13L, 12L), ultimas.subList(0, 2).stream().map(CostoInsumoService.Compra::idCompra).toList());
+        assertEquals(4L, ultimas.get(ultimas.size() - 1).idCompra());
+
+        assertThrows(ResourceNotFoundException.class, () -> costoInsumoService.getCosto(99L));
+    }
+}
@@ -0,0 +1,114 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.request.DetallePedidoRequestDTO;
+import com.elbuensabor.dto.request.PedidoRequestDTO;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CotizacionTokenServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final VersionCatalogoService versionCatalogoService = new VersionCatalogoService();
+    private final CotizacionTokenService tokenService = tokenService(10);
+
+    private final ArticuloInsumo gaseosa = gaseosa();
+    private final ContextoPedido contexto = new ContextoPedido(Map.of(1L, gaseosa), Map.of(), Map.of(1L, gaseosa), Map.of());
+
+    @Test
+    void tokenValidoDevuelveLaCotizacionSinRecalcular() {
+        PedidoRequestDTO pedido = pedido(2);
+        pedido.setTokenCotizacion(tokenService.emitir(pedido, cotizacion()));
+
+        CotizacionPedido leida = tokenService.leer(pedido, contexto, true).orElseThrow();
+
+        assertEquals(1800.0, leida.getTotal());
+        assertEquals(800.0, leida.getTotalCosto());
+        assertEquals(1, leida.getLineas().size());
+        assertSame(gaseosa, leida.getLineas().get(0).getArticulo());
+        assertEquals("sin hielo", leida.getLineas().get(0).getObservaciones());
+        assertTrue(leida.isStockSuficiente());
+        assertEquals(1, registry.get("pedido.cotizacion.token").tag("resultado", "valido").counter().count());
+    }
+
+    @Test
+    void cambioDeCatalogoInvalidaElToken() {
+        PedidoRequestDTO pedido = pedido(2);
+        pedido.setTokenCotizacion(tokenService.emitir(pedido, cotizacion()));
+
+        versionCatalogoService.incrementar();
+
+        assertEquals(Optional.empty(), tokenService.leer(pedido, contexto, true));
+        assertEquals(1, registry.get("pedido.cotizacion.token").tag("resultado", "catalogo_modificado").counter().count());
+    }
+
+    @Test
+    void tokenDeOtroCarritoNoSeReutiliza() {
+        String token = tokenService.emitir(pedido(2), cotizacion());
+        PedidoRequestDTO masGrande = pedido(20);
+        masGrande.setTokenCotizacion(token);
+
+        assertEquals(Optional.empty(), tokenService.leer(masGrande, contexto, true));
+    }
+
+    @Test
+    void tokenAlteradoOVencidoSeDescarta() {
+        PedidoRequestDTO pedido = pedido(2);
+        String token = tokenService.emitir(pedido, cotizacion());
+        pedido.setTokenCotizacion(token.substring(0, token.indexOf('.')) + ".firmaFalsa");
+        assertEquals(Optional.empty(), tokenService.leer(pedido, contexto, true));
+
+        CotizacionTokenService sinTtl = tokenService(0);
+        pedido.setTokenCotizacion(sinTtl.emitir(pedido, cotizacion()));
+        assertEquals(Optional.empty(), sinTtl.leer(pedido, contexto, true));
+
+        assertEquals(1, registry.get("pedido.cotizacion.token").tag("resultado", "firma_invalida").counter().count());
+        assertEquals(1, registry.get("pedido.cotizacion.token").tag("resultado", "vencido").counter().count());
+    }
+
+    // ==================== DATOS ====================
+
+    private CotizacionTokenService tokenService(long ttlMinutos) {
+        return new CotizacionTokenService(new ObjectMapper(), new MetricasPedidoService(registry),
+                versionCatalogoService, "secreto-de-prueba", ttlMinutos);
+    }
+
+    private CotizacionPedido cotizacion() {
+        CotizacionPedido.Linea linea = new CotizacionPedido.Linea(gaseosa, 2, 1000.0, 200.0, 1800.0,
+                false, null, "sin hielo");
+        return new CotizacionPedido(List.of(linea), 2000.0, 200.0, 1800.0, 800.0, 0, true,
+                "Sin promociones aplicadas", versionCatalogoService.actual());
+    }
+
+    private PedidoRequestDTO pedido(int cantidad) {
+        DetallePedidoRequestDTO detalle = new DetallePedidoRequestDTO();
+        detalle.setIdArticulo(1L);
+        detalle.setCantidad(cantidad);
+        detalle.setObservaciones("sin hielo");
+
+        PedidoRequestDTO pedido = new PedidoRequestDTO();
+        pedido.setIdCliente(1L);
+        pedido.setIdSucursal(1L);
+        pedido.setTipoEnvio("TAKE_AWAY");
+        pedido.setDetalles(List.of(detalle));
+        return pedido;
+    }
+
+    private static ArticuloInsumo gaseosa() {
+        ArticuloInsumo gaseosa = new ArticuloInsumo();
+        gaseosa.setIdArticulo(1L);
+        gaseosa.setDenominacion("Gaseosa");
+        gaseosa.setPrecioVenta(1000.0);
+        gaseosa.setPrecioCompra(400.0);
+        return gaseosa;
+    }
+}
@@ -0,0 +1,31 @@
+package com.elbuensabor.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorPedidoTest {
+
+    @Test
+    void codificadoYDecodificadoDevuelveLaMismaPosicion() {
+        CursorPedido cursor = new CursorPedido(LocalDateTime.of(2025, 6, 1, 20, 30, 15, 123_000_000), 4521L);
+
+        assertEquals(cursor, CursorPedido.decodificar(cursor.codificar()));
+    }
+
+    @Test
+    void sinCursorEsLaPrimeraPagina() {
+        assertNull(CursorPedido.decodificar(null));
+        assertNull(CursorPedido.decodificar(""));
+    }
+
+    @Test
+    void cursorAlteradoEsUnError() {
+        assertThrows(IllegalArgumentException.class, () -> CursorPedido.decodificar("no-es-un-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> CursorPedido.decodificar("%%%"));
+    }
+}
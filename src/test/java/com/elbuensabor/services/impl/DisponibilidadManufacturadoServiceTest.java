@@ -0,0 +1,127 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.events.StockAjustadoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DisponibilidadManufacturadoServiceTest {
+
+    private static final long PAN = 1L;
+    private static final long QUESO = 2L;
+    private static final long TOMATE = 3L;
+    private static final long HAMBURGUESA = 10L;
+    private static final long ENSALADA = 11L;
+    private static final long CAFE = 12L;
+
+    private final AtomicInteger consultasDeStock = new AtomicInteger();
+
+    private JdbcTemplate jdbcTemplate;
+    private RecetaCacheService recetaCacheService;
+    private DisponibilidadManufacturadoService disponibilidad;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:disponibilidad;DB_CLOSE_DELAY=-1", "sa", "")) {
+            @Override
+            public <T> List<T> queryForList(String sql, Class<T> tipo, Object... args) {
+                consultasDeStock.incrementAndGet();
+                return super.queryForList(sql, tipo, args);
+            }
+        };
+        EsquemaStock.crear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", PAN, 100);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", QUESO, 7);
+
+        recetaCacheService = new RecetaCacheService();
+        recetaCacheService.actualizar(manufacturado(HAMBURGUESA, PAN, 2.0, QUESO, 1.0));
+        recetaCacheService.actualizar(manufacturado(ENSALADA, TOMATE, 0.5));
+
+        disponibilidad = new DisponibilidadManufacturadoService();
+        ReflectionTestUtils.setField(disponibilidad, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(disponibilidad, "recetaCacheService", recetaCacheService);
+        disponibilidad.cargarStock();
+    }
+
+    @Test
+    void losMovimientosRecalculanSoloLosProductosQueUsanElInsumo() {
+        assertEquals(7, disponibilidad.maximoPreparable(HAMBURGUESA));
+        // Tomate no está en la base: se lee una vez y queda en 0
+        assertFalse(disponibilidad.esPreparable(ENSALADA));
+
+        disponibilidad.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.CONSUMO_PEDIDO,
+                List.of(new MovimientoStockService.Movimiento(QUESO, -5, 1L),
+                        new MovimientoStockService.Movimiento(PAN, -10, 1L))));
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", TOMATE, 3);
+        disponibilidad.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.COMPRA,
+                List.of(new MovimientoStockService.Movimiento(TOMATE, 3, null))));
+
+        int consultas = consultasDeStock.get();
+        assertEquals(2, disponibilidad.maximoPreparable(HAMBURGUESA));
+        assertEquals(6, disponibilidad.maximoPreparable(ENSALADA));
+        assertTrue(disponibilidad.esPreparable(ENSALADA));
+        assertEquals(consultas, consultasDeStock.get(), "Las consultas no deberían leer la base");
+    }
+
+    @Test
+    void unCambioDeRecetaReindexaElProducto() {
+        assertEquals(7, disponibilidad.maximoPreparable(HAMBURGUESA));
+
+        // La hamburguesa deja de llevar queso y pasa a usar 4 panes
+        recetaCacheService.actualizar(manufacturado(HAMBURGUESA, PAN, 4.0));
+        assertEquals(25, disponibilidad.maximoPreparable(HAMBURGUESA));
+
+        // El queso ya no la afecta
+        disponibilidad.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.AJUSTE_MANUAL,
+                List.of(new MovimientoStockService.Movimiento(QUESO, -7, null))));
+        assertEquals(25, disponibilidad.maximoPreparable(HAMBURGUESA));
+
+        disponibilidad.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.RESTAURACION_PEDIDO,
+                List.of(new MovimientoStockService.Movimiento(PAN, 4, 1L))));
+        assertEquals(26, disponibilidad.maximoPreparable(HAMBURGUESA));
+    }
+
+    @Test
+    void unProductoSinRecetaEsPreparableYNoFiguraEntreLosQueNoAlcanzan() {
+        recetaCacheService.actualizar(manufacturado(CAFE));
+        disponibilidad.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.CONSUMO_PEDIDO,
+                List.of(new MovimientoStockService.Movimiento(QUESO, -7, 1L))));
+
+        assertEquals(0, disponibilidad.maximoPreparable(CAFE));
+        assertTrue(disponibilidad.esPreparable(CAFE));
+        // Sin queso no sale la hamburguesa; el tomate no está en la base
+        assertEquals(Set.of(HAMBURGUESA, ENSALADA), Set.copyOf(disponibilidad.findNoPreparables()));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private ArticuloManufacturado manufacturado(long id, Object... ingredientes) {
+        ArticuloManufacturado manufacturado = new ArticuloManufacturado();
+        manufacturado.setIdArticulo(id);
+        for (int i = 0; i < ingredientes.length; i += 2) {
+            ArticuloInsumo insumo = new ArticuloInsumo();
+            insumo.setIdArticulo((Long) ingredientes[i]);
+            ArticuloManufacturadoDetalle detalle = new ArticuloManufacturadoDetalle();
+            detalle.setArticuloManufacturado(manufacturado);
+            detalle.setArticuloInsumo(insumo);
+            detalle.setCantidad((Double) ingredientes[i + 1]);
+            manufacturado.getDetalles().add(detalle);
+        }
+        return manufacturado;
+    }
+}
@@ -0,0 +1,23 @@
+package com.elbuensabor.services.impl;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Esquema compartido de las pruebas de stock y costos que van a la base por JDBC (esquema-stock.sql).
+ */
+final class EsquemaStock {
+
+    private EsquemaStock() {
+    }
+
+    /**
+     * Borra y vuelve a crear las tablas vacías.
+     */
+    static void crear(JdbcTemplate jdbcTemplate) {
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("esquema-stock.sql")),
+                jdbcTemplate.getDataSource());
+    }
+}
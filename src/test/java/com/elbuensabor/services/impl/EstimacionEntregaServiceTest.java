@@ -0,0 +1,142 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.entities.TipoEnvio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class EstimacionEntregaServiceTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 6, 1, 20, 0);
+
+    private final RelojDePrueba reloj = new RelojDePrueba();
+    private final WebSocketNotificationService notificaciones = mock(WebSocketNotificationService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TableroPedidosService tablero = new TableroPedidosService();
+    private EstimacionEntregaService estimacion;
+
+    @BeforeEach
+    void setUp() {
+        // Dos cocineros, aviso desde 5 minutos de atraso
+        estimacion = new EstimacionEntregaService(notificaciones, tablero, jdbcTemplate, 2, 5, reloj);
+        estimacion.cargar(List.of());
+    }
+
+    @Test
+    void laEsperaCreceConLosPedidosEnCocina() {
+        assertEquals(20, estimacion.minutosHastaEntrega(20, TipoEnvio.TAKE_AWAY));
+
+        estimacion.actualizar(pedido(1L, "PENDIENTE", "TAKE_AWAY", 20));
+        assertEquals(20, estimacion.minutosHastaEntrega(20, TipoEnvio.TAKE_AWAY));
+
+        // Los dos cocineros ocupados hasta las 20:20: el tercero espera, y el delivery suma el envío
+        estimacion.actualizar(pedido(2L, "PENDIENTE", "TAKE_AWAY", 20));
+        assertEquals(20 + 10 + EstimacionEntregaService.MINUTOS_DELIVERY, estimacion.minutosHastaEntrega(10, TipoEnvio.DELIVERY));
+
+        // Sin preparación no se espera cocinero
+        assertEquals(0, estimacion.minutosHastaEntrega(0, TipoEnvio.TAKE_AWAY));
+    }
+
+    @Test
+    void lasSalidasDeCocinaAdelantanLaEspera() {
+        estimacion.actualizar(pedido(1L, "PENDIENTE", "TAKE_AWAY", 30));
+        estimacion.actualizar(pedido(2L, "PENDIENTE", "TAKE_AWAY", 30));
+        assertEquals(40, estimacion.minutosHastaEntrega(10, TipoEnvio.TAKE_AWAY));
+
+        estimacion.actualizar(pedido(2L, "CANCELADO", "TAKE_AWAY", 30));
+        assertEquals(10, estimacion.minutosHastaEntrega(10, TipoEnvio.TAKE_AWAY));
+    }
+
+    @Test
+    void unPedidoAtrasadoCorreALosQueSiguenYSeAvisa() {
+        estimacion = new EstimacionEntregaService(notificaciones, tablero, jdbcTemplate, 1, 5, reloj);
+        estimacion.cargar(List.of());
+        tablero.cargar(List.of());
+
+        PedidoResponseDTO primero = pedido(1L, "PENDIENTE", "TAKE_AWAY", 20);
+        primero.setHoraEstimadaFinalizacion(INICIO.plusMinutes(20).toLocalTime());
+        estimacion.actualizar(primero);
+        primero.setEstado("PREPARACION");
+        estimacion.actualizar(primero);
+
+        PedidoResponseDTO segundo = pedido(2L, "PENDIENTE", "TAKE_AWAY", 10);
+        segundo.setHoraEstimadaFinalizacion(INICIO.plusMinutes(30).toLocalTime());
+        estimacion.actualizar(segundo);
+        tablero.actualizar(primero);
+        tablero.actualizar(segundo);
+
+        // A horario no hay nada que avisar
+        reloj.avanzar(Duration.ofMinutes(10));
+        estimacion.recalcular();
+        verify(notificaciones, never()).notificarTiempoExtendido(anyLong(), anyInt());
+
+        // El primero sigue en preparación 8 minutos después de su hora: el segundo se corre 8 minutos
+        reloj.avanzar(Duration.ofMinutes(18));
+        estimacion.recalcular();
+        verify(notificaciones).notificarTiempoExtendido(1L, 8);
+        verify(notificaciones).notificarTiempoExtendido(2L, 8);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        // El tablero muestra la hora nueva sin esperar otro cambio de estado
+        assertEquals(List.of(INICIO.plusMinutes(28).toLocalTime(), INICIO.plusMinutes(38).toLocalTime()),
+                tablero.listar(null, null).stream().map(PedidoResponseDTO::getHoraEstimadaFinalizacion).toList());
+
+        // Ya avisado: un minuto más no llega al umbral
+        reloj.avanzar(Duration.ofMinutes(1));
+        estimacion.recalcular();
+        verify(notificaciones).notificarTiempoExtendido(eq(2L), anyInt());
+    }
+
+    // ==================== DATOS ====================
+
+    private PedidoResponseDTO pedido(Long id, String estado, String tipoEnvio, int minutosPreparacion) {
+        PedidoResponseDTO pedido = new PedidoResponseDTO();
+        pedido.setIdPedido(id);
+        pedido.setEstado(estado);
+        pedido.setTipoEnvio(tipoEnvio);
+        pedido.setFecha(LocalDateTime.now(reloj));
+        pedido.setTiempoEstimadoTotal(minutosPreparacion);
+        return pedido;
+    }
+
+    private static class RelojDePrueba extends Clock {
+        private Instant ahora = INICIO.toInstant(ZoneOffset.UTC);
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
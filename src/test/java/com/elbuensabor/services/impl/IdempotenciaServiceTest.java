@@ -0,0 +1,117 @@
+package com.elbuensabor.services.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotenciaServiceTest {
+
+    private final IdempotenciaService idempotenciaService = new IdempotenciaService(100, 60);
+
+    @Test
+    void reintentoConLaMismaClaveDevuelveLaRespuestaOriginal() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        String pedido = "pedido-1";
+
+        ResponseEntity<String> original = idempotenciaService.ejecutar("pedidos", "clave-1", pedido,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("creado-" + ejecuciones.incrementAndGet()));
+        ResponseEntity<String> repetida = idempotenciaService.ejecutar("pedidos", "clave-1", pedido,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("creado-" + ejecuciones.incrementAndGet()));
+
+        assertEquals(1, ejecuciones.get());
+        assertSame(original.getBody(), repetida.getBody());
+        assertEquals(HttpStatus.CREATED, repetida.getStatusCode());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotenciaService.HEADER_REPETIDA));
+        assertNull(original.getHeaders().getFirst(IdempotenciaService.HEADER_REPETIDA));
+    }
+
+    @Test
+    void sinClaveSeEjecutaSiempre() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        idempotenciaService.ejecutar("pedidos", null, "pedido", () -> ResponseEntity.ok(ejecuciones.incrementAndGet()));
+        idempotenciaService.ejecutar("pedidos", " ", "pedido", () -> ResponseEntity.ok(ejecuciones.incrementAndGet()));
+
+        assertEquals(2, ejecuciones.get());
+    }
+
+    @Test
+    void claveReutilizadaConOtraSolicitudSeRechaza() {
+        idempotenciaService.ejecutar("pedidos", "clave-1", "pedido-1", () -> ResponseEntity.ok("ok"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> idempotenciaService.ejecutar("pedidos", "clave-1", "pedido-2", () -> ResponseEntity.ok("ok")));
+    }
+
+    @Test
+    void fallasYRespuestasNoExitosasLiberanLaClave() {
+        AtomicInteger ejecuciones = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> idempotenciaService.ejecutar("pedidos", "clave-1", "pedido",
+                () -> { ejecuciones.incrementAndGet(); throw new IllegalStateException("falla"); }));
+        idempotenciaService.ejecutar("pedidos", "clave-1", "pedido",
+                () -> ResponseEntity.badRequest().body(ejecuciones.incrementAndGet()));
+        idempotenciaService.ejecutar("pedidos", "clave-1", "pedido",
+                () -> ResponseEntity.ok(ejecuciones.incrementAndGet()));
+
+        assertEquals(3, ejecuciones.get());
+    }
+
+    @Test
+    void elAlmacenQuedaAcotadoYVenceLasClaves() {
+        IdempotenciaService acotado = new IdempotenciaService(3, 60);
+        for (int i = 0; i < 10; i++) {
+            acotado.ejecutar("pedidos", "clave-" + i, "pedido", () -> ResponseEntity.ok("ok"));
+        }
+        assertEquals(3, acotado.size());
+
+        IdempotenciaService sinTtl = new IdempotenciaService(100, 0);
+        sinTtl.ejecutar("pedidos", "clave-1", "pedido", () -> ResponseEntity.ok("ok"));
+        assertEquals(0, sinTtl.size());
+    }
+
+    @Test
+    void reintentosConcurrentesEjecutanElPipelineUnaSolaVez() throws Exception {
+        AtomicInteger ejecuciones = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<ResponseEntity<Integer>>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < 32; i++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                return idempotenciaService.ejecutar("pedidos", "clave-concurrente", "pedido", () -> {
+                    int numero = ejecuciones.incrementAndGet();
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ResponseEntity.status(HttpStatus.CREATED).body(numero);
+                });
+            }));
+        }
+
+        largada.countDown();
+        for (Future<ResponseEntity<Integer>> resultado : resultados) {
+            assertEquals(1, resultado.get(10, TimeUnit.SECONDS).getBody());
+        }
+        executor.shutdown();
+
+        assertEquals(1, ejecuciones.get());
+    }
+}
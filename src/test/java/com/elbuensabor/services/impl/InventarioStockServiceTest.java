@@ -0,0 +1,141 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.InventarioStockResponseDTO;
+import com.elbuensabor.dto.response.InventarioStockResponseDTO.ResultadoFilaDTO;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class InventarioStockServiceTest {
+
+    private static final long HARINA = 1L;
+    private static final long QUESO = 2L;
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    private final Clock reloj = Clock.fixed(AHORA.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    private JdbcTemplate jdbcTemplate;
+    private MovimientoStockService movimientoStockService;
+    private InventarioStockService inventarioStockService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:inventario_stock;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        movimientoStockService = new MovimientoStockService(jdbcTemplate, reloj);
+        inventarioStockService = new InventarioStockService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                movimientoStockService, new ObjectMapper());
+
+        EsquemaStock.crear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual, stock_maximo) VALUES (?, ?, ?)", HARINA, 100, 500);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual, stock_maximo) VALUES (?, ?, ?)", QUESO, 40, 100);
+    }
+
+    @Test
+    void csvAplicaLasFilasValidasEInformaLasDemas() throws Exception {
+        // Una restauración ya aplicada: el conteo la reemplaza junto con el stock
+        jdbcTemplate.update("UPDATE articulo_insumo SET stock_actual = stock_actual + 5 WHERE id_articulo = ?", QUESO);
+        movimientoStockService.registrar(TipoMovimientoStock.RESTAURACION_PEDIDO,
+                List.of(new MovimientoStockService.Movimiento(QUESO, 5, 9L)));
+
+        InventarioStockResponseDTO resultado = inventarioStockService.importar(new StringReader("""
+                idInsumo,stock
+                1,120
+
+                2;30
+                99,10
+                1,600
+                2,abc
+                1,90
+                """), false);
+
+        assertEquals(6, resultado.getFilas());
+        assertEquals(3, resultado.getAplicadas());
+        List<ResultadoFilaDTO> filas = resultado.getResultados();
+        assertEquals(List.of(2, 4, 5, 6, 7, 8), filas.stream().map(ResultadoFilaDTO::getLinea).toList());
+        assertEquals(45, filas.get(1).getStockAnterior());
+        assertEquals("Artículo insumo con ID 99 no encontrado", filas.get(2).getError());
+        assertEquals("El stock no puede superar el stock máximo (500)", filas.get(3).getError());
+        assertEquals("Stock inválido: abc", filas.get(4).getError());
+        assertEquals(120, filas.get(5).getStockAnterior());
+
+        assertEquals(90, stock(HARINA));
+        assertEquals(30, stock(QUESO));
+        // Cada ajuste queda en el libro y el libro sigue cuadrando con el stock
+        assertEquals(-10, sumaMovimientos(HARINA));
+        assertEquals(-10, sumaMovimientos(QUESO));
+
+        // La consolidación siguiente fotografía el stock contado y el libro lo reconstruye
+        new MovimientoStockService(jdbcTemplate, Clock.offset(reloj, Duration.ofMinutes(2))).consolidar();
+        assertEquals(30, jdbcTemplate.queryForObject(
+                "SELECT stock FROM snapshot_stock WHERE id_insumo = ?", Integer.class, QUESO));
+        assertEquals(30, movimientoStockService.stockEn(QUESO, AHORA.plusMinutes(1)));
+        assertEquals(40, movimientoStockService.stockEn(QUESO, AHORA.minusSeconds(1)));
+    }
+
+    @Test
+    void jsonPorLineaEnVariosLotes() throws Exception {
+        int filas = InventarioStockService.TAMANIO_LOTE * 2 + 1;
+        Reader contenido = new Reader() {
+            private final StringBuilder pendiente = new StringBuilder();
+            private int generadas;
+
+            // Genera las líneas a medida que se leen, como un archivo que llega por la red
+            @Override
+            public int read(char[] destino, int desde, int largo) {
+                if (pendiente.isEmpty()) {
+                    if (generadas == filas) {
+                        return -1;
+                    }
+                    generadas++;
+                    pendiente.append(generadas == filas ? "{\"idInsumo\": 2}" : "{\"idInsumo\": 1, \"stock\": " + generadas % 400 + "}")
+                            .append('\n');
+                }
+                int copiados = Math.min(largo, pendiente.length());
+                pendiente.getChars(0, copiados, destino, desde);
+                pendiente.delete(0, copiados);
+                return copiados;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        InventarioStockResponseDTO resultado = inventarioStockService.importar(contenido, true);
+
+        assertEquals(filas, resultado.getFilas());
+        assertEquals(filas - 1, resultado.getAplicadas());
+        assertEquals("Falta stock numérico", resultado.getResultados().get(filas - 1).getError());
+        assertNull(resultado.getResultados().get(0).getError());
+        assertEquals((filas - 1) % 400, stock(HARINA));
+        assertEquals(stock(HARINA) - 100, sumaMovimientos(HARINA));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private int stock(long idInsumo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, idInsumo);
+    }
+
+    private int sumaMovimientos(long idInsumo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(cantidad), 0) FROM movimiento_stock WHERE id_insumo = ?", Integer.class, idInsumo);
+    }
+}
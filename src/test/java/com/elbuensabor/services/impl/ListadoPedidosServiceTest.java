@@ -0,0 +1,229 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.entities.*;
+import com.elbuensabor.repository.IDetallePedidoRepository;
+import com.elbuensabor.repository.IPedidoRepository;
+import com.elbuensabor.services.mapper.DetallePedidoMapperImpl;
+import com.elbuensabor.services.mapper.DomicilioMapperImpl;
+import com.elbuensabor.services.mapper.PedidoMapper;
+import com.elbuensabor.services.mapper.PedidoMapperImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Las proyecciones de los listados tienen que devolver lo mismo que el mapeo completo de entidades.
+ */
+class ListadoPedidosServiceTest {
+
+    private AnnotationConfigApplicationContext contexto;
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private ListadoPedidosService listadoPedidosService;
+    private PedidoMapper pedidoMapper;
+
+    private Long idDelivery;
+    private Long idTakeAway;
+
+    @BeforeEach
+    void setUp() {
+        contexto = new AnnotationConfigApplicationContext(VersionCatalogoService.class,
+                PedidoMapperImpl.class, DetallePedidoMapperImpl.class, DomicilioMapperImpl.class);
+        pedidoMapper = contexto.getBean(PedidoMapper.class);
+
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(new DriverManagerDataSource("jdbc:h2:mem:listado_pedidos;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        factoryBean.setPackagesToScan("com.elbuensabor.entities");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.resource.beans.container", new SpringBeanContainer(contexto.getBeanFactory())));
+        factoryBean.afterPropertiesSet();
+        emf = factoryBean.getObject();
+        em = emf.createEntityManager();
+
+        crearPedidos();
+
+        JpaRepositoryFactory repositorios = new JpaRepositoryFactory(em);
+        listadoPedidosService = new ListadoPedidosService();
+        ReflectionTestUtils.setField(listadoPedidosService, "pedidoRepository", repositorios.getRepository(IPedidoRepository.class));
+        ReflectionTestUtils.setField(listadoPedidosService, "detallePedidoRepository", repositorios.getRepository(IDetallePedidoRepository.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        em.close();
+        emf.close();
+        contexto.close();
+    }
+
+    @Test
+    void proyeccionesDevuelvenLoMismoQueElMapeoDeEntidades() {
+        List<PedidoResponseDTO> listado = listadoPedidosService.listarTodos();
+
+        assertEquals(List.of(idDelivery, idTakeAway), listado.stream().map(PedidoResponseDTO::getIdPedido).toList());
+        for (PedidoResponseDTO pedido : listado) {
+            em.clear();
+            PedidoResponseDTO esperado = pedidoMapper.toDTO(em.find(Pedido.class, pedido.getIdPedido()));
+
+            assertEquals(esperado.getFecha(), pedido.getFecha());
+            assertEquals(esperado.getTotal(), pedido.getTotal());
+            assertEquals(esperado.getEstado(), pedido.getEstado());
+            assertEquals(esperado.getTipoEnvio(), pedido.getTipoEnvio());
+            assertEquals(esperado.getNombreCliente(), pedido.getNombreCliente());
+            if (esperado.getDomicilio() != null) {
+                // PedidoMapper pasa el domicilio por DomicilioRequestDTO y pierde el id; la proyección lo conserva
+                esperado.getDomicilio().setIdDomicilio(pedido.getDomicilio().getIdDomicilio());
+            }
+            assertEquals(esperado.getDomicilio(), pedido.getDomicilio());
+            assertEquals(esperado.getDetalles(), pedido.getDetalles());
+        }
+
+        PedidoResponseDTO delivery = listado.get(0);
+        assertEquals(20, delivery.getTiempoEstimadoTotal());
+        assertEquals(1, delivery.getResumenPromociones().getCantidadPromociones());
+        assertEquals(List.of("Happy hour"), delivery.getResumenPromociones().getNombresPromociones());
+        assertNull(listado.get(1).getDomicilio());
+    }
+
+    @Test
+    void paginaYFiltrosPorClienteYEstado() {
+        Long idCliente = listadoPedidosService.listarTodos().get(0).getIdCliente();
+
+        assertEquals(List.of(idTakeAway, idDelivery), ids(listadoPedidosService.listarPorCliente(idCliente)));
+        assertEquals(List.of(idDelivery), ids(listadoPedidosService.listarPorEstados(List.of(Estado.PENDIENTE))));
+
+        List<PedidoResponseDTO> primera = listadoPedidosService.listarPagina(null, null, null, null, null, null, 1);
+        assertEquals(List.of(idTakeAway), ids(primera));
+        CursorPedido cursor = new CursorPedido(primera.get(0).getFecha(), primera.get(0).getIdPedido());
+        assertEquals(List.of(idDelivery), ids(listadoPedidosService.listarPagina(null, null, null, null, null, cursor, 1)));
+        assertEquals(List.of(), ids(listadoPedidosService.listarPagina(null, Estado.ENTREGADO, null, null, null, null, 10)));
+    }
+
+    // ==================== DATOS ====================
+
+    private void crearPedidos() {
+        em.getTransaction().begin();
+
+        Empresa empresa = new Empresa();
+        empresa.setNombre("El Buen Sabor");
+        empresa.setRazonSocial("El Buen Sabor SRL");
+        empresa.setCuil(30123456);
+        em.persist(empresa);
+
+        SucursalEmpresa sucursal = new SucursalEmpresa();
+        sucursal.setNombre("Centro");
+        sucursal.setHorarioApertura(LocalTime.of(10, 0));
+        sucursal.setHorarioCierre(LocalTime.of(23, 0));
+        sucursal.setEmpresa(empresa);
+        em.persist(sucursal);
+
+        Cliente cliente = new Cliente();
+        cliente.setNombre("Ana");
+        cliente.setApellido("Pérez");
+        cliente.setTelefono("2610000000");
+        cliente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+        em.persist(cliente);
+
+        Domicilio domicilio = new Domicilio();
+        domicilio.setCalle("San Martín");
+        domicilio.setNumero(1200);
+        domicilio.setCp(5500);
+        domicilio.setLocalidad("Mendoza");
+        domicilio.setCliente(cliente);
+        em.persist(domicilio);
+
+        UnidadMedida unidad = new UnidadMedida();
+        unidad.setDenominacion("Unidad");
+        em.persist(unidad);
+
+        ArticuloInsumo gaseosa = new ArticuloInsumo();
+        gaseosa.setDenominacion("Gaseosa");
+        gaseosa.setPrecioVenta(1000.0);
+        gaseosa.setPrecioCompra(400.0);
+        gaseosa.setStockActual(100);
+        gaseosa.setStockMaximo(200);
+        gaseosa.setUnidadMedida(unidad);
+        em.persist(gaseosa);
+
+        ArticuloManufacturado hamburguesa = new ArticuloManufacturado();
+        hamburguesa.setDenominacion("Hamburguesa");
+        hamburguesa.setPrecioVenta(5000.0);
+        hamburguesa.setTiempoEstimadoEnMinutos(20);
+        hamburguesa.setUnidadMedida(unidad);
+        em.persist(hamburguesa);
+
+        Promocion happyHour = new Promocion();
+        happyHour.setDenominacion("Happy hour");
+        happyHour.setDescripcionDescuento("10% en hamburguesas");
+        happyHour.setFechaDesde(LocalDateTime.of(2025, 1, 1, 0, 0));
+        happyHour.setFechaHasta(LocalDateTime.of(2025, 12, 31, 0, 0));
+        happyHour.setHoraDesde(LocalTime.of(18, 0));
+        happyHour.setHoraHasta(LocalTime.of(20, 0));
+        happyHour.setTipoDescuento(TipoDescuento.PORCENTUAL);
+        happyHour.setValorDescuento(10.0);
+        em.persist(happyHour);
+
+        Pedido delivery = pedido(cliente, sucursal, TipoEnvio.DELIVERY, Estado.PENDIENTE, 1);
+        delivery.setDomicilio(domicilio);
+        agregarDetalle(delivery, hamburguesa, 2, 1000.0, happyHour);
+        agregarDetalle(delivery, gaseosa, 1, 0.0, null);
+        em.persist(delivery);
+
+        Pedido takeAway = pedido(cliente, sucursal, TipoEnvio.TAKE_AWAY, Estado.LISTO, 2);
+        agregarDetalle(takeAway, gaseosa, 3, 0.0, null);
+        em.persist(takeAway);
+
+        em.getTransaction().commit();
+        idDelivery = delivery.getIdPedido();
+        idTakeAway = takeAway.getIdPedido();
+    }
+
+    private Pedido pedido(Cliente cliente, SucursalEmpresa sucursal, TipoEnvio tipoEnvio, Estado estado, int hora) {
+        Pedido pedido = new Pedido();
+        pedido.setFecha(LocalDateTime.of(2025, 6, 1, 20, 0).plusHours(hora));
+        pedido.setEstado(estado);
+        pedido.setTipoEnvio(tipoEnvio);
+        pedido.setTotal(0.0);
+        pedido.setTotalCosto(0.0);
+        pedido.setCliente(cliente);
+        pedido.setSucursal(sucursal);
+        return pedido;
+    }
+
+    private void agregarDetalle(Pedido pedido, Articulo articulo, int cantidad, double descuento, Promocion promocion) {
+        DetallePedido detalle = new DetallePedido();
+        detalle.setArticulo(articulo);
+        detalle.setCantidad(cantidad);
+        detalle.setPrecioUnitarioOriginal(articulo.getPrecioVenta());
+        detalle.setDescuentoPromocion(descuento);
+        detalle.setSubtotal(articulo.getPrecioVenta() * cantidad - descuento);
+        detalle.setPromocionAplicada(promocion);
+        detalle.setPedido(pedido);
+        pedido.getDetalles().add(detalle);
+        pedido.setTotal(pedido.getTotal() + detalle.getSubtotal());
+    }
+
+    private static List<Long> ids(List<PedidoResponseDTO> pedidos) {
+        return pedidos.stream().map(PedidoResponseDTO::getIdPedido).toList();
+    }
+}
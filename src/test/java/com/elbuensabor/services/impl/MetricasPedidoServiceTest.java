@@ -0,0 +1,70 @@
+package com.elbuensabor.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricasPedidoServiceTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MetricasPedidoService metricas = new MetricasPedidoService(registry);
+
+    @Test
+    void cadaEtapaDelPipelineTieneSuTimer() {
+        MetricasPedidoService.Cronometro cronometro = metricas.iniciar(MetricasPedidoService.PIPELINE_PEDIDO);
+        cronometro.etapa("validacion_cliente");
+        cronometro.etapa("validacion_stock");
+        cronometro.etapa("promociones");
+        cronometro.finalizar();
+
+        for (String etapa : new String[]{"validacion_cliente", "validacion_stock", "promociones"}) {
+            assertEquals(1, registry.get("pedido.creacion.etapa")
+                    .tags("pipeline", "pedido", "etapa", etapa, "resultado", "ok")
+                    .timer().count());
+        }
+        assertEquals(1, registry.get("pedido.creacion").tags("pipeline", "pedido", "resultado", "ok").timer().count());
+    }
+
+    @Test
+    void laEtapaQueFallaSeRegistraComoError() {
+        MetricasPedidoService.Cronometro cronometro = metricas.iniciar(MetricasPedidoService.PIPELINE_MERCADOPAGO);
+        cronometro.etapa("calculo_totales");
+        cronometro.etapa("preferencia_mercadopago");
+        cronometro.fallo();
+
+        assertNotNull(registry.find("pedido.creacion.etapa")
+                .tags("etapa", "calculo_totales", "resultado", "ok").timer());
+        assertEquals(1, registry.get("pedido.creacion.etapa")
+                .tags("pipeline", "mercadopago", "etapa", "preferencia_mercadopago", "resultado", "error")
+                .timer().count());
+        assertNull(registry.find("pedido.creacion.etapa")
+                .tags("etapa", "preferencia_mercadopago", "resultado", "ok").timer());
+        assertEquals(1, registry.get("pedido.creacion").tags("resultado", "error").timer().count());
+    }
+
+    @Test
+    void medirRegistraElResultadoAunqueLaOperacionFalle() {
+        metricas.medir(MetricasPedidoService.PIPELINE_PEDIDO, "factura", () -> { });
+        assertThrows(IllegalStateException.class, () -> metricas.medir(MetricasPedidoService.PIPELINE_PEDIDO, "factura",
+                () -> { throw new IllegalStateException("falla"); }));
+
+        assertEquals(1, registry.get("pedido.creacion.etapa").tags("etapa", "factura", "resultado", "ok").timer().count());
+        assertEquals(1, registry.get("pedido.creacion.etapa").tags("etapa", "factura", "resultado", "error").timer().count());
+    }
+
+    @Test
+    void contadoresDeRechazosYPromociones() {
+        metricas.registrarRechazoPorStock(MetricasPedidoService.PIPELINE_PEDIDO);
+        metricas.registrarRechazoPorStock(MetricasPedidoService.PIPELINE_PEDIDO);
+        metricas.registrarPromocionesAplicadas(MetricasPedidoService.PIPELINE_PEDIDO, "individual", 3);
+        metricas.registrarPromocionesAplicadas(MetricasPedidoService.PIPELINE_PEDIDO, "agrupada", 0);
+
+        assertEquals(2, registry.get("pedido.stock.rechazos").counter().count());
+        assertEquals(3, registry.get("pedido.promociones.aplicadas").tags("tipo", "individual").counter().count());
+        assertNull(registry.find("pedido.promociones.aplicadas").tags("tipo", "agrupada").counter());
+    }
+}
@@ -0,0 +1,139 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.MovimientoStockResponseDTO;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovimientoStockServiceTest {
+
+    private static final long HARINA = 1L;
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    private final RelojDePrueba reloj = new RelojDePrueba();
+    private JdbcTemplate jdbcTemplate;
+    private MovimientoStockService movimientoStockService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:movimiento_stock;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        movimientoStockService = new MovimientoStockService(jdbcTemplate, reloj);
+
+        EsquemaStock.crear(jdbcTemplate);
+
+        // Alta del insumo con 100 de stock
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", HARINA, 0);
+        aplicar(TipoMovimientoStock.AJUSTE_MANUAL, 100, null);
+    }
+
+    @Test
+    void laConsolidacionTomaUnaFotoDelStockAlCorte() {
+        reloj.avanzar(Duration.ofMinutes(5));
+        aplicar(TipoMovimientoStock.CONSUMO_PEDIDO, -10, 7L);
+        aplicar(TipoMovimientoStock.RESTAURACION_PEDIDO, 4, 7L);
+        assertEquals(94, stock());
+
+        // Un consumo posterior al corte (ahora - MARGEN_FOTO) no entra en la foto
+        reloj.avanzar(Duration.ofMinutes(2));
+        aplicar(TipoMovimientoStock.CONSUMO_PEDIDO, -20, 8L);
+        movimientoStockService.consolidar();
+
+        assertEquals(74, stock());
+        assertEquals(94, jdbcTemplate.queryForObject("SELECT stock FROM snapshot_stock WHERE id_insumo = ?", Integer.class, HARINA));
+        assertEquals(94, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(6)));
+        assertEquals(74, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(7)));
+
+        // El consumo que quedó afuera entra en la foto siguiente; sin movimientos nuevos no hay otra
+        reloj.avanzar(Duration.ofMinutes(5));
+        movimientoStockService.consolidar();
+        assertEquals(74, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(11)));
+        reloj.avanzar(Duration.ofMinutes(5));
+        movimientoStockService.consolidar();
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM snapshot_stock", Integer.class));
+    }
+
+    @Test
+    void stockEnReconstruyeElStockConYSinFotos() {
+        reloj.avanzar(Duration.ofMinutes(10));
+        aplicar(TipoMovimientoStock.CONSUMO_PEDIDO, -30, 1L);
+
+        // Sin fotos: hacia atrás desde el stock actual
+        assertEquals(0, movimientoStockService.stockEn(HARINA, INICIO.minusMinutes(1)));
+        assertEquals(100, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(5)));
+
+        reloj.avanzar(Duration.ofMinutes(10));
+        movimientoStockService.consolidar();
+        reloj.avanzar(Duration.ofMinutes(5));
+        aplicar(TipoMovimientoStock.COMPRA, 50, null);
+        aplicar(TipoMovimientoStock.RESTAURACION_PEDIDO, 30, 1L);
+
+        // Desde la foto de las 10:19 hacia adelante
+        assertEquals(70, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(22)));
+        assertEquals(150, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(30)));
+        assertEquals(100, movimientoStockService.stockEn(HARINA, INICIO.plusMinutes(5)));
+    }
+
+    @Test
+    void historialDevuelveLosMovimientosDelRangoDelMasReciente() {
+        reloj.avanzar(Duration.ofMinutes(10));
+        aplicar(TipoMovimientoStock.CONSUMO_PEDIDO, -30, 1L);
+        reloj.avanzar(Duration.ofMinutes(10));
+        aplicar(TipoMovimientoStock.COMPRA, 50, null);
+
+        List<MovimientoStockResponseDTO> historial =
+                movimientoStockService.historial(HARINA, INICIO.plusMinutes(1), INICIO.plusHours(1));
+
+        assertEquals(List.of("COMPRA", "CONSUMO_PEDIDO"), historial.stream().map(MovimientoStockResponseDTO::getTipo).toList());
+        assertEquals(-30, historial.get(1).getCantidad());
+        assertEquals(1L, historial.get(1).getIdPedido());
+        assertEquals(INICIO.plusMinutes(10), historial.get(1).getFecha());
+    }
+
+    // ==================== AUXILIARES ====================
+
+    // Como los servicios que escriben el stock: se aplica y se registra en la misma operación
+    private void aplicar(TipoMovimientoStock tipo, int cantidad, Long idPedido) {
+        jdbcTemplate.update("UPDATE articulo_insumo SET stock_actual = stock_actual + ? WHERE id_articulo = ?", cantidad, HARINA);
+        movimientoStockService.registrar(tipo, List.of(new MovimientoStockService.Movimiento(HARINA, cantidad, idPedido)));
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, HARINA);
+    }
+
+    private static class RelojDePrueba extends Clock {
+        private Instant ahora = INICIO.toInstant(ZoneOffset.UTC);
+
+        void avanzar(Duration duracion) {
+            ahora = ahora.plus(duracion);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return ahora;
+        }
+    }
+}
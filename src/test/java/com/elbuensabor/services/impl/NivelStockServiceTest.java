@@ -0,0 +1,93 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.events.StockAjustadoEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NivelStockServiceTest {
+
+    private static final long HARINA = 1L;
+    private static final long QUESO = 2L;
+
+    private final List<String> avisos = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private NivelStockService nivelStockService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:nivel_stock;DB_CLOSE_DELAY=-1", "sa", ""));
+        EsquemaStock.crear(jdbcTemplate);
+        insertar(HARINA, "Harina", 80, 100);
+        insertar(QUESO, "Queso", 20, 100);
+
+        nivelStockService = new NivelStockService();
+        ReflectionTestUtils.setField(nivelStockService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(nivelStockService, "notificationService", new WebSocketNotificationService() {
+            @Override
+            public void notificarNivelStock(Long idInsumo, String denominacion, String tipo, Integer stockActual, Integer stockMaximo) {
+                avisos.add(denominacion + " " + tipo + " " + stockActual);
+            }
+        });
+        nivelStockService.cargar();
+    }
+
+    @Test
+    void soloAvisaCuandoElInsumoCruzaUnUmbral() {
+        assertEquals(Set.of(QUESO), nivelStockService.getCriticos());
+        assertEquals(Set.of(), nivelStockService.getBajos());
+
+        consumir(HARINA, 20);   // 60%: sigue normal
+        consumir(HARINA, 10);   // 50%: bajo
+        consumir(HARINA, 5);    // 45%: sigue bajo
+        consumir(HARINA, 21);   // 24%: crítico
+        consumir(QUESO, 5);     // ya estaba crítico
+
+        assertEquals(List.of("Harina STOCK_BAJO 50", "Harina STOCK_CRITICO 24"), avisos);
+        assertEquals(Set.of(HARINA, QUESO), nivelStockService.getCriticos());
+
+        nivelStockService.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.COMPRA,
+                List.of(new MovimientoStockService.Movimiento(HARINA, 60, null))));
+        assertEquals("Harina STOCK_NORMAL 84", avisos.get(2));
+        assertEquals(Set.of(QUESO), nivelStockService.getCriticos());
+    }
+
+    @Test
+    void altasYCambiosDeMaximoActualizanLosNiveles() {
+        // Alta con stock bajo: se lee de la base con el primer movimiento
+        insertar(3L, "Tomate", 30, 60);
+        nivelStockService.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.AJUSTE_MANUAL,
+                List.of(new MovimientoStockService.Movimiento(3L, 30, null))));
+        assertEquals(List.of("Tomate STOCK_BAJO 30"), avisos);
+        assertEquals(Set.of(3L), nivelStockService.getBajos());
+
+        // Bajar el máximo del queso lo saca de crítico
+        nivelStockService.actualizarInsumo(QUESO, "Queso", 40);
+        assertEquals(Set.of(QUESO, 3L), nivelStockService.getBajos());
+        assertEquals(Set.of(), nivelStockService.getCriticos());
+        assertEquals("Queso STOCK_BAJO 20", avisos.get(1));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void insertar(long id, String denominacion, int stock, int stockMaximo) {
+        jdbcTemplate.update("INSERT INTO articulo (id_articulo, denominacion) VALUES (?, ?)", id, denominacion);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual, stock_maximo) VALUES (?, ?, ?)", id, stock, stockMaximo);
+    }
+
+    private void consumir(long idInsumo, int cantidad) {
+        nivelStockService.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.CONSUMO_PEDIDO,
+                List.of(new MovimientoStockService.Movimiento(idInsumo, -cantidad, 1L))));
+    }
+}
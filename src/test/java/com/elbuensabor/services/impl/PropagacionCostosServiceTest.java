@@ -0,0 +1,115 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PropagacionCostosServiceTest {
+
+    private static final long PAN = 1L;
+    private static final long QUESO = 2L;
+    private static final long TOMATE = 3L;
+    private static final long HAMBURGUESA = 10L;
+    private static final long SANDWICH = 11L;
+    private static final long ENSALADA = 12L;
+
+    private final List<Integer> batches = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private RecetaCacheService recetaCacheService;
+    private VersionCatalogoService versionCatalogoService;
+    private PropagacionCostosService propagacion;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:propagacion_costos;DB_CLOSE_DELAY=-1", "sa", "")) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> parametros) {
+                batches.add(parametros.size());
+                return super.batchUpdate(sql, parametros);
+            }
+        };
+        EsquemaStock.crear(jdbcTemplate);
+        for (long id : new long[]{HAMBURGUESA, SANDWICH, ENSALADA}) {
+            jdbcTemplate.update("INSERT INTO articulo (id_articulo, precio_venta) VALUES (?, ?)", id, 1.0);
+        }
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, precio_compra) VALUES (?, ?)", PAN, 100.0);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, precio_compra) VALUES (?, ?)", QUESO, 300.0);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, precio_compra) VALUES (?, ?)", TOMATE, 50.0);
+        jdbcTemplate.update("INSERT INTO articulo_manufacturado VALUES (?, ?)", HAMBURGUESA, 1.5);
+        jdbcTemplate.update("INSERT INTO articulo_manufacturado VALUES (?, ?)", SANDWICH, null);
+        jdbcTemplate.update("INSERT INTO articulo_manufacturado VALUES (?, ?)", ENSALADA, 3.0);
+
+        recetaCacheService = new RecetaCacheService();
+        recetaCacheService.actualizar(manufacturado(HAMBURGUESA, PAN, 2.0, QUESO, 1.0));
+        recetaCacheService.actualizar(manufacturado(SANDWICH, PAN, 1.0, QUESO, 0.5));
+        recetaCacheService.actualizar(manufacturado(ENSALADA, TOMATE, 2.0));
+
+        versionCatalogoService = new VersionCatalogoService();
+        propagacion = new PropagacionCostosService(jdbcTemplate, recetaCacheService, versionCatalogoService);
+    }
+
+    @Test
+    void variosInsumosRecalculanCadaProductoUnaVezEnUnSoloBatch() {
+        String version = versionCatalogoService.actual();
+
+        // Pan y queso cambian juntos; los precios recibidos ganan sobre los de la base
+        int actualizados = propagacion.propagar(Map.of(PAN, 120.0, QUESO, 400.0));
+
+        assertEquals(2, actualizados);
+        assertEquals(List.of(2), batches);
+        assertEquals((2 * 120.0 + 400.0) * 1.5, precioVenta(HAMBURGUESA), 0.001);
+        // Sin margen cargado se usa el de siempre
+        assertEquals((120.0 + 0.5 * 400.0) * PropagacionCostosService.MARGEN_POR_DEFECTO, precioVenta(SANDWICH), 0.001);
+        assertEquals(1.0, precioVenta(ENSALADA), 0.001);
+        assertNotEquals(version, versionCatalogoService.actual());
+    }
+
+    @Test
+    void elIndiceInversoSigueLosCambiosDeReceta() {
+        // La ensalada pasa a llevar queso y la hamburguesa se queda sin receta
+        recetaCacheService.actualizar(manufacturado(ENSALADA, TOMATE, 2.0, QUESO, 0.1));
+        recetaCacheService.invalidar(HAMBURGUESA);
+
+        assertEquals(2, propagacion.propagar(Map.of(QUESO, 200.0)));
+        assertEquals((2 * 50.0 + 0.1 * 200.0) * 3.0, precioVenta(ENSALADA), 0.001);
+        assertEquals(1.0, precioVenta(HAMBURGUESA), 0.001);
+
+        assertEquals(0, propagacion.propagar(Map.of(99L, 10.0)));
+        assertEquals(List.of(2), batches);
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private double precioVenta(long idArticulo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT precio_venta FROM articulo WHERE id_articulo = ?", Double.class, idArticulo);
+    }
+
+    private ArticuloManufacturado manufacturado(long id, Object... ingredientes) {
+        ArticuloManufacturado manufacturado = new ArticuloManufacturado();
+        manufacturado.setIdArticulo(id);
+        for (int i = 0; i < ingredientes.length; i += 2) {
+            ArticuloInsumo insumo = new ArticuloInsumo();
+            insumo.setIdArticulo((Long) ingredientes[i]);
+            ArticuloManufacturadoDetalle detalle = new ArticuloManufacturadoDetalle();
+            detalle.setArticuloManufacturado(manufacturado);
+            detalle.setArticuloInsumo(insumo);
+            detalle.setCantidad((Double) ingredientes[i + 1]);
+            manufacturado.getDetalles().add(detalle);
+        }
+        return manufacturado;
+    }
+}
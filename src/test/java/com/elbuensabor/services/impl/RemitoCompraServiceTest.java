@@ -0,0 +1,150 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO;
+import com.elbuensabor.dto.response.RemitoCompraResponseDTO.ResultadoItemDTO;
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RemitoCompraServiceTest {
+
+    private static final long PAN = 1L;
+    private static final long QUESO = 2L;
+    private static final long HAMBURGUESA = 10L;
+
+    private final List<String> batches = new ArrayList<>();
+
+    private JdbcTemplate jdbcTemplate;
+    private CostoInsumoService costoInsumoService;
+    private RemitoCompraService remitoCompraService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:remito_compra;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> parametros) {
+                batches.add(sql.substring(0, sql.indexOf(' ', 7)));
+                return super.batchUpdate(sql, parametros);
+            }
+        };
+
+        RecetaCacheService recetaCacheService = new RecetaCacheService();
+        recetaCacheService.actualizar(hamburguesa());
+        VersionCatalogoService versionCatalogoService = new VersionCatalogoService();
+        costoInsumoService = new CostoInsumoService();
+        ReflectionTestUtils.setField(costoInsumoService, "jdbcTemplate", jdbcTemplate);
+        remitoCompraService = new RemitoCompraService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                new MovimientoStockService(jdbcTemplate),
+                new PropagacionCostosService(jdbcTemplate, recetaCacheService, versionCatalogoService),
+                versionCatalogoService, costoInsumoService, new ObjectMapper().findAndRegisterModules());
+
+        EsquemaStock.crear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO articulo (id_articulo, precio_venta) VALUES (?, ?)", HAMBURGUESA, 1.0);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual, precio_compra, costo_promedio) VALUES (?, ?, ?, ?)", PAN, 10, 100.0, null);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual, precio_compra, costo_promedio) VALUES (?, ?, ?, ?)", QUESO, 5, 300.0, 280.0);
+        jdbcTemplate.update("INSERT INTO articulo_manufacturado VALUES (?, ?)", HAMBURGUESA, 2.0);
+    }
+
+    @Test
+    void elRemitoSumaStockPorInsumoYRecalculaLosCostosUnaVez() {
+        // Las últimas compras del pan ya están en memoria: el remito las completa sin releer
+        assertEquals(List.of(), costoInsumoService.ultimasCompras(PAN));
+
+        RemitoCompraResponseDTO resultado = remitoCompraService.registrar(new StringReader("""
+                [
+                  {"insumoId": 1, "cantidad": 20, "precioUnitario": 110, "fechaCompra": "2026-10-01"},
+                  {"insumoId": 2, "cantidad": 10, "precioUnitario": 350},
+                  {"insumoId": 99, "cantidad": 5, "precioUnitario": 10},
+                  {"insumoId": 1, "cantidad": 0, "precioUnitario": 90},
+                  {"insumoId": 1, "cantidad": 30, "precioUnitario": 120}
+                ]
+                """));
+
+        assertEquals(5, resultado.getItems());
+        assertEquals(3, resultado.getRegistradas());
+        assertEquals(2, resultado.getInsumos());
+        assertEquals(1, resultado.getProductosRecalculados());
+        List<ResultadoItemDTO> items = resultado.getResultados();
+        assertEquals("Insumo no encontrado con ID: 99", items.get(2).getError());
+        assertEquals("La cantidad debe ser mayor a 0", items.get(3).getError());
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM compra_insumo", Integer.class));
+        assertEquals(60, stock(PAN));
+        assertEquals(15, stock(QUESO));
+        // Un movimiento por insumo y el último precio del remito como precio de compra
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimiento_stock WHERE tipo = 'COMPRA'", Integer.class));
+        assertEquals(120.0, jdbcTemplate.queryForObject(
+                "SELECT precio_compra FROM articulo_insumo WHERE id_articulo = ?", Double.class, PAN));
+        assertEquals((2 * 120.0 + 350.0) * 2.0, jdbcTemplate.queryForObject(
+                "SELECT precio_venta FROM articulo WHERE id_articulo = ?", Double.class, HAMBURGUESA), 0.001);
+
+        // Promedio ponderado con el stock anterior: sin promedio previo el stock vale el precio de compra
+        assertEquals((10 * 100.0 + 20 * 110.0 + 30 * 120.0) / 60, costoPromedio(PAN), 0.001);
+        assertEquals((5 * 280.0 + 10 * 350.0) / 15, costoPromedio(QUESO), 0.001);
+        assertEquals(List.of(120.0, 110.0), costoInsumoService.ultimasCompras(PAN).stream()
+                .map(CostoInsumoService.Compra::precioUnitario).toList());
+
+        // Compras con un batch con claves generadas; stock, libro y precios de venta con uno cada uno
+        assertEquals(List.of("UPDATE articulo_insumo", "INSERT INTO", "UPDATE articulo"), batches);
+    }
+
+    @Test
+    void unJsonMalFormadoCancelaElRemitoCompleto() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () ->
+                remitoCompraService.registrar(new StringReader("""
+                        {"insumoId": 1, "cantidad": 20, "precioUnitario": 110}
+                        {"insumoId": 2, "cantidad": "muchos", "precioUnitario": 350}
+                        """)));
+
+        assertTrue(error.getMessage().startsWith("Remito inválido en el ítem 2"), error.getMessage());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM compra_insumo", Integer.class));
+        assertEquals(10, stock(PAN));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private double costoPromedio(long idInsumo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT costo_promedio FROM articulo_insumo WHERE id_articulo = ?", Double.class, idInsumo);
+    }
+
+    private int stock(long idInsumo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, idInsumo);
+    }
+
+    private ArticuloManufacturado hamburguesa() {
+        ArticuloManufacturado hamburguesa = new ArticuloManufacturado();
+        hamburguesa.setIdArticulo(HAMBURGUESA);
+        hamburguesa.getDetalles().add(ingrediente(hamburguesa, PAN, 2.0));
+        hamburguesa.getDetalles().add(ingrediente(hamburguesa, QUESO, 1.0));
+        return hamburguesa;
+    }
+
+    private ArticuloManufacturadoDetalle ingrediente(ArticuloManufacturado manufacturado, long idInsumo, double cantidad) {
+        ArticuloInsumo insumo = new ArticuloInsumo();
+        insumo.setIdArticulo(idInsumo);
+        ArticuloManufacturadoDetalle detalle = new ArticuloManufacturadoDetalle();
+        detalle.setArticuloManufacturado(manufacturado);
+        detalle.setArticuloInsumo(insumo);
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+}
@@ -0,0 +1,234 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.ArticuloInsumo;
+import com.elbuensabor.entities.ArticuloManufacturado;
+import com.elbuensabor.entities.ArticuloManufacturadoDetalle;
+import com.elbuensabor.entities.DetallePedido;
+import com.elbuensabor.entities.Pedido;
+import com.elbuensabor.entities.TipoMovimientoStock;
+import com.elbuensabor.events.StockAjustadoEvent;
+import com.elbuensabor.exceptions.StockInsuficienteException;
+import com.elbuensabor.repository.IPedidoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReservaStockMemoriaServiceTest {
+
+    private static final long PAN = 1L;
+    private static final long QUESO = 2L;
+
+    private final AtomicLong idsPedido = new AtomicLong();
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ReservaStockMemoriaService reservaStockMemoria;
+    private ConsumoStockService consumoStockService;
+    private IPedidoRepository pedidoRepository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:reserva_stock;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        RecetaCacheService recetaCacheService = new RecetaCacheService();
+        recetaCacheService.actualizar(hamburguesa());
+        recetaCacheService.actualizar(sinReceta());
+        pedidoRepository = mock(IPedidoRepository.class);
+        MovimientoStockService movimientoStockService = new MovimientoStockService(jdbcTemplate);
+        consumoStockService = new ConsumoStockService(jdbcTemplate, recetaCacheService, movimientoStockService);
+        reservaStockMemoria = new ReservaStockMemoriaService(jdbcTemplate, transactionManager,
+                movimientoStockService, pedidoRepository, consumoStockService);
+        ReflectionTestUtils.setField(consumoStockService, "reservaStockMemoria", reservaStockMemoria);
+
+        EsquemaStock.crear(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", PAN, 1000);
+        jdbcTemplate.update("INSERT INTO articulo_insumo (id_articulo, stock_actual) VALUES (?, ?)", QUESO, 50);
+
+        reservaStockMemoria.cargar();
+    }
+
+    @Test
+    void reservasConcurrentesNoSobrevendenYSeVuelcanEnLote() throws Exception {
+        AtomicInteger exitosos = new AtomicInteger();
+
+        ejecutarEnParalelo(200, () -> {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        consumoStockService.descontarStock(pedidoDeHamburguesas(1)));
+                exitosos.incrementAndGet();
+            } catch (StockInsuficienteException e) {
+                // Sin queso
+            }
+        });
+
+        // Queso limita a 50 hamburguesas; la base todavía no se enteró
+        assertEquals(50, exitosos.get());
+        assertEquals(0, reservaStockMemoria.disponible(QUESO));
+        assertEquals(50, stock(QUESO));
+
+        reservaStockMemoria.volcar();
+
+        assertEquals(0, stock(QUESO));
+        assertEquals(1000 - 2 * 50, stock(PAN));
+        assertEquals(100, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movimiento_stock WHERE tipo = 'CONSUMO_PEDIDO'", Integer.class));
+    }
+
+    @Test
+    void unRollbackDevuelveLaReservaYNoSeVuelca() {
+        transactionTemplate.executeWithoutResult(status -> {
+            consumoStockService.descontarStock(pedidoDeHamburguesas(10));
+            assertEquals(40, reservaStockMemoria.disponible(QUESO));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(50, reservaStockMemoria.disponible(QUESO));
+        reservaStockMemoria.volcar();
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimiento_stock", Integer.class));
+    }
+
+    @Test
+    void restauracionesYAjustesDeLaBaseLleganALosContadores() {
+        Pedido pedido = pedidoDeHamburguesas(50);
+        transactionTemplate.executeWithoutResult(status -> consumoStockService.descontarStock(pedido));
+        assertThrows(StockInsuficienteException.class, () -> transactionTemplate.executeWithoutResult(status ->
+                consumoStockService.descontarStock(pedidoDeHamburguesas(1))));
+
+        transactionTemplate.executeWithoutResult(status -> consumoStockService.restaurarStock(pedido));
+        assertEquals(50, reservaStockMemoria.disponible(QUESO));
+
+        // Una compra escrita en la base (CompraInsumoServiceImpl) suma al contador
+        reservaStockMemoria.onStockAjustado(new StockAjustadoEvent(TipoMovimientoStock.COMPRA,
+                List.of(new MovimientoStockService.Movimiento(QUESO, 20, null))));
+        assertEquals(70, reservaStockMemoria.disponible(QUESO));
+
+        reservaStockMemoria.volcar();
+        // Consumo y restauración se anulan en el UPDATE; el libro guarda los dos
+        assertEquals(50, stock(QUESO));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT SUM(cantidad) FROM movimiento_stock WHERE id_insumo = ?", Integer.class, QUESO));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movimiento_stock", Integer.class));
+    }
+
+    @Test
+    void laReconciliacionIgnoraLosPedidosSinConsumo() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS pedido");
+        jdbcTemplate.execute("CREATE TABLE pedido (id_pedido BIGINT PRIMARY KEY, estado VARCHAR(20), fecha TIMESTAMP)");
+        LocalDateTime ahora = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO movimiento_stock (id_insumo, tipo, cantidad, id_pedido, fecha) VALUES (?, ?, ?, ?, ?)",
+                PAN, "CONSUMO_PEDIDO", -2, 100L, ahora.minusHours(1));
+
+        // Los dos quedaron en preparación sin movimiento: uno por una caída, el otro no consume nada
+        Pedido hamburguesas = pedidoDeHamburguesas(3);
+        Pedido sinConsumo = pedido(sinReceta(), 2);
+        for (Pedido pedido : List.of(hamburguesas, sinConsumo)) {
+            jdbcTemplate.update("INSERT INTO pedido (id_pedido, estado, fecha) VALUES (?, 'PREPARACION', ?)",
+                    pedido.getIdPedido(), ahora);
+        }
+        when(pedidoRepository.findAllById(List.of(hamburguesas.getIdPedido(), sinConsumo.getIdPedido())))
+                .thenReturn(List.of(hamburguesas, sinConsumo));
+
+        assertEquals(1, reconciliar(ahora.minusDays(1)));
+        assertEquals(50 - 3, stock(QUESO));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movimiento_stock WHERE id_pedido = ?", Integer.class, sinConsumo.getIdPedido()));
+
+        // En el arranque siguiente el pedido sin consumo no vuelve a reconciliarse
+        when(pedidoRepository.findAllById(List.of(sinConsumo.getIdPedido()))).thenReturn(List.of(sinConsumo));
+        assertEquals(0, reconciliar(ahora.minusDays(1)));
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void ejecutarEnParalelo(int tareas, Runnable tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < tareas; i++) {
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                tarea.run();
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private int reconciliar(LocalDateTime desde) {
+        return transactionTemplate.execute(status -> reservaStockMemoria.reconciliarPedidos(desde));
+    }
+
+    private int stock(long idInsumo) {
+        return jdbcTemplate.queryForObject(
+                "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, idInsumo);
+    }
+
+    private Pedido pedidoDeHamburguesas(int cantidad) {
+        return pedido(hamburguesa(), cantidad);
+    }
+
+    private Pedido pedido(ArticuloManufacturado articulo, int cantidad) {
+        Pedido pedido = new Pedido();
+        pedido.setIdPedido(idsPedido.incrementAndGet());
+        DetallePedido detalle = new DetallePedido();
+        detalle.setArticulo(articulo);
+        detalle.setCantidad(cantidad);
+        pedido.getDetalles().add(detalle);
+        return pedido;
+    }
+
+    // Producto todavía sin receta cargada: no consume insumos
+    private ArticuloManufacturado sinReceta() {
+        ArticuloManufacturado manufacturado = new ArticuloManufacturado();
+        manufacturado.setIdArticulo(20L);
+        return manufacturado;
+    }
+
+    private ArticuloManufacturado hamburguesa() {
+        ArticuloManufacturado hamburguesa = new ArticuloManufacturado();
+        hamburguesa.setIdArticulo(10L);
+        hamburguesa.getDetalles().add(ingrediente(hamburguesa, PAN, 2.0));
+        hamburguesa.getDetalles().add(ingrediente(hamburguesa, QUESO, 1.0));
+        return hamburguesa;
+    }
+
+    private ArticuloManufacturadoDetalle ingrediente(ArticuloManufacturado manufacturado, long idInsumo, double cantidad) {
+        ArticuloInsumo insumo = new ArticuloInsumo();
+        insumo.setIdArticulo(idInsumo);
+        ArticuloManufacturadoDetalle detalle = new ArticuloManufacturadoDetalle();
+        detalle.setArticuloManufacturado(manufacturado);
+        detalle.setArticuloInsumo(insumo);
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+}
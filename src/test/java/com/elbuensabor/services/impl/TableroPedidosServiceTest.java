@@ -0,0 +1,95 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.dto.response.PedidoResponseDTO;
+import com.elbuensabor.dto.response.TableroPedidosDTO;
+import com.elbuensabor.entities.Estado;
+import com.elbuensabor.entities.TipoEnvio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableroPedidosServiceTest {
+
+    private final TableroPedidosService tablero = new TableroPedidosService();
+
+    @BeforeEach
+    void cargar() {
+        tablero.cargar(List.of(
+                pedido(2L, "PENDIENTE", "DELIVERY", 2),
+                pedido(1L, "PENDIENTE", "TAKE_AWAY", 1),
+                pedido(3L, "LISTO", "DELIVERY", 3),
+                pedido(4L, "ENTREGADO", "DELIVERY", 4)));
+    }
+
+    @Test
+    void listaPorEstadoYTipoEnvioOrdenadoPorFecha() {
+        assertEquals(List.of(1L, 2L), ids(tablero.listar(Estado.PENDIENTE, null)));
+        assertEquals(List.of(3L), ids(tablero.listar(Estado.LISTO, TipoEnvio.DELIVERY)));
+        assertEquals(List.of(), ids(tablero.listar(Estado.LISTO, TipoEnvio.TAKE_AWAY)));
+    }
+
+    @Test
+    void cambiosDesdeUnaVersionInformanModificadosYEliminados() {
+        long version = tablero.getVersion();
+
+        tablero.actualizar(pedido(1L, "PREPARACION", "TAKE_AWAY", 1));
+        tablero.actualizar(pedido(3L, "ENTREGADO", "DELIVERY", 3));
+        tablero.actualizar(pedido(5L, "PENDIENTE", "DELIVERY", 5));
+
+        TableroPedidosDTO pendientes = tablero.cambiosDesde(version, Estado.PENDIENTE, null);
+        assertFalse(pendientes.isCompleto());
+        assertEquals(List.of(5L), ids(pendientes.getPedidos()));
+        assertTrue(pendientes.getEliminados().containsAll(List.of(1L, 3L)));
+
+        TableroPedidosDTO sinCambios = tablero.cambiosDesde(pendientes.getVersion(), Estado.PENDIENTE, null);
+        assertEquals(List.of(), sinCambios.getPedidos());
+        assertEquals(List.of(), sinCambios.getEliminados());
+    }
+
+    @Test
+    void versionDesconocidaDevuelveElTableroCompleto() {
+        TableroPedidosDTO sinVersion = tablero.cambiosDesde(null, null, null);
+        assertTrue(sinVersion.isCompleto());
+        assertEquals(List.of(1L, 2L, 3L), ids(sinVersion.getPedidos()));
+
+        // Versión de antes de la carga (un reinicio, por ejemplo)
+        assertTrue(tablero.cambiosDesde(sinVersion.getVersion() - 1, null, null).isCompleto());
+    }
+
+    @Test
+    void dentroDeUnaTransaccionSeAplicaRecienAlConfirmar() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tablero.actualizar(pedido(2L, "CANCELADO", "DELIVERY", 2));
+            assertEquals(List.of(1L, 2L), ids(tablero.listar(Estado.PENDIENTE, null)));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(1L), ids(tablero.listar(Estado.PENDIENTE, null)));
+    }
+
+    // ==================== DATOS ====================
+
+    private static PedidoResponseDTO pedido(Long id, String estado, String tipoEnvio, int minuto) {
+        PedidoResponseDTO pedido = new PedidoResponseDTO();
+        pedido.setIdPedido(id);
+        pedido.setEstado(estado);
+        pedido.setTipoEnvio(tipoEnvio);
+        pedido.setFecha(LocalDateTime.of(2025, 6, 1, 20, minuto));
+        return pedido;
+    }
+
+    private static List<Long> ids(List<PedidoResponseDTO> pedidos) {
+        return pedidos.stream().map(PedidoResponseDTO::getIdPedido).toList();
+    }
+}
@@ -0,0 +1,334 @@
+package com.elbuensabor.services.impl;
+
+import com.elbuensabor.entities.*;
+import com.elbuensabor.exceptions.ConflictoPedidoException;
+import com.elbuensabor.repository.IPedidoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cambios de estado concurrentes sobre el mismo pedido: un solo cambio se aplica, el stock
+ * se descuenta o restaura una vez y los que llegan tarde reciben el pedido o un conflicto.
+ */
+class TransicionPedidoServiceTest {
+
+    private static final int STOCK_GASEOSA = 100;
+    private static final int GASEOSAS_POR_PEDIDO = 2;
+
+    private AnnotationConfigApplicationContext contexto;
+    private EntityManagerFactory emf;
+    private JdbcTemplate jdbcTemplate;
+    private IPedidoRepository pedidoRepository;
+    private MovimientoStockService movimientoStockService;
+    private TransicionPedidoService transicionPedidoService;
+
+    private Long idGaseosa;
+
+    @BeforeEach
+    void setUp() {
+        contexto = new AnnotationConfigApplicationContext(VersionCatalogoService.class);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:transicion_pedidos;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000", "sa", "");
+        LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setPackagesToScan("com.elbuensabor.entities");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.resource.beans.container", new SpringBeanContainer(contexto.getBeanFactory())));
+        factoryBean.afterPropertiesSet();
+        emf = factoryBean.getObject();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // EntityManager compartido: cada hilo usa el de su transacción
+        pedidoRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(emf))
+                .getRepository(IPedidoRepository.class);
+        movimientoStockService = new MovimientoStockService(jdbcTemplate);
+        transicionPedidoService = new TransicionPedidoService();
+        ReflectionTestUtils.setField(transicionPedidoService, "pedidoRepository", pedidoRepository);
+        ReflectionTestUtils.setField(transicionPedidoService, "consumoStockService",
+                new ConsumoStockService(jdbcTemplate, new RecetaCacheService(), movimientoStockService));
+        ReflectionTestUtils.setField(transicionPedidoService, "transactionManager", new JpaTransactionManager(emf));
+    }
+
+    @AfterEach
+    void tearDown() {
+        emf.close();
+        contexto.close();
+    }
+
+    @Test
+    void confirmacionesConcurrentesDescuentanElStockUnaSolaVez() throws Exception {
+        Long idPedido = crearPedido(Estado.PENDIENTE, STOCK_GASEOSA);
+        AtomicInteger aplicadas = new AtomicInteger();
+        AtomicInteger yaAplicadas = new AtomicInteger();
+
+        ejecutarEnParalelo(16, i -> {
+            TransicionPedido transicion = i % 2 == 0 ? TransicionPedido.CONFIRMAR : TransicionPedido.PREPARAR;
+            boolean aplicada = transicionPedidoService.ejecutar(idPedido, transicion, (pedido, cambio) -> cambio);
+            (aplicada ? aplicadas : yaAplicadas).incrementAndGet();
+        });
+
+        assertEquals(1, aplicadas.get());
+        assertEquals(15, yaAplicadas.get());
+        assertEquals(STOCK_GASEOSA - GASEOSAS_POR_PEDIDO, stockGaseosa());
+        assertEquals("PREPARACION", estado(idPedido));
+        assertEquals(1L, version(idPedido));
+    }
+
+    @Test
+    void cancelacionYEntregaConcurrentesDejanUnSoloGanador() throws Exception {
+        Long idPedido = crearPedido(Estado.LISTO, STOCK_GASEOSA - GASEOSAS_POR_PEDIDO);
+        AtomicInteger aplicadas = new AtomicInteger();
+        AtomicInteger conflictos = new AtomicInteger();
+
+        ejecutarEnParalelo(16, i -> {
+            TransicionPedido transicion = i % 2 == 0 ? TransicionPedido.CANCELAR : TransicionPedido.ENTREGAR;
+            try {
+                if (transicionPedidoService.ejecutar(idPedido, transicion, (pedido, cambio) -> cambio)) {
+                    aplicadas.incrementAndGet();
+                }
+            } catch (ConflictoPedidoException e) {
+                conflictos.incrementAndGet();
+            }
+        });
+
+        // Los 8 del cambio que perdió encuentran el pedido en un estado desde el que ya no se puede
+        assertEquals(1, aplicadas.get());
+        assertEquals(8, conflictos.get());
+        if (estado(idPedido).equals("CANCELADO")) {
+            assertEquals(STOCK_GASEOSA, stockGaseosa());
+        } else {
+            assertEquals("ENTREGADO", estado(idPedido));
+            assertEquals(STOCK_GASEOSA - GASEOSAS_POR_PEDIDO, stockGaseosa());
+        }
+    }
+
+    @Test
+    void transicionNoPermitidaSeRechazaConConflicto() {
+        Long idPedido = crearPedido(Estado.PENDIENTE, STOCK_GASEOSA);
+
+        ConflictoPedidoException conflicto = assertThrows(ConflictoPedidoException.class,
+                () -> transicionPedidoService.ejecutar(idPedido, TransicionPedido.MARCAR_LISTO, (pedido, cambio) -> cambio));
+
+        assertTrue(conflicto.getMessage().contains("PENDIENTE"));
+        assertEquals("PENDIENTE", estado(idPedido));
+        assertEquals(0L, version(idPedido));
+    }
+
+    @Test
+    void conflictoQueSeRepiteAgotaLosReintentos() {
+        Long idPedido = crearPedido(Estado.PENDIENTE, STOCK_GASEOSA);
+        IPedidoRepository conConflicto = mock(IPedidoRepository.class);
+        when(conConflicto.findById(idPedido)).thenAnswer(invocacion -> pedidoRepository.findById(idPedido));
+        when(conConflicto.saveAndFlush(any())).thenThrow(new ObjectOptimisticLockingFailureException(Pedido.class, idPedido));
+        ReflectionTestUtils.setField(transicionPedidoService, "pedidoRepository", conConflicto);
+
+        assertThrows(ConflictoPedidoException.class,
+                () -> transicionPedidoService.ejecutar(idPedido, TransicionPedido.CONFIRMAR, (pedido, cambio) -> cambio));
+
+        verify(conConflicto, times(TransicionPedidoService.MAX_INTENTOS)).saveAndFlush(any());
+        assertEquals(STOCK_GASEOSA, stockGaseosa());
+        assertEquals("PENDIENTE", estado(idPedido));
+    }
+
+    @Test
+    void loteAplicaLosQueAlcanzanYRechazaElRestoPorPedido() {
+        List<Long> ids = crearPedidos(Estado.PENDIENTE, 5, 4);
+        List<Long> pedidosLote = new ArrayList<>(ids);
+        pedidosLote.add(999_999L);
+
+        TransicionPedidoService.ResultadoLote resultado =
+                transicionPedidoService.ejecutarLote(pedidosLote, TransicionPedido.CONFIRMAR, lote -> lote);
+
+        // El stock alcanza para dos pedidos: se descuenta una sola vez, sumado, y los más viejos pasan primero
+        assertEquals(ids.subList(0, 2), resultado.aplicados().stream().map(Pedido::getIdPedido).toList());
+        assertEquals("Stock insuficiente para preparar el pedido", resultado.rechazados().get(ids.get(2)));
+        assertEquals("Stock insuficiente para preparar el pedido", resultado.rechazados().get(ids.get(3)));
+        assertEquals("Pedido no encontrado", resultado.rechazados().get(999_999L));
+        assertEquals(1, stockGaseosa());
+        assertEquals("PREPARACION", estado(ids.get(1)));
+        assertEquals("PENDIENTE", estado(ids.get(2)));
+
+        // Repetir el lote no vuelve a descontar
+        resultado = transicionPedidoService.ejecutarLote(ids.subList(0, 2), TransicionPedido.PREPARAR, lote -> lote);
+        assertEquals(2, resultado.sinCambios().size());
+        assertEquals(1, stockGaseosa());
+    }
+
+    @Test
+    void loteYCancelacionesIndividualesConcurrentesNoPierdenStock() throws Exception {
+        int pedidos = 10;
+        List<Long> ids = crearPedidos(Estado.LISTO, STOCK_GASEOSA - pedidos * GASEOSAS_POR_PEDIDO, pedidos);
+        AtomicInteger cancelaciones = new AtomicInteger();
+        AtomicInteger entregasEnLote = new AtomicInteger();
+
+        ejecutarEnParalelo(pedidos + 1, i -> {
+            try {
+                if (i == pedidos) {
+                    entregasEnLote.set(transicionPedidoService.ejecutarLote(ids, TransicionPedido.ENTREGAR,
+                            lote -> lote.aplicados().size()));
+                } else if (transicionPedidoService.ejecutar(ids.get(i), TransicionPedido.CANCELAR, (pedido, cambio) -> cambio)) {
+                    cancelaciones.incrementAndGet();
+                }
+            } catch (ConflictoPedidoException e) {
+                // Cancelación de un pedido ya entregado, o el lote agotó los reintentos
+            }
+        });
+
+        int cancelados = (int) ids.stream().filter(id -> estado(id).equals("CANCELADO")).count();
+        int entregados = (int) ids.stream().filter(id -> estado(id).equals("ENTREGADO")).count();
+        assertEquals(cancelaciones.get(), cancelados);
+        assertEquals(entregasEnLote.get(), entregados);
+        assertEquals(pedidos, cancelados + entregados);
+        assertEquals(STOCK_GASEOSA - entregados * GASEOSAS_POR_PEDIDO, stockGaseosa());
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private interface Tarea {
+        void ejecutar(int indice);
+    }
+
+    private void ejecutarEnParalelo(int tareas, Tarea tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tareas);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < tareas; i++) {
+            int indice = i;
+            resultados.add(executor.submit(() -> {
+                largada.await();
+                tarea.ejecutar(indice);
+                return null;
+            }));
+        }
+
+        largada.countDown();
+        for (Future<?> resultado : resultados) {
+            resultado.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    // Stock con las restauraciones pendientes del libro ya aplicadas
+    private int stockGaseosa() {
+        movimientoStockService.consolidar();
+        return jdbcTemplate.queryForObject(
+                "SELECT stock_actual FROM articulo_insumo WHERE id_articulo = ?", Integer.class, idGaseosa);
+    }
+
+    private String estado(Long idPedido) {
+        return jdbcTemplate.queryForObject("SELECT estado FROM pedido WHERE id_pedido = ?", String.class, idPedido);
+    }
+
+    private Long version(Long idPedido) {
+        return jdbcTemplate.queryForObject("SELECT version FROM pedido WHERE id_pedido = ?", Long.class, idPedido);
+    }
+
+    // ==================== DATOS ====================
+
+    private Long crearPedido(Estado estado, int stockGaseosa) {
+        return crearPedidos(estado, stockGaseosa, 1).get(0);
+    }
+
+    private List<Long> crearPedidos(Estado estado, int stockGaseosa, int cantidad) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Empresa empresa = new Empresa();
+            empresa.setNombre("El Buen Sabor");
+            empresa.setRazonSocial("El Buen Sabor SRL");
+            empresa.setCuil(30123456);
+            em.persist(empresa);
+
+            SucursalEmpresa sucursal = new SucursalEmpresa();
+            sucursal.setNombre("Centro");
+            sucursal.setHorarioApertura(LocalTime.of(10, 0));
+            sucursal.setHorarioCierre(LocalTime.of(23, 0));
+            sucursal.setEmpresa(empresa);
+            em.persist(sucursal);
+
+            Cliente cliente = new Cliente();
+            cliente.setNombre("Ana");
+            cliente.setApellido("Pérez");
+            cliente.setTelefono("2610000000");
+            cliente.setFechaNacimiento(LocalDate.of(1990, 1, 1));
+            em.persist(cliente);
+
+            ArticuloInsumo gaseosa = new ArticuloInsumo();
+            gaseosa.setDenominacion("Gaseosa");
+            gaseosa.setPrecioVenta(1000.0);
+            gaseosa.setPrecioCompra(400.0);
+            gaseosa.setStockActual(stockGaseosa);
+            gaseosa.setStockMaximo(200);
+            em.persist(gaseosa);
+
+            List<Pedido> pedidos = new ArrayList<>();
+            for (int i = 0; i < cantidad; i++) {
+                Pedido pedido = new Pedido();
+                pedido.setFecha(LocalDateTime.now());
+                pedido.setEstado(estado);
+                pedido.setTipoEnvio(TipoEnvio.DELIVERY);
+                pedido.setTotal(GASEOSAS_POR_PEDIDO * 1000.0);
+                pedido.setTotalCosto(GASEOSAS_POR_PEDIDO * 400.0);
+                pedido.setCliente(cliente);
+                pedido.setSucursal(sucursal);
+
+                DetallePedido detalle = new DetallePedido();
+                detalle.setArticulo(gaseosa);
+                detalle.setCantidad(GASEOSAS_POR_PEDIDO);
+                detalle.setPrecioUnitarioOriginal(1000.0);
+                detalle.setSubtotal(GASEOSAS_POR_PEDIDO * 1000.0);
+                detalle.setPedido(pedido);
+                pedido.getDetalles().add(detalle);
+                em.persist(pedido);
+                pedidos.add(pedido);
+            }
+
+            em.getTransaction().commit();
+            idGaseosa = gaseosa.getIdArticulo();
+            return pedidos.stream().map(Pedido::getIdPedido).toList();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+-- Tablas de stock y costos con las columnas que leen los servicios por JDBC (mismos nombres que
+-- las entidades). Sin claves foráneas y con valores por defecto: cada prueba inserta solo lo que usa.
+DROP TABLE IF EXISTS snapshot_stock;
+DROP TABLE IF EXISTS movimiento_stock;
+DROP TABLE IF EXISTS compra_insumo;
+DROP TABLE IF EXISTS articulo_manufacturado;
+DROP TABLE IF EXISTS articulo_insumo;
+DROP TABLE IF EXISTS articulo;
+
+CREATE TABLE articulo (
+    id_articulo BIGINT PRIMARY KEY,
+    denominacion VARCHAR(100),
+    precio_venta DOUBLE DEFAULT 0 NOT NULL
+);
+
+CREATE TABLE articulo_insumo (
+    id_articulo BIGINT PRIMARY KEY,
+    stock_actual INT DEFAULT 0 NOT NULL,
+    stock_maximo INT DEFAULT 0 NOT NULL,
+    precio_compra DOUBLE DEFAULT 0 NOT NULL,
+    costo_promedio DOUBLE
+);
+
+CREATE TABLE articulo_manufacturado (
+    id_articulo BIGINT PRIMARY KEY,
+    margen_ganancia DOUBLE
+);
+
+CREATE TABLE compra_insumo (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_articulo_insumo BIGINT,
+    cantidad DOUBLE,
+    precio_unitario DOUBLE,
+    fecha_compra DATE
+);
+
+CREATE TABLE movimiento_stock (
+    id_movimiento BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_insumo BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    cantidad INT NOT NULL,
+    id_pedido BIGINT,
+    fecha TIMESTAMP NOT NULL
+);
+
+CREATE TABLE snapshot_stock (
+    id_snapshot BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id_insumo BIGINT NOT NULL,
+    stock INT NOT NULL,
+    fecha TIMESTAMP NOT NULL
+);